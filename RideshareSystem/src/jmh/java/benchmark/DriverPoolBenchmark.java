@@ -0,0 +1,130 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pool operations against a pool holding the whole dataset.
+ * Adding and removing change the pool, so they run as batches of {@value #BATCH} calls
+ * measured in one shot, each batch starting from a freshly built pool.
+ * Driver info is printed to standard output, which is discarded; the pool's own messages
+ * go through the rate-limited {@code EventSink} and cost the producer only a queue slot.
+ */
+@Fork(1)
+@State(Scope.Thread)
+public class DriverPoolBenchmark {
+    static final int BATCH = 1000;
+
+    private PrintStream standardOut;
+    private Object pool;
+    private Object[] drivers;
+    private String[] licenseNumbers;
+    private String[] lastNames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void prepare(GeneratedDataset dataset) {
+        standardOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        drivers = dataset.drivers.toArray();
+        licenseNumbers = new String[drivers.length];
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < drivers.length; i++) {
+            licenseNumbers[i] = RideshareApi.LICENSE_NUMBER.apply(drivers[i]);
+            names.add(RideshareApi.LAST_NAME.apply(drivers[i]));
+        }
+        lastNames = names.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(standardOut);
+    }
+
+    // fills a new pool with every driver from an index on
+    private void fillPool(int from) {
+        pool = RideshareApi.NEW_POOL.get();
+        for (int i = from; i < drivers.length; i++) {
+            RideshareApi.ADD_DRIVER.accept(pool, drivers[i]);
+        }
+        next = 0;
+    }
+
+    /**
+     * Builds a pool without the first {@value #BATCH} drivers, which the add benchmark then adds.
+     */
+    @State(Scope.Thread)
+    public static class AddState {
+        @Setup(Level.Iteration)
+        public void build(DriverPoolBenchmark benchmark) {
+            benchmark.fillPool(Math.min(BATCH, benchmark.drivers.length));
+        }
+    }
+
+    /**
+     * Builds a pool with every driver, from which the remove benchmark removes the first {@value #BATCH}.
+     */
+    @State(Scope.Thread)
+    public static class RemoveState {
+        @Setup(Level.Iteration)
+        public void build(DriverPoolBenchmark benchmark) {
+            benchmark.fillPool(0);
+        }
+    }
+
+    /**
+     * Builds a pool with every driver once, for the read-only benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class QueryState {
+        @Setup(Level.Trial)
+        public void build(DriverPoolBenchmark benchmark) {
+            benchmark.fillPool(0);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 10, batchSize = BATCH)
+    public void addDriver(AddState state) {
+        RideshareApi.ADD_DRIVER.accept(pool, drivers[next++]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 10, batchSize = BATCH)
+    public void removeDriver(RemoveState state) {
+        RideshareApi.REMOVE_DRIVER.accept(pool, licenseNumbers[next++]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void provideDriverInfo(QueryState state) {
+        String lastName = lastNames[next];
+        next = next + 1 == lastNames.length ? 0 : next + 1;
+        RideshareApi.PROVIDE_DRIVER_INFO.accept(pool, lastName);
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A synthetic dataset shared by all threads of a benchmark trial, written to a temporary
+ * directory and loaded once. The same seed is used for every size, so smaller datasets
+ * are prefixes of larger ones.
+ */
+@State(Scope.Benchmark)
+public class GeneratedDataset {
+    static final long SEED = 42L;
+
+    @Param({"1000", "10000", "100000"})
+    public int driverCount;
+
+    Path directory;
+    List<?> drivers;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("rideshare-jmh");
+        RideshareApi.generate(RideshareApi.NEW_GENERATOR.apply(SEED, LocalDate.now())).accept(directory, driverCount);
+        drivers = RideshareApi.LOAD_DATA.apply(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,171 @@
+package benchmark;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * The application methods the benchmarks call, as JDK functional interfaces. JMH does not
+ * generate benchmarks in the unnamed package, and classes in a named package cannot refer
+ * to the unnamed package by name, so the benchmarks cannot call the application directly.
+ * Each method is looked up once and turned into an implementation of a functional interface
+ * by {@link LambdaMetafactory}, the same way the compiler turns a method reference into one:
+ * the generated class calls the application method with a plain invokevirtual or
+ * invokestatic, so a measured call is an interface call to a direct call, not a reflective one.
+ * Application objects are passed around as plain Objects.
+ *
+ * Some of the methods throw checked exceptions, which the functional interfaces do not
+ * declare; the exceptions still propagate unchanged.
+ */
+final class RideshareApi {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Class<?> DRIVER = type("Driver");
+    private static final Class<?> NAME = type("Name");
+    private static final Class<?> DRIVER_LICENSE = type("DriverLicense");
+    private static final Class<?> LOADER = type("RideshareDriverValidator");
+    private static final Class<?> VALIDATOR = type("RegistrationValidator");
+    private static final Class<?> POOL = type("DriverPoolManager");
+    private static final Class<?> GENERATOR = type("SyntheticDataGenerator");
+
+    /** RideshareDriverValidator.loadData(Path); throws IOException. */
+    static final Function<Path, List<?>> LOAD_DATA = implement(Function.class,
+            findStatic(LOADER, "loadData", methodType(List.class, Path.class)));
+    /** RideshareDriverValidator.parseDate(String), which is package-private. */
+    static final Function<String, Date> PARSE_DATE = implement(Function.class,
+            findStatic(LOADER, "parseDate", methodType(Date.class, String.class)));
+    /** new SyntheticDataGenerator(long seed, LocalDate referenceDate). */
+    static final BiFunction<Long, LocalDate, Object> NEW_GENERATOR = implement(BiFunction.class,
+            constructor(GENERATOR, methodType(void.class, long.class, LocalDate.class)));
+
+    /** new RegistrationValidator(). */
+    static final Supplier<Object> NEW_VALIDATOR = implement(Supplier.class, constructor(VALIDATOR, methodType(void.class)));
+    /** (pool, driver): DriverPoolManager.addDriver(Driver). */
+    static final BiConsumer<Object, Object> ADD_DRIVER = implement(BiConsumer.class,
+            findVirtual(POOL, "addDriver", methodType(void.class, DRIVER)));
+    /** (pool, licenseNumber): DriverPoolManager.removeDriver(String). */
+    static final BiConsumer<Object, String> REMOVE_DRIVER = implement(BiConsumer.class,
+            findVirtual(POOL, "removeDriver", methodType(void.class, String.class)));
+    /** (pool, lastName): DriverPoolManager.provideDriverInfo(String). */
+    static final BiConsumer<Object, String> PROVIDE_DRIVER_INFO = implement(BiConsumer.class,
+            findVirtual(POOL, "provideDriverInfo", methodType(void.class, String.class)));
+    /** new DriverPoolManager(). */
+    static final Supplier<Object> NEW_POOL = implement(Supplier.class, constructor(POOL, methodType(void.class)));
+
+    /** The driver's license number. */
+    static final Function<Object, String> LICENSE_NUMBER = RideshareApi.<Function<Object, Object>>implement(Function.class,
+            findVirtual(DRIVER, "getDriverLicense", methodType(DRIVER_LICENSE)))
+            .andThen(implement(Function.class, findVirtual(DRIVER_LICENSE, "getLicenseNumber", methodType(String.class))));
+    /** The driver's last name. */
+    static final Function<Object, String> LAST_NAME = RideshareApi.<Function<Object, Object>>implement(Function.class,
+            findVirtual(DRIVER, "getName", methodType(NAME)))
+            .andThen(implement(Function.class, findVirtual(NAME, "getLastName", methodType(String.class))));
+
+    private RideshareApi() {}
+
+    /**
+     * Gets RegistrationValidator.validate(Driver) bound to a validator.
+     * @param validator The validator.
+     * @return A predicate that validates a driver.
+     */
+    static Predicate<Object> validate(Object validator) {
+        return implement(Predicate.class, findVirtual(VALIDATOR, "validate", methodType(boolean.class, DRIVER)), validator);
+    }
+
+    /**
+     * Gets SyntheticDataGenerator.generate(Path, int) bound to a generator; throws IOException.
+     * @param generator The generator.
+     * @return A consumer that writes a dataset of the given size to a directory.
+     */
+    static ObjIntConsumer<Path> generate(Object generator) {
+        return implement(ObjIntConsumer.class, findVirtual(GENERATOR, "generate", methodType(void.class, Path.class, int.class)), generator);
+    }
+
+    /**
+     * Implements a functional interface by calling a method, as a method reference would.
+     * @param functionalInterface The interface to implement.
+     * @param target The method to call; its leading parameters are bound to the captured values.
+     * @param captured The values bound to the leading parameters, such as the receiver.
+     * @return The implementation.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T implement(Class<?> functionalInterface, MethodHandle target, Object... captured) {
+        Method method = singleAbstractMethod(functionalInterface);
+        MethodType samType = methodType(method.getReturnType(), method.getParameterTypes());
+        MethodType targetType = target.type();
+        MethodType capturedType = targetType.dropParameterTypes(captured.length, targetType.parameterCount());
+        // the interface's erased types, narrowed to the target's types where the interface takes objects
+        MethodType instantiatedType = targetType.dropParameterTypes(0, captured.length);
+        for (int i = 0; i < samType.parameterCount(); i++) {
+            if (!samType.parameterType(i).isPrimitive()) {
+                instantiatedType = instantiatedType.changeParameterType(i, instantiatedType.wrap().parameterType(i));
+            }
+        }
+        instantiatedType = instantiatedType.changeReturnType(samType.returnType().isPrimitive()
+                ? samType.returnType() : instantiatedType.wrap().returnType());
+        try {
+            // the implementation is defined in the application's package, so it may call package-private methods
+            MethodHandle factory = LambdaMetafactory.metafactory(MethodHandles.privateLookupIn(LOADER, LOOKUP), method.getName(),
+                    capturedType.changeReturnType(functionalInterface), samType, target, instantiatedType).getTarget();
+            return (T) factory.invokeWithArguments(captured);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot implement " + functionalInterface.getName() + " with " + target, e);
+        }
+    }
+
+    private static Method singleAbstractMethod(Class<?> functionalInterface) {
+        for (Method method : functionalInterface.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(functionalInterface.getName() + " is not a functional interface.");
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle findStatic(Class<?> owner, String name, MethodType type) {
+        try {
+            return MethodHandles.privateLookupIn(owner, LOOKUP).findStatic(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle findVirtual(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, MethodType type) {
+        try {
+            return LOOKUP.findConstructor(owner, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
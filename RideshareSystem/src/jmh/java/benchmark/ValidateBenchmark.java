@@ -0,0 +1,67 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures validating one driver, separately for drivers that pass every check and
+ * drivers that are rejected. Each call validates the next driver of the dataset, so
+ * the measurement covers the whole mix of histories rather than a single cached driver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidateBenchmark {
+    private Predicate<Object> validate;
+    private Object[] validDrivers;
+    private Object[] rejectedDrivers;
+    private int nextValid;
+    private int nextRejected;
+
+    @Setup(Level.Trial)
+    public void split(GeneratedDataset dataset) {
+        validate = RideshareApi.validate(RideshareApi.NEW_VALIDATOR.get());
+        List<Object> valid = new ArrayList<>();
+        List<Object> rejected = new ArrayList<>();
+        for (Object driver : dataset.drivers) {
+            if (validate.test(driver)) {
+                valid.add(driver);
+            } else {
+                rejected.add(driver);
+            }
+        }
+        validDrivers = valid.toArray();
+        rejectedDrivers = rejected.toArray();
+    }
+
+    @Benchmark
+    public boolean validateAccepted() {
+        Object driver = validDrivers[nextValid];
+        nextValid = nextValid + 1 == validDrivers.length ? 0 : nextValid + 1;
+        return validate.test(driver);
+    }
+
+    @Benchmark
+    public boolean validateRejected() {
+        Object driver = rejectedDrivers[nextRejected];
+        nextRejected = nextRejected + 1 == rejectedDrivers.length ? 0 : nextRejected + 1;
+        return validate.test(driver);
+    }
+}
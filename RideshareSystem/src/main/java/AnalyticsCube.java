@@ -0,0 +1,453 @@
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts for dashboards, kept up to date as drivers come and go instead of computed by a pass
+ * over all drivers: violations by type, state of issuance and month; crashes by type, state
+ * and month; and verdicts, the accepted drivers and the rejections by the check that failed,
+ * by state. Counters are plain longs in arrays indexed by dimension codes: the packed history
+ * type codes, the {@link ValidationCheck} ordinals, and codes the cube hands out to states and
+ * months as it first sees them. Roll-ups and slices add up counters and never touch a driver.
+ *
+ * Drivers are added when ingested and removed when they leave, directly or by registering the
+ * cube with {@link DriverPoolManager#addMutationListener(PoolMutationListener)}. The cube
+ * remembers what each driver contributed, so a removal takes back exactly that even if the
+ * driver's histories have grown since; {@link #refresh(Driver)} counts a driver again.
+ * Events without a date are not counted. {@link #verify(Collection)} compares the counters
+ * with a recomputation from scratch.
+ */
+public class AnalyticsCube implements PoolMutationListener {
+    private static final int VIOLATION_TYPES = PackedHistory.VIOLATION_CODE_COUNT;
+    private static final int CRASH_TYPES = PackedHistory.CRASH_CODE_COUNT;
+    // verdict codes are the check ordinals, with acceptance after them
+    private static final int ACCEPTED = ValidationCheck.values().length;
+    private static final int VERDICTS = ACCEPTED + 1;
+    // a counted event is its month code times this plus its type code
+    private static final int TYPE_SLOTS = 16;
+
+    private final RegistrationValidator validator;
+    private final Map<String, Integer> stateCodes = new HashMap<>();
+    private final List<String> states = new ArrayList<>();
+    private final Map<Integer, Integer> monthCodes = new HashMap<>(); // by epoch month
+    private final List<YearMonth> months = new ArrayList<>();
+    private final Map<Driver, Contribution> contributions = new IdentityHashMap<>();
+
+    // [state][month * types + type]
+    private long[][] violationCounts = new long[8][];
+    private long[][] crashCounts = new long[8][];
+    // [state * VERDICTS + verdict]
+    private long[] verdictCounts = new long[8 * VERDICTS];
+
+    // what one driver added to the counters
+    private static final class Contribution {
+        final int state;
+        final int verdict;
+        final int[] violations;
+        final int[] crashes;
+
+        Contribution(int state, int verdict, int[] violations, int[] crashes) {
+            this.state = state;
+            this.verdict = verdict;
+            this.violations = violations;
+            this.crashes = crashes;
+        }
+    }
+
+    /**
+     * Constructs an empty cube.
+     * @param validator The validator that decides the verdict of a counted driver.
+     */
+    public AnalyticsCube(RegistrationValidator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Counts a driver; a driver that is already counted is counted again.
+     * @param driver The driver.
+     */
+    public synchronized void add(Driver driver) {
+        if (contributions.containsKey(driver)) {
+            remove(driver);
+        }
+        String state = driver.getDriverLicense() == null ? null : driver.getDriverLicense().getStateOfIssuance();
+        int stateCode = stateCode(state);
+        ValidationCheck rejectedBy = validator.firstFailedCheck(validator.summarize(driver));
+        int verdict = rejectedBy == null ? ACCEPTED : rejectedBy.ordinal();
+
+        int[] violations = new int[0];
+        if (driver.getDriverHistory() != null) {
+            violations = cells(driver.getDriverHistory().getViolationLog());
+        }
+        int[] crashes = new int[0];
+        if (driver.getVehicleHistory() != null) {
+            crashes = cells(driver.getVehicleHistory().getCrashLog());
+        }
+        Contribution contribution = new Contribution(stateCode, verdict, violations, crashes);
+        apply(contribution, 1);
+        contributions.put(driver, contribution);
+    }
+
+    /**
+     * Takes back what a driver was counted as. Drivers that are not counted are ignored.
+     * @param driver The driver.
+     */
+    public synchronized void remove(Driver driver) {
+        Contribution contribution = contributions.remove(driver);
+        if (contribution != null) {
+            apply(contribution, -1);
+        }
+    }
+
+    /**
+     * Counts a driver again, after their histories changed or time has passed.
+     * Drivers that are not counted are ignored.
+     * @param driver The driver.
+     */
+    public synchronized void refresh(Driver driver) {
+        if (contributions.containsKey(driver)) {
+            add(driver);
+        }
+    }
+
+    /**
+     * Gets the number of counted drivers.
+     * @return The number of drivers.
+     */
+    public synchronized int getDriverCount() {
+        return contributions.size();
+    }
+
+    @Override
+    public void onDriverAdded(Driver driver) {
+        add(driver);
+    }
+
+    @Override
+    public void onDriverRemoved(Driver driver) {
+        remove(driver);
+    }
+
+    @Override
+    public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+    }
+
+    @Override
+    public void onVehicleReleased(String vehicleId, String licenseNumber) {
+    }
+
+    /**
+     * Counts violations.
+     * @param violationType The type, or null for all types.
+     * @param state The state of issuance, or null for all states.
+     * @param from The first month, or null for no lower bound.
+     * @param to The last month, or null for no upper bound.
+     * @return The number of violations.
+     */
+    public synchronized long countViolations(String violationType, String state, YearMonth from, YearMonth to) {
+        int type = violationType == null ? -1 : PackedHistory.violationCode(violationType);
+        return count(violationCounts, type, state, from, to);
+    }
+
+    /**
+     * Counts crashes.
+     * @param crashType The type, or null for all types.
+     * @param state The state of issuance, or null for all states.
+     * @param from The first month, or null for no lower bound.
+     * @param to The last month, or null for no upper bound.
+     * @return The number of crashes.
+     */
+    public synchronized long countCrashes(String crashType, String state, YearMonth from, YearMonth to) {
+        int type = crashType == null ? -1 : PackedHistory.crashCode(crashType);
+        return count(crashCounts, type, state, from, to);
+    }
+
+    /**
+     * Counts rejected drivers.
+     * @param reason The check that rejected them, or null for all rejections.
+     * @param state The state of issuance, or null for all states.
+     * @return The number of rejected drivers.
+     */
+    public synchronized long countRejections(ValidationCheck reason, String state) {
+        long count = 0;
+        for (int verdict = 0; verdict < ACCEPTED; verdict++) {
+            if (reason == null || reason.ordinal() == verdict) {
+                count += countVerdicts(verdict, state);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts accepted drivers.
+     * @param state The state of issuance, or null for all states.
+     * @return The number of accepted drivers.
+     */
+    public synchronized long countAccepted(String state) {
+        return countVerdicts(ACCEPTED, state);
+    }
+
+    /**
+     * Slices the violations by type.
+     * @param state The state of issuance, or null for all states.
+     * @param from The first month, or null for no lower bound.
+     * @param to The last month, or null for no upper bound.
+     * @return The number of violations of every type, in the order of the factory's types.
+     */
+    public synchronized Map<String, Long> violationsByType(String state, YearMonth from, YearMonth to) {
+        Map<String, Long> slice = new LinkedHashMap<>();
+        for (int type = 0; type < VIOLATION_TYPES; type++) {
+            slice.put(PackedHistory.violationType(type), count(violationCounts, type, state, from, to));
+        }
+        return slice;
+    }
+
+    /**
+     * Slices the crashes by type.
+     * @param state The state of issuance, or null for all states.
+     * @param from The first month, or null for no lower bound.
+     * @param to The last month, or null for no upper bound.
+     * @return The number of crashes of every type, in the order of the factory's types.
+     */
+    public synchronized Map<String, Long> crashesByType(String state, YearMonth from, YearMonth to) {
+        Map<String, Long> slice = new LinkedHashMap<>();
+        for (int type = 0; type < CRASH_TYPES; type++) {
+            slice.put(PackedHistory.crashType(type), count(crashCounts, type, state, from, to));
+        }
+        return slice;
+    }
+
+    /**
+     * Slices the violations by month.
+     * @param violationType The type, or null for all types.
+     * @param state The state of issuance, or null for all states.
+     * @return The number of violations in every month that has any, in month order.
+     */
+    public synchronized Map<YearMonth, Long> violationsByMonth(String violationType, String state) {
+        Map<YearMonth, Long> slice = new TreeMap<>();
+        for (YearMonth month : months) {
+            long count = countViolations(violationType, state, month, month);
+            if (count != 0) {
+                slice.put(month, count);
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Slices the rejections by state of issuance.
+     * @param reason The check that rejected the drivers, or null for all rejections.
+     * @return The number of rejections in every state that has any, in state order.
+     */
+    public synchronized Map<String, Long> rejectionsByState(ValidationCheck reason) {
+        Map<String, Long> slice = new TreeMap<>();
+        for (String state : states) {
+            long count = countRejections(reason, state);
+            if (count != 0) {
+                slice.put(state, count);
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Compares the counters with counters recomputed from scratch for the given drivers,
+     * which should be the drivers the cube has counted.
+     * @param drivers The drivers.
+     * @return A description of every counter that differs; empty if the cube is consistent.
+     */
+    public List<String> verify(Collection<Driver> drivers) {
+        AnalyticsCube recomputed = new AnalyticsCube(validator);
+        for (Driver driver : drivers) {
+            recomputed.add(driver);
+        }
+        Map<String, Long> expected = recomputed.counters();
+        Map<String, Long> actual = counters();
+        List<String> mismatches = new ArrayList<>();
+        for (Map.Entry<String, Long> cell : expected.entrySet()) {
+            long count = actual.getOrDefault(cell.getKey(), 0L);
+            if (count != cell.getValue()) {
+                mismatches.add(cell.getKey() + ": " + count + ", expected " + cell.getValue());
+            }
+        }
+        for (Map.Entry<String, Long> cell : actual.entrySet()) {
+            if (!expected.containsKey(cell.getKey())) {
+                mismatches.add(cell.getKey() + ": " + cell.getValue() + ", expected 0");
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Prints the roll-ups of the dashboards.
+     * @param out The stream to print to.
+     */
+    public synchronized void print(PrintStream out) {
+        out.printf("Cube: %d drivers, %d violations, %d crashes, %d accepted, %d rejected%n", getDriverCount(),
+                countViolations(null, null, null, null), countCrashes(null, null, null, null),
+                countAccepted(null), countRejections(null, null));
+        out.println("  violations by type: " + violationsByType(null, null, null));
+        out.println("  crashes by type: " + crashesByType(null, null, null));
+        Map<String, Long> reasons = new LinkedHashMap<>();
+        for (ValidationCheck check : ValidationCheck.values()) {
+            reasons.put(check.name(), countRejections(check, null));
+        }
+        out.println("  rejections by reason: " + reasons);
+        out.println("  rejections by state: " + rejectionsByState(null));
+    }
+
+    // every non-zero counter, keyed by the names of its dimension values
+    private synchronized Map<String, Long> counters() {
+        Map<String, Long> cells = new HashMap<>();
+        for (int state = 0; state < states.size(); state++) {
+            for (int month = 0; month < months.size(); month++) {
+                for (int type = 0; type < VIOLATION_TYPES; type++) {
+                    putCell(cells, "violation|" + type + "|" + states.get(state) + "|" + months.get(month),
+                            cell(violationCounts, state, month * TYPE_SLOTS + type));
+                }
+                for (int type = 0; type < CRASH_TYPES; type++) {
+                    putCell(cells, "crash|" + type + "|" + states.get(state) + "|" + months.get(month),
+                            cell(crashCounts, state, month * TYPE_SLOTS + type));
+                }
+            }
+            for (int verdict = 0; verdict < VERDICTS; verdict++) {
+                putCell(cells, "verdict|" + verdict + "|" + states.get(state), verdictCounts[state * VERDICTS + verdict]);
+            }
+        }
+        return cells;
+    }
+
+    private static void putCell(Map<String, Long> cells, String key, long count) {
+        if (count != 0) {
+            cells.put(key, count);
+        }
+    }
+
+    private static long cell(long[][] counts, int state, int index) {
+        long[] row = counts[state];
+        return row == null || index >= row.length ? 0 : row[index];
+    }
+
+    // the counted events of a packed history, as month code times TYPE_SLOTS plus type code
+    private int[] cells(PackedHistory history) {
+        int[] cells = new int[history.size()];
+        int count = 0;
+        for (int i = 0; i < history.size(); i++) {
+            int day = history.getDay(i);
+            if (day != PackedHistory.NO_DAY) {
+                cells[count++] = monthCode(YearMonth.from(LocalDate.ofEpochDay(day))) * TYPE_SLOTS + history.getCode(i);
+            }
+        }
+        return count == cells.length ? cells : Arrays.copyOf(cells, count);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        for (int cell : contribution.violations) {
+            row(violationCounts, contribution.state, cell)[cell] += sign;
+        }
+        for (int cell : contribution.crashes) {
+            row(crashCounts, contribution.state, cell)[cell] += sign;
+        }
+        verdictCounts[contribution.state * VERDICTS + contribution.verdict] += sign;
+    }
+
+    // the counters of a state, grown to hold an index
+    private static long[] row(long[][] counts, int state, int index) {
+        long[] row = counts[state];
+        if (row == null || index >= row.length) {
+            row = Arrays.copyOf(row == null ? new long[0] : row, Math.max(index + 1, row == null ? 4 * TYPE_SLOTS : row.length * 2));
+            counts[state] = row;
+        }
+        return row;
+    }
+
+    private long count(long[][] counts, int type, String state, YearMonth from, YearMonth to) {
+        int stateCode = -1;
+        if (state != null) {
+            Integer code = stateCodes.get(normalize(state));
+            if (code == null) {
+                return 0;
+            }
+            stateCode = code;
+        }
+        long count = 0;
+        for (int month = 0; month < months.size(); month++) {
+            YearMonth yearMonth = months.get(month);
+            if ((from != null && yearMonth.isBefore(from)) || (to != null && yearMonth.isAfter(to))) {
+                continue;
+            }
+            for (int s = stateCode < 0 ? 0 : stateCode; s < (stateCode < 0 ? states.size() : stateCode + 1); s++) {
+                long[] row = counts[s];
+                if (row == null) {
+                    continue;
+                }
+                int base = month * TYPE_SLOTS;
+                if (type >= 0) {
+                    count += base + type < row.length ? row[base + type] : 0;
+                } else {
+                    for (int t = base; t < Math.min(base + TYPE_SLOTS, row.length); t++) {
+                        count += row[t];
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private long countVerdicts(int verdict, String state) {
+        if (state != null) {
+            Integer code = stateCodes.get(normalize(state));
+            return code == null ? 0 : verdictCounts[code * VERDICTS + verdict];
+        }
+        long count = 0;
+        for (int s = 0; s < states.size(); s++) {
+            count += verdictCounts[s * VERDICTS + verdict];
+        }
+        return count;
+    }
+
+    private int stateCode(String state) {
+        String key = normalize(state);
+        Integer code = stateCodes.get(key);
+        if (code != null) {
+            return code;
+        }
+        code = states.size();
+        stateCodes.put(key, code);
+        states.add(key);
+        if (code == violationCounts.length) {
+            violationCounts = Arrays.copyOf(violationCounts, code * 2);
+            crashCounts = Arrays.copyOf(crashCounts, code * 2);
+        }
+        if ((code + 1) * VERDICTS > verdictCounts.length) {
+            verdictCounts = Arrays.copyOf(verdictCounts, verdictCounts.length * 2);
+        }
+        return code;
+    }
+
+    private int monthCode(YearMonth month) {
+        int epochMonth = month.getYear() * 12 + month.getMonthValue() - 1;
+        Integer code = monthCodes.get(epochMonth);
+        if (code == null) {
+            code = months.size();
+            monthCodes.put(epochMonth, code);
+            months.add(month);
+        }
+        return code;
+    }
+
+    // states are compared without case; a missing state is counted as the empty state
+    private static String normalize(String state) {
+        return state == null ? "" : state.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,324 @@
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An immutable, compact form of a {@link Driver} and everything it references, made by a
+ * {@link CompactDriverEncoder}. Names are kept as pairs of shared strings instead of
+ * {@link Name} objects, dates as days since 1970-01-01 instead of {@link Date} objects,
+ * vehicles in an exact-sized array, and histories as parallel arrays of days and type codes.
+ * Drivers without violations or crashes all share the same empty arrays.
+ * {@link #toDriver()} rebuilds an equal driver in the regular model.
+ */
+public final class CompactDriver {
+    private final String id;
+    private final String firstName;
+    private final String lastName;
+    private final int birthDay;
+
+    private final String licenseNumber;
+    private final String licenseFirstName;
+    private final String licenseLastName;
+    private final String address;
+    private final int licenseBirthDay;
+    private final String countryOfIssuance;
+    private final String stateOfIssuance;
+    private final int issuedDay;
+    private final int expirationDay;
+
+    private final CompactVehicle[] vehicles;
+
+    // the insurance, if the driver has one
+    private final boolean insured;
+    private final CompactVehicle insuredVehicle;
+    private final String insuranceOwnerFirstName;
+    private final String insuranceOwnerLastName;
+    private final String[] insuredDriverNames; // first and last names, alternating
+    private final int insuranceExpirationDay;
+
+    // the histories; null arrays mean the driver has no such history object
+    private final int[] violationDays;
+    private final byte[] violationCodes;
+    private final int[] crashDays;
+    private final byte[] crashCodes;
+    private final String[] crashOffenderNames; // first and last names, alternating
+    private final int[] vehicleViolationDays;
+    private final byte[] vehicleViolationCodes;
+
+    private final ZoneId zone; // the zone days convert back to dates in
+
+    // copies a driver, sharing repeated strings through the encoder
+    CompactDriver(Driver driver, CompactDriverEncoder encoder) {
+        this.zone = encoder.getZone();
+        this.id = encoder.copy(driver.getId());
+        Name name = driver.getName();
+        this.firstName = name == null ? null : encoder.intern(name.getFirstName());
+        this.lastName = name == null ? null : encoder.intern(name.getLastName());
+        this.birthDay = encoder.toDay(driver.getBirthDate());
+
+        DriverLicense license = driver.getDriverLicense();
+        Name licenseName = license == null ? null : license.getName();
+        this.licenseNumber = license == null ? null : encoder.copy(license.getLicenseNumber());
+        this.licenseFirstName = licenseName == null ? null : encoder.intern(licenseName.getFirstName());
+        this.licenseLastName = licenseName == null ? null : encoder.intern(licenseName.getLastName());
+        this.address = license == null ? null : encoder.intern(license.getAddress());
+        this.licenseBirthDay = license == null ? CompactDriverEncoder.NO_DATE : encoder.toDay(license.getBirthDate());
+        this.countryOfIssuance = license == null ? null : encoder.intern(license.getCountryOfIssuance());
+        this.stateOfIssuance = license == null ? null : encoder.intern(license.getStateOfIssuance());
+        this.issuedDay = license == null ? CompactDriverEncoder.NO_DATE : encoder.toDay(license.getIssuedDate());
+        this.expirationDay = license == null ? CompactDriverEncoder.NO_DATE : encoder.toDay(license.getExpirationDate());
+
+        List<Vehicle> driverVehicles = driver.getVehicles();
+        if (driverVehicles == null || driverVehicles.isEmpty()) {
+            this.vehicles = CompactDriverEncoder.EMPTY_VEHICLES;
+        } else {
+            this.vehicles = new CompactVehicle[driverVehicles.size()];
+            for (int i = 0; i < vehicles.length; i++) {
+                vehicles[i] = new CompactVehicle(driverVehicles.get(i), encoder);
+            }
+        }
+
+        VehicleInsurance insurance = driver.getInsurance();
+        this.insured = insurance != null;
+        if (insurance == null) {
+            this.insuredVehicle = null;
+            this.insuranceOwnerFirstName = null;
+            this.insuranceOwnerLastName = null;
+            this.insuredDriverNames = null;
+            this.insuranceExpirationDay = CompactDriverEncoder.NO_DATE;
+        } else {
+            // the insured vehicle is normally one of the driver's own; share it if so
+            Vehicle vehicle = insurance.getVehicle();
+            int index = driverVehicles == null ? -1 : indexOfSame(driverVehicles, vehicle);
+            this.insuredVehicle = index >= 0 ? vehicles[index] : vehicle == null ? null : new CompactVehicle(vehicle, encoder);
+            Name owner = insurance.getOfficialOwner();
+            this.insuranceOwnerFirstName = owner == null ? null : encoder.intern(owner.getFirstName());
+            this.insuranceOwnerLastName = owner == null ? null : encoder.intern(owner.getLastName());
+            this.insuredDriverNames = toNamePairs(insurance.getInsuredDrivers(), encoder);
+            this.insuranceExpirationDay = encoder.toDay(insurance.getExpirationDate());
+        }
+
+        DriverHistory driverHistory = driver.getDriverHistory();
+        List<Violation> violations = driverHistory == null ? null : driverHistory.getViolations();
+        this.violationDays = violations == null ? null : toDays(violations, encoder);
+        this.violationCodes = violations == null ? null : toCodes(violations);
+
+        VehicleHistory vehicleHistory = driver.getVehicleHistory();
+        if (vehicleHistory == null) {
+            this.crashDays = null;
+            this.crashCodes = null;
+            this.crashOffenderNames = null;
+            this.vehicleViolationDays = null;
+            this.vehicleViolationCodes = null;
+        } else {
+            List<Crash> crashes = vehicleHistory.getCrashes();
+            if (crashes.isEmpty()) {
+                this.crashDays = CompactDriverEncoder.EMPTY_DATES;
+                this.crashCodes = CompactDriverEncoder.EMPTY_CODES;
+                this.crashOffenderNames = CompactDriverEncoder.EMPTY_STRINGS;
+            } else {
+                this.crashDays = new int[crashes.size()];
+                this.crashCodes = new byte[crashes.size()];
+                List<Name> offenders = new ArrayList<>(crashes.size());
+                for (int i = 0; i < crashes.size(); i++) {
+                    crashDays[i] = encoder.toDay(crashes.get(i).getDate());
+                    crashCodes[i] = CompactDriverEncoder.crashCode(crashes.get(i));
+                    offenders.add(crashes.get(i).getOffendingDriver());
+                }
+                this.crashOffenderNames = toNamePairs(offenders, encoder);
+            }
+            List<Violation> vehicleViolations = vehicleHistory.getViolations();
+            this.vehicleViolationDays = toDays(vehicleViolations, encoder);
+            this.vehicleViolationCodes = toCodes(vehicleViolations);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Gets the birth date of the driver.
+     * @return The birth date as days since 1970-01-01.
+     */
+    public int getBirthDay() {
+        return birthDay;
+    }
+
+    public String getLicenseNumber() {
+        return licenseNumber;
+    }
+
+    /**
+     * Gets the expiration date of the driver's license.
+     * @return The expiration date as days since 1970-01-01.
+     */
+    public int getLicenseExpirationDay() {
+        return expirationDay;
+    }
+
+    /**
+     * Gets the number of vehicles of the driver.
+     * @return The number of vehicles.
+     */
+    public int getVehicleCount() {
+        return vehicles.length;
+    }
+
+    /**
+     * Gets a vehicle of the driver.
+     * @param index The position of the vehicle, in the order of the driver's vehicle list.
+     * @return The vehicle.
+     */
+    public CompactVehicle getVehicle(int index) {
+        return vehicles[index];
+    }
+
+    /**
+     * Gets the number of violations in the driver's history.
+     * @return The number of violations.
+     */
+    public int getViolationCount() {
+        return violationDays == null ? 0 : violationDays.length;
+    }
+
+    /**
+     * Gets the date of a violation in the driver's history.
+     * @param index The position of the violation.
+     * @return The date as days since 1970-01-01.
+     */
+    public int getViolationDay(int index) {
+        return violationDays[index];
+    }
+
+    /**
+     * Builds an equivalent driver in the regular model, with new objects throughout.
+     * @return A new Driver equal to the one this was encoded from.
+     */
+    public Driver toDriver() {
+        Name name = toName(firstName, lastName);
+        DriverLicense license = licenseNumber == null ? null : new DriverLicense(licenseNumber,
+                toName(licenseFirstName, licenseLastName), address, toDate(licenseBirthDay),
+                countryOfIssuance, stateOfIssuance, toDate(issuedDay), toDate(expirationDay));
+
+        List<Vehicle> driverVehicles = new ArrayList<>(vehicles.length);
+        Vehicle decodedInsuredVehicle = null;
+        for (CompactVehicle vehicle : vehicles) {
+            Vehicle decoded = vehicle.toVehicle();
+            driverVehicles.add(decoded);
+            if (vehicle == insuredVehicle && decodedInsuredVehicle == null) {
+                decodedInsuredVehicle = decoded;
+            }
+        }
+        VehicleInsurance insurance = null;
+        if (insured) {
+            insurance = new VehicleInsurance(toName(insuranceOwnerFirstName, insuranceOwnerLastName),
+                    toNames(insuredDriverNames), toDate(insuranceExpirationDay),
+                    decodedInsuredVehicle != null || insuredVehicle == null ? decodedInsuredVehicle : insuredVehicle.toVehicle());
+        }
+
+        DriverHistory driverHistory = violationDays == null ? null
+                : new DriverHistory(toViolations(violationDays, violationCodes));
+        VehicleHistory vehicleHistory = null;
+        if (crashDays != null) {
+            vehicleHistory = new VehicleHistory(new ArrayList<>(), new ArrayList<>());
+            for (int i = 0; i < crashDays.length; i++) {
+                vehicleHistory.addCrash(new Crash(toDate(crashDays[i]), CompactDriverEncoder.crashType(crashCodes[i]),
+                        toName(crashOffenderNames[2 * i], crashOffenderNames[2 * i + 1])));
+            }
+            for (Violation violation : toViolations(vehicleViolationDays, vehicleViolationCodes)) {
+                vehicleHistory.addViolation(violation);
+            }
+        }
+
+        Driver driver = new Driver(name, toDate(birthDay), license, driverVehicles, insurance, driverHistory, vehicleHistory);
+        driver.setId(id);
+        return driver;
+    }
+
+    private Date toDate(int day) {
+        return CompactDriverEncoder.toDate(day, zone);
+    }
+
+    private List<Violation> toViolations(int[] days, byte[] codes) {
+        List<Violation> violations = new ArrayList<>(days.length);
+        for (int i = 0; i < days.length; i++) {
+            violations.add(CompactDriverEncoder.toViolation(codes[i], toDate(days[i])));
+        }
+        return violations;
+    }
+
+    private static int[] toDays(List<Violation> violations, CompactDriverEncoder encoder) {
+        if (violations.isEmpty()) {
+            return CompactDriverEncoder.EMPTY_DATES;
+        }
+        int[] days = new int[violations.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = encoder.toDay(violations.get(i).getDate());
+        }
+        return days;
+    }
+
+    private static byte[] toCodes(List<Violation> violations) {
+        if (violations.isEmpty()) {
+            return CompactDriverEncoder.EMPTY_CODES;
+        }
+        byte[] codes = new byte[violations.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = CompactDriverEncoder.violationCode(violations.get(i));
+        }
+        return codes;
+    }
+
+    private static String[] toNamePairs(Collection<Name> names, CompactDriverEncoder encoder) {
+        if (names == null) {
+            return null;
+        }
+        if (names.isEmpty()) {
+            return CompactDriverEncoder.EMPTY_STRINGS;
+        }
+        String[] pairs = new String[2 * names.size()];
+        int i = 0;
+        for (Name name : names) {
+            pairs[i++] = name == null ? null : encoder.intern(name.getFirstName());
+            pairs[i++] = name == null ? null : encoder.intern(name.getLastName());
+        }
+        return pairs;
+    }
+
+    private static List<Name> toNames(String[] pairs) {
+        if (pairs == null) {
+            return null;
+        }
+        List<Name> names = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            names.add(toName(pairs[i], pairs[i + 1]));
+        }
+        return names;
+    }
+
+    // a name stored as two nulls was a missing name
+    private static Name toName(String firstName, String lastName) {
+        return firstName == null && lastName == null ? null : new Name(firstName, lastName);
+    }
+
+    // the position of the very object in a list, not merely an equal one
+    private static int indexOfSame(List<Vehicle> vehicles, Vehicle vehicle) {
+        for (int i = 0; i < vehicles.size(); i++) {
+            if (vehicles.get(i) == vehicle) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,109 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts drivers into {@link CompactDriver}s. The encoder keeps a table of the strings it
+ * has seen, so names, makes, colors, addresses and other repeated values are stored once
+ * across all drivers it encodes. Every string a compact driver holds is a fresh copy, so the
+ * compact drivers share nothing with the drivers they were made from. Violation and crash
+ * types are kept as {@link PackedHistory} codes only, so a type the factories do not list, or
+ * one spelled in another case, comes back under the name of its code.
+ * Discard the encoder once the drivers are encoded; the compact drivers do not need it.
+ */
+public class CompactDriverEncoder {
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final int[] EMPTY_DATES = new int[0];
+    static final byte[] EMPTY_CODES = new byte[0];
+    static final String[] EMPTY_STRINGS = new String[0];
+    static final CompactVehicle[] EMPTY_VEHICLES = new CompactVehicle[0];
+
+    private final ZoneId zone;
+    private final Map<String, String> strings = new HashMap<>();
+
+    /**
+     * Constructs an encoder that converts dates in the system default time zone,
+     * the zone the CSV loader parses them in.
+     */
+    public CompactDriverEncoder() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructs an encoder.
+     * @param zone The time zone dates are converted to days in.
+     */
+    public CompactDriverEncoder(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Converts a driver into its compact form.
+     * @param driver The driver to convert.
+     * @return The compact driver.
+     */
+    public CompactDriver encode(Driver driver) {
+        if (driver == null) {
+            throw new IllegalArgumentException("Driver must be provided.");
+        }
+        return new CompactDriver(driver, this);
+    }
+
+    /**
+     * Gets the number of distinct strings the encoder has shared so far.
+     * @return The number of distinct strings.
+     */
+    public int getInternedStringCount() {
+        return strings.size();
+    }
+
+    // returns the encoder's copy of a string, making one the first time the value is seen
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = strings.get(value);
+        if (interned == null) {
+            interned = copy(value);
+            strings.put(interned, interned);
+        }
+        return interned;
+    }
+
+    // copies a string together with its characters; new String(String) would share them
+    String copy(String value) {
+        return value == null ? null : new String(value.toCharArray());
+    }
+
+    // a date as days since 1970-01-01 in the encoder's zone
+    int toDay(Date date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toInstant().atZone(zone).toLocalDate().toEpochDay());
+    }
+
+    static Date toDate(int day, ZoneId zone) {
+        return day == NO_DATE ? null : Date.from(LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant());
+    }
+
+    ZoneId getZone() {
+        return zone;
+    }
+
+    // type codes are those of the packed history, which all fit in a byte
+    static byte violationCode(Violation violation) {
+        return (byte) PackedHistory.violationCode(violation);
+    }
+
+    static Violation toViolation(byte code, Date date) {
+        return PackedHistory.toViolation(code, date);
+    }
+
+    static byte crashCode(Crash crash) {
+        return (byte) PackedHistory.crashCode(crash);
+    }
+
+    static String crashType(byte code) {
+        return PackedHistory.crashType(code);
+    }
+}
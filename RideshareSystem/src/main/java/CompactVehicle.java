@@ -0,0 +1,63 @@
+/**
+ * An immutable, compact form of a {@link Vehicle}. Make, model, color and owner names are
+ * shared with every other compact vehicle that has the same values, and the owner is kept
+ * as two strings instead of a {@link Name} object.
+ */
+public final class CompactVehicle {
+    private final String make;
+    private final String model;
+    private final String color;
+    private final int year;
+    private final String ownerFirstName;
+    private final String ownerLastName;
+    private final String vehicleId;
+
+    // copies a vehicle, sharing repeated strings through the encoder
+    CompactVehicle(Vehicle vehicle, CompactDriverEncoder encoder) {
+        this.make = encoder.intern(vehicle.getMake());
+        this.model = encoder.intern(vehicle.getModel());
+        this.color = encoder.intern(vehicle.getColor());
+        this.year = vehicle.getYear();
+        Name owner = vehicle.getOfficialOwner();
+        this.ownerFirstName = owner == null ? null : encoder.intern(owner.getFirstName());
+        this.ownerLastName = owner == null ? null : encoder.intern(owner.getLastName());
+        this.vehicleId = encoder.copy(vehicle.getVehicleId());
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public String getOwnerFirstName() {
+        return ownerFirstName;
+    }
+
+    public String getOwnerLastName() {
+        return ownerLastName;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    /**
+     * Builds an equivalent vehicle in the regular model.
+     * @return A new Vehicle.
+     */
+    public Vehicle toVehicle() {
+        Name owner = ownerFirstName == null && ownerLastName == null ? null : new Name(ownerFirstName, ownerLastName);
+        return new Vehicle(make, model, color, year, owner, vehicleId);
+    }
+}
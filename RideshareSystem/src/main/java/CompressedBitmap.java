@@ -0,0 +1,569 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative ints in the manner of a roaring bitmap. Values are split by
+ * their upper 16 bits into chunks of 65536; a chunk with few values keeps them as a sorted
+ * char array, and a chunk with more than 4096 values as a bitmap of 1024 longs, so sparse and
+ * dense sets both stay small and intersections and unions work chunk by chunk on whole words.
+ * {@link #and(CompressedBitmap)}, {@link #or(CompressedBitmap)} and
+ * {@link #andNot(CompressedBitmap)} return new bitmaps and leave their operands unchanged.
+ * A bitmap taken from a {@link DriverBitmapIndex} carries the generation of the index it was
+ * taken at, and a combination the older of its operands', so that the index can tell which of
+ * its ordinals were given to another driver since.
+ * The class is not thread-safe.
+ */
+public final class CompressedBitmap {
+    // the largest number of values a chunk keeps as an array; above it a bitmap is smaller
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size; // the number of chunks in use
+    private long generation = Long.MAX_VALUE; // of the index the values were taken from; unset is the latest
+
+    /**
+     * Constructs an empty bitmap.
+     */
+    public CompressedBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Gets the generation of the {@link DriverBitmapIndex} the values were taken at.
+     * @return The generation, or {@link Long#MAX_VALUE} for a bitmap not taken from an index.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation of the {@link DriverBitmapIndex} the values were taken at.
+     * @param generation The generation.
+     * @return This bitmap.
+     */
+    CompressedBitmap withGeneration(long generation) {
+        this.generation = generation;
+        return this;
+    }
+
+    /**
+     * Adds a value.
+     * @param value The value; must not be negative.
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) value);
+            return;
+        }
+        index = -index - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new ArrayContainer().add((char) value);
+        size++;
+    }
+
+    /**
+     * Removes a value.
+     * @param value The value.
+     */
+    public void remove(int value) {
+        if (value < 0) {
+            return;
+        }
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() > 0) {
+            containers[index] = container;
+            return;
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * Checks whether a value is in the bitmap.
+     * @param value The value.
+     * @return true if the value is in the bitmap.
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Gets the number of values.
+     * @return The number of values in the bitmap.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Checks whether the bitmap is empty.
+     * @return true if the bitmap holds no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the values in both bitmaps.
+     * @param other The other bitmap.
+     * @return A new bitmap with the intersection.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(1, Math.min(size, other.size))],
+                new Container[Math.max(1, Math.min(size, other.size))], 0);
+        result.generation = Math.min(generation, other.generation);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values in either bitmap.
+     * @param other The other bitmap.
+     * @return A new bitmap with the union.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(1, size + other.size)],
+                new Container[Math.max(1, size + other.size)], 0);
+        result.generation = Math.min(generation, other.generation);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values in this bitmap that are not in another.
+     * @param other The other bitmap.
+     * @return A new bitmap with the difference.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(1, size)], new Container[Math.max(1, size)], 0);
+        result.generation = Math.min(generation, other.generation);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j]) : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.append(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets a copy of the bitmap.
+     * @return A new bitmap with the same values.
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(1, size)], new Container[Math.max(1, size)], 0);
+        result.generation = generation;
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Calls an action for every value, in ascending order.
+     * @param action The action.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Gets the values as an array.
+     * @return The values in ascending order.
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] position = new int[1];
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    // appends a chunk whose key is greater than every key present
+    private void append(char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompressedBitmap bitmap = (CompressedBitmap) o;
+        return Arrays.equals(toArray(), bitmap.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    // the values of one chunk; operations return the container to use from then on
+    private abstract static class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer action);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer)) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_LIMIT ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT) {
+                    return toArrayContainer();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return shrink(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    long bit = 1L << value;
+                    if ((result[value >>> 6] & bit) == 0) {
+                        result[value >>> 6] |= bit;
+                        count++;
+                    }
+                }
+                return new BitmapContainer(result, count);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] |= otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    result[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] &= ~otherWords[i];
+                }
+            }
+            int count = 0;
+            for (long word : result) {
+                count += Long.bitCount(word);
+            }
+            return shrink(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        // a result bitmap, or an array container if it has become small enough
+        private static Container shrink(long[] words, int count) {
+            BitmapContainer bitmap = new BitmapContainer(words, count);
+            return count <= ARRAY_LIMIT ? bitmap.toArrayContainer() : bitmap;
+        }
+
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int[] count = new int[1];
+            forEach(0, value -> values[count[0]++] = (char) value);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.Date;
+import java.util.List;
 
 /**
  * Factory class for creating crash.csv objects.
@@ -6,6 +7,12 @@ import java.util.Date;
 public class CrashFactory {
     private static final CrashFactory INSTANCE = new CrashFactory();
 
+    /**
+     * The crash types the factory accepts.
+     */
+    public static final List<String> CRASH_TYPES = List.of("Fender-bender", "crash.csv without bodily injuries",
+            "crash.csv involving bodily injuries");
+
     // Private constructor to prevent direct instantiation.
     private CrashFactory() {
     }
@@ -24,17 +31,17 @@ public class CrashFactory {
      * @param date The date of the crash.
      * @param offendingDriver The name of the offending driver involved in the crash.
      * @return A new crash.csv object.
+     * @throws IllegalArgumentException if a value is missing or the type is not one of {@link #CRASH_TYPES}.
      */
-    public Crash createCrash(String crashType, Date date, Name offendingDriver) throws Exception {
+    public Crash createCrash(String crashType, Date date, Name offendingDriver) {
         if (crashType == null || date == null || offendingDriver == null) {
             throw new IllegalArgumentException("crash.csv type, date, and offending driver must be provided.");
         }
 
-        return switch (crashType) {
-            case "Fender-bender", "crash.csv without bodily injuries", "crash.csv involving bodily injuries" ->
-                    new Crash(date, crashType, offendingDriver);
-            default -> throw new IllegalArgumentException("Unknown crash type: " + crashType);
-        };
+        if (!CRASH_TYPES.contains(crashType)) {
+            throw new IllegalArgumentException("Unknown crash type: " + crashType);
+        }
+        return new Crash(date, crashType, offendingDriver);
     }
 
 }
@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the offending driver of every crash, which a {@link Crash} only records as a
+ * {@link Name}, to the pooled drivers with that name, so that fault can be attributed: whether
+ * a driver caused the crashes on their own vehicles, and how many crashes they caused on the
+ * vehicles of other drivers.
+ *
+ * The pool is indexed once by name, in a map the resolver owns, and by name together with
+ * birthdate; every crash is then a single hash lookup, so resolution costs
+ * O(drivers + crashes) instead of a pool scan per crash. A crash whose offending name
+ * belongs to the driver of the crashed vehicle is attributed to that driver, who was there.
+ * Otherwise a name that belongs to one pooled driver resolves to them, and a name shared by
+ * several is reported as ambiguous unless a birthdate tells them apart.
+ */
+public class CrashFaultResolver {
+    private final Map<Name, List<Driver>> byName = new HashMap<>();
+    private final Map<NameAndBirth, List<Driver>> byNameAndBirth = new HashMap<>();
+
+    /**
+     * How the offending driver of a crash was resolved.
+     */
+    public enum Status {
+        RESOLVED, AMBIGUOUS, UNRESOLVED
+    }
+
+    /**
+     * A crash and the driver at fault for it.
+     */
+    public static final class Attribution {
+        private final Driver vehicleDriver;
+        private final Crash crash;
+        private final Status status;
+        private final List<Driver> candidates;
+
+        Attribution(Driver vehicleDriver, Crash crash, Status status, List<Driver> candidates) {
+            this.vehicleDriver = vehicleDriver;
+            this.crash = crash;
+            this.status = status;
+            this.candidates = candidates;
+        }
+
+        /**
+         * Gets the driver whose vehicle history holds the crash.
+         * @return The driver of the crashed vehicle.
+         */
+        public Driver getVehicleDriver() {
+            return vehicleDriver;
+        }
+
+        public Crash getCrash() {
+            return crash;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the driver at fault.
+         * @return The driver, or null if the crash is ambiguous or unresolved.
+         */
+        public Driver getOffender() {
+            return status == Status.RESOLVED ? candidates.get(0) : null;
+        }
+
+        /**
+         * Gets the pooled drivers the offending name could refer to.
+         * @return The candidates; one if resolved, none if unresolved.
+         */
+        public List<Driver> getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * Tells whether the driver of the crashed vehicle was at fault.
+         * @return true if the crash resolved to the driver of the vehicle.
+         */
+        public boolean isOwnFault() {
+            return status == Status.RESOLVED && candidates.get(0) == vehicleDriver;
+        }
+    }
+
+    /**
+     * The attributions of one resolution and the at-fault counts per driver.
+     */
+    public static final class Result {
+        private final List<Attribution> attributions;
+        private final Map<String, int[]> faultCounts; // license number -> {own, others}
+        private final int[] statusCounts;
+
+        Result(List<Attribution> attributions, Map<String, int[]> faultCounts, int[] statusCounts) {
+            this.attributions = attributions;
+            this.faultCounts = faultCounts;
+            this.statusCounts = statusCounts;
+        }
+
+        /**
+         * Gets the attribution of every crash, in the order of the drivers and their crash logs.
+         * @return The attributions.
+         */
+        public List<Attribution> getAttributions() {
+            return attributions;
+        }
+
+        /**
+         * Gets the number of crashes a driver was at fault for, on any vehicle.
+         * @param licenseNumber The license number of the driver.
+         * @return The number of crashes.
+         */
+        public int getAtFaultCount(String licenseNumber) {
+            int[] counts = faultCounts.get(licenseNumber);
+            return counts == null ? 0 : counts[0] + counts[1];
+        }
+
+        /**
+         * Gets the number of crashes on a driver's own vehicles they were at fault for.
+         * @param licenseNumber The license number of the driver.
+         * @return The number of crashes.
+         */
+        public int getOwnFaultCount(String licenseNumber) {
+            int[] counts = faultCounts.get(licenseNumber);
+            return counts == null ? 0 : counts[0];
+        }
+
+        /**
+         * Gets the number of crashes on other drivers' vehicles a driver was at fault for.
+         * @param licenseNumber The license number of the driver.
+         * @return The number of crashes.
+         */
+        public int getCausedOnOthersCount(String licenseNumber) {
+            int[] counts = faultCounts.get(licenseNumber);
+            return counts == null ? 0 : counts[1];
+        }
+
+        /**
+         * Gets the number of crashes that were resolved one way.
+         * @param status The way.
+         * @return The number of crashes.
+         */
+        public int getCount(Status status) {
+            return statusCounts[status.ordinal()];
+        }
+    }
+
+    /**
+     * Constructs a resolver over the drivers of a pool.
+     * @param pool The drivers offending names are resolved to.
+     */
+    public CrashFaultResolver(Collection<Driver> pool) {
+        for (Driver driver : pool) {
+            if (driver.getName() == null) {
+                continue;
+            }
+            byName.computeIfAbsent(driver.getName(), ignored -> new ArrayList<>(1)).add(driver);
+            int birthDay = PackedHistory.toDay(driver.getBirthDate());
+            if (birthDay != PackedHistory.NO_DAY) {
+                byNameAndBirth.computeIfAbsent(new NameAndBirth(driver.getName(), birthDay), ignored -> new ArrayList<>(1)).add(driver);
+            }
+        }
+    }
+
+    /**
+     * Gets the pooled drivers an offending driver could be.
+     * @param offender The name of the offending driver.
+     * @param birthDate The birthdate of the offending driver, or null if not known.
+     * @return The candidates, most likely first; empty if none.
+     */
+    public List<Driver> candidates(Name offender, Date birthDate) {
+        if (offender == null) {
+            return Collections.emptyList();
+        }
+        return candidates(offender, PackedHistory.toDay(birthDate));
+    }
+
+    /**
+     * Attributes every crash in the vehicle histories of drivers.
+     * @param drivers The drivers whose crashes are resolved, usually the pool itself.
+     * @return The attributions and at-fault counts.
+     */
+    public Result resolve(Collection<Driver> drivers) {
+        List<Attribution> attributions = new ArrayList<>();
+        Map<String, int[]> faultCounts = new HashMap<>();
+        int[] statusCounts = new int[Status.values().length];
+        for (Driver driver : drivers) {
+            VehicleHistory history = driver.getVehicleHistory();
+            if (history == null) {
+                continue;
+            }
+            PackedHistory crashes = history.getCrashLog();
+            for (int i = 0; i < crashes.size(); i++) {
+                Name offender = crashes.getOffender(i);
+                List<Driver> candidates = offender == null ? Collections.emptyList() : candidates(offender, PackedHistory.NO_DAY);
+                // the driver of the crashed vehicle was there, so their name settles it
+                if (candidates.size() > 1 && containsSame(candidates, driver)) {
+                    candidates = Collections.singletonList(driver);
+                }
+                Status status = candidates.isEmpty() ? Status.UNRESOLVED
+                        : candidates.size() == 1 ? Status.RESOLVED : Status.AMBIGUOUS;
+                statusCounts[status.ordinal()]++;
+                if (status == Status.RESOLVED) {
+                    Driver atFault = candidates.get(0);
+                    faultCounts.computeIfAbsent(atFault.getDriverLicense().getLicenseNumber(), ignored -> new int[2])
+                            [atFault == driver ? 0 : 1]++;
+                }
+                attributions.add(new Attribution(driver, crashes.getCrash(i), status, candidates));
+            }
+        }
+        return new Result(attributions, faultCounts, statusCounts);
+    }
+
+    // by identity: equals compares whole records, histories included, and equal records may still be two drivers
+    private static boolean containsSame(List<Driver> candidates, Driver driver) {
+        for (Driver candidate : candidates) {
+            if (candidate == driver) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the drivers with a name, narrowed by birthdate when one is known and tells them apart
+    private List<Driver> candidates(Name name, int birthDay) {
+        List<Driver> sameName = byName.getOrDefault(name, Collections.emptyList());
+        if (sameName.size() > 1 && birthDay != PackedHistory.NO_DAY) {
+            List<Driver> sameBirth = byNameAndBirth.get(new NameAndBirth(name, birthDay));
+            if (sameBirth != null) {
+                return Collections.unmodifiableList(sameBirth);
+            }
+        }
+        return Collections.unmodifiableList(sameName);
+    }
+
+    // a name together with a birthdate, as a key
+    private static final class NameAndBirth {
+        private final Name name;
+        private final int birthDay;
+
+        NameAndBirth(Name name, int birthDay) {
+            this.name = name;
+            this.birthDay = birthDay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            NameAndBirth key = (NameAndBirth) o;
+            return birthDay == key.birthDay && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + birthDay;
+        }
+    }
+}
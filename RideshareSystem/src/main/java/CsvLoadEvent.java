@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning the read and parse of one CSV file by a loader.
+ */
+@Name("rideshare.CsvLoad")
+@Label("CSV Load")
+@Category({"Rideshare", "Ingest"})
+@Description("Reading and parsing one CSV input file")
+public class CsvLoadEvent extends Event {
+    @Label("File")
+    String fileName;
+
+    @Label("Driver ID")
+    @Description("The driver the rows were loaded for, or empty when the whole file or a vehicle's rows were loaded")
+    String driverId;
+
+    @Label("Vehicle ID")
+    @Description("The vehicle the rows were loaded for, or empty when the whole file or a driver's rows were loaded")
+    String vehicleId;
+
+    @Label("Rows Read")
+    long rowCount;
+
+    @Label("Rows Kept")
+    @Description("The rows that belonged to the driver or vehicle, or all rows when the whole file was loaded")
+    long matchedRowCount;
+}
@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulates ride dispatch over the validated drivers of a pool. Every vehicle assigned in a
+ * {@link PoolSnapshot} becomes a dispatch unit placed at a random point of a square city.
+ * A stream of ride requests arrives at random pickup points; each is matched to the nearest
+ * free unit through a {@link SpatialGridIndex}, which then stays busy until it has driven to
+ * the pickup and on to the drop-off, where it becomes free again.
+ */
+public class DispatchSimulator {
+    private static final double DRIVERS_PER_CELL = 2.0;
+
+    private final String[] licenseNumbers; // the driver of each unit
+    private final String[] vehicleIds; // the vehicle of each unit
+    private final double citySize;
+    private final double speed;
+    private final double maxTripLength;
+    private final Random random;
+    private final SpatialGridIndex freeUnits;
+
+    // busy units ordered by the time they become free, as a binary min-heap
+    private double[] freeAt;
+    private int[] busyUnits;
+    private int busyCount;
+    private final double[] dropOffX;
+    private final double[] dropOffY;
+
+    // statistics
+    private long requests;
+    private long matched;
+    private long unmatched;
+    private double pickupDistanceTotal;
+    private long wallNanos;
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+
+    /**
+     * Constructs a simulation over the vehicle assignments of a pool snapshot.
+     * @param snapshot The pool state whose assigned vehicles are dispatched.
+     * @param fleetLimit The maximum number of units to dispatch; zero or less means all assigned vehicles.
+     * @param citySize The side length of the city, in meters.
+     * @param speed The driving speed, in meters per second.
+     * @param maxTripLength The largest distance along each axis between pickup and drop-off, in meters.
+     * @param seed The seed of all random draws.
+     */
+    public DispatchSimulator(PoolSnapshot snapshot, int fleetLimit, double citySize, double speed, double maxTripLength, long seed) {
+        if (citySize <= 0 || speed <= 0 || maxTripLength < 0) {
+            throw new IllegalArgumentException("City size and speed must be positive and trip length must not be negative.");
+        }
+        List<Map.Entry<String, String>> assignments = new ArrayList<>(snapshot.getVehicleUsage().entrySet());
+        assignments.sort(Map.Entry.comparingByKey());
+        int fleetSize = fleetLimit > 0 ? Math.min(fleetLimit, assignments.size()) : assignments.size();
+
+        this.licenseNumbers = new String[fleetSize];
+        this.vehicleIds = new String[fleetSize];
+        this.citySize = citySize;
+        this.speed = speed;
+        this.maxTripLength = maxTripLength;
+        this.random = new Random(seed);
+        int cellsPerSide = (int) Math.max(1, Math.sqrt(fleetSize / DRIVERS_PER_CELL));
+        this.freeUnits = new SpatialGridIndex(fleetSize, citySize, citySize, citySize / cellsPerSide);
+        this.freeAt = new double[Math.max(fleetSize, 1)];
+        this.busyUnits = new int[Math.max(fleetSize, 1)];
+        this.dropOffX = new double[fleetSize];
+        this.dropOffY = new double[fleetSize];
+
+        for (int unit = 0; unit < fleetSize; unit++) {
+            vehicleIds[unit] = assignments.get(unit).getKey();
+            licenseNumbers[unit] = assignments.get(unit).getValue();
+            freeUnits.insert(unit, random.nextDouble() * citySize, random.nextDouble() * citySize);
+        }
+    }
+
+    /**
+     * Gets the number of dispatch units.
+     * @return The fleet size.
+     */
+    public int getFleetSize() {
+        return vehicleIds.length;
+    }
+
+    /**
+     * Runs a stream of ride requests arriving at a constant mean rate.
+     * @param requestCount The number of requests to simulate.
+     * @param requestsPerSecond The mean arrival rate of requests, in simulated time.
+     */
+    public void run(long requestCount, double requestsPerSecond) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Request rate must be positive: " + requestsPerSecond);
+        }
+        double now = 0;
+        long wallStart = System.nanoTime();
+        for (long i = 0; i < requestCount; i++) {
+            now += -Math.log(1 - random.nextDouble()) / requestsPerSecond;
+            releaseUnitsFreeBy(now);
+
+            double pickupX = random.nextDouble() * citySize;
+            double pickupY = random.nextDouble() * citySize;
+            double targetX = reflect(pickupX + (random.nextDouble() * 2 - 1) * maxTripLength);
+            double targetY = reflect(pickupY + (random.nextDouble() * 2 - 1) * maxTripLength);
+            requests++;
+
+            long start = System.nanoTime();
+            int unit = freeUnits.nearest(pickupX, pickupY);
+            if (unit >= 0) {
+                freeUnits.remove(unit);
+            }
+            matchLatency.record(System.nanoTime() - start);
+            if (unit < 0) {
+                unmatched++;
+                continue;
+            }
+
+            matched++;
+            double pickupDistance = Math.hypot(freeUnits.getX(unit) - pickupX, freeUnits.getY(unit) - pickupY);
+            double tripDistance = Math.hypot(targetX - pickupX, targetY - pickupY);
+            pickupDistanceTotal += pickupDistance;
+            dropOffX[unit] = targetX;
+            dropOffY[unit] = targetY;
+            markBusy(unit, now + (pickupDistance + tripDistance) / speed);
+        }
+        wallNanos += System.nanoTime() - wallStart;
+    }
+
+    /**
+     * Gets the driver of a dispatch unit.
+     * @param unit The index of the unit.
+     * @return The license number of the driver.
+     */
+    public String getLicenseNumber(int unit) {
+        return licenseNumbers[unit];
+    }
+
+    /**
+     * Gets the vehicle of a dispatch unit.
+     * @param unit The index of the unit.
+     * @return The ID of the vehicle.
+     */
+    public String getVehicleId(int unit) {
+        return vehicleIds[unit];
+    }
+
+    /**
+     * Prints the results of the simulation.
+     * @param out The stream to print to.
+     */
+    public void printReport(PrintStream out) {
+        out.printf("Fleet %d: %d requests, %d matched, %d unmatched (%.2f%%), mean pickup distance %.0f m%n",
+                getFleetSize(), requests, matched, unmatched, requests == 0 ? 0.0 : 100.0 * unmatched / requests,
+                matched == 0 ? 0.0 : pickupDistanceTotal / matched);
+        out.printf("  throughput: %.0f requests/s, busy at end: %d%n", requests / Math.max(wallNanos / 1e9, 1e-9), busyCount);
+        out.println("  match latency: " + matchLatency.summarizeNanos());
+    }
+
+    // frees every busy unit whose trip has ended, placing it at its drop-off point
+    private void releaseUnitsFreeBy(double now) {
+        while (busyCount > 0 && freeAt[0] <= now) {
+            int unit = busyUnits[0];
+            busyCount--;
+            if (busyCount > 0) {
+                siftDown(freeAt[busyCount], busyUnits[busyCount]);
+            }
+            freeUnits.insert(unit, dropOffX[unit], dropOffY[unit]);
+        }
+    }
+
+    private void markBusy(int unit, double until) {
+        if (busyCount == busyUnits.length) {
+            freeAt = Arrays.copyOf(freeAt, busyCount * 2);
+            busyUnits = Arrays.copyOf(busyUnits, busyCount * 2);
+        }
+        int index = busyCount++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (freeAt[parent] <= until) {
+                break;
+            }
+            freeAt[index] = freeAt[parent];
+            busyUnits[index] = busyUnits[parent];
+            index = parent;
+        }
+        freeAt[index] = until;
+        busyUnits[index] = unit;
+    }
+
+    // places an entry at the root of the heap and moves it down to its position
+    private void siftDown(double until, int unit) {
+        int index = 0;
+        int half = busyCount >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < busyCount && freeAt[child + 1] < freeAt[child]) {
+                child++;
+            }
+            if (until <= freeAt[child]) {
+                break;
+            }
+            freeAt[index] = freeAt[child];
+            busyUnits[index] = busyUnits[child];
+            index = child;
+        }
+        freeAt[index] = until;
+        busyUnits[index] = unit;
+    }
+
+    // folds a coordinate that overshoots the city edge back inside, which keeps drop-offs uniformly spread
+    private double reflect(double coordinate) {
+        if (coordinate < 0) {
+            return Math.min(-coordinate, citySize);
+        }
+        return coordinate > citySize ? Math.max(2 * citySize - coordinate, 0) : coordinate;
+    }
+
+    /**
+     * Builds a pool from a synthetic dataset and measures matching at growing fleet sizes.
+     * Requests arrive fast enough to keep roughly 80% of each fleet busy.
+     * @param args Optionally the number of generated drivers, the number of requests per fleet size and the seed.
+     * @throws IOException if the dataset cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int driverCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long requestCount = args.length > 1 ? Long.parseLong(args[1]) : 2_000_000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        double citySize = 30_000;
+        double speed = 10;
+        double maxTripLength = 8_000;
+        double meanTripSeconds = 1_200; // a rough mean of pickup plus ride time for these parameters
+
+        DriverPoolManager pool = new DriverPoolManager();
+        RegistrationValidator validator = new RegistrationValidator();
+        // the pool reports every vehicle conflict; keep them out of the report
+        EventSink.getInstance().setMinimumLevel(EventSink.Level.ERROR);
+        for (Driver driver : SyntheticDataGenerator.generateDrivers(seed, LocalDate.now(), driverCount)) {
+            if (validator.validate(driver) && !pool.snapshot().containsDriver(driver.getDriverLicense().getLicenseNumber())) {
+                pool.addDriver(driver);
+            }
+        }
+        PrintStream out = System.out;
+        PoolSnapshot snapshot = pool.snapshot();
+        int vehicles = snapshot.getVehicleUsage().size();
+        out.println(snapshot.getDriverCount() + " validated drivers hold " + vehicles + " vehicles.");
+        if (vehicles == 0) {
+            return;
+        }
+
+        for (int fleetSize = 1_000; ; fleetSize *= 10) {
+            int fleet = Math.min(fleetSize, vehicles);
+            DispatchSimulator simulator = new DispatchSimulator(snapshot, fleet, citySize, speed, maxTripLength, seed);
+            simulator.run(requestCount, 0.8 * fleet / meanTripSeconds);
+            simulator.printReport(out);
+            if (fleet == vehicles) {
+                break;
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@ public class Driver {
     private VehicleInsurance insurance;
     private DriverHistory driverHistory;
     private VehicleHistory vehicleHistory;
+    private LazyHistoryStore historyStore;
 
 
     /**
@@ -65,6 +66,14 @@ public class Driver {
         this.vehicleHistory = vehicleHistory;
     }
 
+    /**
+     * Sets the store the driver's histories are read from while none are set on the driver.
+     * @param historyStore The store holding the driver's histories under their ID.
+     */
+    public void setHistoryStore(LazyHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
     /**
      * Constructor for the Driver class.
      * @param name The driver's full name.
@@ -150,6 +159,9 @@ public class Driver {
      * @return A DriverHistory object containing the record of the driver's traffic violations.
      */
     public DriverHistory getDriverHistory() {
+        if (driverHistory == null && historyStore != null) {
+            return historyStore.driverHistoryOf(id);
+        }
         return driverHistory;
     }
 
@@ -158,6 +170,9 @@ public class Driver {
      * @return A VehicleHistory object containing the record of the driver's all crashes and traffic violations.
      */
     public VehicleHistory getVehicleHistory() {
+        if (vehicleHistory == null && historyStore != null) {
+            return historyStore.vehicleHistoryOf(id);
+        }
         return vehicleHistory;
     }
 
@@ -166,12 +181,18 @@ public class Driver {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Driver driver = (Driver) o;
-        return Objects.equals(name, driver.name) && Objects.equals(birthDate, driver.birthDate) && Objects.equals(driverLicense, driver.driverLicense) && Objects.equals(vehicles, driver.vehicles) && Objects.equals(insurance, driver.insurance) && Objects.equals(driverHistory, driver.driverHistory) && Objects.equals(vehicleHistory, driver.vehicleHistory);
+        return Objects.equals(name, driver.name) && Objects.equals(birthDate, driver.birthDate) && Objects.equals(driverLicense, driver.driverLicense) && Objects.equals(vehicles, driver.vehicles) && Objects.equals(insurance, driver.insurance) && Objects.equals(driverHistory, driver.driverHistory) && Objects.equals(vehicleHistory, driver.vehicleHistory)
+                && (readsHistories() ? historyStore == driver.historyStore && Objects.equals(id, driver.id) : !driver.readsHistories());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, birthDate, driverLicense, vehicles, insurance, driverHistory, vehicleHistory);
+        return Objects.hash(name, birthDate, driverLicense, vehicles, insurance, driverHistory, vehicleHistory, readsHistories() ? id : null);
+    }
+
+    // whether a history comes from the store; such drivers are compared by store and ID, as reading would take I/O
+    private boolean readsHistories() {
+        return historyStore != null && (driverHistory == null || vehicleHistory == null);
     }
 
 }
@@ -0,0 +1,328 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bitmap indexes over the drivers of a {@link DriverPoolManager}, for ad-hoc filters such as
+ * "valid drivers licensed in CA with a vehicle built before 2012 and a moving violation this
+ * year". Every pooled driver gets a dense ordinal, reused once the driver leaves, and every
+ * indexed attribute value a {@link CompressedBitmap} of the ordinals that have it:
+ * country and state of issuance, verdict, vehicle make and model year, the violation types in
+ * the driver's history, the years with a moving violation, and the month the insurance expires.
+ * A filter combines the bitmaps with and/or/andNot and resolves the result with
+ * {@link #getDrivers(CompressedBitmap)}:
+ * <pre>
+ *     index.valid().and(index.byStateOfIssuance("CA"))
+ *             .and(index.byVehicleYears(Integer.MIN_VALUE, 2011))
+ *             .and(index.withMovingViolationIn(2026))
+ * </pre>
+ * Register the index with {@link DriverPoolManager#addMutationListener(PoolMutationListener)}
+ * and it follows every add and remove. The verdict and the history attributes are those of the
+ * time a driver was indexed; {@link #refresh(Driver)} indexes a pooled driver again.
+ * Queries return new bitmaps, so they may be combined freely while the pool keeps changing.
+ * Each indexing starts a new generation of the index and stamps the ordinal with it, and each
+ * query result carries the generation it was taken at, so a result taken before a driver left
+ * never resolves to whoever was given their ordinal since.
+ */
+public class DriverBitmapIndex implements PoolMutationListener {
+    private static final CompressedBitmap[] NO_MEMBERSHIPS = new CompressedBitmap[0];
+
+    private final RegistrationValidator validator;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Driver[] drivers = new Driver[64];
+    private CompressedBitmap[][] memberships = new CompressedBitmap[64][]; // the bitmaps each ordinal is in
+    private long[] indexedIn = new long[64]; // the generation each ordinal was last given out in
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int nextOrdinal;
+    private long generation;
+
+    private final CompressedBitmap all = new CompressedBitmap();
+    private final CompressedBitmap valid = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> countries = new HashMap<>();
+    private final Map<String, CompressedBitmap> states = new HashMap<>();
+    private final Map<String, CompressedBitmap> makes = new HashMap<>();
+    private final NavigableMap<Integer, CompressedBitmap> vehicleYears = new TreeMap<>();
+    private final Map<Integer, CompressedBitmap> violationTypes = new HashMap<>();
+    private final NavigableMap<Integer, CompressedBitmap> movingViolationYears = new TreeMap<>();
+    private final NavigableMap<YearMonth, CompressedBitmap> insuranceExpiry = new TreeMap<>();
+
+    /**
+     * Constructs an empty index.
+     * @param validator The validator that decides the verdict of an indexed driver.
+     */
+    public DriverBitmapIndex(RegistrationValidator validator) {
+        this.validator = validator;
+    }
+
+    @Override
+    public synchronized void onDriverAdded(Driver driver) {
+        String licenseNumber = driver.getDriverLicense().getLicenseNumber();
+        if (ordinals.containsKey(licenseNumber)) {
+            unindex(licenseNumber);
+        }
+        index(driver, licenseNumber);
+    }
+
+    @Override
+    public synchronized void onDriverRemoved(Driver driver) {
+        unindex(driver.getDriverLicense().getLicenseNumber());
+    }
+
+    @Override
+    public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+    }
+
+    @Override
+    public void onVehicleReleased(String vehicleId, String licenseNumber) {
+    }
+
+    /**
+     * Indexes a pooled driver again, after their histories changed or time has passed.
+     * Drivers that are not indexed are ignored.
+     * @param driver The driver.
+     */
+    public synchronized void refresh(Driver driver) {
+        String licenseNumber = driver.getDriverLicense().getLicenseNumber();
+        if (ordinals.containsKey(licenseNumber)) {
+            unindex(licenseNumber);
+            index(driver, licenseNumber);
+        }
+    }
+
+    /**
+     * Gets the number of indexed drivers.
+     * @return The number of drivers.
+     */
+    public synchronized int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Gets all indexed drivers.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap all() {
+        return stamped(all.copy());
+    }
+
+    /**
+     * Gets the drivers that were valid when indexed.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap valid() {
+        return stamped(valid.copy());
+    }
+
+    /**
+     * Gets the drivers that were not valid when indexed.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap invalid() {
+        return stamped(all.andNot(valid));
+    }
+
+    /**
+     * Gets the drivers whose license was issued in a country.
+     * @param country The country, in any case.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap byCountryOfIssuance(String country) {
+        return lookup(countries, normalize(country));
+    }
+
+    /**
+     * Gets the drivers whose license was issued in a state.
+     * @param state The state, in any case.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap byStateOfIssuance(String state) {
+        return lookup(states, normalize(state));
+    }
+
+    /**
+     * Gets the drivers with a vehicle of a make.
+     * @param make The make, in any case.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap byVehicleMake(String make) {
+        return lookup(makes, normalize(make));
+    }
+
+    /**
+     * Gets the drivers with a vehicle built within a range of model years.
+     * @param fromYear The first year of the range.
+     * @param toYear The last year of the range.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap byVehicleYears(int fromYear, int toYear) {
+        return stamped(fromYear > toYear ? new CompressedBitmap() : union(vehicleYears.subMap(fromYear, true, toYear, true)));
+    }
+
+    /**
+     * Gets the drivers with a violation of a type in their driver history.
+     * @param violationType One of the types the {@link ViolationFactory} accepts, in any case.
+     * @return A new bitmap of their ordinals, empty for any other type.
+     */
+    public synchronized CompressedBitmap withViolationType(String violationType) {
+        int code;
+        try {
+            code = PackedHistory.violationCode(violationType);
+        } catch (IllegalArgumentException e) {
+            return stamped(new CompressedBitmap());
+        }
+        return lookup(violationTypes, code);
+    }
+
+    /**
+     * Gets the drivers with a moving violation dated in a year in their driver history.
+     * @param year The year.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap withMovingViolationIn(int year) {
+        return lookup(movingViolationYears, year);
+    }
+
+    /**
+     * Gets the drivers whose insurance expires within a range of months.
+     * @param from The first month of the range.
+     * @param to The last month of the range.
+     * @return A new bitmap of their ordinals.
+     */
+    public synchronized CompressedBitmap byInsuranceExpiry(YearMonth from, YearMonth to) {
+        return stamped(from.isAfter(to) ? new CompressedBitmap() : union(insuranceExpiry.subMap(from, true, to, true)));
+    }
+
+    /**
+     * Gets the drivers with the ordinals of a query result.
+     * @param result The ordinals, from the queries of this index; a bitmap built by other means
+     *         is read against the drivers indexed now.
+     * @return The drivers that are still indexed, in ordinal order; a driver indexed since the
+     *         oldest query the result was combined from is not among them.
+     */
+    public synchronized List<Driver> getDrivers(CompressedBitmap result) {
+        List<Driver> matches = new ArrayList<>(result.cardinality());
+        long takenIn = result.getGeneration();
+        result.forEach(ordinal -> {
+            if (ordinal < nextOrdinal && drivers[ordinal] != null && indexedIn[ordinal] <= takenIn) {
+                matches.add(drivers[ordinal]);
+            }
+        });
+        return matches;
+    }
+
+    private void index(Driver driver, String licenseNumber) {
+        int ordinal = allocateOrdinal();
+        ordinals.put(licenseNumber, ordinal);
+        drivers[ordinal] = driver;
+        indexedIn[ordinal] = ++generation;
+
+        // a driver can reach the same bitmap twice, through two vehicles or violations
+        Set<CompressedBitmap> bitmaps = Collections.newSetFromMap(new IdentityHashMap<>());
+        bitmaps.add(all);
+        if (validator.firstFailedCheck(validator.summarize(driver)) == null) {
+            bitmaps.add(valid);
+        }
+        DriverLicense license = driver.getDriverLicense();
+        if (license.getCountryOfIssuance() != null) {
+            bitmaps.add(bitmapFor(countries, normalize(license.getCountryOfIssuance())));
+        }
+        if (license.getStateOfIssuance() != null) {
+            bitmaps.add(bitmapFor(states, normalize(license.getStateOfIssuance())));
+        }
+        if (driver.getVehicles() != null) {
+            for (Vehicle vehicle : driver.getVehicles()) {
+                if (vehicle.getMake() != null) {
+                    bitmaps.add(bitmapFor(makes, normalize(vehicle.getMake())));
+                }
+                bitmaps.add(bitmapFor(vehicleYears, vehicle.getYear()));
+            }
+        }
+        DriverHistory history = driver.getDriverHistory();
+        if (history != null) {
+            PackedHistory violations = history.getViolationLog();
+            for (int i = 0; i < violations.size(); i++) {
+                int code = violations.getCode(i);
+                bitmaps.add(bitmapFor(violationTypes, code));
+                if ((PackedHistory.MOVING_VIOLATIONS & (1L << code)) != 0 && violations.getDay(i) != PackedHistory.NO_DAY) {
+                    bitmaps.add(bitmapFor(movingViolationYears, LocalDate.ofEpochDay(violations.getDay(i)).getYear()));
+                }
+            }
+        }
+        VehicleInsurance insurance = driver.getInsurance();
+        if (insurance != null && insurance.getExpirationDate() != null) {
+            int day = PackedHistory.toDay(insurance.getExpirationDate());
+            bitmaps.add(bitmapFor(insuranceExpiry, YearMonth.from(LocalDate.ofEpochDay(day))));
+        }
+
+        for (CompressedBitmap bitmap : bitmaps) {
+            bitmap.add(ordinal);
+        }
+        memberships[ordinal] = bitmaps.toArray(NO_MEMBERSHIPS);
+    }
+
+    private void unindex(String licenseNumber) {
+        Integer ordinal = ordinals.remove(licenseNumber);
+        if (ordinal == null) {
+            return;
+        }
+        for (CompressedBitmap bitmap : memberships[ordinal]) {
+            bitmap.remove(ordinal);
+        }
+        memberships[ordinal] = NO_MEMBERSHIPS;
+        drivers[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    // the ordinal of a removed driver if there is one, so that ordinals stay dense; the
+    // generation stamped on it keeps older bitmaps from matching the new driver
+    private int allocateOrdinal() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        if (nextOrdinal == drivers.length) {
+            drivers = Arrays.copyOf(drivers, nextOrdinal * 2);
+            memberships = Arrays.copyOf(memberships, nextOrdinal * 2);
+            indexedIn = Arrays.copyOf(indexedIn, nextOrdinal * 2);
+        }
+        return nextOrdinal++;
+    }
+
+    private CompressedBitmap stamped(CompressedBitmap result) {
+        return result.withGeneration(generation);
+    }
+
+    private static <K> CompressedBitmap bitmapFor(Map<K, CompressedBitmap> bitmaps, K key) {
+        return bitmaps.computeIfAbsent(key, ignored -> new CompressedBitmap());
+    }
+
+    private <K> CompressedBitmap lookup(Map<K, CompressedBitmap> bitmaps, K key) {
+        CompressedBitmap bitmap = bitmaps.get(key);
+        return stamped(bitmap == null ? new CompressedBitmap() : bitmap.copy());
+    }
+
+    private static CompressedBitmap union(Map<?, CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : bitmaps.values()) {
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -1,29 +1,130 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * DriverHistory class represents the driving history of a driver, including all recorded traffic violations.
+ * Violations are stored packed, as a day and a type code each, in a {@link PackedHistory};
+ * {@link Violation} objects are only created when the violations are asked for.
  */
 public class DriverHistory {
-    private List<Violation> violations;
+    private static final HistoryChangeListener[] NO_LISTENERS = new HistoryChangeListener[0];
+
+    private final PackedHistory violations = new PackedHistory(false);
+    private Runnable onFirstChange;
+    private HistoryChangeListener[] listeners = NO_LISTENERS;
 
     /**
      * Constructor for DriverHistory
-     * @param violations initialize the list of violations
+     * @param violations initialize the list of violations; null for none
      */
     public DriverHistory(List<Violation> violations) {
-        this.violations = violations;
+        if (violations != null) {
+            for (Violation violation : violations) {
+                addViolation(violation);
+            }
+        }
     }
 
     /**
      * Returns the list of traffic violations in the driver's history.
+     * The violations are created on each call; changes to the list do not affect the history.
      * @return A list of traffic violations.
      */
     public List<Violation> getViolations() {
+        if (violations.size() == 0) {
+            return Collections.emptyList();
+        }
+        List<Violation> list = new ArrayList<>(violations.size());
+        for (int i = 0; i < violations.size(); i++) {
+            list.add(violations.getViolation(i));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the packed violations, for queries that need no Violation objects.
+     * @return The violations of the history; do not keep it past changes to the history.
+     */
+    public PackedHistory getViolationLog() {
         return violations;
     }
 
+    /**
+     * Adds a traffic violation to the driver's history.
+     * @param violation The traffic violation to add, of any type.
+     */
+    public void addViolation(Violation violation) {
+        if (violation != null) {
+            changing();
+            violations.appendViolation(violation);
+            violationAdded();
+        }
+    }
+
+    /**
+     * Adds a traffic violation to the driver's history without creating a Violation.
+     * @param day The day of the violation, as days since 1970-01-01.
+     * @param code The type code of the violation, see {@link PackedHistory#violationCode(Violation)}.
+     */
+    public void addViolation(int day, int code) {
+        changing();
+        violations.append(day, code, null, null);
+        violationAdded();
+    }
+
+    /**
+     * Registers a listener to be notified of every change to the history.
+     * @param listener The listener to register.
+     */
+    public void addChangeListener(HistoryChangeListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     * @param listener The listener to unregister.
+     */
+    public void removeChangeListener(HistoryChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                HistoryChangeListener[] remaining = new HistoryChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets what runs once, right before the first change to the history; a
+     * {@link LazyHistoryStore} uses it to keep changed histories.
+     * @param hook What to run, or null for nothing.
+     */
+    void onFirstChange(Runnable hook) {
+        this.onFirstChange = hook;
+    }
+
+    // runs the first-change hook, once
+    private void changing() {
+        Runnable hook = onFirstChange;
+        if (hook != null) {
+            onFirstChange = null;
+            hook.run();
+        }
+    }
+
+    // tells the listeners of the violation just appended
+    private void violationAdded() {
+        for (HistoryChangeListener listener : listeners) {
+            listener.onViolationAdded(violations.getDay(violations.size() - 1), violations.getCode(violations.size() - 1));
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
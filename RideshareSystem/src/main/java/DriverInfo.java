@@ -0,0 +1,64 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A lightweight, read-only view of a registered driver returned by pool queries.
+ * The view does not copy the driver's data; it only exposes the fields needed to
+ * display or consume driver information.
+ */
+public class DriverInfo {
+    private final Driver driver;
+
+    /**
+     * Constructs a new view over a registered driver.
+     * @param driver The driver to expose.
+     */
+    public DriverInfo(Driver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Gets the license number that identifies the driver in the pool.
+     * @return The driver's license number.
+     */
+    public String getLicenseNumber() {
+        return driver.getDriverLicense().getLicenseNumber();
+    }
+
+    /**
+     * Gets the driver's first name.
+     * @return The first name.
+     */
+    public String getFirstName() {
+        return driver.getName().getFirstName();
+    }
+
+    /**
+     * Gets the driver's last name.
+     * @return The last name.
+     */
+    public String getLastName() {
+        return driver.getName().getLastName();
+    }
+
+    /**
+     * Gets the vehicles associated with the driver.
+     * @return An unmodifiable list of vehicles.
+     */
+    public List<Vehicle> getVehicles() {
+        List<Vehicle> vehicles = driver.getVehicles();
+        return vehicles == null ? Collections.emptyList() : Collections.unmodifiableList(vehicles);
+    }
+
+    /**
+     * Gets the driving violations recorded in the driver's history.
+     * @return An unmodifiable list of violations.
+     */
+    public List<Violation> getViolations() {
+        DriverHistory history = driver.getDriverHistory();
+        if (history == null || history.getViolations() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(history.getViolations());
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Renders driver query results as text. All output goes through a single buffered
+ * writer, so a page of results costs one flush instead of one write per line.
+ */
+public class DriverInfoFormatter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final BufferedWriter writer;
+
+    /**
+     * Constructs a new formatter writing to the given destination.
+     * @param out The destination of the rendered text.
+     */
+    public DriverInfoFormatter(Writer out) {
+        this.writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+    }
+
+    /**
+     * Renders every driver on a page, or a not-found message if the page is empty.
+     * @param lastName The last name that was queried.
+     * @param page The page of results to render.
+     * @throws IOException if the underlying writer fails.
+     */
+    public void write(String lastName, DriverInfoPage page) throws IOException {
+        if (page.isEmpty()) {
+            writer.write("No registered driver found with last name: ");
+            writer.write(lastName);
+            writer.write(LINE_SEPARATOR);
+            return;
+        }
+        for (DriverInfo info : page.getResults()) {
+            write(info);
+        }
+    }
+
+    /**
+     * Renders detailed information about a single driver.
+     * @param info The driver to render.
+     * @throws IOException if the underlying writer fails.
+     */
+    public void write(DriverInfo info) throws IOException {
+        writer.write(info.getLastName());
+        writer.write(',');
+        writer.write(info.getFirstName());
+        writer.write(LINE_SEPARATOR);
+        for (Vehicle vehicle : info.getVehicles()) {
+            writer.write("    Vehicle: ");
+            writer.write(vehicle.getDescription());
+            writer.write(LINE_SEPARATOR);
+        }
+        List<Violation> violations = info.getViolations();
+        if (!violations.isEmpty()) {
+            writer.write("    Driving violations:");
+            writer.write(LINE_SEPARATOR);
+            for (Violation violation : violations) {
+                writer.write("        ");
+                writer.write(String.valueOf(violation));
+                writer.write(LINE_SEPARATOR);
+            }
+        } else {
+            writer.write("No driving violations");
+            writer.write(LINE_SEPARATOR);
+        }
+        writer.write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Flushes everything rendered so far to the destination.
+     * @throws IOException if the underlying writer fails.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of driver query results together with the cursor to resume from.
+ */
+public class DriverInfoPage {
+    private final List<DriverInfo> results;
+    private final String nextCursor;
+
+    /**
+     * Constructs a new page of results.
+     * @param results The drivers on this page, in query order.
+     * @param nextCursor The cursor for the next page, or null if this is the last page.
+     */
+    public DriverInfoPage(List<DriverInfo> results, String nextCursor) {
+        this.results = Collections.unmodifiableList(results);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the drivers on this page.
+     * @return An unmodifiable list of driver views.
+     */
+    public List<DriverInfo> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the opaque cursor to pass to the next query call.
+     * @return The next cursor, or null if there are no more results.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether more results are available after this page.
+     * @return true if a next page exists, false otherwise.
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Checks whether this page holds no results.
+     * @return true if the page is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return results.isEmpty();
+    }
+}
@@ -0,0 +1,22 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning the assembly of drivers from their loaded licenses,
+ * vehicles, insurance and histories.
+ */
+@Name("rideshare.DriverJoin")
+@Label("Driver Join")
+@Category({"Rideshare", "Ingest"})
+@Description("Joining the loaded CSV records into drivers")
+public class DriverJoinEvent extends Event {
+    @Label("Driver ID")
+    @Description("The driver assembled, or empty when all drivers were joined at once")
+    String driverId;
+
+    @Label("Drivers")
+    long driverCount;
+}
@@ -1,18 +1,45 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Manages a pool of drivers and their associated vehicles in a ride-sharing system.
+ * The pool state is held in an immutable {@link PoolSnapshot}. Writers are serialized on
+ * the manager and build the next snapshot from the latest one; readers use whichever
+ * snapshot is published and never wait for writers.
+ * Every change is reported to the registered {@link PoolMutationListener}s while the
+ * write lock is held; a listener that throws cancels the whole operation. The writer then
+ * releases the lock, waits until every listener allows the operation to be seen and
+ * publishes it, so listeners can make writers of a pool wait together, for instance for one
+ * fsync. If a listener refuses an operation at that point, it is cancelled along with every
+ * operation built on top of it that is not yet published. The latency of adds, removals and queries is recorded in
+ * {@link RideshareMetrics}, and adds and removals emit {@link PoolMutationEvent}s.
  */
 public class DriverPoolManager {
-    private Map<String, Driver> driverPool; // maps driver's license numbers to 'Driver' objects
-    private Map<String, Vehicle> vehiclePool; // maps vehicle IDs to 'Vehicle' objects
-    private Map<String, String> vehicleUsage; // maps vehicle IDs to the license numbers of the drivers currently using them
+    private volatile PoolSnapshot current; // the latest published version of the pool state
+    private PoolSnapshot head; // the latest version built by a writer, published once the listeners allow it; guarded by this
+    private final ArrayDeque<Operation> unpublished = new ArrayDeque<>(); // in the order they were built; guarded by this
+    private final VehicleClaimArbiter claimArbiter; // decides whether a free vehicle may be assigned
+    private final List<PoolMutationListener> listeners = new CopyOnWriteArrayList<>();
+    private final RideshareMetrics metrics = RideshareMetrics.getInstance();
+    private final EventSink events = EventSink.getInstance();
 
     public DriverPoolManager() {
-        driverPool = new HashMap<>();
-        vehiclePool = new HashMap<>();
-        vehicleUsage = new HashMap<>();
+        this(VehicleClaimArbiter.LOCAL);
+    }
+
+    /**
+     * Constructs a pool whose vehicle assignments are also arbitrated externally,
+     * so that vehicles stay exclusive across several pools.
+     * @param claimArbiter The arbiter asked before a vehicle is assigned to a driver.
+     */
+    public DriverPoolManager(VehicleClaimArbiter claimArbiter) {
+        this.current = PoolSnapshot.EMPTY;
+        this.head = PoolSnapshot.EMPTY;
+        this.claimArbiter = claimArbiter;
     }
 
     /**
@@ -21,31 +48,47 @@ public class DriverPoolManager {
      * @param driver The driver to add to the pool.
      */
     public void addDriver(Driver driver) {
-        if (driver == null) {
-            System.err.println("Error: Attempted to add a non existing driver.");
-            return;
+        PoolMutationEvent event = new PoolMutationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean added = metrics.poolOperation(PoolOperation.ADD).record(start, add(driver));
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = PoolOperation.ADD.name();
+            event.licenseNumber = driver == null ? null : driver.getDriverLicense().getLicenseNumber();
+            event.succeeded = added;
+            event.commit();
         }
+    }
 
-        String driverId = driver.getDriverLicense().getLicenseNumber();
-        if (driverPool.containsKey(driverId)) {
-            System.err.println("Error: Driver with license number " + driverId + " already exists.");
-            return;
+    // adds a driver; returns whether the driver was added
+    private boolean add(Driver driver) {
+        Operation operation = stageAdd(driver);
+        if (operation == null) {
+            return false;
         }
+        publishWhenAllowed(operation);
+        return true;
+    }
 
-        driverPool.put(driverId, driver);
-
-        for (Vehicle vehicle : driver.getVehicles()) {
-            String vehicleId = vehicle.getVehicleId();
-            if (!vehiclePool.containsKey(vehicleId)) {
-                vehiclePool.put(vehicleId, vehicle);
+    // builds and reports the addition of a driver under the write lock; returns null if the driver is not added
+    private synchronized Operation stageAdd(Driver driver) {
+        if (driver == null) {
+            events.error("pool.add.null", "Error: Attempted to add a non existing driver.");
+            return null;
+        }
+        Draft draft = new Draft(head);
+        Operation operation = null;
+        try {
+            if (draft.add(driver)) {
+                operation = stage(draft);
             }
-            // Check if the vehicle is currently in use by another driver
-            if (!vehicleUsage.containsKey(vehicleId)) {
-                vehicleUsage.put(vehicleId, driverId); // Assign the vehicle to the new driver
-            } else {
-                System.out.println("Info: Vehicle " + vehicleId + " is currently used by another driver.");
+        } finally {
+            if (operation == null) {
+                draft.releaseClaims();
             }
         }
+        return operation;
     }
 
     /**
@@ -53,16 +96,200 @@ public class DriverPoolManager {
      * @param driverId The ID of the driver to remove.
      */
     public void removeDriver(String driverId) {
-        if (!driverPool.containsKey(driverId)) {
-            System.err.println("Error: No driver found with license number " + driverId + ".");
+        PoolMutationEvent event = new PoolMutationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean removed = metrics.poolOperation(PoolOperation.REMOVE).record(start, remove(driverId));
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = PoolOperation.REMOVE.name();
+            event.licenseNumber = driverId;
+            event.succeeded = removed;
+            event.commit();
+        }
+    }
+
+    // removes a driver; returns whether the driver was removed
+    private boolean remove(String driverId) {
+        Operation operation = stageRemove(driverId);
+        if (operation == null) {
+            return false;
+        }
+        publishWhenAllowed(operation);
+        return true;
+    }
+
+    // builds and reports the removal of a driver under the write lock; returns null if there is no such driver
+    private synchronized Operation stageRemove(String driverId) {
+        Draft draft = new Draft(head);
+        return draft.remove(driverId) ? stage(draft) : null;
+    }
+
+    /**
+     * Removes and then adds drivers as one operation, for bulk writers such as a simulation.
+     * The listeners are told of every change as for single removes and adds, but the pool
+     * builds and publishes one version for the whole batch and records neither metrics nor
+     * {@link PoolMutationEvent}s for it. Drivers that are not pooled or already pooled are
+     * reported and skipped as by {@link #removeDriver(String)} and {@link #addDriver(Driver)};
+     * if a listener cancels the batch, none of it is applied.
+     * @param removed The license numbers of the drivers to remove.
+     * @param added The drivers to add, after the removals.
+     */
+    public void applyBatch(Collection<String> removed, Collection<Driver> added) {
+        Operation operation = stageBatch(removed, added);
+        if (operation != null) {
+            publishWhenAllowed(operation);
+        }
+    }
+
+    // builds and reports a batch under the write lock; returns null if it changes nothing
+    private synchronized Operation stageBatch(Collection<String> removed, Collection<Driver> added) {
+        Draft draft = new Draft(head);
+        Operation operation = null;
+        try {
+            for (String driverId : removed) {
+                draft.remove(driverId);
+            }
+            for (Driver driver : added) {
+                if (driver == null) {
+                    events.error("pool.add.null", "Error: Attempted to add a non existing driver.");
+                } else {
+                    draft.add(driver);
+                }
+            }
+            if (!draft.changes.isEmpty()) {
+                operation = stage(draft);
+            }
+        } finally {
+            if (operation == null) {
+                draft.releaseClaims();
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Gets the current version of the pool state. The snapshot never changes, so a reader
+     * can run any number of queries against it and see a consistent view.
+     * @return The latest published snapshot.
+     */
+    public PoolSnapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Registers a listener to be notified of every change to the pool.
+     * @param listener The listener to register.
+     */
+    public void addMutationListener(PoolMutationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     * @param listener The listener to unregister.
+     */
+    public void removeMutationListener(PoolMutationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets all drivers currently in the pool.
+     * @return A copy of the pooled drivers.
+     */
+    public List<Driver> getDrivers() {
+        return new ArrayList<>(current.getDrivers());
+    }
+
+    /**
+     * Gets the current assignment of vehicles to drivers.
+     * @return A copy of the map from vehicle IDs to the license numbers of the drivers using them.
+     */
+    public Map<String, String> getVehicleUsage() {
+        return new HashMap<>(current.getVehicleUsage());
+    }
+
+    /**
+     * Replaces the whole content of the pool without notifying listeners.
+     * Used to restore a previously captured state.
+     * @param drivers The drivers to place in the pool.
+     * @param usage The vehicle assignments to restore.
+     */
+    synchronized void restore(Collection<Driver> drivers, Map<String, String> usage) {
+        PersistentHashMap<String, Driver> driverPool = PersistentHashMap.empty();
+        PersistentHashMap<String, Vehicle> vehiclePool = PersistentHashMap.empty();
+        PersistentHashMap<String, String> vehicleUsage = PersistentHashMap.empty();
+        PersistentHashMap<String, LastNameGroup> lastNameIndex = PersistentHashMap.empty();
+        for (Driver driver : drivers) {
+            String driverId = driver.getDriverLicense().getLicenseNumber();
+            driverPool = driverPool.plus(driverId, driver);
+            lastNameIndex = indexDriver(lastNameIndex, driverId, driver);
+            for (Vehicle vehicle : driver.getVehicles()) {
+                if (!vehiclePool.containsKey(vehicle.getVehicleId())) {
+                    vehiclePool = vehiclePool.plus(vehicle.getVehicleId(), vehicle);
+                }
+            }
+        }
+        for (String vehicleId : current.getVehicleUsage().keySet()) {
+            claimArbiter.release(vehicleId, current.getVehicleUser(vehicleId));
+        }
+        for (Map.Entry<String, String> entry : usage.entrySet()) {
+            if (claimArbiter.tryClaim(entry.getKey(), entry.getValue())) {
+                vehicleUsage = vehicleUsage.plus(entry.getKey(), entry.getValue());
+            }
+        }
+        publish(current, driverPool, vehiclePool, vehicleUsage, lastNameIndex);
+    }
+
+    /**
+     * Records a vehicle assignment without notifying listeners. Used when replaying a log.
+     * @param vehicleId The ID of the vehicle.
+     * @param licenseNumber The license number of the driver using the vehicle.
+     */
+    synchronized void restoreVehicleClaim(String vehicleId, String licenseNumber) {
+        PoolSnapshot base = head;
+        if (licenseNumber.equals(base.getVehicleUser(vehicleId)) || !claimArbiter.tryClaim(vehicleId, licenseNumber)) {
             return;
         }
+        publish(base, base.driverPool(), base.vehiclePool(), base.vehicleUsage().plus(vehicleId, licenseNumber), base.lastNameIndex());
+    }
 
-        Driver driver = driverPool.get(driverId);
-        for (Vehicle vehicle : driver.getVehicles()) {
-            vehicleUsage.remove(vehicle.getVehicleId()); // Release the vehicle
+    /**
+     * Removes a vehicle assignment without notifying listeners. Used when replaying a log.
+     * @param vehicleId The ID of the vehicle.
+     * @param licenseNumber The license number of the driver that was using the vehicle.
+     */
+    synchronized void restoreVehicleRelease(String vehicleId, String licenseNumber) {
+        PoolSnapshot base = head;
+        if (licenseNumber.equals(base.getVehicleUser(vehicleId))) {
+            claimArbiter.release(vehicleId, licenseNumber);
+            publish(base, base.driverPool(), base.vehiclePool(), base.vehicleUsage().minus(vehicleId), base.lastNameIndex());
         }
-        driverPool.remove(driverId);
+    }
+
+    /**
+     * Finds all drivers with a specific last name, ordered by first name.
+     * @param lastName The last name to search for in the driver pool.
+     * @return A page holding every matching driver.
+     */
+    public DriverInfoPage queryByLastName(String lastName) {
+        return queryByLastName(lastName, null, 0);
+    }
+
+    /**
+     * Finds drivers with a specific last name, one page at a time.
+     * Results are ordered by first name and then by license number.
+     * Each page is read from the snapshot current at the time of the call.
+     * @param lastName The last name to search for, ignoring case.
+     * @param cursor The cursor returned with the previous page, or null to start from the beginning.
+     * @param limit The maximum number of results on the page; zero or less means no limit.
+     * @return The page of matching drivers and the cursor to continue from.
+     */
+    public DriverInfoPage queryByLastName(String lastName, String cursor, int limit) {
+        long start = System.nanoTime();
+        DriverInfoPage page = current.queryByLastName(lastName, cursor, limit);
+        metrics.poolOperation(PoolOperation.QUERY).record(start, page.getResults().size());
+        return page;
     }
 
     /**
@@ -71,38 +298,313 @@ public class DriverPoolManager {
      * @param lastName The last name to search for in the driver pool.
      */
     public void provideDriverInfo(String lastName) {
-        List<Driver> matchingDrivers = driverPool.values().stream()
-                .filter(driver -> driver.getName().getLastName().equalsIgnoreCase(lastName))
-                .sorted(Comparator.comparing(driver -> driver.getName().getFirstName()))
-                .collect(Collectors.toList());
-
-        if (matchingDrivers.isEmpty()) {
-            System.out.println("No registered driver found with last name: " + lastName);
-            return;
+        DriverInfoFormatter formatter = new DriverInfoFormatter(new OutputStreamWriter(System.out));
+        try {
+            formatter.write(lastName, queryByLastName(lastName));
+            formatter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
+
+    /**
+     * Gets the latest version built by a writer, which may not be published yet.
+     * Callers that hold the write lock see it stay the latest until they release the lock.
+     * @return The latest snapshot.
+     */
+    synchronized PoolSnapshot latest() {
+        return head;
+    }
 
-        for (Driver driver : matchingDrivers) {
-            displayDriverInformation(driver);
+    /**
+     * Reports the changes of one operation to every listener, then lets every listener veto it.
+     * If a listener throws, the changes already reported are undone in reverse order on every
+     * listener that saw them, the listeners are told of the cancellation and the exception is
+     * rethrown, so the operation must not be published.
+     * @return The listeners that were told of the changes.
+     */
+    private PoolMutationListener[] report(List<Change> changes) {
+        PoolMutationListener[] notified = listeners.toArray(new PoolMutationListener[0]);
+        int listenerIndex = 0;
+        int changeIndex = 0;
+        try {
+            for (; listenerIndex < notified.length; listenerIndex++) {
+                for (changeIndex = 0; changeIndex < changes.size(); changeIndex++) {
+                    changes.get(changeIndex).report.accept(notified[listenerIndex]);
+                }
+            }
+            for (PoolMutationListener listener : notified) {
+                listener.beforePublish();
+            }
+            return notified;
+        } catch (RuntimeException e) {
+            for (int i = Math.min(listenerIndex, notified.length - 1); i >= 0; i--) {
+                int reported = i == listenerIndex ? changeIndex : changes.size();
+                for (int j = reported - 1; j >= 0; j--) {
+                    undoQuietly(changes.get(j), notified[i], e);
+                }
+            }
+            for (PoolMutationListener listener : notified) {
+                try {
+                    listener.onCancelled();
+                } catch (RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
         }
     }
 
+    // makes a reported operation the base of the next one, until it is published or cancelled
+    private Operation stage(PoolSnapshot snapshot, List<Change> changes, PoolMutationListener[] notified,
+                            Runnable onPublished, Runnable onCancelled) {
+        Operation operation = new Operation(snapshot, changes, notified, onPublished, onCancelled);
+        unpublished.addLast(operation);
+        head = snapshot;
+        return operation;
+    }
+
     /**
-     * Displays detailed information about a driver.
-     * @param driver The driver whose information is to be displayed.
+     * Waits, without the write lock, until every listener allows an operation to be seen, then
+     * publishes it along with the operations staged before it, which the listeners allow in order.
+     * If a listener refuses it, every unpublished operation is cancelled, newest first.
      */
-    private void displayDriverInformation(Driver driver) {
-        System.out.println(driver.getName().getLastName() + "," + driver.getName().getFirstName());
-        for (Vehicle vehicle : driver.getVehicles()) {
-            System.out.println("    Vehicle: " + vehicle.getDescription());
+    private void publishWhenAllowed(Operation operation) {
+        RuntimeException refusal = null;
+        for (PoolMutationListener listener : operation.notified) {
+            try {
+                listener.awaitPublishable();
+            } catch (RuntimeException e) {
+                refusal = e;
+                break;
+            }
+        }
+        synchronized (this) {
+            if (operation.cancellation != null) {
+                throw operation.cancellation;
+            }
+            if (operation.published) {
+                return; // a later operation was allowed, and this one with it
+            }
+            if (refusal != null) {
+                cancelUnpublished(operation, refusal);
+                throw refusal;
+            }
+            Operation first;
+            do {
+                first = unpublished.removeFirst();
+                first.published = true;
+                if (first.onPublished != null) {
+                    first.onPublished.run();
+                }
+            } while (first != operation);
+            current = operation.snapshot;
+        }
+    }
+
+    // undoes every unpublished operation on its listeners, newest first, and goes back to the published version
+    private void cancelUnpublished(Operation refused, RuntimeException cause) {
+        for (Iterator<Operation> newestFirst = unpublished.descendingIterator(); newestFirst.hasNext(); ) {
+            Operation operation = newestFirst.next();
+            for (int i = operation.notified.length - 1; i >= 0; i--) {
+                for (int j = operation.changes.size() - 1; j >= 0; j--) {
+                    undoQuietly(operation.changes.get(j), operation.notified[i], cause);
+                }
+            }
+            for (PoolMutationListener listener : operation.notified) {
+                try {
+                    listener.onCancelled();
+                } catch (RuntimeException suppressed) {
+                    cause.addSuppressed(suppressed);
+                }
+            }
+            if (operation.onCancelled != null) {
+                operation.onCancelled.run();
+            }
+            if (operation != refused) {
+                operation.cancellation = new IllegalStateException(
+                        "Cancelled along with an earlier operation that could not be published.", cause);
+            }
+        }
+        unpublished.clear();
+        head = current;
+    }
+
+    private static void undoQuietly(Change change, PoolMutationListener listener, RuntimeException cause) {
+        try {
+            change.undo.accept(listener);
+        } catch (RuntimeException suppressed) {
+            cause.addSuppressed(suppressed);
+        }
+    }
+
+    // reports a draft to the listeners and queues it to be published
+    private Operation stage(Draft draft) {
+        // vehicles claimed are given back if the operation is cancelled, and vehicles released
+        // only once it can no longer be
+        return stage(next(draft.base, draft.driverPool, draft.vehiclePool, draft.vehicleUsage, draft.lastNameIndex),
+                draft.changes, report(draft.changes), draft.released.isEmpty() ? null : draft::releaseVehicles,
+                draft.claimed.isEmpty() ? null : draft::releaseClaims);
+    }
+
+    // the next version of the pool state while a writer builds it, with the changes to report
+    private final class Draft {
+        final PoolSnapshot base;
+        PersistentHashMap<String, Driver> driverPool;
+        PersistentHashMap<String, Vehicle> vehiclePool;
+        PersistentHashMap<String, String> vehicleUsage;
+        PersistentHashMap<String, LastNameGroup> lastNameIndex;
+        final List<Change> changes = new ArrayList<>();
+        final List<String[]> claimed = new ArrayList<>(); // vehicle ID and license number of every claim
+        final List<String[]> released = new ArrayList<>();
+
+        Draft(PoolSnapshot base) {
+            this.base = base;
+            this.driverPool = base.driverPool();
+            this.vehiclePool = base.vehiclePool();
+            this.vehicleUsage = base.vehicleUsage();
+            this.lastNameIndex = base.lastNameIndex();
         }
-        if (!driver.getDriverHistory().getViolations().isEmpty()) {
-            System.out.println("    Driving violations:");
-            for (Violation violation : driver.getDriverHistory().getViolations()) {
-                System.out.println("        " + violation);
+
+        // adds a driver and claims their free vehicles; returns false if the license number is taken
+        boolean add(Driver driver) {
+            String driverId = driver.getDriverLicense().getLicenseNumber();
+            if (driverPool.containsKey(driverId)) {
+                events.error("pool.add.duplicate", "Error: Driver with license number %s already exists.", driverId);
+                return false;
+            }
+            driverPool = driverPool.plus(driverId, driver);
+            lastNameIndex = indexDriver(lastNameIndex, driverId, driver);
+            changes.add(Change.driverAdded(driver));
+            for (Vehicle vehicle : driver.getVehicles()) {
+                String vehicleId = vehicle.getVehicleId();
+                if (!vehiclePool.containsKey(vehicleId)) {
+                    vehiclePool = vehiclePool.plus(vehicleId, vehicle);
+                }
+                // Check if the vehicle is currently in use by another driver
+                if (!vehicleUsage.containsKey(vehicleId) && claimArbiter.tryClaim(vehicleId, driverId)) {
+                    claimed.add(new String[] {vehicleId, driverId});
+                    vehicleUsage = vehicleUsage.plus(vehicleId, driverId); // Assign the vehicle to the new driver
+                    changes.add(Change.vehicleClaimed(vehicleId, driverId));
+                } else {
+                    events.info("pool.add.vehicleInUse", "Info: Vehicle %s is currently used by another driver.", vehicleId);
+                }
+            }
+            return true;
+        }
+
+        // removes a driver and releases the vehicles they hold; returns false if there is no such driver
+        boolean remove(String driverId) {
+            Driver driver = driverPool.get(driverId);
+            if (driver == null) {
+                events.error("pool.remove.missing", "Error: No driver found with license number %s.", driverId);
+                return false;
             }
-        } else {
-            System.out.println("No driving violations");
+            for (Vehicle vehicle : driver.getVehicles()) {
+                // Release the vehicle, unless another driver holds it
+                String vehicleId = vehicle.getVehicleId();
+                if (driverId.equals(vehicleUsage.get(vehicleId))) {
+                    vehicleUsage = vehicleUsage.minus(vehicleId);
+                    released.add(new String[] {vehicleId, driverId});
+                    changes.add(Change.vehicleReleased(vehicleId, driverId));
+                }
+            }
+            driverPool = driverPool.minus(driverId);
+            lastNameIndex = unindexDriver(lastNameIndex, driverId, driver);
+            changes.add(Change.driverRemoved(driver));
+            return true;
+        }
+
+        void releaseClaims() {
+            for (String[] claim : claimed) {
+                claimArbiter.release(claim[0], claim[1]);
+            }
+        }
+
+        void releaseVehicles() {
+            for (String[] release : released) {
+                claimArbiter.release(release[0], release[1]);
+            }
+        }
+    }
+
+    // one change reported to the listeners, and the change that undoes it
+    private static final class Change {
+        final Consumer<PoolMutationListener> report;
+        final Consumer<PoolMutationListener> undo;
+
+        private Change(Consumer<PoolMutationListener> report, Consumer<PoolMutationListener> undo) {
+            this.report = report;
+            this.undo = undo;
+        }
+
+        static Change driverAdded(Driver driver) {
+            return new Change(listener -> listener.onDriverAdded(driver), listener -> listener.onDriverRemoved(driver));
+        }
+
+        static Change driverRemoved(Driver driver) {
+            return new Change(listener -> listener.onDriverRemoved(driver), listener -> listener.onDriverAdded(driver));
+        }
+
+        static Change vehicleClaimed(String vehicleId, String licenseNumber) {
+            return new Change(listener -> listener.onVehicleClaimed(vehicleId, licenseNumber),
+                    listener -> listener.onVehicleReleased(vehicleId, licenseNumber));
+        }
+
+        static Change vehicleReleased(String vehicleId, String licenseNumber) {
+            return new Change(listener -> listener.onVehicleReleased(vehicleId, licenseNumber),
+                    listener -> listener.onVehicleClaimed(vehicleId, licenseNumber));
+        }
+    }
+
+    // an operation that was reported to the listeners and waits to be published
+    private static final class Operation {
+        final PoolSnapshot snapshot;
+        final List<Change> changes;
+        final PoolMutationListener[] notified;
+        final Runnable onPublished;
+        final Runnable onCancelled;
+        boolean published; // guarded by the pool
+        RuntimeException cancellation; // guarded by the pool
+
+        Operation(PoolSnapshot snapshot, List<Change> changes, PoolMutationListener[] notified,
+                  Runnable onPublished, Runnable onCancelled) {
+            this.snapshot = snapshot;
+            this.changes = changes;
+            this.notified = notified;
+            this.onPublished = onPublished;
+            this.onCancelled = onCancelled;
+        }
+    }
+
+    // the next version of the pool state
+    private static PoolSnapshot next(PoolSnapshot base, PersistentHashMap<String, Driver> driverPool, PersistentHashMap<String, Vehicle> vehiclePool,
+                                     PersistentHashMap<String, String> vehicleUsage, PersistentHashMap<String, LastNameGroup> lastNameIndex) {
+        return new PoolSnapshot(base.getVersion() + 1, driverPool, vehiclePool, vehicleUsage, lastNameIndex);
+    }
+
+    // publishes the next version of the pool state at once, when nothing is waiting to be published
+    private void publish(PoolSnapshot base, PersistentHashMap<String, Driver> driverPool, PersistentHashMap<String, Vehicle> vehiclePool,
+                         PersistentHashMap<String, String> vehicleUsage, PersistentHashMap<String, LastNameGroup> lastNameIndex) {
+        current = next(base, driverPool, vehiclePool, vehicleUsage, lastNameIndex);
+        head = current;
+    }
+
+    private static PersistentHashMap<String, LastNameGroup> indexDriver(
+            PersistentHashMap<String, LastNameGroup> lastNameIndex, String driverId, Driver driver) {
+        String lastNameKey = PoolSnapshot.indexKey(driver.getName().getLastName());
+        LastNameGroup sameLastName = lastNameIndex.get(lastNameKey);
+        return lastNameIndex.plus(lastNameKey, sameLastName == null ? LastNameGroup.of(driver) : sameLastName.plus(driver));
+    }
+
+    private static PersistentHashMap<String, LastNameGroup> unindexDriver(
+            PersistentHashMap<String, LastNameGroup> lastNameIndex, String driverId, Driver driver) {
+        String lastNameKey = PoolSnapshot.indexKey(driver.getName().getLastName());
+        LastNameGroup sameLastName = lastNameIndex.get(lastNameKey);
+        if (sameLastName == null) {
+            return lastNameIndex;
         }
-        System.out.println();
+        sameLastName = sameLastName.minus(driverId);
+        return sameLastName == null ? lastNameIndex.minus(lastNameKey) : lastNameIndex.plus(lastNameKey, sameLastName);
     }
 }
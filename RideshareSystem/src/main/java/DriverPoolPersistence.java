@@ -0,0 +1,334 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Makes a {@link DriverPoolManager} durable across restarts.
+ * The changes of every pool operation are appended to a {@link WriteAheadLog} as one record
+ * while the pool's write lock is held; the writer waits for the fsync after releasing the
+ * lock, so writers of the pool share fsyncs, and the operation is only published once its
+ * record is durable. If the log fails, the operation is cancelled, along with the operations
+ * appended after it. Compact snapshots of the whole pool are written
+ * periodically in the background. Recovery loads the latest snapshot and replays only the
+ * log records written after it, so its cost depends on the length of the log tail rather
+ * than on the size of the pool. A persistence buffers the changes of one operation at a
+ * time, so it must be attached to a single pool.
+ */
+public class DriverPoolPersistence implements PoolMutationListener, Closeable {
+    private static final byte DRIVER_ADDED = 1;
+    private static final byte DRIVER_REMOVED = 2;
+    private static final byte VEHICLE_CLAIMED = 3;
+    private static final byte VEHICLE_RELEASED = 4;
+    private static final byte OPERATION = 5; // the changes of one pool operation, each a type and its payload
+
+    private static final int SNAPSHOT_MAGIC = 0x52535350; // "RSSP"
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final EventSink EVENTS = EventSink.getInstance();
+
+    private final Path directory;
+    private final DriverPoolManager pool;
+    private final WriteAheadLog log;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final ByteArrayOutputStream operationBuffer = new ByteArrayOutputStream(512); // the changes of the current operation
+    private final DataOutputStream operation = new DataOutputStream(operationBuffer);
+    private final long recoveredRecords;
+    private final ThreadLocal<Long> appendedLsn = new ThreadLocal<>(); // the record of the writer's current operation
+
+    private DriverPoolPersistence(Path directory, DriverPoolManager pool, WriteAheadLog log, long recoveredRecords) {
+        this.directory = directory;
+        this.pool = pool;
+        this.log = log;
+        this.recoveredRecords = recoveredRecords;
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Recovers a pool from a persistence directory and starts logging its mutations.
+     * The pool's current content is replaced by the recovered state.
+     * @param directory The directory holding the snapshots and the write-ahead log.
+     * @param pool The pool to recover into and to make durable.
+     * @param snapshotIntervalMillis The delay between background snapshots; zero or less disables them.
+     * @return The persistence attached to the pool.
+     * @throws IOException if the recovered state cannot be read or the log cannot be opened.
+     */
+    public static DriverPoolPersistence open(Path directory, DriverPoolManager pool, long snapshotIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        long snapshotLsn = loadLatestSnapshot(directory, pool);
+        long[] replayed = new long[1];
+        long lastLsn = WriteAheadLog.replay(directory, snapshotLsn, (lsn, type, payload) -> {
+            apply(pool, type, payload);
+            replayed[0]++;
+        });
+
+        DriverPoolPersistence persistence = new DriverPoolPersistence(directory, pool, new WriteAheadLog(directory, lastLsn + 1), replayed[0]);
+        pool.addMutationListener(persistence);
+        if (snapshotIntervalMillis > 0) {
+            persistence.snapshotScheduler.scheduleWithFixedDelay(persistence::snapshotQuietly,
+                    snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return persistence;
+    }
+
+    /**
+     * Gets the number of log records replayed on top of the snapshot during recovery.
+     * @return The number of replayed records.
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Waits until every mutation made so far has been fsynced to the log.
+     * @throws IOException if the log cannot be flushed.
+     */
+    public void awaitDurable() throws IOException {
+        log.awaitDurable(log.getLastLsn());
+    }
+
+    /**
+     * Writes a snapshot of the current pool and discards the log segments it covers.
+     * Writers are only blocked while the log position is read, flushed and matched to a pool version.
+     * @return The sequence number of the last log record included in the snapshot.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public long snapshot() throws IOException {
+        PoolSnapshot state;
+        long snapshotLsn;
+        // every operation is logged under the pool's write lock, so holding the lock pins the log
+        // position to the latest version; once its records are durable, that version cannot be cancelled
+        synchronized (pool) {
+            snapshotLsn = log.getLastLsn();
+            log.awaitDurable(snapshotLsn);
+            state = pool.latest();
+        }
+        // records after the snapshot may land in the closed segment too; deleteSegmentsBefore keeps it
+        log.roll();
+        Collection<Driver> drivers = state.getDrivers();
+        Map<String, String> usage = state.getVehicleUsage();
+
+        Path target = directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", snapshotLsn) + SNAPSHOT_SUFFIX);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotLsn);
+            out.writeInt(drivers.size());
+            for (Driver driver : drivers) {
+                DriverRecordCodec.getInstance().write(out, driver);
+            }
+            out.writeInt(usage.size());
+            for (Map.Entry<String, String> entry : usage.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path older : listSnapshots(directory)) {
+            if (!older.equals(target)) {
+                Files.deleteIfExists(older);
+            }
+        }
+        log.deleteSegmentsBefore(snapshotLsn + 1);
+        return snapshotLsn;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pool.removeMutationListener(this);
+        snapshotScheduler.shutdown();
+        try {
+            snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    @Override
+    public void onDriverAdded(Driver driver) {
+        try {
+            operation.writeByte(DRIVER_ADDED);
+            DriverRecordCodec.getInstance().write(operation, driver);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onDriverRemoved(Driver driver) {
+        addChange(DRIVER_REMOVED, driver.getDriverLicense().getLicenseNumber(), null);
+    }
+
+    @Override
+    public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+        addChange(VEHICLE_CLAIMED, vehicleId, licenseNumber);
+    }
+
+    @Override
+    public void onVehicleReleased(String vehicleId, String licenseNumber) {
+        addChange(VEHICLE_RELEASED, vehicleId, licenseNumber);
+    }
+
+    /**
+     * Appends the changes of the operation to the log as one record, without waiting for the fsync.
+     * @throws UncheckedIOException if the log cannot be written, which cancels the operation.
+     */
+    @Override
+    public void beforePublish() {
+        try {
+            operation.flush();
+            appendedLsn.set(log.enqueue(OPERATION, operationBuffer.toByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            operationBuffer.reset();
+        }
+    }
+
+    /**
+     * Waits until the record of the operation is fsynced.
+     * @throws UncheckedIOException if the log cannot be flushed, which cancels the operation.
+     */
+    @Override
+    public void awaitPublishable() {
+        Long lsn = appendedLsn.get();
+        if (lsn == null) {
+            return;
+        }
+        appendedLsn.remove();
+        try {
+            log.awaitDurable(lsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onCancelled() {
+        operationBuffer.reset();
+    }
+
+    private void addChange(byte type, String first, String second) {
+        try {
+            operation.writeByte(type);
+            operation.writeUTF(first);
+            if (second != null) {
+                operation.writeUTF(second);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            EVENTS.error("persistence.snapshot.write", "Error: Failed to write pool snapshot: %s", e.getMessage());
+        }
+    }
+
+    // applies one logged operation to the pool during recovery
+    private static void apply(DriverPoolManager pool, byte type, byte[] payload) throws IOException {
+        if (type != OPERATION) {
+            throw new IOException("Corrupt log: unknown record type " + type);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        while (in.available() > 0) {
+            byte change = in.readByte();
+            switch (change) {
+                case DRIVER_ADDED -> pool.addDriver(DriverRecordCodec.getInstance().read(in));
+                case DRIVER_REMOVED -> pool.removeDriver(in.readUTF());
+                case VEHICLE_CLAIMED -> pool.restoreVehicleClaim(in.readUTF(), in.readUTF());
+                case VEHICLE_RELEASED -> pool.restoreVehicleRelease(in.readUTF(), in.readUTF());
+                default -> throw new IOException("Corrupt log: unknown change type " + change);
+            }
+        }
+    }
+
+    // restores the newest intact snapshot, falling back to older ones, and returns its sequence number
+    private static long loadLatestSnapshot(Path directory, DriverPoolManager pool) throws IOException {
+        List<Path> snapshots = listSnapshots(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try (CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshots.get(i)), 64 * 1024), new CRC32())) {
+                DataInputStream in = new DataInputStream(checked);
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    continue;
+                }
+                long snapshotLsn = in.readLong();
+                int driverCount = in.readInt();
+                List<Driver> drivers = new ArrayList<>(driverCount);
+                for (int j = 0; j < driverCount; j++) {
+                    drivers.add(DriverRecordCodec.getInstance().read(in));
+                }
+                int usageCount = in.readInt();
+                Map<String, String> usage = new HashMap<>(usageCount * 2);
+                for (int j = 0; j < usageCount; j++) {
+                    usage.put(in.readUTF(), in.readUTF());
+                }
+                int expectedChecksum = (int) checked.getChecksum().getValue();
+                if (in.readInt() != expectedChecksum) {
+                    continue;
+                }
+                pool.restore(drivers, usage);
+                return snapshotLsn;
+            } catch (IOException e) {
+                EVENTS.error("persistence.snapshot.unreadable", "Error: Skipping unreadable snapshot %s: %s", snapshots.get(i),
+                        e.getMessage());
+            }
+        }
+        pool.restore(List.of(), Map.of());
+        return 0;
+    }
+
+    // lists snapshot files ordered from oldest to newest
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path path : stream) {
+                snapshots.add(path);
+            }
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+}
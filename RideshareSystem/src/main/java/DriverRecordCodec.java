@@ -0,0 +1,279 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Encodes a driver and everything it references (license, vehicles, insurance and
+ * histories) into a compact binary record, and decodes it back into a new object graph.
+ */
+public class DriverRecordCodec {
+    private static final DriverRecordCodec INSTANCE = new DriverRecordCodec();
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final byte MOVING_VIOLATION = 1;
+    private static final byte NON_MOVING_VIOLATION = 2;
+
+    // Private constructor to prevent direct instantiation.
+    private DriverRecordCodec() {
+    }
+
+    /**
+     * Gets the singleton instance of the DriverRecordCodec.
+     * @return The singleton instance of the DriverRecordCodec.
+     */
+    public static DriverRecordCodec getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Writes a driver as a binary record.
+     * @param out The destination of the record.
+     * @param driver The driver to encode.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void write(DataOutput out, Driver driver) throws IOException {
+        writeString(out, driver.getId());
+        writeName(out, driver.getName());
+        writeDate(out, driver.getBirthDate());
+        writeLicense(out, driver.getDriverLicense());
+
+        List<Vehicle> vehicles = driver.getVehicles();
+        out.writeInt(vehicles == null ? -1 : vehicles.size());
+        if (vehicles != null) {
+            for (Vehicle vehicle : vehicles) {
+                writeVehicle(out, vehicle);
+            }
+        }
+
+        writeInsurance(out, driver.getInsurance());
+
+        DriverHistory driverHistory = driver.getDriverHistory();
+        out.writeBoolean(driverHistory != null);
+        if (driverHistory != null) {
+            writeViolations(out, driverHistory.getViolations());
+        }
+
+        VehicleHistory vehicleHistory = driver.getVehicleHistory();
+        out.writeBoolean(vehicleHistory != null);
+        if (vehicleHistory != null) {
+            List<Crash> crashes = vehicleHistory.getCrashes();
+            out.writeInt(crashes.size());
+            for (Crash crash : crashes) {
+                writeDate(out, crash.getDate());
+                writeString(out, crash.getCrashType());
+                writeName(out, crash.getOffendingDriver());
+            }
+            writeViolations(out, vehicleHistory.getViolations());
+        }
+    }
+
+    /**
+     * Reads a driver previously written by {@link #write(DataOutput, Driver)}.
+     * @param in The source of the record.
+     * @return A new driver equal to the one that was written.
+     * @throws IOException if the source cannot be read.
+     */
+    public Driver read(DataInput in) throws IOException {
+        NamePool names = new NamePool(); // a person named several times in the record gets one Name
+        String id = readString(in);
+        Name name = readName(in, names);
+        Date birthDate = readDate(in);
+        Driver driver = new Driver(id, name, birthDate);
+        driver.setDriverLicense(readLicense(in, names));
+
+        int vehicleCount = in.readInt();
+        if (vehicleCount >= 0) {
+            List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                vehicles.add(readVehicle(in, names));
+            }
+            driver.setVehicles(vehicles);
+        }
+
+        driver.setInsurance(readInsurance(in, names));
+
+        if (in.readBoolean()) {
+            driver.setDriverHistory(new DriverHistory(readViolations(in)));
+        }
+
+        if (in.readBoolean()) {
+            VehicleHistory vehicleHistory = new VehicleHistory(new ArrayList<>(), new ArrayList<>());
+            int crashCount = in.readInt();
+            for (int i = 0; i < crashCount; i++) {
+                Date date = readDate(in);
+                String crashType = readString(in);
+                vehicleHistory.addCrash(new Crash(date, crashType, readName(in, names)));
+            }
+            for (Violation violation : readViolations(in)) {
+                vehicleHistory.addViolation(violation);
+            }
+            driver.setVehicleHistory(vehicleHistory);
+        }
+        return driver;
+    }
+
+    private void writeLicense(DataOutput out, DriverLicense license) throws IOException {
+        out.writeBoolean(license != null);
+        if (license == null) {
+            return;
+        }
+        writeString(out, license.getLicenseNumber());
+        writeName(out, license.getName());
+        writeString(out, license.getAddress());
+        writeDate(out, license.getBirthDate());
+        writeString(out, license.getCountryOfIssuance());
+        writeString(out, license.getStateOfIssuance());
+        writeDate(out, license.getIssuedDate());
+        writeDate(out, license.getExpirationDate());
+    }
+
+    private DriverLicense readLicense(DataInput in, NamePool names) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String licenseNumber = readString(in);
+        Name name = readName(in, names);
+        String address = readString(in);
+        Date birthDate = readDate(in);
+        String countryOfIssuance = readString(in);
+        String stateOfIssuance = readString(in);
+        Date issuedDate = readDate(in);
+        Date expirationDate = readDate(in);
+        return new DriverLicense(licenseNumber, name, address, birthDate, countryOfIssuance, stateOfIssuance, issuedDate, expirationDate);
+    }
+
+    private void writeVehicle(DataOutput out, Vehicle vehicle) throws IOException {
+        out.writeBoolean(vehicle != null);
+        if (vehicle == null) {
+            return;
+        }
+        writeString(out, vehicle.getMake());
+        writeString(out, vehicle.getModel());
+        writeString(out, vehicle.getColor());
+        out.writeInt(vehicle.getYear());
+        writeName(out, vehicle.getOfficialOwner());
+        writeString(out, vehicle.getVehicleId());
+    }
+
+    private Vehicle readVehicle(DataInput in, NamePool names) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String make = readString(in);
+        String model = readString(in);
+        String color = readString(in);
+        int year = in.readInt();
+        Name officialOwner = readName(in, names);
+        return new Vehicle(make, model, color, year, officialOwner, readString(in));
+    }
+
+    private void writeInsurance(DataOutput out, VehicleInsurance insurance) throws IOException {
+        out.writeBoolean(insurance != null);
+        if (insurance == null) {
+            return;
+        }
+        writeName(out, insurance.getOfficialOwner());
+        List<Name> insuredDrivers = insurance.getInsuredDrivers();
+        out.writeInt(insuredDrivers == null ? -1 : insuredDrivers.size());
+        if (insuredDrivers != null) {
+            for (Name insuredDriver : insuredDrivers) {
+                writeName(out, insuredDriver);
+            }
+        }
+        writeDate(out, insurance.getExpirationDate());
+        writeVehicle(out, insurance.getVehicle());
+    }
+
+    private VehicleInsurance readInsurance(DataInput in, NamePool names) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Name officialOwner = readName(in, names);
+        int insuredCount = in.readInt();
+        List<Name> insuredDrivers = null;
+        if (insuredCount >= 0) {
+            insuredDrivers = new ArrayList<>(insuredCount);
+            for (int i = 0; i < insuredCount; i++) {
+                insuredDrivers.add(readName(in, names));
+            }
+        }
+        Date expirationDate = readDate(in);
+        return new VehicleInsurance(officialOwner, insuredDrivers, expirationDate, readVehicle(in, names));
+    }
+
+    private void writeViolations(DataOutput out, List<Violation> violations) throws IOException {
+        out.writeInt(violations == null ? 0 : violations.size());
+        if (violations == null) {
+            return;
+        }
+        for (Violation violation : violations) {
+            if (violation instanceof MovingViolation) {
+                out.writeByte(MOVING_VIOLATION);
+                writeString(out, ((MovingViolation) violation).getViolationType());
+            } else if (violation instanceof NonMovingViolation) {
+                out.writeByte(NON_MOVING_VIOLATION);
+                writeString(out, ((NonMovingViolation) violation).getViolationType());
+            } else {
+                throw new IllegalArgumentException("Unknown violation class: " + violation.getClass().getName());
+            }
+            writeDate(out, violation.getDate());
+        }
+    }
+
+    private List<Violation> readViolations(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<Violation> violations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            String violationType = readString(in);
+            Date date = readDate(in);
+            if (kind == MOVING_VIOLATION) {
+                violations.add(new MovingViolation(date, violationType));
+            } else if (kind == NON_MOVING_VIOLATION) {
+                violations.add(new NonMovingViolation(date, violationType));
+            } else {
+                throw new IOException("Corrupt record: unknown violation kind " + kind);
+            }
+        }
+        return violations;
+    }
+
+    private void writeName(DataOutput out, Name name) throws IOException {
+        out.writeBoolean(name != null);
+        if (name != null) {
+            writeString(out, name.getFirstName());
+            writeString(out, name.getLastName());
+        }
+    }
+
+    private Name readName(DataInput in, NamePool names) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String firstName = readString(in);
+        return names.intern(firstName, readString(in));
+    }
+
+    private void writeDate(DataOutput out, Date date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.getTime());
+    }
+
+    private Date readDate(DataInput in) throws IOException {
+        long time = in.readLong();
+        return time == NO_DATE ? null : new Date(time);
+    }
+
+    private void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning the validation of one prospective driver.
+ */
+@Name("rideshare.DriverValidation")
+@Label("Driver Validation")
+@Category({"Rideshare", "Validation"})
+@Description("Validating a prospective driver")
+public class DriverValidationEvent extends Event {
+    @Label("Driver ID")
+    String driverId;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Rejected By")
+    @Description("The first check the driver failed, or empty if the driver is valid")
+    String rejectedBy;
+}
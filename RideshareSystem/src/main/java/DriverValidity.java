@@ -0,0 +1,139 @@
+/**
+ * The aggregates that decide whether a driver is valid, made by
+ * {@link RegistrationValidator#summarize(Driver)}. The parts that come from the driver's
+ * documents are taken once: the birth day, the license and insurance days, the oldest vehicle
+ * year, and whether the license and insurance belong to the driver. The parts that come from
+ * the histories are the running aggregates of the driver's {@link PackedHistory} logs, which
+ * every appended violation or crash updates in constant time. Summarize a driver again after
+ * changing their name, license, vehicles or insurance.
+ */
+public final class DriverValidity {
+    private final Driver driver;
+    private final int birthDay;
+    private final boolean licenseConsistent;
+    private final int licenseIssuedDay;
+    private final int licenseExpirationDay;
+    private final int oldestVehicleYear;
+    private final boolean insuranceHeld;
+    private final int insuranceExpirationDay;
+    private final long unacceptableViolations;
+
+    DriverValidity(Driver driver, boolean licenseConsistent, boolean insuranceHeld, long unacceptableViolations) {
+        this.driver = driver;
+        this.birthDay = PackedHistory.toDay(driver.getBirthDate());
+        this.licenseConsistent = licenseConsistent;
+        DriverLicense license = driver.getDriverLicense();
+        this.licenseIssuedDay = license == null ? PackedHistory.NO_DAY : PackedHistory.toDay(license.getIssuedDate());
+        this.licenseExpirationDay = license == null ? PackedHistory.NO_DAY : PackedHistory.toDay(license.getExpirationDate());
+        int oldest = Integer.MAX_VALUE;
+        if (driver.getVehicles() != null) {
+            for (Vehicle vehicle : driver.getVehicles()) {
+                oldest = Math.min(oldest, vehicle.getYear());
+            }
+        }
+        this.oldestVehicleYear = oldest;
+        this.insuranceHeld = insuranceHeld;
+        VehicleInsurance insurance = driver.getInsurance();
+        this.insuranceExpirationDay = insurance == null ? PackedHistory.NO_DAY : PackedHistory.toDay(insurance.getExpirationDate());
+        this.unacceptableViolations = unacceptableViolations;
+    }
+
+    /**
+     * Gets the summarized driver.
+     * @return The driver.
+     */
+    public Driver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Gets the birthdate of the driver.
+     * @return The birthdate as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     */
+    public int getBirthDay() {
+        return birthDay;
+    }
+
+    /**
+     * Gets whether the license matches the driver's name and birthdate and was issued in the US or Canada.
+     * @return true if it does.
+     */
+    public boolean isLicenseConsistent() {
+        return licenseConsistent;
+    }
+
+    /**
+     * Gets the issue date of the license.
+     * @return The issue date as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     */
+    public int getLicenseIssuedDay() {
+        return licenseIssuedDay;
+    }
+
+    /**
+     * Gets the expiration date of the license.
+     * @return The expiration date as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     */
+    public int getLicenseExpirationDay() {
+        return licenseExpirationDay;
+    }
+
+    /**
+     * Gets the model year of the driver's oldest vehicle.
+     * @return The year, or Integer.MAX_VALUE if the driver has no vehicles.
+     */
+    public int getOldestVehicleYear() {
+        return oldestVehicleYear;
+    }
+
+    /**
+     * Gets whether the driver is the official owner or a listed insured driver of the insurance.
+     * @return true if they are.
+     */
+    public boolean isInsuranceHeld() {
+        return insuranceHeld;
+    }
+
+    /**
+     * Gets the expiration date of the insurance.
+     * @return The expiration date as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     */
+    public int getInsuranceExpirationDay() {
+        return insuranceExpirationDay;
+    }
+
+    /**
+     * Gets the earliest expiration date of the license and the insurance.
+     * @return The earliest expiration date as days since 1970-01-01, or {@link PackedHistory#NO_DAY} if either is missing.
+     */
+    public int getMinimumDocumentExpirationDay() {
+        return Math.min(licenseExpirationDay, insuranceExpirationDay);
+    }
+
+    /**
+     * Gets the number of unacceptable moving violations in the driver's history.
+     * @return The number of unacceptable violations.
+     */
+    public int getUnacceptableViolationCount() {
+        DriverHistory history = driver.getDriverHistory();
+        return history == null ? 0 : history.getViolationLog().count(unacceptableViolations);
+    }
+
+    /**
+     * Gets the date of the latest crash in the vehicle history.
+     * @return The date as days since 1970-01-01, or {@link PackedHistory#NO_DAY} if there are no crashes.
+     */
+    public int getLatestCrashDay() {
+        VehicleHistory history = driver.getVehicleHistory();
+        return history == null ? PackedHistory.NO_DAY : history.getCrashLog().latestDay(PackedHistory.ALL_CODES);
+    }
+
+    /**
+     * Gets the date of the latest moving violation in the vehicle history.
+     * @return The date as days since 1970-01-01, or {@link PackedHistory#NO_DAY} if there are none.
+     */
+    public int getLatestMovingViolationDay() {
+        VehicleHistory history = driver.getVehicleHistory();
+        return history == null ? PackedHistory.NO_DAY : history.getViolationLog().latestDay(PackedHistory.MOVING_VIOLATIONS);
+    }
+}
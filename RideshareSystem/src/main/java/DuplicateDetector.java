@@ -0,0 +1,516 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds driver records that probably belong to the same person under different driver IDs or
+ * license numbers, with slightly different names, birthdates or addresses. Records are only
+ * compared within blocks of records that share a blocking key: the Soundex code of the surname
+ * together with the birthdate or with the birth year, or the house number together with the
+ * first street word of the license address. The birth-year block lets birthdates that are one
+ * day apart or have day and month swapped meet. Blocks are compared in parallel; a pair that
+ * shares several blocks is compared only in the first of them in key order, so no pair is
+ * compared twice and no thread waits on another. Pairs that score at least the threshold are
+ * joined into clusters.
+ *
+ * A pair's score weighs the similarity of the surnames and first names (Jaro-Winkler), of the
+ * birthdates (exact, or the same date with day and month swapped or one day apart) and of the
+ * address words (Jaccard), and lies between 0 and 1. Blocks larger than the block limit are
+ * skipped and counted, so that a very common key cannot make the run quadratic again.
+ */
+public class DuplicateDetector {
+    private static final double LAST_NAME_WEIGHT = 0.35;
+    private static final double FIRST_NAME_WEIGHT = 0.25;
+    private static final double BIRTH_WEIGHT = 0.25;
+    private static final double ADDRESS_WEIGHT = 0.15;
+    private static final Set<String> STREET_SUFFIXES = Set.of("st", "street", "ave", "avenue", "rd", "road",
+            "blvd", "boulevard", "dr", "drive", "ln", "lane", "ct", "court", "way", "pl", "place");
+
+    private final double threshold;
+    private final int maxBlockSize;
+    private final int threads;
+
+    /**
+     * A group of records that are probably the same person.
+     */
+    public static final class Cluster {
+        private final List<Driver> drivers;
+        private final double score;
+        private final int matchCount;
+
+        Cluster(List<Driver> drivers, double score, int matchCount) {
+            this.drivers = drivers;
+            this.score = score;
+            this.matchCount = matchCount;
+        }
+
+        public List<Driver> getDrivers() {
+            return drivers;
+        }
+
+        /**
+         * Gets the mean score of the matching pairs that joined the cluster.
+         * @return The score, between the threshold and 1.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Gets the number of matching pairs that joined the cluster.
+         * @return The number of matches.
+         */
+        public int getMatchCount() {
+            return matchCount;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format("%.3f [", score));
+            for (int i = 0; i < drivers.size(); i++) {
+                Driver driver = drivers.get(i);
+                builder.append(i == 0 ? "" : ", ").append(driver.getId()).append(' ')
+                        .append(driver.getName().getFirstName()).append(' ').append(driver.getName().getLastName());
+            }
+            return builder.append(']').toString();
+        }
+    }
+
+    /**
+     * The clusters found in one run and what it took to find them.
+     */
+    public static final class Result {
+        private final List<Cluster> clusters;
+        private final int blockCount;
+        private final int skippedBlockCount;
+        private final long comparisonCount;
+
+        Result(List<Cluster> clusters, int blockCount, int skippedBlockCount, long comparisonCount) {
+            this.clusters = clusters;
+            this.blockCount = blockCount;
+            this.skippedBlockCount = skippedBlockCount;
+            this.comparisonCount = comparisonCount;
+        }
+
+        /**
+         * Gets the clusters.
+         * @return The clusters, highest score first.
+         */
+        public List<Cluster> getClusters() {
+            return clusters;
+        }
+
+        /**
+         * Gets the number of blocks with at least two records.
+         * @return The number of blocks.
+         */
+        public int getBlockCount() {
+            return blockCount;
+        }
+
+        /**
+         * Gets the number of blocks skipped for being larger than the block limit.
+         * @return The number of skipped blocks.
+         */
+        public int getSkippedBlockCount() {
+            return skippedBlockCount;
+        }
+
+        /**
+         * Gets the number of pairs compared.
+         * @return The number of comparisons.
+         */
+        public long getComparisonCount() {
+            return comparisonCount;
+        }
+    }
+
+    // a compared pair that scored at least the threshold
+    private static final class Match {
+        final int first;
+        final int second;
+        final double score;
+
+        Match(int first, int second, double score) {
+            this.first = first;
+            this.second = second;
+            this.score = score;
+        }
+    }
+
+    // the normalized fields of a record, computed once
+    private static final class Record {
+        final String firstName;
+        final String lastName;
+        final int birthDay;
+        final Set<String> addressWords;
+
+        Record(Driver driver) {
+            Name name = driver.getName();
+            this.firstName = letters(name == null ? null : name.getFirstName());
+            this.lastName = letters(name == null ? null : name.getLastName());
+            this.birthDay = PackedHistory.toDay(driver.getBirthDate());
+            this.addressWords = addressWords(driver.getDriverLicense() == null ? null : driver.getDriverLicense().getAddress());
+        }
+    }
+
+    /**
+     * Constructs a detector with a threshold of 0.85, a block limit of 500 records and one
+     * thread per processor.
+     */
+    public DuplicateDetector() {
+        this(0.85, 500, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a detector.
+     * @param threshold The score from which a pair counts as a duplicate.
+     * @param maxBlockSize The largest block that is compared.
+     * @param threads The number of threads comparing blocks.
+     */
+    public DuplicateDetector(double threshold, int maxBlockSize, int threads) {
+        if (maxBlockSize < 2 || threads < 1) {
+            throw new IllegalArgumentException("Block limit must be at least 2 and threads at least 1.");
+        }
+        this.threshold = threshold;
+        this.maxBlockSize = maxBlockSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Finds the probable duplicates among drivers.
+     * @param drivers The drivers.
+     * @return The clusters found.
+     */
+    public Result detect(List<Driver> drivers) {
+        Record[] records = new Record[drivers.size()];
+        String[][] keys = new String[records.length][];
+        Map<String, List<Integer>> blocksByKey = new HashMap<>();
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new Record(drivers.get(i));
+            keys[i] = blockingKeys(records[i], drivers.get(i));
+            for (String key : keys[i]) {
+                blocksByKey.computeIfAbsent(key, ignored -> new ArrayList<>(2)).add(i);
+            }
+        }
+        List<int[]> blocks = new ArrayList<>();
+        List<String> blockKeys = new ArrayList<>();
+        Set<String> skippedKeys = new HashSet<>();
+        for (Map.Entry<String, List<Integer>> block : blocksByKey.entrySet()) {
+            if (block.getValue().size() > maxBlockSize) {
+                skippedKeys.add(block.getKey());
+            } else if (block.getValue().size() > 1) {
+                blocks.add(block.getValue().stream().mapToInt(Integer::intValue).toArray());
+                blockKeys.add(block.getKey());
+            }
+        }
+
+        ConcurrentLinkedQueue<Match> matches = new ConcurrentLinkedQueue<>();
+        AtomicLong comparisons = new AtomicLong();
+        AtomicInteger nextBlock = new AtomicInteger();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dedup-block-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                // workers take blocks one at a time, so a few large blocks do not hold up one thread
+                workers.add(executor.submit(() -> {
+                    long localComparisons = 0;
+                    for (int b = nextBlock.getAndIncrement(); b < blocks.size(); b = nextBlock.getAndIncrement()) {
+                        int[] block = blocks.get(b);
+                        String key = blockKeys.get(b);
+                        for (int i = 0; i < block.length; i++) {
+                            for (int j = i + 1; j < block.length; j++) {
+                                int first = Math.min(block[i], block[j]);
+                                int second = Math.max(block[i], block[j]);
+                                if (!key.equals(firstSharedKey(keys[first], keys[second], skippedKeys))) {
+                                    continue;
+                                }
+                                localComparisons++;
+                                double score = score(records[first], records[second]);
+                                if (score >= threshold) {
+                                    matches.add(new Match(first, second, score));
+                                }
+                            }
+                        }
+                    }
+                    comparisons.addAndGet(localComparisons);
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing blocks.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Comparing blocks failed.", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        return new Result(cluster(drivers, matches), blocks.size(), skippedKeys.size(), comparisons.get());
+    }
+
+    // the first key in order that two records share and whose block is compared
+    private static String firstSharedKey(String[] first, String[] second, Set<String> skippedKeys) {
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            int order = first[i].compareTo(second[j]);
+            if (order == 0 && !skippedKeys.contains(first[i])) {
+                return first[i];
+            }
+            if (order <= 0) {
+                i++;
+            }
+            if (order >= 0) {
+                j++;
+            }
+        }
+        return null;
+    }
+
+    // joins matching pairs into clusters with a union-find over record indexes
+    private static List<Cluster> cluster(List<Driver> drivers, Iterable<Match> matches) {
+        int[] parent = new int[drivers.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (Match match : matches) {
+            int first = find(parent, match.first);
+            int second = find(parent, match.second);
+            if (first != second) {
+                parent[Math.max(first, second)] = Math.min(first, second);
+            }
+        }
+        Map<Integer, List<Match>> matchesByRoot = new HashMap<>();
+        for (Match match : matches) {
+            matchesByRoot.computeIfAbsent(find(parent, match.first), ignored -> new ArrayList<>()).add(match);
+        }
+        List<Cluster> clusters = new ArrayList<>(matchesByRoot.size());
+        for (List<Match> clusterMatches : matchesByRoot.values()) {
+            Set<Integer> members = new HashSet<>();
+            double total = 0;
+            for (Match match : clusterMatches) {
+                members.add(match.first);
+                members.add(match.second);
+                total += match.score;
+            }
+            int[] sorted = members.stream().mapToInt(Integer::intValue).sorted().toArray();
+            List<Driver> clusterDrivers = new ArrayList<>(sorted.length);
+            for (int member : sorted) {
+                clusterDrivers.add(drivers.get(member));
+            }
+            clusters.add(new Cluster(clusterDrivers, total / clusterMatches.size(), clusterMatches.size()));
+        }
+        clusters.sort(Comparator.comparingDouble(Cluster::getScore).reversed()
+                .thenComparing(cluster -> String.valueOf(cluster.getDrivers().get(0).getId())));
+        return clusters;
+    }
+
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    // the keys of the blocks a record is in, sorted
+    private static String[] blockingKeys(Record record, Driver driver) {
+        List<String> keys = new ArrayList<>(3);
+        if (!record.lastName.isEmpty() && record.birthDay != PackedHistory.NO_DAY) {
+            String surname = soundex(record.lastName);
+            keys.add("N|" + surname + "|" + record.birthDay);
+            keys.add("Y|" + surname + "|" + LocalDate.ofEpochDay(record.birthDay).getYear());
+        }
+        String address = driver.getDriverLicense() == null ? null : driver.getDriverLicense().getAddress();
+        if (address != null) {
+            String[] words = address.trim().toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
+            for (int i = 0; i + 1 < words.length; i++) {
+                if (!words[i].isEmpty() && Character.isDigit(words[i].charAt(0)) && !words[i + 1].isEmpty()) {
+                    keys.add("A|" + words[i] + "|" + words[i + 1]);
+                    break;
+                }
+            }
+        }
+        String[] sorted = keys.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Scores how alike two records are.
+     */
+    private static double score(Record first, Record second) {
+        return LAST_NAME_WEIGHT * jaroWinkler(first.lastName, second.lastName)
+                + FIRST_NAME_WEIGHT * firstNameSimilarity(first.firstName, second.firstName)
+                + BIRTH_WEIGHT * birthSimilarity(first.birthDay, second.birthDay)
+                + ADDRESS_WEIGHT * jaccard(first.addressWords, second.addressWords);
+    }
+
+    // an initial matches a full first name that starts with it
+    private static double firstNameSimilarity(String first, String second) {
+        if ((first.length() == 1 || second.length() == 1) && !first.isEmpty() && !second.isEmpty()
+                && first.charAt(0) == second.charAt(0)) {
+            return 0.9;
+        }
+        return jaroWinkler(first, second);
+    }
+
+    private static double birthSimilarity(int first, int second) {
+        if (first == PackedHistory.NO_DAY || second == PackedHistory.NO_DAY) {
+            return 0;
+        }
+        if (first == second) {
+            return 1;
+        }
+        if (Math.abs(first - second) == 1) {
+            return 0.6;
+        }
+        LocalDate a = LocalDate.ofEpochDay(first);
+        LocalDate b = LocalDate.ofEpochDay(second);
+        if (a.getYear() == b.getYear() && a.getMonthValue() == b.getDayOfMonth() && a.getDayOfMonth() == b.getMonthValue()) {
+            return 0.8; // day and month swapped
+        }
+        return 0;
+    }
+
+    private static double jaccard(Set<String> first, Set<String> second) {
+        if (first.isEmpty() || second.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String word : first) {
+            if (second.contains(word)) {
+                common++;
+            }
+        }
+        return (double) common / (first.size() + second.size() - common);
+    }
+
+    /**
+     * Gets the Jaro-Winkler similarity of two strings.
+     * @param first The first string.
+     * @param second The second string.
+     * @return The similarity, from 0 for nothing in common to 1 for equal strings.
+     */
+    static double jaroWinkler(String first, String second) {
+        if (first.equals(second)) {
+            return first.isEmpty() ? 0 : 1;
+        }
+        if (first.isEmpty() || second.isEmpty()) {
+            return 0;
+        }
+        int window = Math.max(0, Math.max(first.length(), second.length()) / 2 - 1);
+        boolean[] firstMatched = new boolean[first.length()];
+        boolean[] secondMatched = new boolean[second.length()];
+        int matches = 0;
+        for (int i = 0; i < first.length(); i++) {
+            int end = Math.min(second.length(), i + window + 1);
+            for (int j = Math.max(0, i - window); j < end; j++) {
+                if (!secondMatched[j] && first.charAt(i) == second.charAt(j)) {
+                    firstMatched[i] = true;
+                    secondMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < first.length(); i++) {
+            if (firstMatched[i]) {
+                while (!secondMatched[j]) {
+                    j++;
+                }
+                if (first.charAt(i) != second.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double jaro = ((double) matches / first.length() + (double) matches / second.length()
+                + (matches - transpositions / 2.0) / matches) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(first.length(), second.length())) && first.charAt(prefix) == second.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /**
+     * Gets the American Soundex code of a name.
+     * @param name The name, in lowercase letters.
+     * @return The code: the first letter and three digits.
+     */
+    static String soundex(String name) {
+        char[] code = {Character.toUpperCase(name.charAt(0)), '0', '0', '0'};
+        char previous = soundexDigit(name.charAt(0));
+        int length = 1;
+        for (int i = 1; i < name.length() && length < 4; i++) {
+            char c = name.charAt(i);
+            char digit = soundexDigit(c);
+            if (digit != '0' && digit != previous) {
+                code[length++] = digit;
+            }
+            // h and w do not separate letters with the same code; vowels do
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        return new String(code);
+    }
+
+    private static char soundexDigit(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+
+    private static String letters(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+    }
+
+    private static Set<String> addressWords(String address) {
+        if (address == null) {
+            return Set.of();
+        }
+        Set<String> words = new HashSet<>(Arrays.asList(address.trim().toLowerCase(Locale.ROOT).split("[^a-z0-9]+")));
+        words.remove("");
+        words.removeAll(STREET_SUFFIXES);
+        return words;
+    }
+}
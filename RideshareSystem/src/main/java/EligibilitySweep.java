@@ -0,0 +1,285 @@
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Works out every driver's verdict on every day of a period in one pass, for audits such as
+ * "how many drivers were eligible on each day of 2023", instead of validating each driver
+ * once per day.
+ *
+ * Each check of {@link RegistrationValidator} holds on a range of days that only depends on
+ * the driver: from the 21st birthday, from six months after the license was issued, up to the
+ * license and insurance expiration dates, up to the last year in which the oldest vehicle is at
+ * most 15 years old, and up to the day before the first unacceptable violation. Their overlap
+ * is the one range in which a driver can be eligible; every crash and moving violation in the
+ * vehicle history cuts out the six months from its date. The resulting change points of all
+ * drivers are sorted once and swept to count the eligible drivers of each day.
+ *
+ * A day's verdict is the verdict {@link RegistrationValidator#validate(Driver)} would give with
+ * a clock on that day, counting only the violations and crashes dated up to that day: an event
+ * weighs on a verdict from its date, as it did at the time. Dates are compared exactly as the
+ * validator compares them, including the month arithmetic of leap days and short months.
+ */
+public class EligibilitySweep {
+    private final RegistrationValidator validator;
+
+    /**
+     * A range of days on which a driver was eligible.
+     */
+    public static final class Interval {
+        private final int firstDay;
+        private final int lastDay;
+
+        Interval(int firstDay, int lastDay) {
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+
+        /**
+         * Gets the first day of the range.
+         * @return The first eligible day.
+         */
+        public LocalDate getStart() {
+            return LocalDate.ofEpochDay(firstDay);
+        }
+
+        /**
+         * Gets the last day of the range.
+         * @return The last eligible day, inclusive.
+         */
+        public LocalDate getEnd() {
+            return LocalDate.ofEpochDay(lastDay);
+        }
+
+        /**
+         * Tells whether a day is in the range.
+         * @param date The day.
+         * @return true if the driver was eligible on that day.
+         */
+        public boolean contains(LocalDate date) {
+            long day = date.toEpochDay();
+            return day >= firstDay && day <= lastDay;
+        }
+
+        @Override
+        public String toString() {
+            return getStart() + ".." + getEnd();
+        }
+    }
+
+    /**
+     * The eligible drivers of every day of a period.
+     */
+    public static final class Result {
+        private final LocalDate from;
+        private final int[] eligibleCounts;
+        private final Map<Driver, List<Interval>> intervals;
+
+        Result(LocalDate from, int[] eligibleCounts, Map<Driver, List<Interval>> intervals) {
+            this.from = from;
+            this.eligibleCounts = eligibleCounts;
+            this.intervals = intervals;
+        }
+
+        /**
+         * Gets the number of days of the period.
+         * @return The number of days.
+         */
+        public int getDayCount() {
+            return eligibleCounts.length;
+        }
+
+        /**
+         * Gets the number of eligible drivers on a day of the period.
+         * @param date The day.
+         * @return The number of eligible drivers.
+         */
+        public int getEligibleCount(LocalDate date) {
+            long index = date.toEpochDay() - from.toEpochDay();
+            if (index < 0 || index >= eligibleCounts.length) {
+                throw new IllegalArgumentException("Date " + date + " is outside the swept period.");
+            }
+            return eligibleCounts[(int) index];
+        }
+
+        /**
+         * Gets the number of eligible drivers on every day of the period.
+         * @return The counts, the first day of the period first.
+         */
+        public int[] getEligibleCounts() {
+            return eligibleCounts.clone();
+        }
+
+        /**
+         * Gets the ranges of days of the period on which a driver was eligible.
+         * @param driver One of the swept drivers.
+         * @return The ranges in order; empty if the driver was never eligible.
+         */
+        public List<Interval> getIntervals(Driver driver) {
+            return intervals.getOrDefault(driver, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Constructs a sweep.
+     * @param validator The validator whose checks the sweep follows.
+     */
+    public EligibilitySweep(RegistrationValidator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Sweeps a period.
+     * @param drivers The drivers.
+     * @param from The first day of the period.
+     * @param to The last day of the period, inclusive.
+     * @return The eligible drivers of every day.
+     */
+    public Result sweep(Collection<Driver> drivers, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Period must not end before it starts.");
+        }
+        int firstDay = Math.toIntExact(from.toEpochDay());
+        int lastDay = Math.toIntExact(to.toEpochDay());
+        Map<Driver, List<Interval>> intervals = new IdentityHashMap<>();
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+        for (Driver driver : drivers) {
+            List<Interval> driverIntervals = eligibleIntervals(driver, firstDay, lastDay);
+            if (driverIntervals.isEmpty()) {
+                continue;
+            }
+            intervals.put(driver, driverIntervals);
+            for (Interval interval : driverIntervals) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                starts[count] = interval.firstDay;
+                ends[count] = interval.lastDay + 1; // the first day the driver is no longer counted
+                count++;
+            }
+        }
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+
+        // the drivers eligible on a day are those whose range started on or before it and has not ended
+        int[] eligibleCounts = new int[lastDay - firstDay + 1];
+        int started = 0;
+        int ended = 0;
+        for (int day = firstDay; day <= lastDay; day++) {
+            while (started < count && starts[started] <= day) {
+                started++;
+            }
+            while (ended < count && ends[ended] <= day) {
+                ended++;
+            }
+            eligibleCounts[day - firstDay] = started - ended;
+        }
+        return new Result(from, eligibleCounts, intervals);
+    }
+
+    /**
+     * Gets the ranges of days within a period on which a driver is eligible.
+     * @param driver The driver.
+     * @param firstDay The first day of the period, as days since 1970-01-01.
+     * @param lastDay The last day of the period, inclusive.
+     * @return The ranges in order, clipped to the period.
+     */
+    List<Interval> eligibleIntervals(Driver driver, int firstDay, int lastDay) {
+        DriverValidity validity = validator.summarize(driver);
+        if (!validity.isLicenseConsistent() || !validity.isInsuranceHeld()
+                || validity.getBirthDay() == PackedHistory.NO_DAY || validity.getLicenseIssuedDay() == PackedHistory.NO_DAY
+                || validity.getLicenseExpirationDay() == PackedHistory.NO_DAY
+                || validity.getInsuranceExpirationDay() == PackedHistory.NO_DAY) {
+            return Collections.emptyList();
+        }
+
+        LocalDate birthDate = LocalDate.ofEpochDay(validity.getBirthDay());
+        LocalDate issuedDate = LocalDate.ofEpochDay(validity.getLicenseIssuedDay());
+        int from = Math.max(firstDay, Math.max(
+                firstDayOf(birthDate.plusYears(21), day -> Period.between(birthDate, LocalDate.ofEpochDay(day)).getYears() >= 21),
+                firstDayOf(issuedDate.plusMonths(6), day -> !issuedDate.isAfter(LocalDate.ofEpochDay(day).minusMonths(6)))));
+        long to = Math.min(lastDay, Math.min(validity.getLicenseExpirationDay(), validity.getInsuranceExpirationDay()));
+        if (validity.getOldestVehicleYear() != Integer.MAX_VALUE) {
+            // valid while the current year is at most 15 years past the oldest model year
+            to = Math.min(to, LocalDate.of(validity.getOldestVehicleYear() + 15, 12, 31).toEpochDay());
+        }
+        DriverHistory driverHistory = driver.getDriverHistory();
+        if (driverHistory != null) {
+            PackedHistory violations = driverHistory.getViolationLog();
+            for (int i = 0; i < violations.size(); i++) {
+                if ((RegistrationValidator.UNACCEPTABLE_VIOLATIONS & (1L << violations.getCode(i))) != 0) {
+                    // an undated violation counts on every day, as the validator counts it
+                    to = Math.min(to, violations.getDay(i) == PackedHistory.NO_DAY ? Long.MIN_VALUE : violations.getDay(i) - 1L);
+                }
+            }
+        }
+        if (from > to) {
+            return Collections.emptyList();
+        }
+
+        // cut out the six months after every crash and moving violation
+        List<int[]> cuts = new ArrayList<>();
+        VehicleHistory vehicleHistory = driver.getVehicleHistory();
+        if (vehicleHistory != null) {
+            addCuts(cuts, vehicleHistory.getCrashLog(), PackedHistory.ALL_CODES, from, to);
+            addCuts(cuts, vehicleHistory.getViolationLog(), PackedHistory.MOVING_VIOLATIONS, from, to);
+        }
+        cuts.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<Interval> intervals = new ArrayList<>(cuts.size() + 1);
+        long start = from;
+        for (int[] cut : cuts) {
+            if (cut[0] > start) {
+                intervals.add(new Interval((int) start, cut[0] - 1));
+            }
+            start = Math.max(start, cut[1]);
+        }
+        if (start <= to) {
+            intervals.add(new Interval((int) start, (int) to));
+        }
+        return intervals;
+    }
+
+    // adds the [date, first day the event no longer counts) ranges of the events of a log that overlap [from, to]
+    private static void addCuts(List<int[]> cuts, PackedHistory log, long mask, long from, long to) {
+        for (int i = 0; i < log.size(); i++) {
+            int day = log.getDay(i);
+            if (day == PackedHistory.NO_DAY || (mask & (1L << log.getCode(i))) == 0 || day > to) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofEpochDay(day);
+            // the event counts while it is after the day six months ago
+            int end = firstDayOf(date.plusMonths(6), candidate -> !LocalDate.ofEpochDay(candidate).minusMonths(6).isBefore(date));
+            if (end > from) {
+                cuts.add(new int[] {day, end});
+            }
+        }
+    }
+
+    /**
+     * Finds the first day a condition holds, for a condition that keeps holding once it holds,
+     * starting from an estimate that is at most a few days off.
+     */
+    private static int firstDayOf(LocalDate estimate, IntPredicate holds) {
+        int day = Math.toIntExact(estimate.toEpochDay());
+        if (holds.test(day)) {
+            while (holds.test(day - 1)) {
+                day--;
+            }
+        } else {
+            while (!holds.test(day)) {
+                day++;
+            }
+        }
+        return day;
+    }
+}
@@ -0,0 +1,406 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An asynchronous sink for diagnostic messages. Producers place messages in a bounded,
+ * lock-free ring buffer and return at once; a background thread formats them and writes
+ * them in batches to a file channel. A producer of a diagnostic never blocks: when the buffer
+ * is full the message is dropped and counted. Each kind of diagnostic, identified by a key, is
+ * limited to a number of messages per second, and consecutive identical lines are collapsed
+ * into one; the sink reports how many messages it suppressed and dropped.
+ * Results, such as validation verdicts, share the buffer so that they stay in order with the
+ * diagnostics, but are never rate limited, collapsed or dropped: {@link #result(String, Object...)}
+ * waits for a free slot instead.
+ * Informational messages go to standard output and errors to standard error, unless the
+ * system property {@value #FILE_PROPERTY} names a file that receives all messages.
+ */
+public class EventSink {
+    /**
+     * The system property naming a file to append all messages to.
+     */
+    public static final String FILE_PROPERTY = "rideshare.events.file";
+
+    /**
+     * The severity of a message.
+     */
+    public enum Level {
+        INFO, ERROR
+    }
+
+    private static final int CAPACITY = 1 << 13; // ring buffer slots; a power of two
+    private static final int MESSAGES_PER_KEY_PER_SECOND = 100;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final EventSink INSTANCE = new EventSink();
+
+    // the ring buffer: a slot holding message n has sequence n + 1, a free slot for message n has sequence n
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final Level[] levels = new Level[CAPACITY];
+    private final String[] templates = new String[CAPACITY];
+    private final Object[][] arguments = new Object[CAPACITY][];
+    private final boolean[] results = new boolean[CAPACITY];
+    private final AtomicLong tail = new AtomicLong(); // the next message number to claim
+    private final AtomicLong written = new AtomicLong(); // the number of messages consumed and written out
+    private long head; // the next message number to consume; only used by the writer
+
+    private final Map<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private volatile Level minimumLevel = Level.INFO;
+
+    private final Output out;
+    private final Output err;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Private constructor to prevent direct instantiation.
+    private EventSink() {
+        this(openEventFile());
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "event-sink-shutdown"));
+    }
+
+    // writes everything to the event file if there is one, else to the standard streams
+    private EventSink(FileChannel eventFile) {
+        this(eventFile != null ? eventFile : new FileOutputStream(FileDescriptor.out).getChannel(),
+                eventFile != null ? eventFile : new FileOutputStream(FileDescriptor.err).getChannel());
+    }
+
+    /**
+     * Constructs a sink writing to its own channels, for tests.
+     * @param outChannel The channel for informational messages and results.
+     * @param errChannel The channel for errors; may be the same as outChannel.
+     */
+    EventSink(FileChannel outChannel, FileChannel errChannel) {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+        this.out = new Output(outChannel);
+        this.err = errChannel == outChannel ? out : new Output(errChannel);
+
+        this.writer = new Thread(this::writeLoop, "event-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // the file named by the system property, or null if none is named or it cannot be opened
+    private static FileChannel openEventFile() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error: Could not open event file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the singleton instance of the EventSink.
+     * @return The singleton instance of the EventSink.
+     */
+    public static EventSink getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues an informational message.
+     * @param key The kind of message, which rate limiting applies to.
+     * @param template The message, with %s placeholders for the arguments.
+     * @param args The arguments, formatted by the writer thread.
+     * @return true if the message was queued, false if it was filtered, rate limited or dropped.
+     */
+    public boolean info(String key, String template, Object... args) {
+        return emit(Level.INFO, key, template, args);
+    }
+
+    /**
+     * Queues an error message.
+     * @param key The kind of message, which rate limiting applies to.
+     * @param template The message, with %s placeholders for the arguments.
+     * @param args The arguments, formatted by the writer thread.
+     * @return true if the message was queued, false if it was filtered, rate limited or dropped.
+     */
+    public boolean error(String key, String template, Object... args) {
+        return emit(Level.ERROR, key, template, args);
+    }
+
+    /**
+     * Queues a message without ever blocking.
+     * @param level The severity of the message.
+     * @param key The kind of message, which rate limiting applies to.
+     * @param template The message, with %s placeholders for the arguments.
+     * @param args The arguments, formatted by the writer thread.
+     * @return true if the message was queued, false if it was filtered, rate limited or dropped.
+     */
+    public boolean emit(Level level, String key, String template, Object... args) {
+        if (level.compareTo(minimumLevel) < 0 || closed) {
+            return false;
+        }
+        if (!rateLimits.computeIfAbsent(key, k -> new RateLimit()).tryAcquire()) {
+            suppressed.increment();
+            return false;
+        }
+        if (!offer(level, template, args, false)) {
+            dropped.increment(); // the writer has not freed the next slot yet: the buffer is full
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues a line of the program's results for standard output (or the event file), in order
+     * with the diagnostics queued before and after it. Unlike a diagnostic, a result is written
+     * whatever the minimum level, is neither rate limited nor collapsed with an identical line,
+     * and is never dropped: when the buffer is full the caller waits for the writer to free a slot.
+     * @param template The line, with %s placeholders for the arguments.
+     * @param args The arguments, formatted by the writer thread.
+     * @throws IllegalStateException if the sink has been closed at shutdown.
+     */
+    public void result(String template, Object... args) {
+        while (!offer(Level.INFO, template, args, true)) {
+            if (closed || !writer.isAlive()) {
+                throw new IllegalStateException("Event sink is closed.");
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    // claims the next slot and publishes a message in it; returns false if the buffer is full
+    private boolean offer(Level level, String template, Object[] args, boolean result) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & (CAPACITY - 1);
+            long sequence = sequences.get(slot);
+            if (sequence < position) {
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                levels[slot] = level;
+                templates[slot] = template;
+                arguments[slot] = args;
+                results[slot] = result;
+                sequences.set(slot, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sets the least severe level that is written; less severe messages are discarded without cost.
+     * @param level The minimum level.
+     */
+    public void setMinimumLevel(Level level) {
+        this.minimumLevel = level;
+    }
+
+    /**
+     * Waits until every message queued before the call has been written, however busy other
+     * producers keep the sink. Used before writing directly to the same stream, to keep output in order.
+     */
+    public void flush() {
+        // every message numbered below the tail has been queued; wait until the writer is past them
+        long target = tail.get();
+        while (written.get() < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * Gets the number of messages dropped because the ring buffer was full.
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of messages suppressed by rate limiting.
+     * @return The number of suppressed messages.
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    // writes out everything queued and stops accepting messages; runs at JVM shutdown for the shared sink
+    void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        long reportedDropped = 0;
+        long reportedSuppressed = 0;
+        long nextReport = System.nanoTime() + WINDOW_NANOS;
+        while (true) {
+            boolean drainedAny = drain();
+            long now = System.nanoTime();
+            boolean stopping = closed && tail.get() == head;
+            boolean reported = false;
+            if (now >= nextReport || stopping) {
+                // report losses since the last report
+                long droppedNow = dropped.sum();
+                long suppressedNow = suppressed.sum();
+                if (droppedNow > reportedDropped || suppressedNow > reportedSuppressed) {
+                    err.append("Info: Event sink suppressed " + (suppressedNow - reportedSuppressed)
+                            + " rate-limited and dropped " + (droppedNow - reportedDropped) + " messages.");
+                    reportedDropped = droppedNow;
+                    reportedSuppressed = suppressedNow;
+                    reported = true;
+                }
+                nextReport = now + WINDOW_NANOS;
+            }
+            if (drainedAny || reported) {
+                // write out each batch as it is drained, so that flush sees progress under constant load
+                out.endBatch();
+                if (err != out) {
+                    err.endBatch();
+                }
+                written.set(head);
+            } else if (stopping) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // formats and buffers up to a ring's worth of queued messages; returns whether there were any
+    private boolean drain() {
+        boolean drainedAny = false;
+        for (int drained = 0; drained < CAPACITY; drained++) {
+            int slot = (int) head & (CAPACITY - 1);
+            if (sequences.get(slot) != head + 1) {
+                return drainedAny;
+            }
+            Level level = levels[slot];
+            String template = templates[slot];
+            Object[] args = arguments[slot];
+            boolean result = results[slot];
+            templates[slot] = null;
+            arguments[slot] = null;
+            sequences.set(slot, head + CAPACITY);
+            head++;
+            drainedAny = true;
+
+            String message = args == null || args.length == 0 ? template : String.format(template, args);
+            if (result) {
+                out.appendExact(message);
+            } else {
+                (level == Level.ERROR ? err : out).append(message);
+            }
+        }
+        return drainedAny;
+    }
+
+    // a per-key budget of messages that renews every second
+    private static final class RateLimit {
+        private volatile long windowStart = System.nanoTime();
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire() {
+            long now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                // a race here only lets a few extra messages through
+                windowStart = now;
+                count.set(0);
+            }
+            return count.incrementAndGet() <= MESSAGES_PER_KEY_PER_SECOND;
+        }
+    }
+
+    // a channel with a write buffer that collapses consecutive identical lines; only used by the writer
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        private String lastLine;
+        private long repeats;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void append(String line) {
+            if (line.equals(lastLine)) {
+                repeats++;
+                return;
+            }
+            reportRepeats();
+            lastLine = line;
+            put(line);
+        }
+
+        // buffers a line even if it repeats the one before it
+        void appendExact(String line) {
+            reportRepeats();
+            lastLine = null;
+            put(line);
+        }
+
+        // writes the buffered lines at the end of a batch
+        void endBatch() {
+            reportRepeats();
+            lastLine = null;
+            writeBuffer();
+        }
+
+        private void reportRepeats() {
+            if (repeats > 0) {
+                put("Info: Last message repeated " + repeats + " times.");
+                repeats = 0;
+            }
+        }
+
+        private void put(String line) {
+            byte[] bytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > buffer.remaining()) {
+                writeBuffer();
+            }
+            if (bytes.length > buffer.capacity()) {
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        private void writeBuffer() {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) {
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                bytes.position(bytes.limit()); // the stream is gone; discard rather than retry forever
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Measures how many heap bytes a driver retains, in the regular model and in the compact
+ * model of {@link CompactDriver}, for synthetic datasets of several shapes.
+ * Retained size is measured as the change in used heap after full garbage collections:
+ * once with the drivers of a shape alive, once after they are released. Run with a fixed
+ * heap (for example -Xms2g -Xmx2g) and no other load, so that collections are complete.
+ */
+public class HeapFootprintHarness {
+    private static final int GC_ROUNDS = 4;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * The retained sizes measured for one shape of dataset.
+     */
+    public static final class Result {
+        private final String shape;
+        private final int driverCount;
+        private final long regularBytes;
+        private final long compactBytes;
+        private final int mismatches;
+
+        Result(String shape, int driverCount, long regularBytes, long compactBytes, int mismatches) {
+            this.shape = shape;
+            this.driverCount = driverCount;
+            this.regularBytes = regularBytes;
+            this.compactBytes = compactBytes;
+            this.mismatches = mismatches;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public int getDriverCount() {
+            return driverCount;
+        }
+
+        /**
+         * Gets the bytes retained per driver in the regular model.
+         * @return The mean retained bytes per driver.
+         */
+        public double getRegularBytesPerDriver() {
+            return driverCount == 0 ? 0 : (double) regularBytes / driverCount;
+        }
+
+        /**
+         * Gets the bytes retained per driver in the compact model.
+         * @return The mean retained bytes per driver.
+         */
+        public double getCompactBytesPerDriver() {
+            return driverCount == 0 ? 0 : (double) compactBytes / driverCount;
+        }
+
+        /**
+         * Gets the number of compact drivers that did not decode back into an equal driver.
+         * @return The number of mismatches; zero if the compact model is lossless for this data.
+         */
+        public int getMismatches() {
+            return mismatches;
+        }
+    }
+
+    /**
+     * Measures the drivers of a dataset in both models. The caller must not keep any other
+     * reference to the drivers, or they cannot be released and the regular size reads as zero.
+     * @param shape The name of the dataset shape, for the report.
+     * @param drivers The drivers; the list is cleared once they are measured.
+     * @return The measured sizes.
+     */
+    public Result measure(String shape, List<Driver> drivers) {
+        int driverCount = drivers.size();
+        long withRegular = usedHeapAfterGc();
+
+        CompactDriverEncoder encoder = new CompactDriverEncoder();
+        CompactDriver[] compact = new CompactDriver[driverCount];
+        for (int i = 0; i < driverCount; i++) {
+            compact[i] = encoder.encode(drivers.get(i));
+        }
+        encoder = null; // the string table is only needed while encoding
+        long withBoth = usedHeapAfterGc();
+
+        int mismatches = 0;
+        for (int i = 0; i < driverCount; i++) {
+            Driver decoded = compact[i].toDriver();
+            if (!decoded.equals(drivers.get(i)) || !Objects.equals(decoded.getId(), drivers.get(i).getId())) {
+                mismatches++;
+            }
+        }
+        drivers.clear();
+        long withCompact = usedHeapAfterGc();
+        Reference.reachabilityFence(compact);
+
+        return new Result(shape, driverCount, withBoth - withCompact, withBoth - withRegular, mismatches);
+    }
+
+    /**
+     * Prints results side by side.
+     * @param out The stream to print to.
+     * @param results The results to print.
+     */
+    public static void printReport(PrintStream out, List<Result> results) {
+        out.printf("%-14s %9s %18s %18s %7s %10s%n", "shape", "drivers", "regular B/driver", "compact B/driver", "ratio", "mismatches");
+        for (Result result : results) {
+            double compactBytes = result.getCompactBytesPerDriver();
+            out.printf("%-14s %9d %18.1f %18.1f %6.2fx %10d%n", result.getShape(), result.getDriverCount(),
+                    result.getRegularBytesPerDriver(), compactBytes,
+                    compactBytes <= 0 ? 0.0 : result.getRegularBytesPerDriver() / compactBytes, result.getMismatches());
+        }
+    }
+
+    // the used heap once repeated full collections have settled
+    private long usedHeapAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    /**
+     * Measures generated datasets of several shapes: all drivers, drivers with a clean record,
+     * drivers with several vehicles, and drivers with a long violation history.
+     * @param args Optionally the number of generated drivers per shape and the seed.
+     * @throws IOException if a dataset cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int driverCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        LocalDate referenceDate = LocalDate.now();
+
+        List<String> shapes = List.of("all", "clean record", "multi-vehicle", "long history");
+        List<Predicate<Driver>> filters = List.of(
+                driver -> true,
+                driver -> driver.getDriverHistory().getViolationLog().size() == 0,
+                driver -> driver.getVehicles().size() > 1,
+                driver -> driver.getDriverHistory().getViolationLog().size() >= 10);
+
+        HeapFootprintHarness harness = new HeapFootprintHarness();
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            // every shape gets its own dataset so that no driver outlives its measurement
+            List<Driver> drivers = SyntheticDataGenerator.generateDrivers(seed, referenceDate, driverCount);
+            drivers.removeIf(filters.get(i).negate());
+            results.add(harness.measure(shapes.get(i), drivers));
+        }
+        printReport(System.out, results);
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Receives every change made to a {@link DriverHistory} or {@link VehicleHistory} it is
+ * registered with. Callbacks run on the changing thread right after the change, so
+ * implementations must be quick. Histories are not thread-safe; neither are the callbacks
+ * any more than the change that caused them.
+ */
+public interface HistoryChangeListener {
+
+    /**
+     * Called when a traffic violation is added to the history.
+     * @param day The day of the violation, as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     * @param code The type code of the violation, see {@link PackedHistory#violationCode(Violation)}.
+     */
+    void onViolationAdded(int day, int code);
+
+    /**
+     * Called when a crash is added to the history.
+     * @param day The day of the crash, as days since 1970-01-01, or {@link PackedHistory#NO_DAY}.
+     * @param code The type code of the crash, see {@link PackedHistory#crashCode(Crash)}.
+     */
+    void onCrashAdded(int day, int code);
+
+    /**
+     * Called when a crash or traffic violation is removed from the history.
+     */
+    void onRemoved();
+}
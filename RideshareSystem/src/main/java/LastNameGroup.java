@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+
+/**
+ * The drivers of a pool snapshot that share a last name, kept sorted in query order: by first
+ * name, then by license number. Groups are immutable like the snapshots holding them; adding
+ * or removing a driver copies the group, which costs O(k) for a group of k drivers, so that a
+ * page of a query only costs a binary search for the cursor and the page itself.
+ */
+final class LastNameGroup {
+    // orders drivers by first name, then license number so that cursors are stable
+    static final Comparator<Driver> QUERY_ORDER =
+            Comparator.comparing((Driver driver) -> driver.getName().getFirstName())
+                    .thenComparing(driver -> driver.getDriverLicense().getLicenseNumber());
+
+    private final Driver[] drivers; // in query order
+
+    private LastNameGroup(Driver[] drivers) {
+        this.drivers = drivers;
+    }
+
+    /**
+     * Gets a group of one driver.
+     * @param driver The driver.
+     * @return The group.
+     */
+    static LastNameGroup of(Driver driver) {
+        return new LastNameGroup(new Driver[] {driver});
+    }
+
+    /**
+     * Gets the group with a driver added in query order.
+     * @param driver The driver, whose license number is not in the group yet.
+     * @return The new group.
+     */
+    LastNameGroup plus(Driver driver) {
+        int index = Arrays.binarySearch(drivers, driver, QUERY_ORDER);
+        int insertAt = index >= 0 ? index : -index - 1;
+        Driver[] copy = new Driver[drivers.length + 1];
+        System.arraycopy(drivers, 0, copy, 0, insertAt);
+        copy[insertAt] = driver;
+        System.arraycopy(drivers, insertAt, copy, insertAt + 1, drivers.length - insertAt);
+        return new LastNameGroup(copy);
+    }
+
+    /**
+     * Gets the group without the driver registered under a license number.
+     * @param licenseNumber The license number of the driver.
+     * @return The new group, this group if the driver is not in it, or null if the group is left empty.
+     */
+    LastNameGroup minus(String licenseNumber) {
+        for (int i = 0; i < drivers.length; i++) {
+            if (drivers[i].getDriverLicense().getLicenseNumber().equals(licenseNumber)) {
+                if (drivers.length == 1) {
+                    return null;
+                }
+                Driver[] copy = new Driver[drivers.length - 1];
+                System.arraycopy(drivers, 0, copy, 0, i);
+                System.arraycopy(drivers, i + 1, copy, i, drivers.length - i - 1);
+                return new LastNameGroup(copy);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of drivers in the group.
+     * @return The number of drivers.
+     */
+    int size() {
+        return drivers.length;
+    }
+
+    /**
+     * Gets a driver by position in query order.
+     * @param index The position.
+     * @return The driver.
+     */
+    Driver get(int index) {
+        return drivers[index];
+    }
+
+    /**
+     * Finds the position of the first driver ordered after a first name and license number.
+     * @param firstName The first name.
+     * @param licenseNumber The license number.
+     * @return The position, or the size of the group if no driver is ordered after them.
+     */
+    int firstAfter(String firstName, String licenseNumber) {
+        int low = 0;
+        int high = drivers.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Driver driver = drivers[mid];
+            int comparison = driver.getName().getFirstName().compareTo(firstName);
+            if (comparison == 0) {
+                comparison = driver.getDriverLicense().getLicenseNumber().compareTo(licenseNumber);
+            }
+            if (comparison <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Visits every driver of the group in query order.
+     * @param action The action to run on each license number and driver.
+     */
+    void forEach(BiConsumer<String, Driver> action) {
+        for (Driver driver : drivers) {
+            action.accept(driver.getDriverLicense().getLicenseNumber(), driver);
+        }
+    }
+}
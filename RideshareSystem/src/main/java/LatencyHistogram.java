@@ -0,0 +1,130 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, typically latencies in nanoseconds.
+ * Values below 64 are counted exactly; larger values fall into log-linear buckets,
+ * 32 per power of two, so every reported percentile is within about 3% of the true value.
+ * Recording is lock-free and allocation-free, and any number of threads may record at once.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param value The value to record; negative values are recorded as zero.
+     */
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(clamped));
+        count.increment();
+        sum.add(clamped);
+        if (clamped > max.get()) {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * @return The maximum, or zero if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return The mean, or zero if nothing was recorded.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Gets the value at a percentile of the recorded values.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket holding the percentile, or zero if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently with a reset may be partly lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Summarizes the histogram, with values converted from nanoseconds to microseconds.
+     * @return A single line with the count, mean, median, tail percentiles and maximum.
+     */
+    public String summarizeNanos() {
+        return String.format("count=%d mean=%.2fus p50=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus",
+                getCount(), getMean() / 1_000, getPercentile(50) / 1_000.0, getPercentile(99) / 1_000.0,
+                getPercentile(99.9) / 1_000.0, getMax() / 1_000.0);
+    }
+
+    // maps a value to its bucket: exact below 64, then 32 linear sub-buckets per power of two
+    private static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return magnitude * SUB_BUCKETS + (int) (value >>> magnitude);
+    }
+
+    // the largest value that falls into a bucket
+    private static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        long upperBound = ((subBucket + 1) << magnitude) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+}
@@ -0,0 +1,367 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves driver and vehicle histories from violation.csv and crash.csv on demand, so that a
+ * load does not build a history for every driver up front. Opening the store reads both files
+ * once, keeping only the byte ranges of each driver's rows; rows of a driver that follow each
+ * other, as they do in files written by {@link SyntheticDataGenerator}, share one range.
+ * A driver's histories are built from their ranges the first time they are asked for, exactly
+ * as {@link RideshareDriverValidator#loadData(Path)} builds them, and kept in a cache that holds
+ * the histories of the most recently used drivers only.
+ *
+ * Histories that are changed are moved out of the cache, before the change, and kept for
+ * good, so an append is never lost to an eviction; unchanged histories that fall out of the
+ * cache are read again the next time they are needed, unless a copy handed out earlier is
+ * still in use, in which case that copy is served, so there is never more than one live copy
+ * of a driver's histories. The changed histories are kept until {@link #pin(Driver)} hands
+ * them over to the driver, so they take one entry per driver changed and not pinned since the
+ * store was opened; a long-running caller that changes many drivers should pin them.
+ * The store may be used from several threads.
+ */
+public class LazyHistoryStore implements Closeable {
+    private static final long[] NO_RANGES = new long[0];
+
+    private final FileChannel violationFile;
+    private final FileChannel crashFile;
+    private final Map<String, long[]> violationRanges;
+    private final Map<String, long[]> crashRanges;
+    private final Map<String, Histories> cache;
+    private final Map<String, Histories> changed = new HashMap<>();
+    private final Map<String, LiveHistories> live = new HashMap<>(); // every copy handed out and not yet collected
+    private final ReferenceQueue<Histories> collected = new ReferenceQueue<>();
+    private long loadCount;
+    private long hitCount;
+
+    // the histories of one driver, built together because a VehicleHistory takes both lists
+    private static final class Histories {
+        final DriverHistory driverHistory;
+        final VehicleHistory vehicleHistory;
+
+        Histories(DriverHistory driverHistory, VehicleHistory vehicleHistory) {
+            this.driverHistory = driverHistory;
+            this.vehicleHistory = vehicleHistory;
+        }
+    }
+
+    // a copy handed out; the first-change hooks of its histories keep it reachable while they are
+    private static final class LiveHistories extends WeakReference<Histories> {
+        final String driverId;
+
+        LiveHistories(String driverId, Histories histories, ReferenceQueue<Histories> queue) {
+            super(histories, queue);
+            this.driverId = driverId;
+        }
+    }
+
+    private LazyHistoryStore(Path dataDirectory, int capacity) throws IOException {
+        Path violations = dataDirectory.resolve("violation.csv");
+        Path crashes = dataDirectory.resolve("crash.csv");
+        violationRanges = indexRanges(violations, 2);
+        crashRanges = indexRanges(crashes, 3);
+        violationFile = FileChannel.open(violations, StandardOpenOption.READ);
+        try {
+            crashFile = FileChannel.open(crashes, StandardOpenOption.READ);
+        } catch (IOException e) {
+            violationFile.close();
+            throw e;
+        }
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Histories> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Opens a store over the violation.csv and crash.csv files of a data directory.
+     * @param dataDirectory The directory holding the CSV files.
+     * @param capacity The number of drivers whose histories are cached.
+     * @return The store.
+     * @throws IOException if a file cannot be read.
+     */
+    public static LazyHistoryStore open(Path dataDirectory, int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        return new LazyHistoryStore(dataDirectory, capacity);
+    }
+
+    /**
+     * Gets the driver history of a driver, reading it from violation.csv if it is not cached.
+     * @param driverId The ID of the driver.
+     * @return The driver history; empty if the driver has no violations.
+     */
+    public DriverHistory driverHistoryOf(String driverId) {
+        return historiesOf(driverId).driverHistory;
+    }
+
+    /**
+     * Gets the vehicle history of a driver, reading it from crash.csv and violation.csv if it is not cached.
+     * @param driverId The ID of the driver.
+     * @return The vehicle history; empty if the driver has no crashes or violations.
+     */
+    public VehicleHistory vehicleHistoryOf(String driverId) {
+        return historiesOf(driverId).vehicleHistory;
+    }
+
+    /**
+     * Sets a driver's histories on the driver, so that they no longer come from the store
+     * and changes to them are kept.
+     * @param driver The driver.
+     */
+    public void pin(Driver driver) {
+        Histories histories = historiesOf(driver.getId());
+        synchronized (this) {
+            cache.remove(driver.getId());
+            changed.remove(driver.getId());
+            live.remove(driver.getId());
+        }
+        histories.driverHistory.onFirstChange(null);
+        histories.vehicleHistory.onFirstChange(null);
+        driver.setDriverHistory(histories.driverHistory);
+        driver.setVehicleHistory(histories.vehicleHistory);
+    }
+
+    /**
+     * Gets the number of drivers with rows in either file.
+     * @return The number of indexed drivers.
+     */
+    public int indexedDriverCount() {
+        Map<String, long[]> all = new HashMap<>(violationRanges);
+        all.putAll(crashRanges);
+        return all.size();
+    }
+
+    /**
+     * Gets the number of drivers whose histories were changed and are kept outside the cache
+     * until they are pinned.
+     * @return The number of changed drivers.
+     */
+    public synchronized int getChangedCount() {
+        return changed.size();
+    }
+
+    /**
+     * Gets the number of times histories were read from the files.
+     * @return The number of loads.
+     */
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Gets the number of times histories were served from the cache.
+     * @return The number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            violationFile.close();
+        } finally {
+            crashFile.close();
+        }
+    }
+
+    private Histories historiesOf(String driverId) {
+        synchronized (this) {
+            Histories cached = changed.get(driverId);
+            if (cached == null) {
+                cached = cache.get(driverId);
+            }
+            if (cached == null) {
+                cached = stillLive(driverId);
+            }
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+        }
+        // read outside the lock, so that one slow read does not hold up cache hits
+        NamePool names = new NamePool();
+        List<Violation> violations = new ArrayList<>();
+        for (String[] parts : readRows(violationFile, violationRanges.getOrDefault(driverId, NO_RANGES))) {
+            violations.add(RideshareDriverValidator.toViolation(parts));
+        }
+        List<Crash> crashes = new ArrayList<>();
+        for (String[] parts : readRows(crashFile, crashRanges.getOrDefault(driverId, NO_RANGES))) {
+            crashes.add(RideshareDriverValidator.toCrash(parts, names));
+        }
+        Histories loaded = new Histories(new DriverHistory(violations), new VehicleHistory(crashes, violations));
+        loaded.driverHistory.onFirstChange(() -> keep(driverId, loaded));
+        loaded.vehicleHistory.onFirstChange(() -> keep(driverId, loaded));
+        synchronized (this) {
+            loadCount++;
+            // another thread may have loaded or changed the same driver meanwhile; keep one copy
+            Histories cached = changed.get(driverId);
+            if (cached == null) {
+                cached = cache.get(driverId);
+            }
+            if (cached == null) {
+                cached = stillLive(driverId);
+            }
+            if (cached != null) {
+                return cached;
+            }
+            cache.put(driverId, loaded);
+            live.put(driverId, new LiveHistories(driverId, loaded, collected));
+            return loaded;
+        }
+    }
+
+    // the copy of a driver's histories still in use after it fell out of the cache, put back in the cache
+    private Histories stillLive(String driverId) {
+        for (LiveHistories gone; (gone = (LiveHistories) collected.poll()) != null; ) {
+            live.remove(gone.driverId, gone);
+        }
+        LiveHistories reference = live.get(driverId);
+        Histories histories = reference == null ? null : reference.get();
+        if (histories != null) {
+            cache.put(driverId, histories);
+        }
+        return histories;
+    }
+
+    // moves histories that are about to change out of the cache, which would drop the change on eviction
+    private synchronized void keep(String driverId, Histories histories) {
+        Histories kept = changed.putIfAbsent(driverId, histories);
+        if (kept == null) {
+            cache.remove(driverId);
+        } else if (kept != histories) {
+            throw new IllegalStateException("Histories of " + driverId + " were changed through two copies.");
+        }
+    }
+
+    private static List<String[]> readRows(FileChannel file, long[] ranges) {
+        List<String[]> rows = new ArrayList<>();
+        try {
+            for (int i = 0; i < ranges.length; i += 2) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(ranges[i + 1] - ranges[i]));
+                while (buffer.hasRemaining()) {
+                    if (file.read(buffer, ranges[i] + buffer.position()) < 0) {
+                        throw new IOException("File ended before offset " + ranges[i + 1] + ".");
+                    }
+                }
+                for (String line : new String(buffer.array(), StandardCharsets.UTF_8).split("\r?\n")) {
+                    if (!line.isEmpty()) {
+                        rows.add(line.split(", "));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read histories.", e);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads a CSV file once and records, per driver, the byte ranges of their rows as
+     * [start, end) pairs, joining the ranges of rows that follow each other.
+     */
+    private static Map<String, long[]> indexRanges(Path file, int driverIdColumn) throws IOException {
+        Map<String, long[]> ranges = new HashMap<>();
+        Map<String, Integer> rangeLengths = new HashMap<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] chunk = new byte[1 << 16];
+            byte[] line = new byte[256];
+            int length = 0;
+            long offset = 0;
+            long lineStart = 0;
+            boolean header = true;
+            int read;
+            do {
+                read = in.read(chunk);
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] != '\n') {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = chunk[i];
+                        continue;
+                    }
+                    if (!header) {
+                        addRow(ranges, rangeLengths, line, length, driverIdColumn, lineStart, offset + i + 1);
+                    }
+                    header = false;
+                    length = 0;
+                    lineStart = offset + i + 1;
+                }
+                offset += Math.max(read, 0);
+            } while (read >= 0);
+            if (!header && length > 0) {
+                addRow(ranges, rangeLengths, line, length, driverIdColumn, lineStart, offset); // no final line break
+            }
+        }
+        // trim the spare capacity, which the index would otherwise keep for good
+        for (Map.Entry<String, long[]> entry : ranges.entrySet()) {
+            int used = rangeLengths.get(entry.getKey());
+            if (used < entry.getValue().length) {
+                entry.setValue(Arrays.copyOf(entry.getValue(), used));
+            }
+        }
+        return ranges;
+    }
+
+    // adds the byte range [start, end) of a row to the ranges of its driver
+    private static void addRow(Map<String, long[]> ranges, Map<String, Integer> rangeLengths, byte[] line, int length,
+                               int driverIdColumn, long start, long end) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        String driverId = column(line, length, driverIdColumn);
+        long[] driverRanges = ranges.get(driverId);
+        int used = driverRanges == null ? 0 : rangeLengths.get(driverId);
+        if (driverRanges != null && driverRanges[used - 1] == start) {
+            driverRanges[used - 1] = end; // the row follows the driver's last row
+            return;
+        }
+        if (driverRanges == null) {
+            driverRanges = new long[2];
+        } else if (used == driverRanges.length) {
+            driverRanges = Arrays.copyOf(driverRanges, used * 2);
+        }
+        driverRanges[used] = start;
+        driverRanges[used + 1] = end;
+        ranges.put(driverId, driverRanges);
+        rangeLengths.put(driverId, used + 2);
+    }
+
+    // the text of a ", "-separated column of a row
+    private static String column(byte[] line, int length, int index) {
+        int start = 0;
+        for (int column = 0; column < index && start < length; start++) {
+            if (line[start] == ',' && start + 1 < length && line[start + 1] == ' ') {
+                column++;
+                start++;
+            }
+        }
+        int end = start;
+        while (end < length && !(line[end] == ',' && end + 1 < length && line[end + 1] == ' ')) {
+            end++;
+        }
+        return new String(line, start, end - start, StandardCharsets.UTF_8);
+    }
+}
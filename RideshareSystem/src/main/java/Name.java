@@ -1,11 +1,14 @@
 import java.util.Objects;
 
 /**
- * The Name class represents a driver's name, including first name and last name
+ * The Name class represents a driver's name, including first name and last name.
+ * Names are immutable and cache their hash code; a {@link NamePool} hands out one shared
+ * instance per person, so most comparisons end at the reference check.
  */
-public class Name {
-    private String firstName;
-    private String lastName;
+public final class Name {
+    private final String firstName;
+    private final String lastName;
+    private final int hash;
 
     /**
      * Constructor to create a new name instance
@@ -15,6 +18,8 @@ public class Name {
     public Name(String firstName, String lastName) {
         this.firstName = firstName;
         this.lastName = lastName;
+        // the value Objects.hash(firstName, lastName) gives, without its array
+        this.hash = 31 * (31 + Objects.hashCode(firstName)) + Objects.hashCode(lastName);
     }
 
     /**
@@ -38,12 +43,12 @@ public class Name {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Name name = (Name) o;
-        return Objects.equals(firstName, name.firstName) && Objects.equals(lastName, name.lastName);
+        return hash == name.hash && Objects.equals(firstName, name.firstName) && Objects.equals(lastName, name.lastName);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(firstName, lastName);
+        return hash;
     }
 
     @Override
@@ -0,0 +1,43 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out one shared {@link Name} instance per distinct first and last name. The loaders
+ * use a pool per load, so the driver, their license, the vehicles they own, the policies
+ * that insure them and the crashes they caused all refer to the same Name object.
+ * A pool is not thread-safe.
+ */
+public class NamePool {
+    private final Map<Name, Name> names = new HashMap<>();
+
+    /**
+     * Gets the shared instance of a name, creating it the first time the name is seen.
+     * @param firstName The first name.
+     * @param lastName The last name.
+     * @return The pooled Name.
+     */
+    public Name intern(String firstName, String lastName) {
+        return intern(new Name(firstName, lastName));
+    }
+
+    /**
+     * Gets the shared instance equal to a name, adding the name to the pool if it is new.
+     * @param name The name to look up; null is returned unchanged.
+     * @return The pooled Name.
+     */
+    public Name intern(Name name) {
+        if (name == null) {
+            return null;
+        }
+        Name pooled = names.putIfAbsent(name, name);
+        return pooled == null ? name : pooled;
+    }
+
+    /**
+     * Gets the number of distinct names in the pool.
+     * @return The number of names.
+     */
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,505 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Stores drivers as serialized records in a memory-mapped file instead of on the Java heap.
+ * The on-heap index holds no objects per driver: an open-addressing table of key hashes and
+ * record offsets, 12 bytes per slot, which finds a record by its hash and confirms the license
+ * number against the key stored in the record. A Driver object graph is materialized from its
+ * record each time it is requested.
+ *
+ * The file is mapped in fixed-size segments so the store can grow past the 2 GB limit of a
+ * single mapping. It starts with a header holding the segment size, and every record is its
+ * length, its license number and the encoded driver; the length is written last, so a record
+ * torn by a crash reads as the end of the data. Removing or replacing a driver marks its old
+ * record dead in place. Opening an existing file scans its records to rebuild the index, so a
+ * store survives restarts. Dead records are reclaimed by {@link #compact()}, which also runs
+ * on its own once dead records take more than half the used space.
+ *
+ * Registered as a {@link PoolMutationListener}, the store mirrors a {@link DriverPoolManager}:
+ * every driver added to the pool is written to it and every driver removed is marked dead,
+ * and an operation the pool cancels is undone the same way. The mirror does not take the
+ * drivers off the pool's heap; it lets a large pool be reopened, iterated and looked up from
+ * the file by processes that do not hold the pool, which is where the heap is saved.
+ */
+public class OffHeapDriverStore implements PoolMutationListener, Closeable {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int MAGIC = 0x52445331; // "RDS1"
+    private static final int FILE_HEADER_SIZE = 2 * Integer.BYTES; // magic, segment size
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES; // record length; negative once dead
+    private static final long AUTO_COMPACT_MIN_DEAD_BYTES = 1024 * 1024;
+    private static final long EMPTY = 0; // no record starts at offset 0, which holds the file header
+    private static final long DELETED = -1;
+
+    private final Path file;
+    private final ByteArrayOutputStream encodeBuffer;
+    private FileChannel channel;
+    private int segmentSize;
+    private List<MappedByteBuffer> segments;
+    private int[] hashes; // the hash of the license number in each index slot
+    private long[] offsets; // the record offset in each index slot, or EMPTY or DELETED
+    private int size;
+    private int usedSlots; // slots that are not EMPTY, including DELETED ones
+    private long writeOffset;
+    private long deadBytes;
+
+    /**
+     * Opens the store backed by a file, creating it with 64 MB segments if it does not exist.
+     * @param file The file to map.
+     * @throws IOException if the file cannot be opened or is not a driver store.
+     */
+    public OffHeapDriverStore(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the store backed by a file, creating it if it does not exist. An existing store
+     * keeps the drivers it holds and the segment size it was created with.
+     * @param file The file to map.
+     * @param segmentSize The size in bytes of each mapped segment of a new file; bounds the size of a single record.
+     * @throws IOException if the file cannot be opened or is not a driver store.
+     */
+    public OffHeapDriverStore(Path file, int segmentSize) throws IOException {
+        if (segmentSize <= FILE_HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.file = file;
+        this.encodeBuffer = new ByteArrayOutputStream(512);
+        open(segmentSize);
+    }
+
+    /**
+     * Stores a driver under its license number, replacing any previous record.
+     * @param driver The driver to store; must have a driver's license.
+     */
+    public synchronized void put(Driver driver) {
+        String licenseNumber = driver.getDriverLicense().getLicenseNumber();
+        byte[] record = encode(licenseNumber, driver);
+        int recordSize = RECORD_HEADER_SIZE + record.length;
+        if (recordSize > segmentSize - FILE_HEADER_SIZE) {
+            throw new IllegalArgumentException("Record for " + licenseNumber + " does not fit in a segment: " + recordSize + " bytes.");
+        }
+        long offset = append(record);
+        int hash = hash(licenseNumber);
+        int slot = find(licenseNumber, hash);
+        if (slot >= 0) {
+            markDead(offsets[slot]);
+            offsets[slot] = offset;
+        } else {
+            insert(hash, offset);
+        }
+        compactIfWasteful();
+    }
+
+    /**
+     * Materializes the driver stored under a license number.
+     * @param licenseNumber The license number to look up.
+     * @return A new Driver object graph, or null if no driver is stored under the license number.
+     */
+    public synchronized Driver get(String licenseNumber) {
+        int slot = find(licenseNumber, hash(licenseNumber));
+        return slot < 0 ? null : decode(offsets[slot]);
+    }
+
+    /**
+     * Checks whether a driver is stored under a license number.
+     * @param licenseNumber The license number to look up.
+     * @return true if a driver is stored, false otherwise.
+     */
+    public synchronized boolean containsKey(String licenseNumber) {
+        return find(licenseNumber, hash(licenseNumber)) >= 0;
+    }
+
+    /**
+     * Removes the driver stored under a license number.
+     * @param licenseNumber The license number of the driver to remove.
+     * @return true if a driver was removed, false if none was stored.
+     */
+    public synchronized boolean remove(String licenseNumber) {
+        int slot = find(licenseNumber, hash(licenseNumber));
+        if (slot < 0) {
+            return false;
+        }
+        markDead(offsets[slot]);
+        offsets[slot] = DELETED;
+        size--;
+        compactIfWasteful();
+        return true;
+    }
+
+    /**
+     * Gets the number of drivers in the store.
+     * @return The number of stored drivers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the license numbers of all stored drivers.
+     * @return A snapshot of the stored license numbers.
+     */
+    public synchronized Set<String> licenseNumbers() {
+        Set<String> licenseNumbers = new HashSet<>(size * 2);
+        for (long offset : offsets) {
+            if (offset > 0) {
+                licenseNumbers.add(readKey(offset));
+            }
+        }
+        return licenseNumbers;
+    }
+
+    /**
+     * Iterates over the stored drivers, materializing each one only when it is reached.
+     * @return An iterable over the drivers stored when this method was called.
+     */
+    public Iterable<Driver> drivers() {
+        Set<String> licenseNumbers = licenseNumbers();
+        return () -> new Iterator<>() {
+            private final Iterator<String> keys = licenseNumbers.iterator();
+            private Driver next = advance();
+
+            private Driver advance() {
+                while (keys.hasNext()) {
+                    Driver driver = get(keys.next());
+                    if (driver != null) {
+                        return driver;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Driver next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Driver current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of bytes written to the file, including the header and dead records.
+     * @return The number of bytes used in the mapped file.
+     */
+    public synchronized long getUsedBytes() {
+        return writeOffset;
+    }
+
+    /**
+     * Gets the number of bytes held by removed or replaced records.
+     * @return The number of dead bytes.
+     */
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Writes the live records to a new file and replaces the backing file with it, reclaiming
+     * the space of dead records. The new file is complete on disk before it replaces the old
+     * one, so a crash during compaction leaves one of the two intact. If the old file cannot be
+     * replaced, the store stays open on it.
+     * @throws UncheckedIOException if the new file cannot be written.
+     */
+    public synchronized void compact() {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            try (OffHeapDriverStore target = new OffHeapDriverStore(fresh(compacted), segmentSize)) {
+                for (long offset : offsets) {
+                    if (offset > 0) {
+                        target.append(readRecord(offset));
+                    }
+                }
+                target.force();
+            }
+            close();
+            try {
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                open(segmentSize); // the compacted file if it was moved, the original one otherwise
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onDriverAdded(Driver driver) {
+        put(driver);
+    }
+
+    @Override
+    public void onDriverRemoved(Driver driver) {
+        remove(driver.getDriverLicense().getLicenseNumber());
+    }
+
+    @Override
+    public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+    }
+
+    @Override
+    public void onVehicleReleased(String vehicleId, String licenseNumber) {
+    }
+
+    /**
+     * Writes the mapped segments to the storage device.
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segments.clear();
+        channel.close();
+    }
+
+    // maps the file and rebuilds the index from its records
+    private void open(int newSegmentSize) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments = new ArrayList<>();
+        hashes = new int[16];
+        offsets = new long[16];
+        size = 0;
+        usedSlots = 0;
+        deadBytes = 0;
+        try {
+            if (channel.size() < FILE_HEADER_SIZE) {
+                segmentSize = newSegmentSize;
+                MappedByteBuffer first = segment(0);
+                first.putInt(Integer.BYTES, segmentSize);
+                first.putInt(0, MAGIC);
+                writeOffset = FILE_HEADER_SIZE;
+                return;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) <= FILE_HEADER_SIZE + RECORD_HEADER_SIZE) {
+                throw new IOException(file + " is not a driver store.");
+            }
+            segmentSize = header.getInt(Integer.BYTES);
+            scan();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // reads every record of an existing file, indexing the live ones
+    private void scan() {
+        long segmentCount = (channelSize() + segmentSize - 1) / segmentSize;
+        writeOffset = FILE_HEADER_SIZE;
+        long offset = FILE_HEADER_SIZE;
+        while (offset / segmentSize < segmentCount) {
+            int position = (int) (offset % segmentSize);
+            int length = position + RECORD_HEADER_SIZE > segmentSize ? 0 : segment((int) (offset / segmentSize)).getInt(position);
+            int recordSize = RECORD_HEADER_SIZE + Math.abs(length);
+            if (length == 0 || length == Integer.MIN_VALUE || position + recordSize > segmentSize) {
+                offset += segmentSize - position; // padding, or the end of the data in this segment
+                continue;
+            }
+            if (length > 0) {
+                String licenseNumber = readKey(offset);
+                int hash = hash(licenseNumber);
+                int slot = find(licenseNumber, hash);
+                if (slot >= 0) {
+                    // a replaced record whose old copy was not marked dead before a crash
+                    markDead(offsets[slot]);
+                    offsets[slot] = offset;
+                } else {
+                    insert(hash, offset);
+                }
+            } else {
+                deadBytes += recordSize;
+            }
+            offset += recordSize;
+            writeOffset = offset;
+        }
+    }
+
+    // appends a record after the last one; records never span two segments
+    private long append(byte[] record) {
+        int recordSize = RECORD_HEADER_SIZE + record.length;
+        long positionInSegment = writeOffset % segmentSize;
+        if (positionInSegment + recordSize > segmentSize) {
+            writeOffset += segmentSize - positionInSegment;
+        }
+        long offset = writeOffset;
+        MappedByteBuffer segment = segment((int) (offset / segmentSize));
+        int position = (int) (offset % segmentSize);
+        segment.put(position + RECORD_HEADER_SIZE, record);
+        segment.putInt(position, record.length); // last, so that a torn record is never read as whole
+        writeOffset += recordSize;
+        return offset;
+    }
+
+    private void markDead(long offset) {
+        MappedByteBuffer segment = segment((int) (offset / segmentSize));
+        int position = (int) (offset % segmentSize);
+        int length = segment.getInt(position);
+        segment.putInt(position, -length);
+        deadBytes += RECORD_HEADER_SIZE + length;
+    }
+
+    private void compactIfWasteful() {
+        if (deadBytes >= AUTO_COMPACT_MIN_DEAD_BYTES && deadBytes * 2 > writeOffset) {
+            compact();
+        }
+    }
+
+    // finds the index slot of a license number, or -1 if it is not stored
+    private int find(String licenseNumber, int hash) {
+        int mask = offsets.length - 1;
+        for (int slot = hash & mask; offsets[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (offsets[slot] != DELETED && hashes[slot] == hash && readKey(offsets[slot]).equals(licenseNumber)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // adds a license number that is not stored yet
+    private void insert(int hash, long offset) {
+        if ((usedSlots + 1) * 4L > offsets.length * 3L) {
+            rehash(size + 1 > offsets.length / 2 ? offsets.length * 2 : offsets.length);
+        }
+        int mask = offsets.length - 1;
+        int slot = hash & mask;
+        while (offsets[slot] != EMPTY && offsets[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        if (offsets[slot] == EMPTY) {
+            usedSlots++;
+        }
+        hashes[slot] = hash;
+        offsets[slot] = offset;
+        size++;
+    }
+
+    // rebuilds the table without deleted slots
+    private void rehash(int capacity) {
+        int[] oldHashes = hashes;
+        long[] oldOffsets = offsets;
+        hashes = new int[capacity];
+        offsets = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] > 0) {
+                int slot = oldHashes[i] & mask;
+                while (offsets[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+            }
+        }
+        usedSlots = size;
+    }
+
+    private static int hash(String licenseNumber) {
+        int hash = licenseNumber.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    // maps segments up to the given one, growing the file as needed
+    private MappedByteBuffer segment(int segmentIndex) {
+        try {
+            while (segments.size() <= segmentIndex) {
+                long start = (long) segments.size() * segmentSize;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segments.get(segmentIndex);
+    }
+
+    private long channelSize() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the license number and encoded driver of a record
+    private byte[] readRecord(long offset) {
+        MappedByteBuffer segment = segment((int) (offset / segmentSize));
+        int position = (int) (offset % segmentSize);
+        byte[] record = new byte[Math.abs(segment.getInt(position))];
+        segment.get(position + RECORD_HEADER_SIZE, record);
+        return record;
+    }
+
+    // the license number of a record, read without decoding the driver
+    private String readKey(long offset) {
+        MappedByteBuffer segment = segment((int) (offset / segmentSize));
+        int position = (int) (offset % segmentSize) + RECORD_HEADER_SIZE;
+        byte[] key = new byte[segment.getShort(position) & 0xFFFF];
+        segment.get(position + Short.BYTES, key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private byte[] encode(String licenseNumber, Driver driver) {
+        encodeBuffer.reset();
+        try {
+            DataOutputStream out = new DataOutputStream(encodeBuffer);
+            byte[] key = licenseNumber.getBytes(StandardCharsets.UTF_8);
+            if (key.length > 0xFFFF) {
+                throw new IllegalArgumentException("License number is too long: " + key.length + " bytes.");
+            }
+            out.writeShort(key.length);
+            out.write(key);
+            DriverRecordCodec.getInstance().write(out, driver);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encodeBuffer.toByteArray();
+    }
+
+    private Driver decode(long offset) {
+        byte[] record = readRecord(offset);
+        int keyLength = ((record[0] & 0xFF) << 8) | (record[1] & 0xFF);
+        int start = Short.BYTES + keyLength;
+        try {
+            return DriverRecordCodec.getInstance().read(new DataInputStream(
+                    new ByteArrayInputStream(Arrays.copyOfRange(record, start, record.length))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // deletes a leftover file from an interrupted compaction
+    private static Path fresh(Path path) throws IOException {
+        Files.deleteIfExists(path);
+        return path;
+    }
+}
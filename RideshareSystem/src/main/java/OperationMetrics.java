@@ -0,0 +1,101 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for one kind of operation. Recording is lock-free and
+ * costs a few nanoseconds, so it can stay enabled under full load.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Records one run of the operation that started at a given time and ends now.
+     * @param startNanos The value of {@link System#nanoTime()} when the run started.
+     * @param success Whether the run succeeded.
+     * @return The success argument, so that a check can be recorded and tested in one expression.
+     */
+    public boolean record(long startNanos, boolean success) {
+        latency.record(System.nanoTime() - startNanos);
+        if (!success) {
+            failures.increment();
+        }
+        return success;
+    }
+
+    /**
+     * Records one successful run of the operation that processed a number of items.
+     * @param startNanos The value of {@link System#nanoTime()} when the run started.
+     * @param itemCount The number of items processed.
+     */
+    public void record(long startNanos, long itemCount) {
+        latency.record(System.nanoTime() - startNanos);
+        items.add(itemCount);
+    }
+
+    /**
+     * Records one successful run of the operation that took a given time, for runs made of
+     * several separately timed parts.
+     * @param elapsedNanos The duration of the run, in nanoseconds.
+     * @param itemCount The number of items processed.
+     */
+    public void recordElapsed(long elapsedNanos, long itemCount) {
+        latency.record(elapsedNanos);
+        items.add(itemCount);
+    }
+
+    /**
+     * Gets the latency histogram of the operation.
+     * @return The histogram, in nanoseconds.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getItems() {
+        return items.sum();
+    }
+
+    @Override
+    public double getMeanLatencyNanos() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getP50LatencyNanos() {
+        return latency.getPercentile(50);
+    }
+
+    @Override
+    public long getP99LatencyNanos() {
+        return latency.getPercentile(99);
+    }
+
+    @Override
+    public long getP999LatencyNanos() {
+        return latency.getPercentile(99.9);
+    }
+
+    @Override
+    public long getMaxLatencyNanos() {
+        return latency.getMax();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        failures.reset();
+        items.reset();
+    }
+}
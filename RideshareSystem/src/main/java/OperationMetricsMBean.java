@@ -0,0 +1,58 @@
+/**
+ * The management interface of {@link OperationMetrics}, as exposed over JMX.
+ */
+public interface OperationMetricsMBean {
+
+    /**
+     * Gets the number of times the operation ran.
+     * @return The number of runs.
+     */
+    long getCount();
+
+    /**
+     * Gets the number of runs that failed or rejected their input.
+     * @return The number of failed runs.
+     */
+    long getFailures();
+
+    /**
+     * Gets the number of items, such as rows, the operation processed over all runs.
+     * @return The number of items.
+     */
+    long getItems();
+
+    /**
+     * Gets the mean latency of a run.
+     * @return The mean latency, in nanoseconds.
+     */
+    double getMeanLatencyNanos();
+
+    /**
+     * Gets the median latency of a run.
+     * @return The median latency, in nanoseconds.
+     */
+    long getP50LatencyNanos();
+
+    /**
+     * Gets the 99th percentile latency of a run.
+     * @return The 99th percentile latency, in nanoseconds.
+     */
+    long getP99LatencyNanos();
+
+    /**
+     * Gets the 99.9th percentile latency of a run.
+     * @return The 99.9th percentile latency, in nanoseconds.
+     */
+    long getP999LatencyNanos();
+
+    /**
+     * Gets the largest latency of a run.
+     * @return The maximum latency, in nanoseconds.
+     */
+    long getMaxLatencyNanos();
+
+    /**
+     * Clears all counters and the latency histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,604 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An append-only log of dated history events, kept in parallel primitive arrays instead of
+ * one object per event: the day of each event as days since 1970-01-01 in the system default
+ * time zone, its type code, and for crashes the offending driver's {@link Name}, which the
+ * loaders share across a load. Events are days, not instants; a {@link Violation} or
+ * {@link Crash} read back from the log is dated at the start of its day, which is how the CSV
+ * loader dates them in the first place.
+ *
+ * Types are matched to codes without regard to case. A type outside the factories' lists gets
+ * one of the OTHER codes instead of being rejected, so any violation or crash can be stored;
+ * the type of an event is kept as it was given whenever it differs from the name of its code,
+ * so what is read back equals what was added.
+ *
+ * Window queries take a bit mask of the type codes to match, so a single pass can answer
+ * "any moving violation after this day" or "any crash at all". While events are appended in
+ * date order the log binary-searches for the start of a window; otherwise it scans.
+ *
+ * The log also keeps running aggregates per type code, the number of events and the latest
+ * day, which an append updates in constant time. {@link #count(long)}, {@link #any(long)} and
+ * {@link #latestDay(long)} read them without looking at the events, so a validity check over
+ * the whole history costs the same however long the history grows.
+ */
+public final class PackedHistory {
+    /**
+     * The day stored for an event without a date.
+     */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    /**
+     * A mask that matches every type code.
+     */
+    public static final long ALL_CODES = -1L;
+
+    // violation codes index the moving types, then the non-moving types, then the two OTHER codes
+    private static final int MOVING_TYPE_COUNT = ViolationFactory.MOVING_VIOLATION_TYPES.size();
+    private static final int NON_MOVING_TYPE_COUNT = ViolationFactory.NON_MOVING_VIOLATION_TYPES.size();
+
+    /**
+     * The code of a moving violation of a type the {@link ViolationFactory} does not list.
+     */
+    public static final int OTHER_MOVING_VIOLATION = MOVING_TYPE_COUNT + NON_MOVING_TYPE_COUNT;
+
+    /**
+     * The code of any other violation of a type the {@link ViolationFactory} does not list.
+     */
+    public static final int OTHER_NON_MOVING_VIOLATION = OTHER_MOVING_VIOLATION + 1;
+
+    /**
+     * The number of violation codes.
+     */
+    public static final int VIOLATION_CODE_COUNT = OTHER_NON_MOVING_VIOLATION + 1;
+
+    /**
+     * The code of a crash of a type the {@link CrashFactory} does not list.
+     */
+    public static final int OTHER_CRASH = CrashFactory.CRASH_TYPES.size();
+
+    /**
+     * The number of crash codes.
+     */
+    public static final int CRASH_CODE_COUNT = OTHER_CRASH + 1;
+
+    /**
+     * A mask that matches the codes of all moving violations.
+     */
+    public static final long MOVING_VIOLATIONS = (1L << MOVING_TYPE_COUNT) - 1 | 1L << OTHER_MOVING_VIOLATION;
+
+    private static final String OTHER_MOVING_NAME = "Other moving violation";
+    private static final String OTHER_NON_MOVING_NAME = "Other non-moving violation";
+    private static final String OTHER_CRASH_NAME = "Other crash";
+    // the codes by lower-case type name, the OTHER names included
+    private static final Map<String, Integer> VIOLATION_CODES = new HashMap<>();
+    private static final Map<String, Integer> CRASH_CODES = new HashMap<>();
+
+    static {
+        for (int code = 0; code < VIOLATION_CODE_COUNT; code++) {
+            VIOLATION_CODES.put(lowerCase(violationType(code)), code);
+        }
+        for (int code = 0; code < CRASH_CODE_COUNT; code++) {
+            CRASH_CODES.put(lowerCase(crashType(code)), code);
+        }
+    }
+
+    private static final int[] EMPTY = new int[0];
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final boolean crashLog;
+    private int[] days = EMPTY;
+    private int[] codes = EMPTY;
+    private Name[] offenders;
+    private String[] types; // the type as given where it is not the name of the code; null until needed
+    private int size;
+    private boolean sorted = true;
+    private int[] countByCode = EMPTY;
+    private int[] latestDayByCode = EMPTY;
+
+    /**
+     * Constructs an empty log.
+     * @param crashLog Whether the log holds crashes, which carry an offending driver, rather than violations.
+     */
+    PackedHistory(boolean crashLog) {
+        this.crashLog = crashLog;
+        this.offenders = crashLog ? new Name[0] : null;
+    }
+
+    /**
+     * Appends a violation.
+     * @param violation The violation, of any type.
+     */
+    void appendViolation(Violation violation) {
+        int code = violationCode(violation);
+        append(toDay(violation.getDate()), code, null, typeToKeep(typeOf(violation), violationType(code)));
+    }
+
+    /**
+     * Appends a crash.
+     * @param crash The crash, of any type.
+     */
+    void appendCrash(Crash crash) {
+        int code = crashCode(crash);
+        append(toDay(crash.getDate()), code, crash.getOffendingDriver(), typeToKeep(crash.getCrashType(), crashType(code)));
+    }
+
+    /**
+     * Appends an event.
+     * @param day The day of the event, or {@link #NO_DAY}.
+     * @param code The type code of the event.
+     * @param offender The offending driver, or null; ignored unless the log holds crashes.
+     * @param type The type as given if it is not the name of the code, else null.
+     */
+    void append(int day, int code, Name offender, String type) {
+        if (code < 0 || code >= (crashLog ? CRASH_CODE_COUNT : VIOLATION_CODE_COUNT)) {
+            throw new IllegalArgumentException("Unknown type code: " + code);
+        }
+        if (size == days.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            days = Arrays.copyOf(days, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            if (crashLog) {
+                offenders = Arrays.copyOf(offenders, capacity);
+            }
+            if (types != null) {
+                types = Arrays.copyOf(types, capacity);
+            }
+        }
+        if (type != null && types == null) {
+            types = new String[days.length];
+        }
+        if (size > 0 && day < days[size - 1]) {
+            sorted = false;
+        }
+        days[size] = day;
+        codes[size] = code;
+        if (crashLog) {
+            offenders[size] = offender;
+        }
+        if (types != null) {
+            types[size] = type;
+        }
+        size++;
+
+        if (code >= countByCode.length) {
+            int codeCount = countByCode.length;
+            countByCode = Arrays.copyOf(countByCode, code + 1);
+            latestDayByCode = Arrays.copyOf(latestDayByCode, code + 1);
+            Arrays.fill(latestDayByCode, codeCount, code + 1, NO_DAY);
+        }
+        countByCode[code]++;
+        if (day > latestDayByCode[code]) {
+            latestDayByCode[code] = day;
+        }
+    }
+
+    /**
+     * Removes the first event equal to a violation.
+     * @param violation The violation.
+     * @return true if an event was removed.
+     */
+    boolean removeViolation(Violation violation) {
+        int code = violationCode(violation);
+        return remove(toDay(violation.getDate()), code, null, typeToKeep(typeOf(violation), violationType(code)));
+    }
+
+    /**
+     * Removes the first event equal to a crash.
+     * @param crash The crash.
+     * @return true if an event was removed.
+     */
+    boolean removeCrash(Crash crash) {
+        int code = crashCode(crash);
+        return remove(toDay(crash.getDate()), code, crash.getOffendingDriver(), typeToKeep(crash.getCrashType(), crashType(code)));
+    }
+
+    // removes the first event that matches all given values
+    private boolean remove(int day, int code, Name offender, String type) {
+        for (int i = 0; i < size; i++) {
+            if (days[i] == day && codes[i] == code && (!crashLog || Objects.equals(offenders[i], offender))
+                    && Objects.equals(types == null ? null : types[i], type)) {
+                int tail = size - i - 1;
+                System.arraycopy(days, i + 1, days, i, tail);
+                System.arraycopy(codes, i + 1, codes, i, tail);
+                if (crashLog) {
+                    System.arraycopy(offenders, i + 1, offenders, i, tail);
+                    offenders[size - 1] = null;
+                }
+                if (types != null) {
+                    System.arraycopy(types, i + 1, types, i, tail);
+                    types[size - 1] = null;
+                }
+                size--;
+                countByCode[code]--;
+                if (day == latestDayByCode[code]) {
+                    latestDayByCode[code] = latestDayOf(code);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of events.
+     * @return The number of events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the day of an event.
+     * @param index The position of the event, in the order it was appended.
+     * @return The day, or {@link #NO_DAY}.
+     */
+    public int getDay(int index) {
+        checkIndex(index);
+        return days[index];
+    }
+
+    /**
+     * Gets the type code of an event.
+     * @param index The position of the event, in the order it was appended.
+     * @return The type code.
+     */
+    public int getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    /**
+     * Gets the offending driver of an event.
+     * @param index The position of the event, in the order it was appended.
+     * @return The offending driver, or null if there is none or the log holds violations.
+     */
+    public Name getOffender(int index) {
+        checkIndex(index);
+        return crashLog ? offenders[index] : null;
+    }
+
+    /**
+     * Gets the type of an event as it was added.
+     * @param index The position of the event, in the order it was appended.
+     * @return The type.
+     */
+    public String getType(int index) {
+        checkIndex(index);
+        String type = types == null ? null : types[index];
+        if (type != null) {
+            return type;
+        }
+        return crashLog ? crashType(codes[index]) : violationType(codes[index]);
+    }
+
+    /**
+     * Creates the violation at a position of a log of violations.
+     * @param index The position of the violation, in the order it was appended.
+     * @return A new violation equal to the one added.
+     */
+    public Violation getViolation(int index) {
+        int code = getCode(index);
+        return isMoving(code) ? new MovingViolation(toDate(days[index]), getType(index))
+                : new NonMovingViolation(toDate(days[index]), getType(index));
+    }
+
+    /**
+     * Creates the crash at a position of a log of crashes.
+     * @param index The position of the crash, in the order it was appended.
+     * @return A new crash equal to the one added.
+     */
+    public Crash getCrash(int index) {
+        return new Crash(toDate(getDay(index)), getType(index), getOffender(index));
+    }
+
+    /**
+     * Checks whether any event with one of the given codes falls within a window of days.
+     * Events without a date are never in a window.
+     * @param fromDay The first day of the window.
+     * @param toDay The last day of the window.
+     * @param codeMask The codes to match, as a bit mask.
+     * @return true if such an event exists.
+     */
+    public boolean anyBetween(int fromDay, int toDay, long codeMask) {
+        for (int i = firstCandidate(fromDay); i < size; i++) {
+            int day = days[i];
+            if (day > toDay && sorted) {
+                return false;
+            }
+            if (matches(day, codes[i], fromDay, toDay, codeMask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the events with one of the given codes within a window of days.
+     * @param fromDay The first day of the window.
+     * @param toDay The last day of the window.
+     * @param codeMask The codes to match, as a bit mask.
+     * @return The number of such events.
+     */
+    public int countBetween(int fromDay, int toDay, long codeMask) {
+        int count = 0;
+        for (int i = firstCandidate(fromDay); i < size; i++) {
+            int day = days[i];
+            if (day > toDay && sorted) {
+                break;
+            }
+            if (matches(day, codes[i], fromDay, toDay, codeMask)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the events, dated or not, that have one of the given codes.
+     * @param codeMask The codes to match, as a bit mask.
+     * @return The number of such events.
+     */
+    public int count(long codeMask) {
+        int count = 0;
+        for (int code = 0; code < countByCode.length; code++) {
+            if ((codeMask & (1L << code)) != 0) {
+                count += countByCode[code];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any event, dated or not, has one of the given codes.
+     * @param codeMask The codes to match, as a bit mask.
+     * @return true if such an event exists.
+     */
+    public boolean any(long codeMask) {
+        for (int code = 0; code < countByCode.length; code++) {
+            if ((codeMask & (1L << code)) != 0 && countByCode[code] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the latest day of an event with one of the given codes.
+     * @param codeMask The codes to match, as a bit mask.
+     * @return The latest day, or {@link #NO_DAY} if no dated event matches.
+     */
+    public int latestDay(long codeMask) {
+        int latest = NO_DAY;
+        for (int code = 0; code < latestDayByCode.length; code++) {
+            if ((codeMask & (1L << code)) != 0 && latestDayByCode[code] > latest) {
+                latest = latestDayByCode[code];
+            }
+        }
+        return latest;
+    }
+
+    // the latest day of an event with a code, found by a scan
+    private int latestDayOf(int code) {
+        int latest = NO_DAY;
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code && days[i] > latest) {
+                latest = days[i];
+            }
+        }
+        return latest;
+    }
+
+    // where a scan for the window starting at fromDay may begin
+    private int firstCandidate(int fromDay) {
+        if (!sorted) {
+            return 0;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < fromDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean matches(int day, int code, int fromDay, int toDay, long codeMask) {
+        return day != NO_DAY && day >= fromDay && day <= toDay && (codeMask & (1L << code)) != 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Gets a date as a day.
+     * @param date The date, or null.
+     * @return Days since 1970-01-01 in the system default time zone, or {@link #NO_DAY}.
+     */
+    public static int toDay(Date date) {
+        return date == null ? NO_DAY
+                : Math.toIntExact(date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay());
+    }
+
+    /**
+     * Gets a day as a date.
+     * @param day Days since 1970-01-01, or {@link #NO_DAY}.
+     * @return The start of the day in the system default time zone, or null.
+     */
+    public static Date toDate(int day) {
+        return day == NO_DAY ? null : Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Gets the type code of a violation. A type the {@link ViolationFactory} does not list gets
+     * {@link #OTHER_MOVING_VIOLATION} or {@link #OTHER_NON_MOVING_VIOLATION}.
+     * @param violation The violation.
+     * @return The type code.
+     */
+    public static int violationCode(Violation violation) {
+        Integer code = VIOLATION_CODES.get(lowerCase(typeOf(violation)));
+        boolean moving = violation instanceof MovingViolation;
+        if (code != null && code < OTHER_MOVING_VIOLATION && isMoving(code) == moving) {
+            return code;
+        }
+        return moving ? OTHER_MOVING_VIOLATION : OTHER_NON_MOVING_VIOLATION;
+    }
+
+    /**
+     * Gets the type code of a violation type, ignoring case.
+     * @param violationType One of the types the {@link ViolationFactory} accepts, or the name of an OTHER code.
+     * @return The type code.
+     * @throws IllegalArgumentException if the type is unknown.
+     */
+    public static int violationCode(String violationType) {
+        Integer code = VIOLATION_CODES.get(lowerCase(violationType));
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown violation type: " + violationType);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the type code of a moving violation type, ignoring case.
+     * @param violationType One of {@link ViolationFactory#MOVING_VIOLATION_TYPES}.
+     * @return The type code.
+     * @throws IllegalArgumentException if the type is not a listed moving violation type.
+     */
+    public static int movingViolationCode(String violationType) {
+        Integer code = VIOLATION_CODES.get(lowerCase(violationType));
+        if (code == null || code >= MOVING_TYPE_COUNT) {
+            throw new IllegalArgumentException("Unknown moving violation type: " + violationType);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the name of a violation type code.
+     * @param code The type code.
+     * @return The type as the {@link ViolationFactory} lists it, or the name of an OTHER code.
+     */
+    public static String violationType(int code) {
+        if (code < MOVING_TYPE_COUNT) {
+            return ViolationFactory.MOVING_VIOLATION_TYPES.get(code);
+        }
+        if (code < OTHER_MOVING_VIOLATION) {
+            return ViolationFactory.NON_MOVING_VIOLATION_TYPES.get(code - MOVING_TYPE_COUNT);
+        }
+        return code == OTHER_MOVING_VIOLATION ? OTHER_MOVING_NAME : OTHER_NON_MOVING_NAME;
+    }
+
+    /**
+     * Checks whether a violation type code stands for moving violations.
+     * @param code The type code.
+     * @return true for the moving types and {@link #OTHER_MOVING_VIOLATION}.
+     */
+    public static boolean isMoving(int code) {
+        return (MOVING_VIOLATIONS & (1L << code)) != 0;
+    }
+
+    /**
+     * Creates a violation of the type a code stands for.
+     * @param code The type code.
+     * @param date The date of the violation.
+     * @return A new violation.
+     */
+    public static Violation toViolation(int code, Date date) {
+        return isMoving(code) ? new MovingViolation(date, violationType(code)) : new NonMovingViolation(date, violationType(code));
+    }
+
+    /**
+     * Gets the type code of a crash. A type the {@link CrashFactory} does not list gets {@link #OTHER_CRASH}.
+     * @param crash The crash.
+     * @return The type code.
+     */
+    public static int crashCode(Crash crash) {
+        Integer code = CRASH_CODES.get(lowerCase(crash.getCrashType()));
+        return code == null ? OTHER_CRASH : code;
+    }
+
+    /**
+     * Gets the type code of a crash type, ignoring case.
+     * @param crashType One of {@link CrashFactory#CRASH_TYPES}, or the name of {@link #OTHER_CRASH}.
+     * @return The type code.
+     * @throws IllegalArgumentException if the type is unknown.
+     */
+    public static int crashCode(String crashType) {
+        Integer code = CRASH_CODES.get(lowerCase(crashType));
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown crash type: " + crashType);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the crash type a type code stands for.
+     * @param code The type code.
+     * @return The type as the {@link CrashFactory} lists it, or the name of {@link #OTHER_CRASH}.
+     */
+    public static String crashType(int code) {
+        return code == OTHER_CRASH ? OTHER_CRASH_NAME : CrashFactory.CRASH_TYPES.get(code);
+    }
+
+    // the type of a violation, or null for a kind of violation without one
+    private static String typeOf(Violation violation) {
+        if (violation instanceof MovingViolation) {
+            return ((MovingViolation) violation).getViolationType();
+        }
+        return violation instanceof NonMovingViolation ? ((NonMovingViolation) violation).getViolationType() : null;
+    }
+
+    // the type to keep beside the code: null when the code's name already says it
+    private static String typeToKeep(String type, String codeName) {
+        return codeName.equals(type) ? null : type;
+    }
+
+    private static String lowerCase(String type) {
+        return type == null ? null : type.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackedHistory history = (PackedHistory) o;
+        if (size != history.size || crashLog != history.crashLog
+                || !Arrays.equals(days, 0, size, history.days, 0, size)
+                || !Arrays.equals(codes, 0, size, history.codes, 0, size)
+                || crashLog && !Arrays.equals(offenders, 0, size, history.offenders, 0, size)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(types == null ? null : types[i], history.types == null ? null : history.types[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + days[i];
+            hash = 31 * hash + codes[i];
+            if (crashLog) {
+                hash = 31 * hash + Objects.hashCode(offenders[i]);
+            }
+        }
+        return hash;
+    }
+}
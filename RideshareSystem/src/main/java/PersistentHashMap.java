@@ -0,0 +1,455 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map whose updates return a new map sharing all unchanged structure
+ * with the old one (a hash array mapped trie). Adding or removing a key copies only the
+ * nodes on the path to that key, so old versions stay valid and cheap to keep around,
+ * and readers never need a lock.
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return The shared empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Gets the value mapped to a key.
+     * @param key The key to look up.
+     * @return The mapped value, or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Object value = root.find(0, hash(key), key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    /**
+     * Checks whether a key is present.
+     * @param key The key to look up.
+     * @return true if the key is present, false otherwise.
+     */
+    public boolean containsKey(Object key) {
+        return root != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns a map with a key mapped to a value; this map is left unchanged.
+     * @param key The key to map; must not be null.
+     * @param value The value to map the key to.
+     * @return The updated map, or this map if the key was already mapped to the same value.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Keys of a persistent map must not be null.");
+        }
+        boolean[] added = new boolean[1];
+        Node base = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = base.assoc(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without a key; this map is left unchanged.
+     * @param key The key to remove.
+     * @return The updated map, or this map if the key was absent.
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Gets the number of mappings.
+     * @return The number of keys in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map holds no mappings.
+     * @return true if the map is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Calls an action for every mapping, in no particular order.
+     * @param action The action to call with each key and value.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    /**
+     * Gets a read-only {@link Map} view of this map. The view never changes.
+     * @return A map view backed by this persistent map.
+     */
+    public Map<K, V> asMap() {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<K, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<K, V>> iterator() {
+                        return PersistentHashMap.this.iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+
+            @Override
+            public V get(Object key) {
+                return PersistentHashMap.this.get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return PersistentHashMap.this.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitPosition(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    // a trie node; keys and values are stored as alternating slots of an array
+    private interface Node {
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        Node without(int shift, int hash, Object key);
+
+        @SuppressWarnings("rawtypes")
+        void forEach(BiConsumer action);
+
+        Object[] slots();
+    }
+
+    // a node holding up to 32 slots, present slots marked in a bitmap; a null key marks a child node
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bitPosition(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((Node) valueOrNode).find(shift + BITS, hash, key);
+            }
+            return Objects.equals(key, keyOrNull) ? valueOrNode : NOT_FOUND;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bitPosition(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object keyOrNull = array[2 * idx];
+                Object valueOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    Node child = ((Node) valueOrNode).assoc(shift + BITS, hash, key, value, added);
+                    return child == valueOrNode ? this : withSlot(2 * idx + 1, child);
+                }
+                if (Objects.equals(key, keyOrNull)) {
+                    return value == valueOrNode ? this : withSlot(2 * idx + 1, value);
+                }
+                added[0] = true;
+                Node child = createNode(shift + BITS, keyOrNull, valueOrNode, hash, key, value);
+                Object[] newArray = array.clone();
+                newArray[2 * idx] = null;
+                newArray[2 * idx + 1] = child;
+                return new BitmapNode(bitmap, newArray);
+            }
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, newArray, 2 * idx + 2, array.length - 2 * idx);
+            return new BitmapNode(bitmap | bit, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bitPosition(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                Node child = ((Node) valueOrNode).without(shift + BITS, hash, key);
+                if (child == valueOrNode) {
+                    return this;
+                }
+                if (child != null) {
+                    Object[] childSlots = child.slots();
+                    // pull a lone remaining entry up so removals keep the trie shallow
+                    if (childSlots.length == 2 && childSlots[0] != null) {
+                        Object[] newArray = array.clone();
+                        newArray[2 * idx] = childSlots[0];
+                        newArray[2 * idx + 1] = childSlots[1];
+                        return new BitmapNode(bitmap, newArray);
+                    }
+                    return withSlot(2 * idx + 1, child);
+                }
+            } else if (!Objects.equals(key, keyOrNull)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            System.arraycopy(array, 2 * idx + 2, newArray, 2 * idx, array.length - 2 * idx - 2);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        @Override
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public void forEach(BiConsumer action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        @Override
+        public Object[] slots() {
+            return array;
+        }
+
+        private BitmapNode withSlot(int slot, Object content) {
+            Object[] newArray = array.clone();
+            newArray[slot] = content;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.assoc(shift, hash1, key1, value1, added).assoc(shift, hash2, key2, value2, added);
+        }
+    }
+
+    // a leaf holding keys whose hashes are all equal
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(key, array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return NOT_FOUND;
+            }
+            int idx = indexOf(key);
+            return idx < 0 ? NOT_FOUND : array[idx + 1];
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bitPosition(this.hash, shift), new Object[] {null, this})
+                        .assoc(shift, hash, key, value, added);
+            }
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                if (array[idx + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[idx + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            added[0] = true;
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int idx = hash == this.hash ? indexOf(key) : -1;
+            if (idx < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx, array.length - idx - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public void forEach(BiConsumer action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        @Override
+        public Object[] slots() {
+            return array;
+        }
+    }
+
+    // walks the trie depth-first with an explicit stack of (slots, position) frames
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> slotStack = new ArrayDeque<>();
+        private final Deque<Integer> positionStack = new ArrayDeque<>();
+        private Map.Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                slotStack.push(root.slots());
+                positionStack.push(0);
+            }
+            next = advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map.Entry<K, V> advance() {
+            while (!slotStack.isEmpty()) {
+                Object[] slots = slotStack.peek();
+                int position = positionStack.pop();
+                if (position >= slots.length) {
+                    slotStack.pop();
+                    continue;
+                }
+                positionStack.push(position + 2);
+                if (slots[position] == null) {
+                    slotStack.push(((Node) slots[position + 1]).slots());
+                    positionStack.push(0);
+                } else {
+                    return new AbstractMap.SimpleImmutableEntry<>((K) slots[position], (V) slots[position + 1]);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> current = next;
+            next = advance();
+            return current;
+        }
+    }
+}
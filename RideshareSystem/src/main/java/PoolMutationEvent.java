@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning one add or removal on a driver pool, including the wait for its write lock.
+ */
+@Name("rideshare.PoolMutation")
+@Label("Pool Mutation")
+@Category({"Rideshare", "Pool"})
+@Description("Adding a driver to or removing a driver from the pool")
+public class PoolMutationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("License Number")
+    String licenseNumber;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
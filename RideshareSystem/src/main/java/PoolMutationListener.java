@@ -0,0 +1,67 @@
+/**
+ * Receives every change made to a {@link DriverPoolManager}.
+ * Callbacks run on the mutating thread while the pool's write lock is held, in the order the
+ * changes are applied and before the resulting version is published to readers, so
+ * implementations must be quick and must not call back into the pool. The one exception is
+ * {@link #awaitPublishable()}, which runs after the lock is released.
+ *
+ * An operation such as adding a driver reports all its changes to each listener, then calls
+ * {@link #beforePublish()} on every listener. If a listener throws along the way, the pool
+ * cancels the operation: every listener that was told of a change is told of the change that
+ * undoes it, in reverse order, then {@link #onCancelled()} is called on every listener, and the
+ * exception is rethrown without the operation being published. An operation that
+ * {@link #awaitPublishable()} refuses is cancelled the same way, together with the operations
+ * reported after it that are not yet published, newest first.
+ */
+public interface PoolMutationListener {
+
+    /**
+     * Called when a driver is added to the pool, before its vehicles are claimed.
+     * @param driver The driver that was added.
+     */
+    void onDriverAdded(Driver driver);
+
+    /**
+     * Called when a driver is removed from the pool, after its vehicles are released.
+     * @param driver The driver that was removed.
+     */
+    void onDriverRemoved(Driver driver);
+
+    /**
+     * Called when a vehicle is assigned to a driver.
+     * @param vehicleId The ID of the claimed vehicle.
+     * @param licenseNumber The license number of the driver now using the vehicle.
+     */
+    void onVehicleClaimed(String vehicleId, String licenseNumber);
+
+    /**
+     * Called when a vehicle is released by a driver.
+     * @param vehicleId The ID of the released vehicle.
+     * @param licenseNumber The license number of the driver that was using the vehicle.
+     */
+    void onVehicleReleased(String vehicleId, String licenseNumber);
+
+    /**
+     * Called once all changes of an operation have been reported, before it is published.
+     * Throwing cancels the operation.
+     */
+    default void beforePublish() {
+    }
+
+    /**
+     * Called on the mutating thread after the pool's write lock is released, to wait until the
+     * operation may be published. Other writers of the pool may report their operations
+     * meanwhile, so waits that end together, such as for one fsync, are shared. Operations must
+     * be allowed in the order they were reported: once one is allowed, no earlier one may be
+     * refused. Throwing cancels the operation.
+     */
+    default void awaitPublishable() {
+    }
+
+    /**
+     * Called when an operation is cancelled, after the changes that undo it have been reported.
+     * May run on another writer's thread.
+     */
+    default void onCancelled() {
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * The operations on a {@link DriverPoolManager} that are measured.
+ */
+public enum PoolOperation {
+    ADD, REMOVE, QUERY
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, point-in-time version of the state of a {@link DriverPoolManager}.
+ * Every write to the pool publishes a new snapshot built on persistent maps, sharing
+ * unchanged structure with the previous one. Readers holding a snapshot see a consistent
+ * view of drivers and vehicle assignments without taking any lock, no matter how long
+ * they keep it or how many writes happen meanwhile.
+ */
+public final class PoolSnapshot {
+    static final PoolSnapshot EMPTY = new PoolSnapshot(0, PersistentHashMap.empty(), PersistentHashMap.empty(),
+            PersistentHashMap.empty(), PersistentHashMap.empty());
+
+    private static final char CURSOR_SEPARATOR = '\u001F';
+
+    private final long version;
+    private final PersistentHashMap<String, Driver> driverPool; // maps driver's license numbers to 'Driver' objects
+    private final PersistentHashMap<String, Vehicle> vehiclePool; // maps vehicle IDs to 'Vehicle' objects
+    private final PersistentHashMap<String, String> vehicleUsage; // maps vehicle IDs to the license numbers of the drivers currently using them
+    private final PersistentHashMap<String, LastNameGroup> lastNameIndex; // maps lower-cased last names to the matching drivers, in query order
+
+    PoolSnapshot(long version, PersistentHashMap<String, Driver> driverPool, PersistentHashMap<String, Vehicle> vehiclePool,
+                 PersistentHashMap<String, String> vehicleUsage, PersistentHashMap<String, LastNameGroup> lastNameIndex) {
+        this.version = version;
+        this.driverPool = driverPool;
+        this.vehiclePool = vehiclePool;
+        this.vehicleUsage = vehicleUsage;
+        this.lastNameIndex = lastNameIndex;
+    }
+
+    /**
+     * Gets the version of this snapshot; each published write increases it by one.
+     * @return The snapshot version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of drivers in the pool.
+     * @return The number of drivers.
+     */
+    public int getDriverCount() {
+        return driverPool.size();
+    }
+
+    /**
+     * Gets the driver registered under a license number.
+     * @param licenseNumber The license number to look up.
+     * @return The driver, or null if none is registered under the license number.
+     */
+    public Driver getDriver(String licenseNumber) {
+        return driverPool.get(licenseNumber);
+    }
+
+    /**
+     * Checks whether a driver is registered under a license number.
+     * @param licenseNumber The license number to look up.
+     * @return true if a driver is registered, false otherwise.
+     */
+    public boolean containsDriver(String licenseNumber) {
+        return driverPool.containsKey(licenseNumber);
+    }
+
+    /**
+     * Gets all drivers in the pool.
+     * @return A read-only collection view of the drivers.
+     */
+    public Collection<Driver> getDrivers() {
+        return Collections.unmodifiableCollection(driverPool.asMap().values());
+    }
+
+    /**
+     * Gets a vehicle known to the pool.
+     * @param vehicleId The ID of the vehicle.
+     * @return The vehicle, or null if no pooled driver has registered it.
+     */
+    public Vehicle getVehicle(String vehicleId) {
+        return vehiclePool.get(vehicleId);
+    }
+
+    /**
+     * Gets the driver currently using a vehicle.
+     * @param vehicleId The ID of the vehicle.
+     * @return The license number of the driver using the vehicle, or null if it is free.
+     */
+    public String getVehicleUser(String vehicleId) {
+        return vehicleUsage.get(vehicleId);
+    }
+
+    /**
+     * Gets the assignment of vehicles to drivers.
+     * @return A read-only map from vehicle IDs to the license numbers of the drivers using them.
+     */
+    public Map<String, String> getVehicleUsage() {
+        return vehicleUsage.asMap();
+    }
+
+    /**
+     * Finds drivers with a specific last name, one page at a time.
+     * Results are ordered by first name and then by license number. The drivers of a last name
+     * are kept in that order, so a page costs a binary search for the cursor plus the page itself.
+     * @param lastName The last name to search for, ignoring case.
+     * @param cursor The cursor returned with the previous page, or null to start from the beginning.
+     * @param limit The maximum number of results on the page; zero or less means no limit.
+     * @return The page of matching drivers and the cursor to continue from.
+     */
+    public DriverInfoPage queryByLastName(String lastName, String cursor, int limit) {
+        LastNameGroup sameLastName = lastName == null ? null : lastNameIndex.get(indexKey(lastName));
+        if (sameLastName == null) {
+            return new DriverInfoPage(Collections.emptyList(), null);
+        }
+
+        int start = cursor == null ? 0 : firstAfterCursor(sameLastName, cursor);
+        int end = limit > 0 ? (int) Math.min((long) start + limit, sameLastName.size()) : sameLastName.size();
+
+        List<DriverInfo> results = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            results.add(new DriverInfo(sameLastName.get(i)));
+        }
+        String nextCursor = end < sameLastName.size() ? encodeCursor(sameLastName.get(end - 1)) : null;
+        return new DriverInfoPage(results, nextCursor);
+    }
+
+    PersistentHashMap<String, Driver> driverPool() {
+        return driverPool;
+    }
+
+    PersistentHashMap<String, Vehicle> vehiclePool() {
+        return vehiclePool;
+    }
+
+    PersistentHashMap<String, String> vehicleUsage() {
+        return vehicleUsage;
+    }
+
+    PersistentHashMap<String, LastNameGroup> lastNameIndex() {
+        return lastNameIndex;
+    }
+
+    // normalizes a last name into its index key
+    static String indexKey(String lastName) {
+        return lastName.toLowerCase(Locale.ROOT);
+    }
+
+    // encodes the position of a driver in query order as an opaque cursor
+    private static String encodeCursor(Driver driver) {
+        return encodeCursor(driver.getName().getFirstName(), driver.getDriverLicense().getLicenseNumber());
+    }
+
+    static String encodeCursor(String firstName, String licenseNumber) {
+        return firstName + CURSOR_SEPARATOR + licenseNumber;
+    }
+
+    // finds the index of the first driver ordered after the position encoded in a cursor
+    private static int firstAfterCursor(LastNameGroup sortedDrivers, String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return sortedDrivers.firstAfter(cursor.substring(0, separator), cursor.substring(separator + 1));
+    }
+}
@@ -0,0 +1,351 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hammers a {@link DriverPoolManager} with random, interleaved adds, removes and queries from
+ * a growing number of threads, and checks the consistency of the pool while it runs.
+ * A checker thread verifies every snapshot it can get: each vehicle assignment belongs to a
+ * pooled driver who owns the vehicle, each driver is stored once under its own license
+ * number and indexed once by last name, and versions only move forward. A claim ledger,
+ * plugged in as the pool's {@link VehicleClaimArbiter}, independently catches any vehicle
+ * claimed by a second driver or released by a driver not holding it. When the threads stop,
+ * the ledger must match the pool's assignments exactly and the listener's count of adds and
+ * removes must match the number of drivers.
+ */
+public class PoolStressHarness {
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+    private static final int QUERY_LIMIT = 20;
+
+    private final List<Driver> drivers;
+    private final String[] licenseNumbers;
+    private final String[] lastNames;
+
+    /**
+     * The outcome of one run at a fixed thread count.
+     */
+    public static final class Result {
+        private final int threads;
+        private final long adds;
+        private final long removes;
+        private final long queries;
+        private final long nanos;
+        private final long checks;
+        private final long violationCount;
+        private final List<String> violations;
+
+        Result(int threads, long adds, long removes, long queries, long nanos, long checks, long violationCount, List<String> violations) {
+            this.threads = threads;
+            this.adds = adds;
+            this.removes = removes;
+            this.queries = queries;
+            this.nanos = nanos;
+            this.checks = checks;
+            this.violationCount = violationCount;
+            this.violations = violations;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Gets the number of operations completed per second, over all threads.
+         * @return The throughput.
+         */
+        public double getOperationsPerSecond() {
+            return (adds + removes + queries) / (nanos / 1e9);
+        }
+
+        /**
+         * Gets the number of invariant violations found.
+         * @return The number of violations; zero if the pool stayed consistent.
+         */
+        public long getViolationCount() {
+            return violationCount;
+        }
+
+        /**
+         * Gets the invariant violations found, at most {@value #MAX_REPORTED_VIOLATIONS} of them.
+         * @return The descriptions of the first violations.
+         */
+        public List<String> getViolations() {
+            return violations;
+        }
+    }
+
+    /**
+     * Constructs a harness over a set of drivers, which the threads add and remove at random.
+     * Drivers sharing vehicles make the threads compete for vehicle claims.
+     * @param drivers The drivers to work with.
+     */
+    public PoolStressHarness(List<Driver> drivers) {
+        if (drivers.isEmpty()) {
+            throw new IllegalArgumentException("At least one driver must be provided.");
+        }
+        this.drivers = drivers;
+        this.licenseNumbers = new String[drivers.size()];
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < drivers.size(); i++) {
+            licenseNumbers[i] = drivers.get(i).getDriverLicense().getLicenseNumber();
+            names.add(drivers.get(i).getName().getLastName());
+        }
+        this.lastNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * Runs the threads against a new pool for a fixed time and checks the pool throughout.
+     * @param threadCount The number of threads issuing operations.
+     * @param durationMillis How long the threads run.
+     * @return The throughput and any violations found.
+     * @throws InterruptedException if interrupted while waiting for the threads.
+     */
+    public Result run(int threadCount, long durationMillis) throws InterruptedException {
+        ClaimLedger ledger = new ClaimLedger();
+        DriverPoolManager pool = new DriverPoolManager(ledger);
+        LongAdder netAdds = new LongAdder();
+        pool.addMutationListener(new PoolMutationListener() {
+            @Override
+            public void onDriverAdded(Driver driver) {
+                netAdds.increment();
+            }
+
+            @Override
+            public void onDriverRemoved(Driver driver) {
+                netAdds.decrement();
+            }
+
+            @Override
+            public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+            }
+
+            @Override
+            public void onVehicleReleased(String vehicleId, String licenseNumber) {
+            }
+        });
+
+        long[] adds = new long[threadCount];
+        long[] removes = new long[threadCount];
+        long[] queries = new long[threadCount];
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        List<Thread> workers = new ArrayList<>(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                awaitQuietly(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long added = 0;
+                long removed = 0;
+                long queried = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 64; i++) {
+                        int roll = random.nextInt(100);
+                        int index = random.nextInt(drivers.size());
+                        if (roll < 45) {
+                            // the check is racy on purpose, so the pool still sees duplicate adds
+                            if (!pool.snapshot().containsDriver(licenseNumbers[index])) {
+                                pool.addDriver(drivers.get(index));
+                            }
+                            added++;
+                        } else if (roll < 80) {
+                            if (pool.snapshot().containsDriver(licenseNumbers[index])) {
+                                pool.removeDriver(licenseNumbers[index]);
+                            }
+                            removed++;
+                        } else {
+                            String lastName = lastNames[random.nextInt(lastNames.length)];
+                            for (DriverInfo info : pool.queryByLastName(lastName, null, QUERY_LIMIT).getResults()) {
+                                if (!info.getLastName().equalsIgnoreCase(lastName)) {
+                                    ledger.violation("Query for " + lastName + " returned " + info.getLastName());
+                                }
+                            }
+                            queried++;
+                        }
+                    }
+                }
+                // counted locally, so the threads do not share cache lines while running
+                adds[worker] = added;
+                removes[worker] = removed;
+                queries[worker] = queried;
+            }, "pool-stress-" + t));
+        }
+
+        AtomicLong checks = new AtomicLong();
+        Thread checker = new Thread(() -> {
+            awaitQuietly(start);
+            long lastVersion = -1;
+            while (System.nanoTime() < deadline) {
+                PoolSnapshot snapshot = pool.snapshot();
+                if (snapshot.getVersion() < lastVersion) {
+                    ledger.violation("Snapshot version went back from " + lastVersion + " to " + snapshot.getVersion());
+                }
+                lastVersion = snapshot.getVersion();
+                checkSnapshot(snapshot, ledger);
+                checks.incrementAndGet();
+            }
+        }, "pool-stress-checker");
+
+        workers.forEach(Thread::start);
+        checker.start();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - begin;
+        checker.join();
+
+        // the pool is quiet now: the ledger and the listener must agree with it exactly
+        PoolSnapshot last = pool.snapshot();
+        checkSnapshot(last, ledger);
+        Map<String, String> usage = new HashMap<>(last.getVehicleUsage());
+        if (!usage.equals(ledger.claims)) {
+            ledger.violation("Claim ledger holds " + ledger.claims.size() + " claims but the pool assigns "
+                    + usage.size() + " vehicles");
+        }
+        if (netAdds.sum() != last.getDriverCount()) {
+            ledger.violation("Listener saw a net " + netAdds.sum() + " adds but the pool holds "
+                    + last.getDriverCount() + " drivers");
+        }
+        return new Result(threadCount, sum(adds), sum(removes), sum(queries), nanos, checks.get(),
+                ledger.violationCount.get(), new ArrayList<>(ledger.violations));
+    }
+
+    /**
+     * Prints the results of several runs, one line per thread count.
+     * @param out The stream to print to.
+     * @param results The results to print.
+     */
+    public static void printReport(PrintStream out, List<Result> results) {
+        out.printf("%7s %12s %12s %12s %12s %8s %10s%n", "threads", "ops/s", "adds", "removes", "queries", "checks", "violations");
+        for (Result result : results) {
+            out.printf("%7d %12.0f %12d %12d %12d %8d %10d%n", result.threads, result.getOperationsPerSecond(),
+                    result.adds, result.removes, result.queries, result.checks, result.violationCount);
+            for (String violation : result.violations) {
+                out.println("  " + violation);
+            }
+        }
+    }
+
+    // verifies the invariants that must hold within any single snapshot
+    private static void checkSnapshot(PoolSnapshot snapshot, ClaimLedger ledger) {
+        PersistentHashMap<String, Driver> driverPool = snapshot.driverPool();
+        driverPool.forEach((licenseNumber, driver) -> {
+            if (!licenseNumber.equals(driver.getDriverLicense().getLicenseNumber())) {
+                ledger.violation("Driver " + driver.getDriverLicense().getLicenseNumber() + " stored under " + licenseNumber);
+            }
+        });
+
+        int[] indexed = new int[1];
+        snapshot.lastNameIndex().forEach((lastName, sameLastName) -> sameLastName.forEach((licenseNumber, driver) -> {
+            indexed[0]++;
+            if (driverPool.get(licenseNumber) != driver) {
+                ledger.violation("Last name index holds " + licenseNumber + ", which is not in the pool");
+            }
+        }));
+        if (indexed[0] != driverPool.size()) {
+            ledger.violation("Last name index holds " + indexed[0] + " entries for " + driverPool.size() + " drivers");
+        }
+
+        snapshot.vehicleUsage().forEach((vehicleId, licenseNumber) -> {
+            Driver driver = driverPool.get(licenseNumber);
+            if (driver == null) {
+                ledger.violation("Vehicle " + vehicleId + " is assigned to removed driver " + licenseNumber);
+            } else if (driver.getVehicles().stream().noneMatch(vehicle -> vehicle.getVehicleId().equals(vehicleId))) {
+                ledger.violation("Vehicle " + vehicleId + " is assigned to driver " + licenseNumber + ", who does not have it");
+            }
+            if (!snapshot.vehiclePool().containsKey(vehicleId)) {
+                ledger.violation("Assigned vehicle " + vehicleId + " is not in the vehicle pool");
+            }
+        });
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    // an arbiter that records every claim, to catch a vehicle held by two drivers at once
+    private static final class ClaimLedger implements VehicleClaimArbiter {
+        private final Map<String, String> claims = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+        private final AtomicLong violationCount = new AtomicLong();
+
+        @Override
+        public boolean tryClaim(String vehicleId, String licenseNumber) {
+            // the pool only asks for vehicles it considers free
+            String holder = claims.putIfAbsent(vehicleId, licenseNumber);
+            if (holder != null) {
+                violation("Vehicle " + vehicleId + " claimed by " + licenseNumber + " while held by " + holder);
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void release(String vehicleId, String licenseNumber) {
+            if (!claims.remove(vehicleId, licenseNumber)) {
+                violation("Vehicle " + vehicleId + " released by " + licenseNumber + ", who does not hold it");
+            }
+        }
+
+        void violation(String description) {
+            if (violationCount.incrementAndGet() <= MAX_REPORTED_VIOLATIONS) {
+                violations.add(description);
+            }
+        }
+    }
+
+    /**
+     * Runs the harness at doubling thread counts, up to twice the number of processors.
+     * @param args Optionally the number of generated drivers, the run time per thread count in milliseconds, and the seed.
+     * @throws IOException if the dataset cannot be written or read.
+     * @throws InterruptedException if interrupted while waiting for the threads.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int driverCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long durationMillis = args.length > 1 ? Long.parseLong(args[1]) : 2_000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        // vehicle conflicts are expected here and would only flood the console
+        EventSink.getInstance().setMinimumLevel(EventSink.Level.ERROR);
+        PoolStressHarness harness = new PoolStressHarness(SyntheticDataGenerator.generateDrivers(seed, LocalDate.now(), driverCount));
+        List<Result> results = new ArrayList<>();
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            results.add(harness.run(threads, durationMillis));
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+        printReport(System.out, results);
+        if (results.stream().anyMatch(result -> result.getViolationCount() > 0)) {
+            System.exit(1);
+        }
+    }
+}
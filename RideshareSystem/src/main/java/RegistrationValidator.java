@@ -1,7 +1,7 @@
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneId;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 
@@ -10,52 +10,158 @@ import java.util.List;
  * This class checks for: prospective driver's age, prospective driver's license
  * information, vehicle information, vehicle insurance information, driver's history,
  * and vehicle history.
+ * All checks are made relative to the current date of the validator's clock.
+ * The latency and rejections of every check are recorded in {@link RideshareMetrics},
+ * and every validation emits a {@link DriverValidationEvent} to Flight Recorder.
  */
 public class RegistrationValidator {
+    static final long UNACCEPTABLE_VIOLATIONS = unacceptableViolationCodes();
+
+    private final Clock clock;
+    private final RideshareMetrics metrics = RideshareMetrics.getInstance();
+
+    public RegistrationValidator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a validator that judges drivers as of the date given by a clock,
+     * so that simulations can validate drivers at any point in simulated time.
+     * @param clock The clock supplying the current date.
+     */
+    public RegistrationValidator(Clock clock) {
+        this.clock = clock;
+    }
+
     /**
      * Validates a prospective driver based on various criteria.
      * Checks for the driver's age, license information, vehicle information,
      * vehicle insurance information, driver's history, and vehicle history.
-     * @param driver The driver to validate.
+     * @param driver The driver to validate; a null driver is rejected.
      * @return true if the driver meets all criteria, false otherwise.
      */
     public boolean validate(Driver driver) {
         if (driver == null) {
-            return false;
+            return metrics.validations().record(System.nanoTime(), false);
+        }
+        DriverValidationEvent event = new DriverValidationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ValidationCheck rejectedBy = runChecks(driver);
+        boolean valid = metrics.validations().record(start, rejectedBy == null);
+        event.end();
+        if (event.shouldCommit()) {
+            event.driverId = driver.getId();
+            event.valid = valid;
+            event.rejectedBy = valid ? null : rejectedBy.name();
+            event.commit();
+        }
+        return valid;
+    }
+
+    /**
+     * Summarizes a driver into the aggregates a verdict depends on. The summary follows the
+     * driver's histories as events are added to them, so {@link #firstFailedCheck(DriverValidity)}
+     * stays current without validating the driver again.
+     * @param driver The driver to summarize.
+     * @return The aggregates of the driver.
+     */
+    public DriverValidity summarize(Driver driver) {
+        return new DriverValidity(driver, isLicenseConsistent(driver.getDriverLicense(), driver),
+                isInsuranceHeldBy(driver, driver.getInsurance()), UNACCEPTABLE_VIOLATIONS);
+    }
+
+    /**
+     * Finds the first check a summarized driver fails as of the current date of the validator's
+     * clock. Gives the same verdict as {@link #validate(Driver)} in constant time, whatever the
+     * length of the driver's histories; nothing is recorded in the metrics.
+     * @param validity The aggregates of the driver, from {@link #summarize(Driver)}.
+     * @return The first failed check, or null if the driver is valid.
+     */
+    public ValidationCheck firstFailedCheck(DriverValidity validity) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate birthDate = toLocalDate(validity.getBirthDay());
+        if (birthDate == null || Period.between(birthDate, today).getYears() < 21) {
+            return ValidationCheck.AGE;
         }
 
-        if (!isLegalAge(driver.getBirthDate())) {
-            return false;
+        LocalDate issuedDate = toLocalDate(validity.getLicenseIssuedDay());
+        LocalDate licenseExpirationDate = toLocalDate(validity.getLicenseExpirationDay());
+        if (!validity.isLicenseConsistent() || issuedDate == null || issuedDate.isAfter(today.minusMonths(6))
+                || licenseExpirationDate == null || licenseExpirationDate.isBefore(today)) {
+            return ValidationCheck.LICENSE;
+        }
+
+        if (today.getYear() - validity.getOldestVehicleYear() > 15) {
+            return ValidationCheck.VEHICLE;
         }
 
+        LocalDate insuranceExpirationDate = toLocalDate(validity.getInsuranceExpirationDay());
+        if (!validity.isInsuranceHeld() || insuranceExpirationDate == null || insuranceExpirationDate.isBefore(today)) {
+            return ValidationCheck.INSURANCE;
+        }
+
+        if (validity.getUnacceptableViolationCount() > 0) {
+            return ValidationCheck.DRIVER_HISTORY;
+        }
+
+        long sixMonthAgo = today.minusMonths(6).toEpochDay();
+        if (validity.getLatestCrashDay() > sixMonthAgo || validity.getLatestMovingViolationDay() > sixMonthAgo) {
+            return ValidationCheck.VEHICLE_HISTORY;
+        }
+        return null;
+    }
+
+    // a day of a summary as a date, or null if the day is missing
+    private static LocalDate toLocalDate(int day) {
+        return day == PackedHistory.NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+
+    // runs the checks in order and records each one; returns the first check that rejects the driver, or null
+    private ValidationCheck runChecks(Driver driver) {
+        long start = System.nanoTime();
+        if (!metrics.check(ValidationCheck.AGE).record(start, isLegalAge(driver.getBirthDate()))) {
+            return ValidationCheck.AGE;
+        }
+
+        start = System.nanoTime();
         DriverLicense license = driver.getDriverLicense();
-        if (!isLicenseValid(license, driver)) {
-            return false;
+        if (!metrics.check(ValidationCheck.LICENSE).record(start, isLicenseValid(license, driver))) {
+            return ValidationCheck.LICENSE;
         }
 
+        start = System.nanoTime();
+        boolean vehiclesValid = true;
         List<Vehicle> vehicles = driver.getVehicles();
         for (Vehicle vehicle : vehicles) {
             if (!isVehicleValid(vehicle)) {
-                return false;
+                vehiclesValid = false;
+                break;
             }
         }
+        if (!metrics.check(ValidationCheck.VEHICLE).record(start, vehiclesValid)) {
+            return ValidationCheck.VEHICLE;
+        }
 
+        start = System.nanoTime();
         VehicleInsurance insurance = driver.getInsurance();
-        if (!isInsuranceValid(driver,insurance)) {
-            return false;
+        if (!metrics.check(ValidationCheck.INSURANCE).record(start, isInsuranceValid(driver,insurance))) {
+            return ValidationCheck.INSURANCE;
         }
 
+        start = System.nanoTime();
         DriverHistory history = driver.getDriverHistory();
-        if (!isDriverHistoryAcceptable(history)) {
-            return false;
+        if (!metrics.check(ValidationCheck.DRIVER_HISTORY).record(start, isDriverHistoryAcceptable(history))) {
+            return ValidationCheck.DRIVER_HISTORY;
         }
 
+        start = System.nanoTime();
         VehicleHistory vehicleHistory = driver.getVehicleHistory();
-        if (!isVehicleHistoryAcceptable(vehicleHistory)) {
-            return false;
+        if (!metrics.check(ValidationCheck.VEHICLE_HISTORY).record(start, isVehicleHistoryAcceptable(vehicleHistory))) {
+            return ValidationCheck.VEHICLE_HISTORY;
         }
 
-        return true;
+        return null;
     }
 
     /**
@@ -65,7 +171,7 @@ public class RegistrationValidator {
      */
     private boolean isLegalAge(Date birthDate) {
         LocalDate birthLocalDate = birthDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        LocalDate currentDate = LocalDate.now();
+        LocalDate currentDate = LocalDate.now(clock);
         int age = Period.between(birthLocalDate, currentDate).getYears();
 
         return age >= 21;
@@ -78,6 +184,25 @@ public class RegistrationValidator {
      * @return true if there is no name differences, birthdate differences, and country of issuance in US/Canada
      */
     private boolean isLicenseValid(DriverLicense license, Driver driver) {
+        if (!isLicenseConsistent(license, driver)) {
+            return false;
+        }
+        // check for date of issuance (issue date should not be less than six month)
+        LocalDate issuedDate = convertToLocalDate(license.getIssuedDate());
+        if (issuedDate.isAfter(LocalDate.now(clock).minusMonths(6))) {
+            return false;
+        }
+        // check for expiration date
+        LocalDate expirationDate = convertToLocalDate(license.getExpirationDate());
+        if (expirationDate.isBefore(LocalDate.now(clock))) {
+            return false;
+        }
+
+        return true;
+    }
+
+    // checks the parts of the license that do not change over time: its name, birthdate and country
+    private static boolean isLicenseConsistent(DriverLicense license, Driver driver) {
         if (license == null) {
             return false;
         }
@@ -95,17 +220,6 @@ public class RegistrationValidator {
             && (!license.getCountryOfIssuance().equalsIgnoreCase("Canada"))) {
             return false;
         }
-        // check for date of issuance (issue date should not be less than six month)
-        LocalDate issuedDate = convertToLocalDate(license.getIssuedDate());
-        if (issuedDate.isAfter(LocalDate.now().minusMonths(6))) {
-            return false;
-        }
-        // check for expiration date
-        LocalDate expirationDate = convertToLocalDate(license.getExpirationDate());
-        if (expirationDate.isBefore(LocalDate.now())) {
-            return false;
-        }
-
         return true;
     }
 
@@ -115,7 +229,7 @@ public class RegistrationValidator {
      * @return true if the vehicle is less than 15 years, false otherwise.
      */
     private boolean isVehicleValid(Vehicle vehicle) {
-        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+        int currentYear = LocalDate.now(clock).getYear();
         int vehicleYear = vehicle.getYear();
 
         return currentYear - vehicleYear <= 15;
@@ -128,54 +242,57 @@ public class RegistrationValidator {
      * @return true if the insurance information meets all criteria, false otherwise.
      */
     private boolean isInsuranceValid(Driver driver, VehicleInsurance insurance) {
-        if (insurance == null) {
-            return false;
-        }
-
-        // Check if the driver is the official owner or a listed insured driver
-        boolean isOwnerOrInsured = insurance.getOfficialOwner().equals(driver.getName()) ||
-                                    insurance.getInsuredDrivers().contains(driver.getName());
-
-        if (!isOwnerOrInsured) {
+        if (!isInsuranceHeldBy(driver, insurance)) {
             return false;
         }
 
         // check if the insurance has expired
         Date insuranceExpirationDate = insurance.getExpirationDate();
         LocalDate expirationLocalDate = convertToLocalDate(insuranceExpirationDate);
-        if (expirationLocalDate.isBefore(LocalDate.now())) {
+        if (expirationLocalDate.isBefore(LocalDate.now(clock))) {
             return false;
         }
 
         return true;
     }
 
+    // checks that the driver is the official owner or a listed insured driver of the insurance
+    private static boolean isInsuranceHeldBy(Driver driver, VehicleInsurance insurance) {
+        if (insurance == null) {
+            return false;
+        }
+        return insurance.getOfficialOwner().equals(driver.getName()) ||
+                insurance.isInsuredDriver(driver.getName());
+    }
+
     /**
      * check for driver's history (unacceptable moving violations)
      * @param driverHistory the driver's history to validate
      * @return true if the driver's history is acceptable, false otherwise
      */
     private boolean isDriverHistoryAcceptable(DriverHistory driverHistory) {
-        List<Violation> violations = driverHistory.getViolations();
-        for (Violation violation : violations) {
-            if (violation instanceof MovingViolation) {
-                String violationType = ((MovingViolation) violation).getViolationType();
-                if (isUnacceptableViolation(violationType)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return !driverHistory.getViolationLog().any(UNACCEPTABLE_VIOLATIONS);
     }
 
     // checks if a given violation is an unacceptable moving violation
-    private boolean isUnacceptableViolation(String violationType) {
+    private static boolean isUnacceptableViolation(String violationType) {
         return violationType.equalsIgnoreCase("Reckless Driving") ||
                 violationType.equalsIgnoreCase("Speeding") ||
                 violationType.equalsIgnoreCase("Driving Under Influence") ||
                 violationType.equalsIgnoreCase("Driving Without a Valid License/Insurance");
     }
 
+    // the codes of the moving violation types that are unacceptable, as a mask over the packed history
+    private static long unacceptableViolationCodes() {
+        long mask = 0;
+        for (String violationType : ViolationFactory.MOVING_VIOLATION_TYPES) {
+            if (isUnacceptableViolation(violationType)) {
+                mask |= 1L << PackedHistory.movingViolationCode(violationType);
+            }
+        }
+        return mask;
+    }
+
     /**
      * Validates the vehicle's history to check if there are any crashes or moving
      * violations in the last six months.
@@ -184,26 +301,15 @@ public class RegistrationValidator {
      */
 
     private boolean isVehicleHistoryAcceptable(VehicleHistory vehicleHistory) {
-        LocalDate sixMonthAgo = LocalDate.now().minusMonths(6);
+        // anything after six months ago counts, including future dates
+        long sixMonthAgo = LocalDate.now(clock).minusMonths(6).toEpochDay();
         // check for crashes in the last six months
-        for (Crash crash : vehicleHistory.getCrashes()) {
-            LocalDate crashDate = convertToLocalDate(crash.getDate());
-            if (crashDate.isAfter(sixMonthAgo)) {
-                return false;
-            }
+        if (vehicleHistory.getCrashLog().latestDay(PackedHistory.ALL_CODES) > sixMonthAgo) {
+            return false;
         }
 
         // check for moving violations in the last six months
-        for (Violation violation : vehicleHistory.getViolations()) {
-            if (violation instanceof MovingViolation) {
-                LocalDate violationDate = convertToLocalDate(violation.getDate());
-                if (violationDate.isAfter(sixMonthAgo)) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return vehicleHistory.getViolationLog().latestDay(PackedHistory.MOVING_VIOLATIONS) <= sixMonthAgo;
     }
 
     /**
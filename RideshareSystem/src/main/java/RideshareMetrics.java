@@ -0,0 +1,106 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The process-wide registry of operation metrics: one entry per validation check, one for
+ * whole validations, one per pool operation and one per CSV file loaded. Every entry is
+ * registered as an MBean in the platform MBean server under the "RideshareSystem" domain,
+ * for example RideshareSystem:type=ValidationCheck,name=AGE.
+ */
+public class RideshareMetrics {
+    private static final String DOMAIN = "RideshareSystem";
+    private static final RideshareMetrics INSTANCE = new RideshareMetrics();
+
+    private final Map<ValidationCheck, OperationMetrics> checks = new EnumMap<>(ValidationCheck.class);
+    private final OperationMetrics validations = new OperationMetrics();
+    private final Map<PoolOperation, OperationMetrics> poolOperations = new EnumMap<>(PoolOperation.class);
+    private final Map<String, OperationMetrics> loaders = new ConcurrentHashMap<>();
+
+    // Private constructor to prevent direct instantiation.
+    private RideshareMetrics() {
+        for (ValidationCheck check : ValidationCheck.values()) {
+            checks.put(check, register("ValidationCheck", check.name(), new OperationMetrics()));
+        }
+        register("Validation", "validate", validations);
+        for (PoolOperation operation : PoolOperation.values()) {
+            poolOperations.put(operation, register("PoolOperation", operation.name(), new OperationMetrics()));
+        }
+    }
+
+    /**
+     * Gets the singleton instance of the RideshareMetrics.
+     * @return The singleton instance of the RideshareMetrics.
+     */
+    public static RideshareMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the metrics of a validation check; a failure is a driver rejected by the check.
+     * @param check The validation check.
+     * @return The metrics of the check.
+     */
+    public OperationMetrics check(ValidationCheck check) {
+        return checks.get(check);
+    }
+
+    /**
+     * Gets the metrics of whole validations; a failure is a rejected driver.
+     * @return The metrics of validations.
+     */
+    public OperationMetrics validations() {
+        return validations;
+    }
+
+    /**
+     * Gets the metrics of a pool operation; a failure is a call the pool refused.
+     * @param operation The pool operation.
+     * @return The metrics of the operation.
+     */
+    public OperationMetrics poolOperation(PoolOperation operation) {
+        return poolOperations.get(operation);
+    }
+
+    /**
+     * Gets the metrics of loading a CSV file; the items are the rows read.
+     * @param fileName The name of the file.
+     * @return The metrics of the loader, created on first use.
+     */
+    public OperationMetrics loader(String fileName) {
+        OperationMetrics metrics = loaders.get(fileName);
+        if (metrics != null) {
+            return metrics;
+        }
+        return loaders.computeIfAbsent(fileName, name -> register("Loader", name, new OperationMetrics()));
+    }
+
+    /**
+     * Gets the metrics of every CSV file loaded so far.
+     * @return A read-only map from file names to metrics.
+     */
+    public Map<String, OperationMetrics> loaders() {
+        return Collections.unmodifiableMap(loaders);
+    }
+
+    // registers metrics in the platform MBean server, replacing an earlier registration under the same name
+    private static OperationMetrics register(String type, String name, OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            String value = name.matches("[^,=:\"*?\\n]*") ? name : ObjectName.quote(name);
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + value);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(metrics, objectName);
+        } catch (JMException e) {
+            System.err.println("Error: Could not register metrics " + type + " " + name + ": " + e.getMessage());
+        }
+        return metrics;
+    }
+}
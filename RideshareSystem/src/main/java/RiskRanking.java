@@ -0,0 +1,312 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Ranks drivers by the risk score of {@link RiskWeights}, so that the riskiest drivers of a
+ * pool can be listed without sorting the pool. Scores are taken at a fixed reference day;
+ * with exponential decay that ranks drivers as they would be ranked on any other day, so
+ * scores never need to be recomputed as time passes.
+ *
+ * The ranking keeps every driver's score in an ordered set: adding or removing a driver, or
+ * recording a new violation or crash, costs O(log n), and {@link #top(int)} walks the first
+ * K entries in O(K). Register it with {@link DriverPoolManager#addMutationListener(PoolMutationListener)}
+ * to follow a pool's adds and removes. The ranking registers a {@link HistoryChangeListener}
+ * with the histories of every ranked driver, so an appended violation or crash adds its score
+ * and a removal scores the driver again, as they happen; it holds on to those histories while
+ * the driver is ranked, lazily loaded ones included. Whoever sets new histories on a ranked
+ * driver calls {@link #refresh(Driver)}, which follows the new ones from then on.
+ * For a one-shot ranking over a stream of drivers, such as an ingest,
+ * {@link #topOf(Iterable, int, RiskWeights, LocalDate)} keeps only a heap of K scores.
+ */
+public class RiskRanking implements PoolMutationListener {
+    // riskiest first; ties by license number so that every driver has one place
+    private static final Comparator<Entry> RISKIEST_FIRST = Comparator.comparingDouble((Entry entry) -> -entry.score)
+            .thenComparing(entry -> entry.licenseNumber);
+
+    private final RiskWeights weights;
+    private final int referenceDay;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(RISKIEST_FIRST);
+
+    /**
+     * A driver and their risk score.
+     */
+    public static final class RankedDriver {
+        private final Driver driver;
+        private final double score;
+
+        RankedDriver(Driver driver, double score) {
+            this.driver = driver;
+            this.score = score;
+        }
+
+        public Driver getDriver() {
+            return driver;
+        }
+
+        /**
+         * Gets the risk score of the driver.
+         * @return The score as of the reference day of the ranking.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return driver.getDriverLicense().getLicenseNumber() + "=" + String.format("%.2f", score);
+        }
+    }
+
+    // a ranked driver; the score only changes while the entry is out of the ordered set
+    private static final class Entry {
+        final String licenseNumber;
+        final Driver driver;
+        double score;
+        Follower driverHistoryFollower; // while the driver is ranked
+        Follower vehicleHistoryFollower;
+
+        Entry(String licenseNumber, Driver driver, double score) {
+            this.licenseNumber = licenseNumber;
+            this.driver = driver;
+            this.score = score;
+        }
+    }
+
+    // follows one history of a ranked driver; the violations of a vehicle history score nothing
+    private final class Follower implements HistoryChangeListener {
+        private final Entry entry;
+        private final DriverHistory driverHistory;
+        private final VehicleHistory vehicleHistory;
+
+        Follower(Entry entry, DriverHistory driverHistory, VehicleHistory vehicleHistory) {
+            this.entry = entry;
+            this.driverHistory = driverHistory;
+            this.vehicleHistory = vehicleHistory;
+            if (driverHistory != null) {
+                driverHistory.addChangeListener(this);
+            } else {
+                vehicleHistory.addChangeListener(this);
+            }
+        }
+
+        void stop() {
+            if (driverHistory != null) {
+                driverHistory.removeChangeListener(this);
+            } else {
+                vehicleHistory.removeChangeListener(this);
+            }
+        }
+
+        @Override
+        public void onViolationAdded(int day, int code) {
+            if (driverHistory != null) {
+                recordViolation(entry, day, code);
+            }
+        }
+
+        @Override
+        public void onCrashAdded(int day, int code) {
+            recordCrash(entry, day, code);
+        }
+
+        @Override
+        public void onRemoved() {
+            synchronized (RiskRanking.this) {
+                if (entries.get(entry.licenseNumber) == entry) {
+                    rescore(entry, weights.score(entry.driver, referenceDay));
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty ranking.
+     * @param weights The weights of the score.
+     * @param referenceDate The date scores are taken at.
+     */
+    public RiskRanking(RiskWeights weights, LocalDate referenceDate) {
+        this.weights = weights;
+        this.referenceDay = Math.toIntExact(referenceDate.toEpochDay());
+    }
+
+    @Override
+    public synchronized void onDriverAdded(Driver driver) {
+        String licenseNumber = driver.getDriverLicense().getLicenseNumber();
+        Entry previous = entries.remove(licenseNumber);
+        if (previous != null) {
+            ranking.remove(previous);
+            unfollow(previous);
+        }
+        Entry entry = new Entry(licenseNumber, driver, weights.score(driver, referenceDay));
+        entries.put(licenseNumber, entry);
+        ranking.add(entry);
+        follow(entry);
+    }
+
+    @Override
+    public synchronized void onDriverRemoved(Driver driver) {
+        Entry entry = entries.remove(driver.getDriverLicense().getLicenseNumber());
+        if (entry != null) {
+            ranking.remove(entry);
+            unfollow(entry);
+        }
+    }
+
+    @Override
+    public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+    }
+
+    @Override
+    public void onVehicleReleased(String vehicleId, String licenseNumber) {
+    }
+
+    /**
+     * Adds the score of a violation to a ranked driver, for a violation the driver's history
+     * does not hold; violations added to the history are scored as they are added.
+     * Drivers that are not ranked are ignored.
+     * @param licenseNumber The license number of the driver.
+     * @param day The day of the violation, as days since 1970-01-01.
+     * @param code The type code of the violation, see {@link PackedHistory#violationCode(String)}.
+     */
+    public synchronized void recordViolation(String licenseNumber, int day, int code) {
+        Entry entry = entries.get(licenseNumber);
+        if (entry != null) {
+            recordViolation(entry, day, code);
+        }
+    }
+
+    /**
+     * Adds the score of a crash to a ranked driver, for a crash the driver's vehicle history
+     * does not hold; crashes added to the history are scored as they are added.
+     * Drivers that are not ranked are ignored.
+     * @param licenseNumber The license number of the driver.
+     * @param day The day of the crash, as days since 1970-01-01.
+     * @param code The type code of the crash, see {@link PackedHistory#crashCode(String)}.
+     */
+    public synchronized void recordCrash(String licenseNumber, int day, int code) {
+        Entry entry = entries.get(licenseNumber);
+        if (entry != null) {
+            recordCrash(entry, day, code);
+        }
+    }
+
+    /**
+     * Scores a ranked driver again from their histories and follows the histories set on the
+     * driver now, after new histories were set. Drivers that are not ranked are ignored.
+     * @param driver The driver.
+     */
+    public synchronized void refresh(Driver driver) {
+        Entry entry = entries.get(driver.getDriverLicense().getLicenseNumber());
+        if (entry != null) {
+            unfollow(entry);
+            follow(entry);
+            rescore(entry, weights.score(entry.driver, referenceDay));
+        }
+    }
+
+    /**
+     * Gets the riskiest drivers.
+     * @param k The number of drivers.
+     * @return Up to k drivers, riskiest first.
+     */
+    public synchronized List<RankedDriver> top(int k) {
+        List<RankedDriver> top = new ArrayList<>(Math.min(k, ranking.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (top.size() < k && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            top.add(new RankedDriver(entry.driver, entry.score));
+        }
+        return top;
+    }
+
+    /**
+     * Gets the number of ranked drivers.
+     * @return The number of drivers.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void recordViolation(Entry entry, int day, int code) {
+        if (entries.get(entry.licenseNumber) == entry) {
+            rescore(entry, entry.score + weights.violationScore(code, day, referenceDay));
+        }
+    }
+
+    private synchronized void recordCrash(Entry entry, int day, int code) {
+        if (entries.get(entry.licenseNumber) == entry) {
+            rescore(entry, entry.score + weights.crashScore(code, day, referenceDay));
+        }
+    }
+
+    private void follow(Entry entry) {
+        DriverHistory driverHistory = entry.driver.getDriverHistory();
+        if (driverHistory != null) {
+            entry.driverHistoryFollower = new Follower(entry, driverHistory, null);
+        }
+        VehicleHistory vehicleHistory = entry.driver.getVehicleHistory();
+        if (vehicleHistory != null) {
+            entry.vehicleHistoryFollower = new Follower(entry, null, vehicleHistory);
+        }
+    }
+
+    private void unfollow(Entry entry) {
+        if (entry.driverHistoryFollower != null) {
+            entry.driverHistoryFollower.stop();
+            entry.driverHistoryFollower = null;
+        }
+        if (entry.vehicleHistoryFollower != null) {
+            entry.vehicleHistoryFollower.stop();
+            entry.vehicleHistoryFollower = null;
+        }
+    }
+
+    private void rescore(Entry entry, double score) {
+        ranking.remove(entry);
+        entry.score = score;
+        ranking.add(entry);
+    }
+
+    /**
+     * Gets the riskiest drivers of a stream of drivers in one pass, holding no more than k
+     * scores at any time.
+     * @param drivers The drivers.
+     * @param k The number of drivers.
+     * @param weights The weights of the score.
+     * @param referenceDate The date scores are taken at.
+     * @return Up to k drivers, riskiest first.
+     */
+    public static List<RankedDriver> topOf(Iterable<Driver> drivers, int k, RiskWeights weights, LocalDate referenceDate) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        int referenceDay = Math.toIntExact(referenceDate.toEpochDay());
+        // the least risky of the current top k is at the head, ready to be replaced
+        PriorityQueue<Entry> heap = new PriorityQueue<>(k, RISKIEST_FIRST.reversed());
+        for (Driver driver : drivers) {
+            Entry entry = new Entry(driver.getDriverLicense().getLicenseNumber(), driver, weights.score(driver, referenceDay));
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (RISKIEST_FIRST.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<RankedDriver> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Entry entry = heap.poll();
+            top.add(new RankedDriver(entry.driver, entry.score));
+        }
+        Collections.reverse(top);
+        return top;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Map;
+
+/**
+ * The weights of a driver's risk score: one per violation type and crash type, and a half-life
+ * over which the weight of an event decays. An event of weight w that is d days older than the
+ * reference day contributes w * 0.5^(d / halfLife); events after the reference day contribute
+ * more than their weight. Because every score decays at the same rate, moving the reference day
+ * scales all scores alike and never changes a ranking.
+ */
+public final class RiskWeights {
+    private final double[] violationWeights;
+    private final double[] crashWeights;
+    private final double halfLifeDays;
+
+    /**
+     * Constructs weights. Types that are not given weigh nothing, and so do the OTHER codes of
+     * {@link PackedHistory} unless they are given by name.
+     * @param violationWeights The weight of each violation type the {@link ViolationFactory} accepts.
+     * @param crashWeights The weight of each crash type the {@link CrashFactory} accepts.
+     * @param halfLifeDays The number of days after which an event weighs half as much.
+     */
+    public RiskWeights(Map<String, Double> violationWeights, Map<String, Double> crashWeights, double halfLifeDays) {
+        if (!(halfLifeDays > 0)) {
+            throw new IllegalArgumentException("Half-life must be positive.");
+        }
+        this.violationWeights = new double[PackedHistory.VIOLATION_CODE_COUNT];
+        for (Map.Entry<String, Double> weight : violationWeights.entrySet()) {
+            this.violationWeights[PackedHistory.violationCode(weight.getKey())] = weight.getValue();
+        }
+        this.crashWeights = new double[PackedHistory.CRASH_CODE_COUNT];
+        for (Map.Entry<String, Double> weight : crashWeights.entrySet()) {
+            this.crashWeights[PackedHistory.crashCode(weight.getKey())] = weight.getValue();
+        }
+        this.halfLifeDays = halfLifeDays;
+    }
+
+    /**
+     * Gets the default weights: moving violations by severity, non-moving violations lightly,
+     * crashes by the harm done, with a half-life of one year.
+     * @return The default weights.
+     */
+    public static RiskWeights defaults() {
+        return new RiskWeights(Map.of(
+                "Distracted driving", 3.0,
+                "Reckless Driving", 5.0,
+                "Speeding", 3.0,
+                "Driving under influence", 8.0,
+                "Failure to respect traffic signs", 2.0,
+                "Driving without a valid license and/or insurance", 6.0,
+                "Parking Violation", 0.5,
+                "Paperwork Issues", 0.5,
+                "Problems with the vehicle", 1.0), Map.of(
+                "Fender-bender", 4.0,
+                "crash.csv without bodily injuries", 6.0,
+                "crash.csv involving bodily injuries", 10.0), 365);
+    }
+
+    /**
+     * Gets the half-life of an event's weight.
+     * @return The half-life in days.
+     */
+    public double getHalfLifeDays() {
+        return halfLifeDays;
+    }
+
+    /**
+     * Gets the decayed weight of a violation.
+     * @param code The type code of the violation, see {@link PackedHistory#violationCode(String)}.
+     * @param day The day of the violation, or {@link PackedHistory#NO_DAY}, which counts as the reference day.
+     * @param referenceDay The day scores are taken at.
+     * @return The contribution of the violation to a score.
+     */
+    public double violationScore(int code, int day, int referenceDay) {
+        return violationWeights[code] * decay(day, referenceDay);
+    }
+
+    /**
+     * Gets the decayed weight of a crash.
+     * @param code The type code of the crash, see {@link PackedHistory#crashCode(String)}.
+     * @param day The day of the crash, or {@link PackedHistory#NO_DAY}, which counts as the reference day.
+     * @param referenceDay The day scores are taken at.
+     * @return The contribution of the crash to a score.
+     */
+    public double crashScore(int code, int day, int referenceDay) {
+        return crashWeights[code] * decay(day, referenceDay);
+    }
+
+    /**
+     * Gets the risk score of a driver: the decayed weights of the violations in their driver
+     * history and of the crashes in their vehicle history.
+     * @param driver The driver.
+     * @param referenceDay The day scores are taken at, as days since 1970-01-01.
+     * @return The score.
+     */
+    public double score(Driver driver, int referenceDay) {
+        double score = 0;
+        if (driver.getDriverHistory() != null) {
+            PackedHistory violations = driver.getDriverHistory().getViolationLog();
+            for (int i = 0; i < violations.size(); i++) {
+                score += violationScore(violations.getCode(i), violations.getDay(i), referenceDay);
+            }
+        }
+        if (driver.getVehicleHistory() != null) {
+            PackedHistory crashes = driver.getVehicleHistory().getCrashLog();
+            for (int i = 0; i < crashes.size(); i++) {
+                score += crashScore(crashes.getCode(i), crashes.getDay(i), referenceDay);
+            }
+        }
+        return score;
+    }
+
+    private double decay(int day, int referenceDay) {
+        return day == PackedHistory.NO_DAY ? 1 : Math.pow(0.5, (referenceDay - (double) day) / halfLifeDays);
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A driver pool partitioned by license number hash into independent {@link DriverPoolManager}
+ * shards, each with its own maps, indexes and write lock. Point operations are routed to a
+ * single shard; scans run on every shard in parallel and their results are merged.
+ * Vehicles are shared across shards, so all shards defer to one concurrent claim table
+ * that keeps every vehicle assigned to at most one driver.
+ */
+public class ShardedDriverPool implements Closeable {
+    private static final Comparator<DriverInfo> QUERY_ORDER =
+            Comparator.comparing(DriverInfo::getFirstName).thenComparing(DriverInfo::getLicenseNumber);
+
+    private final DriverPoolManager[] shards;
+    private final ConcurrentHashMap<String, String> vehicleClaims; // maps vehicle IDs to the license numbers of the drivers using them
+    private final ExecutorService fanOutExecutor;
+
+    /**
+     * Constructs a new pool with the given number of shards.
+     * @param shardCount The number of shards; must be at least one.
+     */
+    public ShardedDriverPool(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1: " + shardCount);
+        }
+        this.vehicleClaims = new ConcurrentHashMap<>();
+        VehicleClaimArbiter arbiter = new VehicleClaimArbiter() {
+            @Override
+            public boolean tryClaim(String vehicleId, String licenseNumber) {
+                String holder = vehicleClaims.putIfAbsent(vehicleId, licenseNumber);
+                return holder == null || holder.equals(licenseNumber);
+            }
+
+            @Override
+            public void release(String vehicleId, String licenseNumber) {
+                vehicleClaims.remove(vehicleId, licenseNumber);
+            }
+        };
+        this.shards = new DriverPoolManager[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new DriverPoolManager(arbiter);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "pool-shard-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the number of shards.
+     * @return The shard count.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Adds a driver to the shard owning its license number.
+     * @param driver The driver to add to the pool.
+     */
+    public void addDriver(Driver driver) {
+        if (driver == null) {
+            EventSink.getInstance().error("pool.add.null", "Error: Attempted to add a non existing driver.");
+            return;
+        }
+        shardFor(driver.getDriverLicense().getLicenseNumber()).addDriver(driver);
+    }
+
+    /**
+     * Removes a driver from the shard owning its license number.
+     * @param licenseNumber The license number of the driver to remove.
+     */
+    public void removeDriver(String licenseNumber) {
+        shardFor(licenseNumber).removeDriver(licenseNumber);
+    }
+
+    /**
+     * Gets the driver registered under a license number.
+     * @param licenseNumber The license number to look up.
+     * @return The driver, or null if none is registered.
+     */
+    public Driver getDriver(String licenseNumber) {
+        return shardFor(licenseNumber).snapshot().getDriver(licenseNumber);
+    }
+
+    /**
+     * Gets the driver currently using a vehicle, whichever shard holds that driver.
+     * @param vehicleId The ID of the vehicle.
+     * @return The license number of the driver using the vehicle, or null if it is free.
+     */
+    public String getVehicleUser(String vehicleId) {
+        return vehicleClaims.get(vehicleId);
+    }
+
+    /**
+     * Gets the number of drivers across all shards.
+     * @return The total number of drivers.
+     */
+    public int getDriverCount() {
+        int count = 0;
+        for (DriverPoolManager shard : shards) {
+            count += shard.snapshot().getDriverCount();
+        }
+        return count;
+    }
+
+    /**
+     * Finds drivers with a specific last name across all shards, one page at a time.
+     * Each shard is queried in parallel for its own page and the pages are merged in query order.
+     * @param lastName The last name to search for, ignoring case.
+     * @param cursor The cursor returned with the previous page, or null to start from the beginning.
+     * @param limit The maximum number of results on the page; zero or less means no limit.
+     * @return The merged page of matching drivers and the cursor to continue from.
+     */
+    public DriverInfoPage queryByLastName(String lastName, String cursor, int limit) {
+        List<DriverInfoPage> shardPages = scan(snapshot -> snapshot.queryByLastName(lastName, cursor, limit));
+
+        // k-way merge of the already ordered shard pages
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                QUERY_ORDER.compare(shardPages.get(a[0]).getResults().get(a[1]), shardPages.get(b[0]).getResults().get(b[1])));
+        boolean anyShardHasMore = false;
+        for (int i = 0; i < shardPages.size(); i++) {
+            if (!shardPages.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+            anyShardHasMore |= shardPages.get(i).hasMore();
+        }
+
+        List<DriverInfo> results = new ArrayList<>();
+        while (!heads.isEmpty() && (limit <= 0 || results.size() < limit)) {
+            int[] head = heads.poll();
+            List<DriverInfo> shardResults = shardPages.get(head[0]).getResults();
+            results.add(shardResults.get(head[1]));
+            if (head[1] + 1 < shardResults.size()) {
+                heads.add(new int[] {head[0], head[1] + 1});
+            }
+        }
+
+        String nextCursor = null;
+        if (!results.isEmpty() && (!heads.isEmpty() || anyShardHasMore)) {
+            DriverInfo last = results.get(results.size() - 1);
+            nextCursor = PoolSnapshot.encodeCursor(last.getFirstName(), last.getLicenseNumber());
+        }
+        return new DriverInfoPage(results, nextCursor);
+    }
+
+    /**
+     * Runs a read-only task against the current snapshot of every shard in parallel.
+     * Useful for audits and exports that must visit the whole pool.
+     * @param task The task to run on each shard's snapshot.
+     * @param <R> The type of the per-shard result.
+     * @return The per-shard results, in shard order.
+     */
+    public <R> List<R> scan(Function<PoolSnapshot, R> task) {
+        List<Future<R>> futures = new ArrayList<>(shards.length);
+        for (DriverPoolManager shard : shards) {
+            PoolSnapshot snapshot = shard.snapshot();
+            futures.add(fanOutExecutor.submit(() -> task.apply(snapshot)));
+        }
+        List<R> results = new ArrayList<>(shards.length);
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scanning pool shards.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Pool shard scan failed.", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Registers a listener on every shard.
+     * @param listener The listener to register.
+     */
+    public void addMutationListener(PoolMutationListener listener) {
+        for (DriverPoolManager shard : shards) {
+            shard.addMutationListener(listener);
+        }
+    }
+
+    /**
+     * Gets the shard owning a license number.
+     * @param licenseNumber The license number to route.
+     * @return The owning shard.
+     */
+    public DriverPoolManager shardFor(String licenseNumber) {
+        int hash = licenseNumber.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdown();
+    }
+}
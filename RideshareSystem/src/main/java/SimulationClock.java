@@ -0,0 +1,49 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * A clock that only moves when told to. Used to run validation at simulated points in time.
+ */
+public class SimulationClock extends Clock {
+    private final ZoneId zone;
+    private volatile long epochMillis;
+
+    /**
+     * Constructs a clock stopped at an instant.
+     * @param start The instant the clock starts at.
+     * @param zone The time zone of the clock.
+     */
+    public SimulationClock(Instant start, ZoneId zone) {
+        this.epochMillis = start.toEpochMilli();
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock to a point in time.
+     * @param epochMillis The new time, in milliseconds since the epoch.
+     */
+    public void setMillis(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
+    @Override
+    public long millis() {
+        return epochMillis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new SimulationClock(instant(), zone);
+    }
+}
@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * A uniform grid over a rectangular area that holds points identified by small integer IDs
+ * and answers nearest-neighbour queries. Points are bucketed into square cells; a query
+ * searches rings of cells around its own cell and stops as soon as no unsearched cell can
+ * hold a closer point. With cells sized to hold a few points each, inserts, removals and
+ * queries take constant time on average, independent of the number of points.
+ */
+public class SpatialGridIndex {
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private final double width;
+    private final double height;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells; // the IDs of the points in each cell
+    private final int[] cellCounts;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] cellOf; // the cell holding each ID, or -1 if the ID is absent
+    private final int[] slotOf; // the position of each ID within its cell
+    private int size;
+
+    /**
+     * Constructs an empty index.
+     * @param capacity The number of IDs; valid IDs are 0 to capacity - 1.
+     * @param width The width of the area, starting at x = 0.
+     * @param height The height of the area, starting at y = 0.
+     * @param cellSize The side length of a grid cell.
+     */
+    public SpatialGridIndex(int capacity, double width, double height, double cellSize) {
+        if (capacity < 0 || width <= 0 || height <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("Capacity must not be negative and dimensions must be positive.");
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new int[columns * rows][];
+        this.cellCounts = new int[columns * rows];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.cellOf = new int[capacity];
+        this.slotOf = new int[capacity];
+        Arrays.fill(cellOf, -1);
+    }
+
+    /**
+     * Gets the number of points in the index.
+     * @return The number of points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a point with an ID is in the index.
+     * @param id The ID of the point.
+     * @return true if the point is in the index, false otherwise.
+     */
+    public boolean contains(int id) {
+        return cellOf[id] >= 0;
+    }
+
+    /**
+     * Adds a point to the index, or moves it if it is already there.
+     * Coordinates outside the area are clamped to its edges.
+     * @param id The ID of the point.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void insert(int id, double x, double y) {
+        if (cellOf[id] >= 0) {
+            remove(id);
+        }
+        double clampedX = Math.min(Math.max(x, 0), width);
+        double clampedY = Math.min(Math.max(y, 0), height);
+        int cell = cellIndex(column(clampedX), row(clampedY));
+        int[] members = cells[cell];
+        if (members == null) {
+            members = cells[cell] = new int[INITIAL_CELL_CAPACITY];
+        } else if (cellCounts[cell] == members.length) {
+            members = cells[cell] = Arrays.copyOf(members, members.length * 2);
+        }
+        members[cellCounts[cell]] = id;
+        slotOf[id] = cellCounts[cell]++;
+        cellOf[id] = cell;
+        xs[id] = clampedX;
+        ys[id] = clampedY;
+        size++;
+    }
+
+    /**
+     * Removes a point from the index.
+     * @param id The ID of the point.
+     * @return true if the point was in the index, false otherwise.
+     */
+    public boolean remove(int id) {
+        int cell = cellOf[id];
+        if (cell < 0) {
+            return false;
+        }
+        // move the last member of the cell into the freed slot
+        int[] members = cells[cell];
+        int last = members[--cellCounts[cell]];
+        members[slotOf[id]] = last;
+        slotOf[last] = slotOf[id];
+        cellOf[id] = -1;
+        size--;
+        return true;
+    }
+
+    /**
+     * Finds the point closest to a location.
+     * @param x The x coordinate of the location.
+     * @param y The y coordinate of the location.
+     * @return The ID of the closest point, or -1 if the index is empty.
+     */
+    public int nearest(double x, double y) {
+        if (size == 0) {
+            return -1;
+        }
+        double clampedX = Math.min(Math.max(x, 0), width);
+        double clampedY = Math.min(Math.max(y, 0), height);
+        int column = column(clampedX);
+        int row = row(clampedY);
+        int maxRadius = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+
+        int best = -1;
+        double bestDistanceSquared = Double.POSITIVE_INFINITY;
+        for (int radius = 0; radius <= maxRadius; radius++) {
+            int top = row - radius;
+            int bottom = row + radius;
+            for (int c = Math.max(column - radius, 0); c <= Math.min(column + radius, columns - 1); c++) {
+                boolean edgeColumn = c == column - radius || c == column + radius;
+                for (int r = Math.max(top, 0); r <= Math.min(bottom, rows - 1); r++) {
+                    if (!edgeColumn && r != top && r != bottom) {
+                        r = bottom - 1; // the interior of the ring was searched at smaller radii
+                        continue;
+                    }
+                    int cell = cellIndex(c, r);
+                    int[] members = cells[cell];
+                    for (int i = 0; i < cellCounts[cell]; i++) {
+                        int id = members[i];
+                        double dx = xs[id] - clampedX;
+                        double dy = ys[id] - clampedY;
+                        double distanceSquared = dx * dx + dy * dy;
+                        if (distanceSquared < bestDistanceSquared) {
+                            bestDistanceSquared = distanceSquared;
+                            best = id;
+                        }
+                    }
+                }
+            }
+            // cells beyond this ring are at least radius cells away from the location
+            double reach = radius * cellSize;
+            if (best >= 0 && bestDistanceSquared <= reach * reach) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the x coordinate of a point; a removed point keeps its last position.
+     * @param id The ID of the point.
+     * @return The x coordinate.
+     */
+    public double getX(int id) {
+        return xs[id];
+    }
+
+    /**
+     * Gets the y coordinate of a point; a removed point keeps its last position.
+     * @param id The ID of the point.
+     * @return The y coordinate.
+     */
+    public double getY(int id) {
+        return ys[id];
+    }
+
+    private int column(double x) {
+        return Math.min((int) (x / cellSize), columns - 1);
+    }
+
+    private int row(double y) {
+        return Math.min((int) (y / cellSize), rows - 1);
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+}
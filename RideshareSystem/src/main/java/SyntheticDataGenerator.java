@@ -0,0 +1,395 @@
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic input data for load testing: the six CSV files read by
+ * {@link RideshareDriverValidator} and a drivers.json file.
+ * Every attribute of a person is derived from the seed and the person's index only,
+ * so the same seed and reference date always produce the same files. Rows are written
+ * as soon as they are generated; memory use does not grow with the number of drivers.
+ * The data is skewed the way real data is: common surnames, shared vehicles insured for
+ * several drivers, a long tail of violations, recent crashes, and expired or mismatching documents.
+ */
+public class SyntheticDataGenerator {
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Margaret", "Donald", "Sandra",
+            "Steven", "Ashley", "Paul", "Kimberly", "Andrew", "Emily", "Joshua", "Donna", "Kenneth", "Michelle",
+            "Kevin", "Carol", "Brian", "Amanda", "George", "Dorothy", "Timothy", "Melissa", "Ronald", "Deborah",
+            "Wei", "Mei", "Hiroshi", "Yuki", "Arjun", "Priya", "Omar", "Fatima", "Luis", "Sofia"};
+    // ordered from most to least common; picks are skewed toward the front
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+            "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+            "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+            "Chen", "Wang", "Kim", "Patel", "Singh", "Tanaka", "Murphy", "OConnor", "Novak", "Kowalski",
+            "Doe", "Tremblay", "Gagnon", "Roy", "Cote", "Bouchard", "Gauthier", "Morin", "Lavoie", "Fortin"};
+    private static final String[] STREETS = {
+            "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Lake", "Hill", "Park",
+            "Sunset", "Lincoln", "Jackson", "River", "Church", "Highland", "Spring", "Center", "Ridge", "Mill"};
+    private static final String[] US_STATES = {
+            "CA", "TX", "FL", "NY", "PA", "IL", "OH", "GA", "NC", "MI", "NJ", "VA", "WA", "AZ", "MA", "TN", "IN", "MO", "MD", "WI"};
+    private static final String[] CANADIAN_PROVINCES = {"ON", "QC", "BC", "AB", "MB", "SK", "NS", "NB"};
+    private static final String[][] MAKES_AND_MODELS = {
+            {"Toyota", "Camry"}, {"Toyota", "Corolla"}, {"Toyota", "Prius"}, {"Honda", "Accord"}, {"Honda", "Civic"},
+            {"Ford", "Fusion"}, {"Ford", "Escape"}, {"Chevrolet", "Malibu"}, {"Nissan", "Altima"}, {"Hyundai", "Elantra"},
+            {"Kia", "Optima"}, {"Subaru", "Outback"}, {"Tesla", "Model3"}, {"Volkswagen", "Jetta"}, {"Mazda", "Mazda6"}};
+    private static final String[] COLORS = {"Black", "White", "Silver", "Gray", "Blue", "Red", "Green", "Brown"};
+
+    private static final long PERSON_SALT = 0x5DEECE66DL;
+    private static final long DRIVER_SALT = 0x2545F4914F6CDD1DL;
+    private static final int MAX_VIOLATIONS = 500;
+
+    private final long seed;
+    private final LocalDate referenceDate;
+
+    /**
+     * Constructs a generator.
+     * @param seed The seed all generated data is derived from.
+     * @param referenceDate The date treated as "today" when generating ages, expirations and recent events.
+     */
+    public SyntheticDataGenerator(long seed, LocalDate referenceDate) {
+        this.seed = seed;
+        this.referenceDate = referenceDate;
+    }
+
+    /**
+     * Generates a dataset.
+     * @param outputDirectory The directory the seven files are written to; created if missing.
+     * @param driverCount The number of prospective drivers to generate.
+     * @throws IOException if a file cannot be written.
+     */
+    public void generate(Path outputDirectory, int driverCount) throws IOException {
+        Files.createDirectories(outputDirectory);
+        try (Writer drivers = open(outputDirectory, "driver.csv", "id, name, birth");
+             Writer licenses = open(outputDirectory, "license.csv",
+                     "driverId, number, name, address, birthDate, countryOfIssuance, stateOfIssuance, issuedDate, expirationDate");
+             Writer vehicles = open(outputDirectory, "vehicle.csv", "driverId, make, model, color, year, officialOwner, vehicleId");
+             Writer insurances = open(outputDirectory, "vehicleInsurance.csv", "officialOwner, insuredDrivers, expirationDate, vehicleId");
+             Writer crashes = open(outputDirectory, "crash.csv", "date, crashType, offendingDriver, driverId");
+             Writer violations = open(outputDirectory, "violation.csv", "violationType, date, driverId");
+             JsonWriter json = new JsonWriter(Files.newBufferedWriter(outputDirectory.resolve("drivers.json"), StandardCharsets.UTF_8))) {
+            json.beginArray();
+
+            // vehicles promised to upcoming drivers; only ever holds entries for the next few indexes
+            Map<Integer, List<VehicleSpec>> sharedVehicles = new HashMap<>();
+            Deque<VehicleSpec> driverVehicles = new ArrayDeque<>();
+            for (int index = 0; index < driverCount; index++) {
+                Random random = new Random(mix(seed ^ DRIVER_SALT, index));
+                String driverId = driverId(index);
+                String name = personName(index);
+                LocalDate birthDate = personBirthDate(index);
+                writeRow(drivers, driverId, name, birthDate.toString());
+
+                // license, with a small share of mismatching, foreign, too recent or expired documents
+                String licenseName = random.nextInt(100) < 2 ? FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + lastName(name) : name;
+                LocalDate licenseBirthDate = random.nextInt(100) < 1 ? birthDate.plusDays(1 + random.nextInt(30)) : birthDate;
+                int countryRoll = random.nextInt(100);
+                String country = countryRoll < 80 ? "US" : countryRoll < 95 ? "Canada" : "Mexico";
+                String state = country.equals("Canada") ? pick(random, CANADIAN_PROVINCES) : country.equals("US") ? pick(random, US_STATES) : "JAL";
+                LocalDate firstEligible = birthDate.plusYears(18);
+                LocalDate issuedDate;
+                if (random.nextInt(100) < 3 || !firstEligible.isBefore(referenceDate)) {
+                    issuedDate = referenceDate.minusDays(random.nextInt(180));
+                } else {
+                    issuedDate = randomDateBetween(random, firstEligible, referenceDate);
+                }
+                LocalDate expirationDate = random.nextInt(100) < 8
+                        ? referenceDate.minusDays(1 + random.nextInt(720))
+                        : referenceDate.plusDays(1 + random.nextInt(3650));
+                String address = (1 + random.nextInt(9999)) + " " + pick(random, STREETS) + " St";
+                String licenseNumber = "DL" + String.format("%09d", index);
+                writeRow(licenses, driverId, licenseNumber, licenseName, address, licenseBirthDate.toString(),
+                        country, state, issuedDate.toString(), expirationDate.toString());
+
+                // vehicles: the driver's own, plus any shared with them by a previous driver
+                driverVehicles.clear();
+                List<VehicleSpec> received = sharedVehicles.remove(index);
+                if (received != null) {
+                    driverVehicles.addAll(received);
+                }
+                int ownVehicles = random.nextInt(100) < 80 ? 1 : random.nextInt(100) < 85 ? 2 : 3;
+                if (received != null && random.nextBoolean()) {
+                    ownVehicles--;
+                }
+                for (int v = 0; v < ownVehicles; v++) {
+                    VehicleSpec vehicle = newVehicle(random, index, v, name);
+                    int sharedWith = random.nextInt(100) < 10 ? 1 + random.nextInt(2) : 0;
+                    for (int s = 1; s <= sharedWith && index + s < driverCount; s++) {
+                        sharedVehicles.computeIfAbsent(index + s, key -> new ArrayList<>(1)).add(vehicle);
+                        vehicle.insuredDrivers.add(personName(index + s));
+                    }
+                    // multi-insured policies covering relatives who are not applicants
+                    int relatives = random.nextInt(100) < 15 ? 1 + random.nextInt(3) : 0;
+                    for (int r = 0; r < relatives; r++) {
+                        vehicle.insuredDrivers.add(personName(driverCount + random.nextInt(Math.max(driverCount, 1))));
+                    }
+                    writeRow(insurances, vehicle.owner, String.join(";", vehicle.insuredDrivers),
+                            vehicle.insuranceExpiration.toString(), vehicle.vehicleId);
+                    driverVehicles.add(vehicle);
+                }
+                for (VehicleSpec vehicle : driverVehicles) {
+                    writeRow(vehicles, driverId, vehicle.make, vehicle.model, vehicle.color,
+                            String.valueOf(vehicle.year), vehicle.owner, vehicle.vehicleId);
+                }
+
+                // violations follow a heavy-tailed distribution: most drivers have none, a few have hundreds
+                int violationCount = random.nextInt(100) < 55 ? 0
+                        : (int) Math.min(MAX_VIOLATIONS, Math.floor(1 / Math.pow(1 - random.nextDouble(), 1 / 1.2)));
+                List<String[]> driverViolations = new ArrayList<>(violationCount);
+                for (int v = 0; v < violationCount; v++) {
+                    String type = random.nextInt(100) < 60
+                            ? ViolationFactory.MOVING_VIOLATION_TYPES.get(random.nextInt(ViolationFactory.MOVING_VIOLATION_TYPES.size()))
+                            : ViolationFactory.NON_MOVING_VIOLATION_TYPES.get(random.nextInt(ViolationFactory.NON_MOVING_VIOLATION_TYPES.size()));
+                    String date = recentDate(random).toString();
+                    writeRow(violations, type, date, driverId);
+                    driverViolations.add(new String[] {type, date});
+                }
+
+                int crashCount = random.nextInt(100) < 15 ? 1 + (random.nextInt(100) < 20 ? random.nextInt(4) : 0) : 0;
+                List<String[]> driverCrashes = new ArrayList<>(crashCount);
+                for (int c = 0; c < crashCount; c++) {
+                    String type = CrashFactory.CRASH_TYPES.get(random.nextInt(CrashFactory.CRASH_TYPES.size()));
+                    String date = recentDate(random).toString();
+                    String offendingDriver = random.nextBoolean() ? name : personName(random.nextInt(Math.max(driverCount, 1)));
+                    writeRow(crashes, date, type, offendingDriver, driverId);
+                    driverCrashes.add(new String[] {type, date});
+                }
+
+                writeJson(json, name, birthDate, licenseNumber, issuedDate, expirationDate, address, country, state,
+                        driverViolations, driverVehicles, driverCrashes);
+            }
+            json.endArray();
+        }
+    }
+
+    /**
+     * Generates a dataset from the command line.
+     * @param args The output directory, the number of drivers, and optionally the seed and the reference date (yyyy-MM-dd).
+     * @throws IOException if a file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticDataGenerator <outputDirectory> <driverCount> [seed] [referenceDate]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        LocalDate referenceDate = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now();
+        long start = System.nanoTime();
+        new SyntheticDataGenerator(seed, referenceDate).generate(Paths.get(args[0]), Integer.parseInt(args[1]));
+        System.out.println("Generated " + args[1] + " drivers in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Generates a dataset into a temporary directory, loads the drivers from it and deletes the files.
+     * @param seed The seed all generated data is derived from.
+     * @param referenceDate The date treated as "today".
+     * @param driverCount The number of prospective drivers to generate.
+     * @return The loaded drivers, in generation order.
+     * @throws IOException if the dataset cannot be written or read.
+     */
+    public static List<Driver> generateDrivers(long seed, LocalDate referenceDate, int driverCount) throws IOException {
+        Path dataDirectory = Files.createTempDirectory("rideshare-data");
+        try {
+            new SyntheticDataGenerator(seed, referenceDate).generate(dataDirectory, driverCount);
+            return RideshareDriverValidator.loadData(dataDirectory);
+        } finally {
+            try (Stream<Path> files = Files.list(dataDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dataDirectory);
+        }
+    }
+
+    /**
+     * Gets the ID of the driver generated at an index.
+     * @param index The driver index.
+     * @return The driver ID.
+     */
+    public static String driverId(int index) {
+        return String.valueOf(10_000_000L + index);
+    }
+
+    // the name of the person at an index; people past the driver count are non-applicant relatives
+    private String personName(int index) {
+        Random random = new Random(mix(seed ^ PERSON_SALT, index));
+        double skew = random.nextDouble();
+        String lastName = LAST_NAMES[(int) (LAST_NAMES.length * skew * skew * skew)];
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + lastName;
+    }
+
+    // the birth date of the person at an index; about 5% are younger than 21
+    private LocalDate personBirthDate(int index) {
+        Random random = new Random(mix(seed ^ PERSON_SALT, ~index));
+        int age = random.nextInt(100) < 5 ? 17 + random.nextInt(4) : 21 + random.nextInt(55);
+        return referenceDate.minusYears(age).minusDays(random.nextInt(365));
+    }
+
+    private VehicleSpec newVehicle(Random random, int index, int ordinal, String owner) {
+        String[] makeAndModel = MAKES_AND_MODELS[random.nextInt(MAKES_AND_MODELS.length)];
+        int age = random.nextInt(100) < 10 ? 16 + random.nextInt(10) : random.nextInt(16);
+        LocalDate insuranceExpiration = random.nextInt(100) < 10
+                ? referenceDate.minusDays(1 + random.nextInt(365))
+                : referenceDate.plusDays(1 + random.nextInt(730));
+        VehicleSpec vehicle = new VehicleSpec(makeAndModel[0], makeAndModel[1], pick(random, COLORS),
+                referenceDate.getYear() - age, owner, "V" + index + "-" + ordinal, insuranceExpiration);
+        vehicle.insuredDrivers.add(owner);
+        return vehicle;
+    }
+
+    // a date in the last ten years, with a fifth of them in the last six months
+    private LocalDate recentDate(Random random) {
+        if (random.nextInt(100) < 20) {
+            return referenceDate.minusDays(random.nextInt(183));
+        }
+        return referenceDate.minusDays(random.nextInt(3653));
+    }
+
+    private static LocalDate randomDateBetween(Random random, LocalDate from, LocalDate to) {
+        long days = to.toEpochDay() - from.toEpochDay();
+        return days <= 0 ? from : LocalDate.ofEpochDay(from.toEpochDay() + (long) (random.nextDouble() * days));
+    }
+
+    private void writeJson(JsonWriter json, String name, LocalDate birthDate, String licenseNumber, LocalDate issuedDate,
+                           LocalDate expirationDate, String address, String country, String state, List<String[]> violations,
+                           Iterable<VehicleSpec> vehicles, List<String[]> crashes) throws IOException {
+        json.beginObject();
+        json.name("driver").beginObject();
+        json.name("firstname").value(firstName(name));
+        json.name("lastname").value(lastName(name));
+        json.name("birth").value(birthDate.toString());
+        json.name("license").beginObject();
+        json.name("number").value(licenseNumber);
+        json.name("issuance").value(issuedDate.toString());
+        json.name("expiration").value(expirationDate.toString());
+        json.name("address").value(address);
+        json.name("country").value(country);
+        json.name("state").value(state);
+        json.endObject();
+        json.name("violations");
+        writeEvents(json, violations);
+        json.endObject();
+
+        json.name("vehicles").beginArray();
+        boolean first = true;
+        for (VehicleSpec vehicle : vehicles) {
+            json.beginObject();
+            json.name("make").value(vehicle.make);
+            json.name("model").value(vehicle.model);
+            json.name("year").value(vehicle.year);
+            json.name("number").value(vehicle.vehicleId);
+            json.name("color").value(vehicle.color);
+            json.name("insurance").beginObject();
+            json.name("expiration").value(vehicle.insuranceExpiration.toString());
+            json.name("drivers").beginArray();
+            for (String insured : vehicle.insuredDrivers) {
+                json.beginObject();
+                json.name("firstname").value(firstName(insured));
+                json.name("lastname").value(lastName(insured));
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            json.name("violations").beginArray().endArray();
+            json.name("crashes");
+            // the crash CSV is per driver, so the crashes are attached to the driver's first vehicle
+            writeEvents(json, first ? crashes : List.of());
+            json.endObject();
+            first = false;
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeEvents(JsonWriter json, List<String[]> events) throws IOException {
+        json.beginArray();
+        for (String[] event : events) {
+            json.beginObject();
+            json.name("type").value(event[0]);
+            json.name("date").value(event[1]);
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private static Writer open(Path directory, String fileName, String header) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(directory.resolve(fileName)), StandardCharsets.UTF_8), 1 << 16);
+        writer.write(header);
+        writer.write('\n');
+        return writer;
+    }
+
+    private static void writeRow(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(", ");
+            }
+            writer.write(fields[i]);
+        }
+        writer.write('\n');
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String firstName(String fullName) {
+        return fullName.substring(0, fullName.indexOf(' '));
+    }
+
+    private static String lastName(String fullName) {
+        return fullName.substring(fullName.indexOf(' ') + 1);
+    }
+
+    // SplitMix64 finalizer: turns (seed, index) into a well-distributed per-entity seed
+    private static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // a vehicle being generated, kept only until every driver sharing it has been written
+    private static final class VehicleSpec {
+        final String make;
+        final String model;
+        final String color;
+        final int year;
+        final String owner;
+        final String vehicleId;
+        final LocalDate insuranceExpiration;
+        final List<String> insuredDrivers = new ArrayList<>(2);
+
+        VehicleSpec(String make, String model, String color, int year, String owner, String vehicleId, LocalDate insuranceExpiration) {
+            this.make = make;
+            this.model = model;
+            this.color = color;
+            this.year = year;
+            this.owner = owner;
+            this.vehicleId = vehicleId;
+            this.insuranceExpiration = insuranceExpiration;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * The individual checks {@link RegistrationValidator} applies to a prospective driver, in the order they run.
+ */
+public enum ValidationCheck {
+    AGE, LICENSE, VEHICLE, INSURANCE, DRIVER_HISTORY, VEHICLE_HISTORY
+}
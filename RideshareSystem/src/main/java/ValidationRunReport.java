@@ -0,0 +1,171 @@
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Timings of one run of {@link RideshareDriverValidator} in report mode. Ingest is timed per
+ * CSV file, from what the loader metrics gained since the report was constructed; validation, pool insertion and the end-to-end handling
+ * of each driver are recorded per driver in {@link LatencyHistogram}s. The report prints
+ * percentiles and throughput for every stage and writes the same figures as JSON, so runs
+ * over different data can be compared.
+ */
+public class ValidationRunReport {
+    private final LatencyHistogram validation = new LatencyHistogram();
+    private final LatencyHistogram poolInsertion = new LatencyHistogram();
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+    private final Map<String, OperationMetrics> loaders;
+    private final Map<String, long[]> loadersAtStart = new HashMap<>(); // rows and nanos of earlier loads
+    private long ingestNanos;
+    private long processingNanos;
+    private int driverCount;
+    private int validCount;
+
+    /**
+     * Constructs an empty report.
+     * @param loaders The loader metrics by file name, as kept by {@link RideshareMetrics#loaders()}.
+     */
+    public ValidationRunReport(Map<String, OperationMetrics> loaders) {
+        this.loaders = loaders;
+        for (Map.Entry<String, OperationMetrics> loader : loaders.entrySet()) {
+            loadersAtStart.put(loader.getKey(), new long[] {loader.getValue().getItems(), totalNanos(loader.getValue())});
+        }
+    }
+
+    /**
+     * Records the loading of the input.
+     * @param nanos The time taken to load and join all files.
+     */
+    public void recordIngest(long nanos) {
+        this.ingestNanos = nanos;
+    }
+
+    /**
+     * Records the handling of one driver.
+     * @param validationNanos The time taken to validate the driver.
+     * @param insertionNanos The time taken to add the driver to the pool.
+     * @param endToEndNanos The time from the start of validation until the driver was handled completely.
+     * @param valid Whether the driver passed validation.
+     */
+    public void recordDriver(long validationNanos, long insertionNanos, long endToEndNanos, boolean valid) {
+        validation.record(validationNanos);
+        poolInsertion.record(insertionNanos);
+        endToEnd.record(endToEndNanos);
+        driverCount++;
+        if (valid) {
+            validCount++;
+        }
+    }
+
+    /**
+     * Records the total time spent handling drivers, including everything between them.
+     * @param nanos The wall time of the driver loop.
+     */
+    public void recordProcessing(long nanos) {
+        this.processingNanos = nanos;
+    }
+
+    /**
+     * Prints the report.
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out) {
+        long totalNanos = ingestNanos + processingNanos;
+        out.printf("Report: %d drivers (%d valid) in %.2f ms, %.0f drivers/s%n", driverCount, validCount,
+                totalNanos / 1e6, perSecond(driverCount, totalNanos));
+        out.printf("  ingest: %.2f ms, %.0f drivers/s%n", ingestNanos / 1e6, perSecond(driverCount, ingestNanos));
+        for (String file : new TreeMap<>(loaders).keySet()) {
+            long rows = rows(file);
+            long fileNanos = fileNanos(file);
+            out.printf("    %s: %d rows in %.2f ms, %.0f rows/s%n", file, rows, fileNanos / 1e6, perSecond(rows, fileNanos));
+        }
+        printStage(out, "validation", validation);
+        printStage(out, "pool insertion", poolInsertion);
+        printStage(out, "end to end", endToEnd);
+    }
+
+    /**
+     * Writes the report as a JSON object.
+     * @param file The file to write; replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path file) throws IOException {
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("drivers").value(driverCount);
+            json.name("validDrivers").value(validCount);
+            json.name("totalNanos").value(ingestNanos + processingNanos);
+            json.name("driversPerSecond").value(perSecond(driverCount, ingestNanos + processingNanos));
+
+            json.name("ingest").beginObject();
+            json.name("nanos").value(ingestNanos);
+            json.name("driversPerSecond").value(perSecond(driverCount, ingestNanos));
+            json.name("files").beginObject();
+            for (String fileName : new TreeMap<>(loaders).keySet()) {
+                long rows = rows(fileName);
+                long fileNanos = fileNanos(fileName);
+                json.name(fileName).beginObject();
+                json.name("rows").value(rows);
+                json.name("nanos").value(fileNanos);
+                json.name("rowsPerSecond").value(perSecond(rows, fileNanos));
+                json.endObject();
+            }
+            json.endObject();
+            json.endObject();
+
+            json.name("stages").beginObject();
+            writeStage(json, "validation", validation);
+            writeStage(json, "poolInsertion", poolInsertion);
+            writeStage(json, "endToEnd", endToEnd);
+            json.endObject();
+            json.endObject();
+        }
+    }
+
+    private static void printStage(PrintStream out, String name, LatencyHistogram latency) {
+        out.printf("  %s: %s, %.0f drivers/s%n", name, latency.summarizeNanos(), stageThroughput(latency));
+    }
+
+    private static void writeStage(JsonWriter json, String name, LatencyHistogram latency) throws IOException {
+        json.name(name).beginObject();
+        json.name("count").value(latency.getCount());
+        json.name("meanNanos").value(latency.getMean());
+        json.name("p50Nanos").value(latency.getPercentile(50));
+        json.name("p99Nanos").value(latency.getPercentile(99));
+        json.name("p999Nanos").value(latency.getPercentile(99.9));
+        json.name("maxNanos").value(latency.getMax());
+        json.name("perSecond").value(stageThroughput(latency));
+        json.endObject();
+    }
+
+    // how many operations a stage completes per second of time spent in it
+    private static double stageThroughput(LatencyHistogram latency) {
+        return latency.getMean() == 0 ? 0 : 1e9 / latency.getMean();
+    }
+
+    // the rows of a file loaded during this run
+    private long rows(String file) {
+        return loaders.get(file).getItems() - loadersAtStart.getOrDefault(file, new long[2])[0];
+    }
+
+    // the time spent loading a file during this run
+    private long fileNanos(String file) {
+        return totalNanos(loaders.get(file)) - loadersAtStart.getOrDefault(file, new long[2])[1];
+    }
+
+    // the total time spent loading a file since the process started
+    private static long totalNanos(OperationMetrics loader) {
+        return Math.round(loader.getMeanLatencyNanos() * loader.getCount());
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count / (nanos / 1e9);
+    }
+}
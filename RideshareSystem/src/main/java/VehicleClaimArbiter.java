@@ -0,0 +1,37 @@
+/**
+ * Decides whether a driver may start using a vehicle. A {@link DriverPoolManager} asks its
+ * arbiter before assigning a free vehicle, which lets several pools share one authority
+ * over vehicle usage.
+ */
+public interface VehicleClaimArbiter {
+
+    /**
+     * An arbiter that grants every claim, leaving the decision to the pool's own usage map.
+     */
+    VehicleClaimArbiter LOCAL = new VehicleClaimArbiter() {
+        @Override
+        public boolean tryClaim(String vehicleId, String licenseNumber) {
+            return true;
+        }
+
+        @Override
+        public void release(String vehicleId, String licenseNumber) {
+            // nothing to release, claims are only tracked by the pool
+        }
+    };
+
+    /**
+     * Attempts to assign a vehicle to a driver.
+     * @param vehicleId The ID of the vehicle.
+     * @param licenseNumber The license number of the driver claiming the vehicle.
+     * @return true if the driver may use the vehicle, false if another driver holds it.
+     */
+    boolean tryClaim(String vehicleId, String licenseNumber);
+
+    /**
+     * Releases a vehicle previously claimed by a driver.
+     * @param vehicleId The ID of the vehicle.
+     * @param licenseNumber The license number of the driver releasing the vehicle.
+     */
+    void release(String vehicleId, String licenseNumber);
+}
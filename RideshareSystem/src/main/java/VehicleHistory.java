@@ -1,37 +1,74 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Represents the history of a vehicle, including all recorded crashes and traffic violations.
+ * Crashes and violations are stored packed in {@link PackedHistory} logs; {@link Crash} and
+ * {@link Violation} objects are only created when they are asked for.
  */
 public class VehicleHistory {
-    private List<Crash> crashes;
-    private List<Violation> violations;
+    private static final HistoryChangeListener[] NO_LISTENERS = new HistoryChangeListener[0];
+
+    private final PackedHistory crashes = new PackedHistory(true);
+    private final PackedHistory violations = new PackedHistory(false);
+    private Runnable onFirstChange;
+    private HistoryChangeListener[] listeners = NO_LISTENERS;
 
     /**
      * Constructor for VehicleHistory.
+     * @param crashes The crashes the history starts with, or null for none.
+     * @param violations The traffic violations the history starts with, or null for none.
      */
     public VehicleHistory(List<Crash> crashes, List<Violation> violations) {
-        this.crashes = new ArrayList<>();
-        this.violations = new ArrayList<>();
+        if (crashes != null) {
+            for (Crash crash : crashes) {
+                addCrash(crash);
+            }
+        }
+        if (violations != null) {
+            for (Violation violation : violations) {
+                addViolation(violation);
+            }
+        }
     }
 
     /**
      * Adds a crash to the vehicle's history.
-     * @param crash The crash to add.
+     * @param crash The crash to add, of any type.
      */
     public void addCrash(Crash crash) {
         if (crash != null) {
-            crashes.add(crash);
+            changing();
+            crashes.appendCrash(crash);
+            added(crashes);
         }
     }
 
+    /**
+     * Adds a crash to the vehicle's history without creating a Crash.
+     * @param day The day of the crash, as days since 1970-01-01.
+     * @param code The type code of the crash, see {@link PackedHistory#crashCode(String)}.
+     * @param offender The offending driver, or null.
+     */
+    public void addCrash(int day, int code, Name offender) {
+        changing();
+        crashes.append(day, code, offender, null);
+        added(crashes);
+    }
+
     /**
      * Removes a crash from the vehicle's history.
      * @param crash The crash to remove.
      */
     public void removeCrash(Crash crash) {
-        crashes.remove(crash);
+        if (crash != null) {
+            changing();
+            if (crashes.removeCrash(crash)) {
+                removed();
+            }
+        }
     }
 
     /**
@@ -39,16 +76,30 @@ public class VehicleHistory {
      * @return A list of crashes.
      */
     public List<Crash> getCrashes() {
-        return new ArrayList<>(crashes);
+        List<Crash> list = new ArrayList<>(crashes.size());
+        for (int i = 0; i < crashes.size(); i++) {
+            list.add(crashes.getCrash(i));
+        }
+        return list;
+    }
+
+    /**
+     * Gets the packed crashes, for queries that need no Crash objects.
+     * @return The crashes of the history; do not keep it past changes to the history.
+     */
+    public PackedHistory getCrashLog() {
+        return crashes;
     }
 
     /**
      * Adds a traffic violation to the vehicle's history.
-     * @param violation The traffic violation to add.
+     * @param violation The traffic violation to add, of any type.
      */
     public void addViolation(Violation violation) {
         if (violation != null) {
-            violations.add(violation);
+            changing();
+            violations.appendViolation(violation);
+            added(violations);
         }
     }
 
@@ -57,7 +108,12 @@ public class VehicleHistory {
      * @param violation The traffic violation to remove.
      */
     public void removeViolation(Violation violation) {
-        violations.remove(violation);
+        if (violation != null) {
+            changing();
+            if (violations.removeViolation(violation)) {
+                removed();
+            }
+        }
     }
 
     /**
@@ -65,8 +121,94 @@ public class VehicleHistory {
      * @return A list of traffic violations.
      */
     public List<Violation> getViolations() {
-        return new ArrayList<>(violations); 
+        List<Violation> list = new ArrayList<>(violations.size());
+        for (int i = 0; i < violations.size(); i++) {
+            list.add(violations.getViolation(i));
+        }
+        return list;
+    }
+
+    /**
+     * Gets the packed traffic violations, for queries that need no Violation objects.
+     * @return The violations of the history; do not keep it past changes to the history.
+     */
+    public PackedHistory getViolationLog() {
+        return violations;
+    }
+
+    /**
+     * Registers a listener to be notified of every change to the history.
+     * @param listener The listener to register.
+     */
+    public void addChangeListener(HistoryChangeListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     * @param listener The listener to unregister.
+     */
+    public void removeChangeListener(HistoryChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                HistoryChangeListener[] remaining = new HistoryChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets what runs before the first crash or violation is added or removed.
+     * @param hook What to run once, or null for nothing.
+     */
+    void onFirstChange(Runnable hook) {
+        this.onFirstChange = hook;
     }
 
+    // runs the first-change hook, once
+    private void changing() {
+        Runnable hook = onFirstChange;
+        if (hook != null) {
+            onFirstChange = null;
+            hook.run();
+        }
+    }
+
+    // tells the listeners of the crash or violation just appended to a log
+    private void added(PackedHistory log) {
+        int day = log.getDay(log.size() - 1);
+        int code = log.getCode(log.size() - 1);
+        for (HistoryChangeListener listener : listeners) {
+            if (log == crashes) {
+                listener.onCrashAdded(day, code);
+            } else {
+                listener.onViolationAdded(day, code);
+            }
+        }
+    }
+
+    // tells the listeners of a crash or violation just removed
+    private void removed() {
+        for (HistoryChangeListener listener : listeners) {
+            listener.onRemoved();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VehicleHistory history = (VehicleHistory) o;
+        return Objects.equals(crashes, history.crashes) && Objects.equals(violations, history.violations);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(crashes, violations);
+    }
 
 }
@@ -1,23 +1,32 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class VehicleInsurance {
     private Name officialOwner;
-    private List<Name> insuredDrivers;
+    private List<Name> insuredDrivers; // in listing order, each once; null if no list was given
+    private Set<Name> insuredDriverSet; // the same names, for lookups
     private Date expirationDate;
     private Vehicle vehicle;
 
     /**
      * Constructs a new VehicleInsurance instance.
      * @param officialOwner The official owner of the vehicle.
-     * @param insuredDrivers The list of drivers covered by the insurance.
+     * @param insuredDrivers The drivers covered by the insurance; duplicates are kept once.
      * @param expirationDate The expiration date of the insurance.
      * @param vehicle the vehicle associated with the insurance
      */
-    public VehicleInsurance(Name officialOwner, List<Name> insuredDrivers, Date expirationDate, Vehicle vehicle) {
+    public VehicleInsurance(Name officialOwner, Collection<Name> insuredDrivers, Date expirationDate, Vehicle vehicle) {
         this.officialOwner = officialOwner;
-        this.insuredDrivers = insuredDrivers;
+        if (insuredDrivers != null) {
+            this.insuredDriverSet = new LinkedHashSet<>(insuredDrivers);
+            this.insuredDrivers = Collections.unmodifiableList(new ArrayList<>(insuredDriverSet));
+        }
         this.expirationDate = expirationDate;
         this.vehicle = vehicle;
     }
@@ -33,12 +42,21 @@ public class VehicleInsurance {
 
     /**
      * Gets the list of drivers covered by the specific insurance.
-     * @return A list of names of the insured drivers.
+     * @return An unmodifiable list of the names of the insured drivers, in listing order, each once.
      */
     public List<Name> getInsuredDrivers() {
         return insuredDrivers;
     }
 
+    /**
+     * Checks whether a driver is listed as covered by the insurance.
+     * @param name The name of the driver.
+     * @return true if the driver is an insured driver, false otherwise.
+     */
+    public boolean isInsuredDriver(Name name) {
+        return insuredDriverSet != null && insuredDriverSet.contains(name);
+    }
+
     /**
      * Gets the expiration date of the insurance policy.
      * @return The expiration date.
@@ -47,6 +65,14 @@ public class VehicleInsurance {
         return expirationDate;
     }
 
+    /**
+     * Gets the vehicle covered by the insurance policy.
+     * @return The insured vehicle.
+     */
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,123 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the verdicts of drivers current while a stream of history events arrives for them.
+ * Each tracked driver is summarized once into a {@link DriverValidity}; an event is appended
+ * to the driver's packed histories, which update their aggregates in constant time, and the
+ * verdict is then read from the aggregates instead of validating the driver again.
+ * Drivers are tracked by license number. The tracker is not thread-safe.
+ */
+public class VerdictTracker {
+    private final RegistrationValidator validator;
+    private final Map<String, DriverValidity> tracked = new HashMap<>();
+
+    /**
+     * Constructs a tracker.
+     * @param validator The validator whose clock and rules decide the verdicts.
+     */
+    public VerdictTracker(RegistrationValidator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Starts tracking a driver, or summarizes a tracked driver again after their documents changed.
+     * @param driver The driver; must have a license.
+     * @return Whether the driver is valid now.
+     */
+    public boolean track(Driver driver) {
+        if (driver == null || driver.getDriverLicense() == null) {
+            throw new IllegalArgumentException("Driver with a license must be provided.");
+        }
+        DriverValidity validity = validator.summarize(driver);
+        tracked.put(driver.getDriverLicense().getLicenseNumber(), validity);
+        return validator.firstFailedCheck(validity) == null;
+    }
+
+    /**
+     * Stops tracking a driver.
+     * @param licenseNumber The license number of the driver.
+     */
+    public void untrack(String licenseNumber) {
+        tracked.remove(licenseNumber);
+    }
+
+    /**
+     * Checks whether a driver is tracked.
+     * @param licenseNumber The license number of the driver.
+     * @return true if the driver is tracked.
+     */
+    public boolean isTracked(String licenseNumber) {
+        return tracked.containsKey(licenseNumber);
+    }
+
+    /**
+     * Gets the number of tracked drivers.
+     * @return The number of tracked drivers.
+     */
+    public int size() {
+        return tracked.size();
+    }
+
+    /**
+     * Adds a violation to the history of a tracked driver.
+     * @param licenseNumber The license number of the driver.
+     * @param violation The violation.
+     * @return Whether the driver is still valid.
+     */
+    public boolean addDriverViolation(String licenseNumber, Violation violation) {
+        DriverValidity validity = get(licenseNumber);
+        validity.getDriver().getDriverHistory().addViolation(violation);
+        return validator.firstFailedCheck(validity) == null;
+    }
+
+    /**
+     * Adds a violation to the vehicle history of a tracked driver.
+     * @param licenseNumber The license number of the driver.
+     * @param violation The violation.
+     * @return Whether the driver is still valid.
+     */
+    public boolean addVehicleViolation(String licenseNumber, Violation violation) {
+        DriverValidity validity = get(licenseNumber);
+        validity.getDriver().getVehicleHistory().addViolation(violation);
+        return validator.firstFailedCheck(validity) == null;
+    }
+
+    /**
+     * Adds a crash to the vehicle history of a tracked driver.
+     * @param licenseNumber The license number of the driver.
+     * @param crash The crash.
+     * @return Whether the driver is still valid.
+     */
+    public boolean addCrash(String licenseNumber, Crash crash) {
+        DriverValidity validity = get(licenseNumber);
+        validity.getDriver().getVehicleHistory().addCrash(crash);
+        return validator.firstFailedCheck(validity) == null;
+    }
+
+    /**
+     * Checks whether a tracked driver is valid now, for example after time has passed.
+     * @param licenseNumber The license number of the driver.
+     * @return true if the driver is valid.
+     */
+    public boolean isValid(String licenseNumber) {
+        return validator.firstFailedCheck(get(licenseNumber)) == null;
+    }
+
+    /**
+     * Gets the first check a tracked driver fails now.
+     * @param licenseNumber The license number of the driver.
+     * @return The failed check, or null if the driver is valid.
+     */
+    public ValidationCheck getFailedCheck(String licenseNumber) {
+        return validator.firstFailedCheck(get(licenseNumber));
+    }
+
+    private DriverValidity get(String licenseNumber) {
+        DriverValidity validity = tracked.get(licenseNumber);
+        if (validity == null) {
+            throw new IllegalArgumentException("Driver is not tracked: " + licenseNumber);
+        }
+        return validity;
+    }
+}
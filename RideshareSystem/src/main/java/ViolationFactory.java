@@ -1,4 +1,5 @@
 import java.util.Date;
+import java.util.List;
 
 /**
  * Factory class for creating Violation objects.
@@ -6,6 +7,19 @@ import java.util.Date;
 public class ViolationFactory {
     private static final ViolationFactory INSTANCE = new ViolationFactory();
 
+    /**
+     * The moving violation types the factory accepts.
+     */
+    public static final List<String> MOVING_VIOLATION_TYPES = List.of("Distracted driving", "Reckless Driving",
+            "Speeding", "Driving under influence", "Failure to respect traffic signs",
+            "Driving without a valid license and/or insurance");
+
+    /**
+     * The non-moving violation types the factory accepts.
+     */
+    public static final List<String> NON_MOVING_VIOLATION_TYPES = List.of("Parking Violation", "Paperwork Issues",
+            "Problems with the vehicle");
+
     // Private constructor to prevent direct instantiation.
     private ViolationFactory() {}
 
@@ -28,13 +42,13 @@ public class ViolationFactory {
             throw new IllegalArgumentException("Violation type and date must be provided.");
         }
 
-        return switch (violationType) {
-            case "Distracted driving", "Reckless Driving", "Speeding", "Driving under influence", "Failure to respect traffic signs", "Driving without a valid license and/or insurance" ->
-                    new MovingViolation(date, violationType);
-            case "Parking Violation", "Paperwork Issues", "Problems with the vehicle" ->
-                    new NonMovingViolation(date, violationType);
-            default -> throw new IllegalArgumentException("Unknown violation type: " + violationType);
-        };
+        if (MOVING_VIOLATION_TYPES.contains(violationType)) {
+            return new MovingViolation(date, violationType);
+        }
+        if (NON_MOVING_VIOLATION_TYPES.contains(violationType)) {
+            return new NonMovingViolation(date, violationType);
+        }
+        throw new IllegalArgumentException("Unknown violation type: " + violationType);
     }
 
 }
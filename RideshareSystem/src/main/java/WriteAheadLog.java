@@ -0,0 +1,355 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary log of records, each identified by a log sequence number (LSN).
+ * An append returns once its record has been fsynced; {@link #enqueue(byte, byte[])} returns at
+ * once, so that a caller can release its own locks before it waits with {@link #awaitDurable(long)}.
+ * Appends copy their record into a pending batch and wait; a background thread writes and fsyncs whole batches at once
+ * (group commit), so appends made meanwhile from other threads share one disk flush.
+ * The log is split into segment files named after the first LSN they hold, which lets
+ * segments covered by a snapshot be deleted as a whole.
+ * Each record is stored as: payload length, LSN, record type, payload and a CRC32 checksum.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Byte.BYTES + Integer.BYTES;
+
+    /**
+     * Receives the records read back from a log.
+     */
+    public interface RecordHandler {
+        /**
+         * Handles one record.
+         * @param lsn The log sequence number of the record.
+         * @param type The record type given when the record was appended.
+         * @param payload The record payload.
+         * @throws IOException if the payload cannot be decoded.
+         */
+        void handle(long lsn, byte type, byte[] payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final Thread flusher;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private FileChannel segment;
+    private long nextLsn;
+    private long durableLsn;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Opens a log that continues from the given sequence number in a new segment.
+     * @param directory The directory holding the segment files.
+     * @param nextLsn The sequence number to give the next appended record.
+     * @throws IOException if the segment file cannot be created.
+     */
+    public WriteAheadLog(Path directory, long nextLsn) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.nextLsn = nextLsn;
+        this.durableLsn = nextLsn - 1;
+        this.segment = openSegment(nextLsn);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a record and waits until it has been fsynced.
+     * @param type The record type, interpreted by the reader.
+     * @param payload The record payload.
+     * @return The log sequence number assigned to the record.
+     * @throws IOException if the log is closed, or the record or a previous one could not be flushed.
+     */
+    public synchronized long append(byte type, byte[] payload) throws IOException {
+        long lsn = enqueue(type, payload);
+        awaitDurable(lsn);
+        return lsn;
+    }
+
+    /**
+     * Appends a record without waiting until it has been fsynced.
+     * @param type The record type, interpreted by the reader.
+     * @param payload The record payload.
+     * @return The log sequence number assigned to the record.
+     * @throws IOException if the log is closed or a previous record could not be flushed.
+     */
+    public synchronized long enqueue(byte type, byte[] payload) throws IOException {
+        checkUsable();
+        long lsn = nextLsn++;
+        crc.reset();
+        DataOutputStream out = new DataOutputStream(pending);
+        out.writeInt(payload.length);
+        out.writeLong(lsn);
+        out.writeByte(type);
+        out.write(payload);
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+        crc.update(type);
+        crc.update(payload);
+        out.writeInt((int) crc.getValue());
+        notifyAll();
+        return lsn;
+    }
+
+    /**
+     * Waits until every record up to the given sequence number has been fsynced.
+     * @param lsn The sequence number to wait for.
+     * @throws IOException if the flush failed or the wait was interrupted.
+     */
+    public synchronized void awaitDurable(long lsn) throws IOException {
+        while (durableLsn < lsn) {
+            checkUsable();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the write-ahead log.");
+            }
+        }
+    }
+
+    /**
+     * Gets the sequence number of the most recently appended record.
+     * @return The last assigned sequence number.
+     */
+    public synchronized long getLastLsn() {
+        return nextLsn - 1;
+    }
+
+    /**
+     * Flushes everything appended so far and starts a new segment for later records.
+     * @return The sequence number of the last record in the closed segment.
+     * @throws IOException if the flush or the new segment fails.
+     */
+    public synchronized long roll() throws IOException {
+        checkUsable();
+        while (durableLsn < nextLsn - 1 || flushing) {
+            awaitFlush();
+        }
+        segment.close();
+        segment = openSegment(nextLsn);
+        return nextLsn - 1;
+    }
+
+    /**
+     * Deletes the segments whose records all precede the given sequence number.
+     * @param lsn The first sequence number that must be kept.
+     * @throws IOException if a segment cannot be deleted.
+     */
+    public synchronized void deleteSegmentsBefore(long lsn) throws IOException {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segmentStartLsn(segments.get(i + 1)) <= lsn) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            awaitDurable(nextLsn - 1);
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Reads every intact record after the given sequence number, in order.
+     * The first bad record ends the log: one that is torn, fails its checksum, claims to be
+     * longer than what is left of its file, or does not carry the next sequence number.
+     * Its segment is truncated there and any later segments are deleted, so the log can be
+     * safely continued afterwards.
+     * @param directory The directory holding the segment files.
+     * @param afterLsn Records with this sequence number or lower are skipped.
+     * @param handler The handler receiving the records.
+     * @return The sequence number of the last intact record, or afterLsn if there was none.
+     * @throws IOException if a segment cannot be read or a record cannot be handled.
+     */
+    public static long replay(Path directory, long afterLsn, RecordHandler handler) throws IOException {
+        long lastLsn = afterLsn;
+        if (!Files.isDirectory(directory)) {
+            return lastLsn;
+        }
+        List<Path> segments = listSegments(directory);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < segments.size(); i++) {
+            Path segmentFile = segments.get(i);
+            long fileSize = Files.size(segmentFile);
+            long validBytes = 0;
+            boolean corrupt = false;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile)))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    try {
+                        if (length < 0 || length > fileSize - validBytes - RECORD_OVERHEAD) {
+                            corrupt = true; // checked before allocating, so a garbage length cannot exhaust the heap
+                            break;
+                        }
+                        long lsn = in.readLong();
+                        byte type = in.readByte();
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        int checksum = in.readInt();
+                        crc.reset();
+                        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+                        crc.update(type);
+                        crc.update(payload);
+                        if ((int) crc.getValue() != checksum || (lsn > afterLsn && lsn != lastLsn + 1 && lastLsn > afterLsn)) {
+                            corrupt = true;
+                            break;
+                        }
+                        if (lsn > lastLsn) {
+                            handler.handle(lsn, type, payload);
+                            lastLsn = lsn;
+                        }
+                        validBytes += RECORD_OVERHEAD + length;
+                    } catch (EOFException e) {
+                        corrupt = true;
+                        break;
+                    }
+                }
+            }
+            if (corrupt) {
+                try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+                for (int j = i + 1; j < segments.size(); j++) {
+                    Files.deleteIfExists(segments.get(j));
+                }
+                break;
+            }
+        }
+        return lastLsn;
+    }
+
+    // writes pending batches until the log is closed
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchLsn;
+            FileChannel target;
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                // swap buffers so appenders fill the next batch while this one is written
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchLsn = nextLsn - 1;
+                target = segment;
+                flushing = true;
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                batch.reset();
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableLsn = batchLsn;
+                }
+                notifyAll();
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitFlush() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the write-ahead log.");
+        }
+        checkUsable();
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log flush failed.", failure);
+        }
+        if (closed) {
+            throw new IOException("Write-ahead log is closed.");
+        }
+    }
+
+    private FileChannel openSegment(long startLsn) throws IOException {
+        Path file = directory.resolve(SEGMENT_PREFIX + String.format("%020d", startLsn) + SEGMENT_SUFFIX);
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // lists segment files ordered by their first sequence number
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(segmentStartLsn(a), segmentStartLsn(b)));
+        return segments;
+    }
+
+    private static long segmentStartLsn(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AnalyticsCubeTest {
+    // events long enough ago that they reject nobody
+    private static final YearMonth MARCH = YearMonth.of(2015, 3);
+    private static final YearMonth APRIL = YearMonth.of(2015, 4);
+
+    private DriverPoolManager pool;
+    private AnalyticsCube cube;
+    private Driver ann;
+    private Driver ben;
+    private Driver cal;
+
+    @BeforeEach
+    void createCube() {
+        pool = new DriverPoolManager();
+        cube = new AnalyticsCube(new RegistrationValidator());
+        pool.addMutationListener(cube);
+
+        // Ann: WA, accepted, two violations in March and a crash in April
+        ann = TestDrivers.driver("L1", "Ann", "Jones");
+        ann.getDriverHistory().addViolation(new MovingViolation(day(MARCH, 10), "Distracted driving"));
+        ann.getDriverHistory().addViolation(new NonMovingViolation(day(MARCH, 20), "Parking Violation"));
+        ann.getVehicleHistory().addCrash(new Crash(day(APRIL, 2), "Fender-bender", ann.getName()));
+        // Ben: CA, too young, a violation in April
+        LocalDate today = LocalDate.now();
+        ben = TestDrivers.driver("L2", new Name("Ben", "Smith"), today.minusYears(16), today.minusYears(1),
+                today.plusYears(5), today.getYear() - 2, today.plusYears(1));
+        inState(ben, "CA");
+        ben.getDriverHistory().addViolation(new MovingViolation(day(APRIL, 5), "Speeding"));
+        // Cal: CA, accepted, no events
+        cal = TestDrivers.driver("L3", "Cal", "Brown");
+        inState(cal, "ca");
+    }
+
+    @Test
+    void countsAddUpToHandComputedRollUps() {
+        pool.addDriver(ann);
+        pool.addDriver(ben);
+        pool.addDriver(cal);
+
+        assertEquals(3, cube.getDriverCount());
+        assertEquals(3L, cube.countViolations(null, null, null, null));
+        assertEquals(1L, cube.countViolations("Speeding", null, null, null));
+        assertEquals(1L, cube.countViolations("speeding", "CA", null, null));
+        assertEquals(1L, cube.countViolations("Distracted driving", "WA", MARCH, MARCH));
+        assertEquals(2L, cube.countViolations(null, "WA", MARCH, MARCH));
+        assertEquals(1L, cube.countViolations(null, null, APRIL, null));
+        assertEquals(Map.of(MARCH, 2L, APRIL, 1L), cube.violationsByMonth(null, null));
+        assertEquals(1L, (long) cube.violationsByType("WA", null, null).get("Parking Violation"));
+        assertEquals(1L, cube.countCrashes("Fender-bender", "WA", APRIL, APRIL));
+        assertEquals(0L, cube.countCrashes(null, "CA", null, null));
+        assertEquals(1L, (long) cube.crashesByType(null, null, null).get("Fender-bender"));
+        assertEquals(2L, cube.countAccepted(null));
+        assertEquals(1L, cube.countAccepted("CA"));
+        assertEquals(1L, cube.countRejections(ValidationCheck.AGE, "CA"));
+        assertEquals(Map.of("CA", 1L), cube.rejectionsByState(null));
+        assertEquals(List.of(), cube.verify(pool.getDrivers()));
+    }
+
+    @Test
+    void removalTakesBackWhatTheDriverWasCountedAs() {
+        pool.addDriver(ann);
+        pool.addDriver(ben);
+        pool.addDriver(cal);
+
+        ann.getDriverHistory().addViolation(new MovingViolation(day(APRIL, 1), "Speeding"));
+        pool.removeDriver("L1");
+        pool.removeDriver("L2");
+
+        assertEquals(1, cube.getDriverCount());
+        assertEquals(0L, cube.countViolations(null, null, null, null));
+        assertEquals(0L, cube.countCrashes(null, null, null, null));
+        assertEquals(1L, cube.countAccepted(null));
+        assertEquals(0L, cube.countRejections(null, null));
+        assertEquals(Map.of(), cube.violationsByMonth(null, null));
+        assertEquals(List.of(), cube.verify(pool.getDrivers()));
+    }
+
+    @Test
+    void refreshCountsTheChangedHistoriesAgain() {
+        pool.addDriver(ann);
+        pool.addDriver(cal);
+
+        cal.getDriverHistory().addViolation(new MovingViolation(day(MARCH, 1), "Reckless Driving"));
+        ann.getVehicleHistory().addCrash(new Crash(day(MARCH, 3), "Fender-bender", null));
+        assertFalse(cube.verify(pool.getDrivers()).isEmpty());
+
+        cube.refresh(cal);
+        cube.refresh(ann);
+        cube.refresh(ben);
+
+        assertEquals(List.of(), cube.verify(pool.getDrivers()));
+        assertEquals(2, cube.getDriverCount());
+        assertEquals(3L, cube.countViolations(null, null, MARCH, MARCH));
+        assertEquals(1L, cube.countViolations("Reckless Driving", "CA", null, null));
+        assertEquals(2L, cube.countCrashes("Fender-bender", "WA", null, null));
+        assertEquals(1L, cube.countCrashes(null, null, MARCH, MARCH));
+        // a reckless driving violation rejects Cal from then on
+        assertEquals(1L, cube.countAccepted(null));
+        assertEquals(Map.of("CA", 1L), cube.rejectionsByState(ValidationCheck.DRIVER_HISTORY));
+    }
+
+    private static Date day(YearMonth month, int day) {
+        return TestDrivers.date(month.atDay(day));
+    }
+
+    private static void inState(Driver driver, String state) {
+        DriverLicense license = driver.getDriverLicense();
+        driver.setDriverLicense(new DriverLicense(license.getLicenseNumber(), license.getName(), license.getAddress(),
+                license.getBirthDate(), license.getCountryOfIssuance(), state, license.getIssuedDate(),
+                license.getExpirationDate()));
+    }
+}
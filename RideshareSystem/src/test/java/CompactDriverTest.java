@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompactDriverTest {
+
+    @Test
+    void decodedDriverEqualsTheOriginalAndGetsTheSameVerdict() throws Exception {
+        Driver driver = TestDrivers.driver("L1", "Ann", "Jones");
+        LocalDate today = LocalDate.now();
+        driver.getDriverHistory().addViolation(ViolationFactory.createViolation("Speeding", TestDrivers.date(today.minusYears(2))));
+        driver.getDriverHistory().addViolation(ViolationFactory.createViolation("Parking Violation", TestDrivers.date(today.minusDays(3))));
+        driver.getVehicleHistory().addCrash(CrashFactory.getInstance().createCrash("Fender-bender",
+                TestDrivers.date(today.minusYears(1)), new Name("Bob", "Smith")));
+
+        CompactDriver compact = new CompactDriverEncoder().encode(driver);
+        Driver decoded = compact.toDriver();
+
+        assertEquals(driver, decoded);
+        assertNotSame(driver.getName(), decoded.getName());
+        assertEquals(2, compact.getViolationCount());
+        RegistrationValidator validator = new RegistrationValidator();
+        assertEquals(validator.validate(driver), validator.validate(decoded));
+    }
+
+    @Test
+    void encoderSharesRepeatedStringsAcrossDrivers() {
+        CompactDriverEncoder encoder = new CompactDriverEncoder();
+        List<CompactDriver> drivers = List.of(encoder.encode(TestDrivers.driver("L1", "Ann", "Jones")),
+                encoder.encode(TestDrivers.driver("L2", "Ann", "Jones")));
+
+        int afterTwo = encoder.getInternedStringCount();
+        encoder.encode(TestDrivers.driver("L3", "Ann", "Jones"));
+
+        // the third driver differs only in its unique values, which are copied rather than shared
+        assertEquals(afterTwo, encoder.getInternedStringCount());
+        assertSame(drivers.get(0).getLastName(), drivers.get(1).getLastName());
+        assertNotSame(drivers.get(0).getId(), drivers.get(1).getId());
+    }
+}
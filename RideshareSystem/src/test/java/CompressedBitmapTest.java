@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CompressedBitmapTest {
+
+    @Test
+    void algebraMatchesBitSetForSparseAndDenseChunks() {
+        Random random = new Random(11);
+        // the first chunk ends up dense, the others sparse, and values span several chunks
+        BitSet leftBits = randomBits(random, 6000, 70_000);
+        BitSet rightBits = randomBits(random, 9000, 140_000);
+        CompressedBitmap left = toBitmap(leftBits);
+        CompressedBitmap right = toBitmap(rightBits);
+
+        BitSet and = (BitSet) leftBits.clone();
+        and.and(rightBits);
+        BitSet or = (BitSet) leftBits.clone();
+        or.or(rightBits);
+        BitSet andNot = (BitSet) leftBits.clone();
+        andNot.andNot(rightBits);
+
+        assertArrayEquals(and.stream().toArray(), left.and(right).toArray());
+        assertArrayEquals(or.stream().toArray(), left.or(right).toArray());
+        assertArrayEquals(andNot.stream().toArray(), left.andNot(right).toArray());
+        assertEquals(or.cardinality(), left.or(right).cardinality());
+        // the operands are left unchanged
+        assertArrayEquals(leftBits.stream().toArray(), left.toArray());
+        assertArrayEquals(rightBits.stream().toArray(), right.toArray());
+    }
+
+    @Test
+    void removingValuesFromADenseChunkKeepsTheSetExact() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 5000; i++) {
+            bitmap.add(i * 3);
+        }
+        assertEquals(5000, bitmap.cardinality());
+        for (int i = 0; i < 5000; i += 2) {
+            bitmap.remove(i * 3);
+        }
+
+        assertEquals(2500, bitmap.cardinality());
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(3));
+        assertEquals(bitmap, bitmap.copy());
+        for (int i = 1; i < 5000; i += 2) {
+            bitmap.remove(i * 3);
+        }
+        assertTrue(bitmap.isEmpty());
+        assertEquals(new CompressedBitmap(), bitmap);
+    }
+
+    private static BitSet randomBits(Random random, int count, int bound) {
+        BitSet bits = new BitSet();
+        for (int i = 0; i < count; i++) {
+            bits.set(random.nextInt(i < count / 2 ? 65536 : bound));
+        }
+        return bits;
+    }
+
+    private static CompressedBitmap toBitmap(BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bits.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+}
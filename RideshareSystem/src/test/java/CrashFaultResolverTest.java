@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CrashFaultResolverTest {
+    private static final int DAY = (int) LocalDate.of(2022, 1, 15).toEpochDay();
+    private static final int FENDER_BENDER = PackedHistory.crashCode("Fender-bender");
+
+    private final Driver annOne = TestDrivers.driver("L1", "Ann", "Jones");
+    private final Driver annTwo = TestDrivers.driver("L2", "Ann", "Jones");
+    private final Driver bob = TestDrivers.driver("L3", "Bob", "Smith");
+    private final List<Driver> pool = List.of(annOne, annTwo, bob);
+
+    @Test
+    void uniqueNameResolvesAndCountsAsCausedOnOthers() {
+        crash(annOne, "Bob", "Smith");
+
+        CrashFaultResolver.Result result = new CrashFaultResolver(pool).resolve(pool);
+
+        CrashFaultResolver.Attribution attribution = result.getAttributions().get(0);
+        assertEquals(CrashFaultResolver.Status.RESOLVED, attribution.getStatus());
+        assertSame(bob, attribution.getOffender());
+        assertSame(annOne, attribution.getVehicleDriver());
+        assertFalse(attribution.isOwnFault());
+        assertEquals(1, result.getCausedOnOthersCount("L3"));
+        assertEquals(0, result.getOwnFaultCount("L3"));
+        assertEquals(1, result.getAtFaultCount("L3"));
+        assertEquals(0, result.getAtFaultCount("L1"));
+    }
+
+    @Test
+    void sharedNameOfTheVehicleDriverResolvesToThemAsOwnFault() {
+        crash(annTwo, "Ann", "Jones");
+        crash(annTwo, "Ann", "Jones");
+
+        CrashFaultResolver.Result result = new CrashFaultResolver(pool).resolve(pool);
+
+        for (CrashFaultResolver.Attribution attribution : result.getAttributions()) {
+            assertSame(annTwo, attribution.getOffender());
+            assertTrue(attribution.isOwnFault());
+        }
+        assertEquals(2, result.getOwnFaultCount("L2"));
+        assertEquals(0, result.getCausedOnOthersCount("L2"));
+        assertEquals(0, result.getAtFaultCount("L1"));
+        assertEquals(2, result.getCount(CrashFaultResolver.Status.RESOLVED));
+    }
+
+    @Test
+    void sharedNameOfAnotherDriverIsAmbiguous() {
+        crash(bob, "Ann", "Jones");
+
+        CrashFaultResolver.Result result = new CrashFaultResolver(pool).resolve(pool);
+
+        CrashFaultResolver.Attribution attribution = result.getAttributions().get(0);
+        assertEquals(CrashFaultResolver.Status.AMBIGUOUS, attribution.getStatus());
+        assertNull(attribution.getOffender());
+        assertEquals(List.of(annOne, annTwo), attribution.getCandidates());
+        assertEquals(1, result.getCount(CrashFaultResolver.Status.AMBIGUOUS));
+        assertEquals(0, result.getAtFaultCount("L1") + result.getAtFaultCount("L2"));
+    }
+
+    @Test
+    void unknownOrMissingNameIsUnresolved() {
+        crash(bob, "Nobody", "Here");
+        bob.getVehicleHistory().addCrash(DAY, FENDER_BENDER, null);
+
+        CrashFaultResolver.Result result = new CrashFaultResolver(pool).resolve(pool);
+
+        assertEquals(2, result.getCount(CrashFaultResolver.Status.UNRESOLVED));
+        assertTrue(result.getAttributions().get(0).getCandidates().isEmpty());
+        assertEquals(0, result.getAtFaultCount("L3"));
+    }
+
+    @Test
+    void equalRecordOutsideThePoolIsNotTakenForThePooledDriver() {
+        Driver copyOfAnnOne = TestDrivers.driver("L1", "Ann", "Jones");
+        crash(copyOfAnnOne, "Ann", "Jones");
+
+        CrashFaultResolver.Result result = new CrashFaultResolver(pool).resolve(List.of(copyOfAnnOne));
+
+        assertEquals(CrashFaultResolver.Status.AMBIGUOUS, result.getAttributions().get(0).getStatus());
+    }
+
+    private static void crash(Driver vehicleDriver, String firstName, String lastName) {
+        vehicleDriver.getVehicleHistory().addCrash(DAY, FENDER_BENDER, new Name(firstName, lastName));
+    }
+}
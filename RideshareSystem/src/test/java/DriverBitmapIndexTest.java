@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DriverBitmapIndexTest {
+    private DriverPoolManager pool;
+    private DriverBitmapIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        pool = new DriverPoolManager();
+        index = new DriverBitmapIndex(new RegistrationValidator());
+        pool.addMutationListener(index);
+    }
+
+    @Test
+    void resultTakenBeforeARemovalNeverNamesTheDriverGivenTheOrdinal() {
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith"));
+        CompressedBitmap before = index.all();
+
+        pool.removeDriver("L1");
+        Driver next = TestDrivers.driver("L3", "Cal", "Brown");
+        pool.addDriver(next);
+
+        assertEquals(List.of("L2"), licenses(index.getDrivers(before)));
+        assertEquals(List.of("L3", "L2"), licenses(index.getDrivers(index.all())));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void ordinalsOfRemovedDriversAreGivenOutAgain() {
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        for (int i = 2; i < 200; i++) {
+            pool.removeDriver("L" + (i - 1));
+            pool.addDriver(TestDrivers.driver("L" + i, "Ann", "Jones"));
+        }
+
+        assertArrayEquals(new int[] {0}, index.all().toArray());
+        assertEquals(List.of("L199"), licenses(index.getDrivers(index.all())));
+    }
+
+    @Test
+    void combinedResultIsAsOldAsItsOldestPart() {
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        CompressedBitmap before = index.all();
+        pool.removeDriver("L1");
+        pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith"));
+        CompressedBitmap after = index.all();
+
+        assertEquals(before, after);
+        assertEquals(List.of(), licenses(index.getDrivers(before.or(after))));
+        assertEquals(List.of(), licenses(index.getDrivers(after.and(before))));
+        assertEquals(List.of("L2"), licenses(index.getDrivers(after)));
+        assertEquals(List.of("L2"), licenses(index.getDrivers(after.copy())));
+    }
+
+    @Test
+    void unknownViolationTypeMatchesNobody() {
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+
+        assertTrue(index.withViolationType("Drag racing").isEmpty());
+        assertTrue(index.withViolationType("speeding").isEmpty());
+    }
+
+    private static List<String> licenses(List<Driver> drivers) {
+        return drivers.stream().map(driver -> driver.getDriverLicense().getLicenseNumber()).toList();
+    }
+}
@@ -0,0 +1,220 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class DriverPoolManagerTest {
+
+    @Test
+    void pagesFollowQueryOrderAcrossInsertsAndRemovals() {
+        DriverPoolManager pool = new DriverPoolManager();
+        String[] firstNames = {"Mia", "Ava", "Zoe", "Eli", "Ben", "Ava", "Kai"};
+        for (int i = 0; i < firstNames.length; i++) {
+            pool.addDriver(TestDrivers.driver("L" + i, firstNames[i], "Smith"));
+        }
+        pool.addDriver(TestDrivers.driver("X1", "Ann", "Jones"));
+        pool.removeDriver("L3");
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            DriverInfoPage page = pool.queryByLastName("sMiTh", cursor, 2);
+            assertTrue(page.getResults().size() <= 2);
+            page.getResults().forEach(info -> seen.add(info.getFirstName() + "/" + info.getLicenseNumber()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("Ava/L1", "Ava/L5", "Ben/L4", "Kai/L6", "Mia/L0", "Zoe/L2"), seen);
+    }
+
+    @Test
+    void unknownLastNameGivesAnEmptyLastPage() {
+        DriverPoolManager pool = new DriverPoolManager();
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+
+        DriverInfoPage page = pool.queryByLastName("Smith", null, 10);
+
+        assertTrue(page.getResults().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void removingTheLastDriverOfANameDropsTheName() {
+        DriverPoolManager pool = new DriverPoolManager();
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        pool.removeDriver("L1");
+
+        assertTrue(pool.queryByLastName("Jones").getResults().isEmpty());
+        assertFalse(pool.snapshot().lastNameIndex().containsKey("jones"));
+    }
+
+    @Test
+    void olderSnapshotsKeepTheirOwnOrder() {
+        DriverPoolManager pool = new DriverPoolManager();
+        pool.addDriver(TestDrivers.driver("L1", "Bob", "Lee"));
+        PoolSnapshot before = pool.snapshot();
+        pool.addDriver(TestDrivers.driver("L2", "Al", "Lee"));
+
+        assertEquals(1, before.queryByLastName("Lee", null, 0).getResults().size());
+        assertEquals("Al", pool.queryByLastName("Lee").getResults().get(0).getFirstName());
+    }
+
+    @Test
+    void writerWaitsToPublishWithoutHoldingTheLock() throws InterruptedException {
+        DriverPoolManager pool = new DriverPoolManager();
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch allowed = new CountDownLatch(1);
+        pool.addMutationListener(new CountingListener() {
+            @Override
+            public void awaitPublishable() {
+                waiting.countDown();
+                await(allowed);
+            }
+        });
+        Thread writer = new Thread(() -> pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones")));
+        writer.start();
+        waiting.await();
+
+        // the write lock is free while the writer waits, and readers do not see the operation yet
+        assertTrue(pool.latest().containsDriver("L1"));
+        assertFalse(pool.snapshot().containsDriver("L1"));
+
+        allowed.countDown();
+        writer.join();
+        assertTrue(pool.snapshot().containsDriver("L1"));
+        assertEquals("L1", pool.snapshot().getVehicleUser("V-L1"));
+    }
+
+    @Test
+    void refusedOperationIsCancelledWithTheOperationsBuiltOnIt() throws InterruptedException {
+        DriverPoolManager pool = new DriverPoolManager();
+        CountDownLatch firstWaiting = new CountDownLatch(1);
+        CountDownLatch secondStaged = new CountDownLatch(1);
+        CountDownLatch firstRefused = new CountDownLatch(1);
+        Thread main = Thread.currentThread();
+        CountingListener listener = new CountingListener() {
+            @Override
+            public void beforePublish() {
+                if (Thread.currentThread() == main) {
+                    secondStaged.countDown();
+                }
+            }
+
+            @Override
+            public void awaitPublishable() {
+                if (Thread.currentThread() == main) {
+                    await(firstRefused);
+                    return;
+                }
+                firstWaiting.countDown();
+                await(secondStaged);
+                throw new IllegalStateException("refused");
+            }
+        };
+        pool.addMutationListener(listener);
+        AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+        Thread first = new Thread(() -> {
+            try {
+                pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+            } catch (RuntimeException e) {
+                firstFailure.set(e);
+            } finally {
+                firstRefused.countDown();
+            }
+        });
+        first.start();
+        firstWaiting.await();
+
+        assertThrows(IllegalStateException.class, () -> pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith")));
+        first.join();
+
+        assertEquals("refused", firstFailure.get().getMessage());
+        assertEquals(0, pool.snapshot().getDriverCount());
+        assertEquals(0, pool.latest().getDriverCount());
+        assertEquals(0, listener.drivers);
+        assertEquals(0, listener.vehicles);
+        assertEquals(2, listener.cancellations);
+        // the vehicles the cancelled operations claimed are free again
+        pool.addDriver(TestDrivers.driver("L3", "Cal", "Brown"));
+        assertEquals(1, pool.snapshot().getDriverCount());
+    }
+
+    @Test
+    void batchIsReportedChangeByChangeAndPublishedAsOneVersion() {
+        DriverPoolManager pool = new DriverPoolManager();
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith"));
+        int[] published = new int[1];
+        CountingListener listener = new CountingListener() {
+            @Override
+            public void beforePublish() {
+                published[0]++;
+            }
+        };
+        pool.addMutationListener(listener);
+        long version = pool.snapshot().getVersion();
+        Driver returning = TestDrivers.driver("L1", "Ann", "Jones");
+
+        pool.applyBatch(List.of("L1", "L9"), List.of(TestDrivers.driver("L3", "Cal", "Brown"),
+                TestDrivers.driver("L2", "Ben", "Smith"), returning));
+
+        assertEquals(version + 1, pool.snapshot().getVersion());
+        assertEquals(1, published[0]);
+        assertEquals(3, pool.snapshot().getDriverCount());
+        assertTrue(pool.snapshot().getDriver("L1") == returning);
+        // L1 left and came back, L3 joined, the duplicate L2 was skipped
+        assertEquals(1, listener.drivers);
+        assertEquals(1, listener.vehicles);
+
+        pool.applyBatch(List.of("L9"), List.of());
+        assertEquals(version + 1, pool.snapshot().getVersion());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // counts the net changes a listener has seen
+    private static class CountingListener implements PoolMutationListener {
+        int drivers;
+        int vehicles;
+        int cancellations;
+
+        @Override
+        public void onDriverAdded(Driver driver) {
+            drivers++;
+        }
+
+        @Override
+        public void onDriverRemoved(Driver driver) {
+            drivers--;
+        }
+
+        @Override
+        public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+            vehicles++;
+        }
+
+        @Override
+        public void onVehicleReleased(String vehicleId, String licenseNumber) {
+            vehicles--;
+        }
+
+        @Override
+        public void onCancelled() {
+            cancellations++;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DriverPoolPersistenceTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("persistence");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void reopeningRestoresSnapshotAndLogTail() throws IOException {
+        DriverPoolManager pool = new DriverPoolManager();
+        try (DriverPoolPersistence persistence = DriverPoolPersistence.open(directory, pool, 0)) {
+            pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+            pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith"));
+            persistence.snapshot();
+            pool.addDriver(TestDrivers.driver("L3", "Cal", "Smith"));
+            pool.removeDriver("L1");
+        }
+
+        DriverPoolManager recovered = new DriverPoolManager();
+        try (DriverPoolPersistence persistence = DriverPoolPersistence.open(directory, recovered, 0)) {
+            assertEquals(2, persistence.getRecoveredRecords());
+            assertEquals(2, recovered.snapshot().getDriverCount());
+            assertFalse(recovered.snapshot().containsDriver("L1"));
+            assertEquals("L3", recovered.snapshot().getVehicleUser("V-L3"));
+            assertEquals(2, recovered.queryByLastName("smith").getResults().size());
+        }
+    }
+
+    @Test
+    void operationCancelledByAListenerIsNeitherPublishedNorLogged() throws IOException {
+        DriverPoolManager pool = new DriverPoolManager();
+        CountingListener counter = new CountingListener();
+        pool.addMutationListener(counter);
+        try (DriverPoolPersistence persistence = DriverPoolPersistence.open(directory, pool, 0)) {
+            pool.addMutationListener(new CountingListener() {
+                @Override
+                public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+                    throw new IllegalStateException("rejected");
+                }
+            });
+            assertThrows(IllegalStateException.class, () -> pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones")));
+
+            assertFalse(pool.snapshot().containsDriver("L1"));
+            assertEquals(0, counter.drivers);
+            assertEquals(0, counter.vehicles);
+            assertEquals(1, counter.cancellations);
+            persistence.awaitDurable();
+        }
+
+        DriverPoolManager recovered = new DriverPoolManager();
+        try (DriverPoolPersistence persistence = DriverPoolPersistence.open(directory, recovered, 0)) {
+            assertEquals(0, persistence.getRecoveredRecords());
+            assertEquals(0, recovered.snapshot().getDriverCount());
+        }
+    }
+
+    @Test
+    void operationIsDurableWhenItIsPublished() throws IOException {
+        DriverPoolManager pool = new DriverPoolManager();
+        DriverPoolPersistence persistence = DriverPoolPersistence.open(directory, pool, 0);
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+
+        // replay the log of the live pool without closing it first
+        DriverPoolManager recovered = new DriverPoolManager();
+        Path copy = Files.createDirectory(directory.resolve("copy"));
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                Files.copy(path, copy.resolve(path.getFileName()));
+            }
+        }
+        try (DriverPoolPersistence reopened = DriverPoolPersistence.open(copy, recovered, 0)) {
+            assertTrue(recovered.snapshot().containsDriver("L1"));
+            assertEquals(1, reopened.getRecoveredRecords());
+        }
+        persistence.close();
+    }
+
+    // counts the net changes a listener has seen
+    private static class CountingListener implements PoolMutationListener {
+        int drivers;
+        int vehicles;
+        int cancellations;
+
+        @Override
+        public void onDriverAdded(Driver driver) {
+            drivers++;
+        }
+
+        @Override
+        public void onDriverRemoved(Driver driver) {
+            drivers--;
+        }
+
+        @Override
+        public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+            vehicles++;
+        }
+
+        @Override
+        public void onVehicleReleased(String vehicleId, String licenseNumber) {
+            vehicles--;
+        }
+
+        @Override
+        public void onCancelled() {
+            cancellations++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DuplicateDetectorTest {
+
+    @Test
+    void chainedMatchesFormOneClusterAndEveryPairIsComparedOnce() {
+        List<Driver> drivers = List.of(
+                record("A", "Ann", "Jones", LocalDate.of(1990, 5, 1), "12 Oak St"),
+                record("B", "Ann", "Jones", LocalDate.of(1990, 5, 2), "12 Oak St"),
+                record("C", "Ann", "Jones", LocalDate.of(1990, 5, 3), "12 Oak St"),
+                record("D", "Bob", "Smith", LocalDate.of(1985, 3, 4), "Apt 5, 12 Elm Rd"),
+                record("E", "Bob", "Smith", LocalDate.of(1985, 4, 3), "12 Elm Rd Apt 5"),
+                record("F", "Cal", "Brown", LocalDate.of(1970, 1, 1), "99 Pine Ln"));
+
+        DuplicateDetector.Result result = new DuplicateDetector(0.85, 500, 2).detect(drivers);
+
+        List<DuplicateDetector.Cluster> clusters = result.getClusters();
+        assertEquals(2, clusters.size());
+        // day and month swapped; only the birth-year block brings the two together
+        assertEquals(List.of("D", "E"), ids(clusters.get(0)));
+        assertEquals(1, clusters.get(0).getMatchCount());
+        // A and C are two days apart and do not match, but both match B
+        assertEquals(List.of("A", "B", "C"), ids(clusters.get(1)));
+        assertEquals(2, clusters.get(1).getMatchCount());
+        // A, B and C share an address block and a birth-year block; each pair is still compared once
+        assertEquals(4, result.getComparisonCount());
+        assertEquals(3, result.getBlockCount());
+    }
+
+    @Test
+    void pairIsComparedInAnotherSharedBlockWhenItsFirstIsSkipped() {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            drivers.add(record("X" + i, "Ann", "Jones", LocalDate.of(1990, 5, 1), (10 + i) + " Oak St"));
+        }
+        drivers.add(record("Y", "Ann", "Jones", LocalDate.of(1990, 5, 1), "10 Oak St"));
+
+        // the surname-and-birthdate and birth-year blocks hold all four records and are skipped
+        DuplicateDetector.Result result = new DuplicateDetector(0.85, 3, 1).detect(drivers);
+
+        assertEquals(2, result.getSkippedBlockCount());
+        assertEquals(1, result.getComparisonCount());
+        assertEquals(List.of("X0", "Y"), ids(result.getClusters().get(0)));
+    }
+
+    private static Driver record(String id, String firstName, String lastName, LocalDate birthDate, String address) {
+        Name name = new Name(firstName, lastName);
+        DriverLicense license = new DriverLicense("L-" + id, name, address, TestDrivers.date(birthDate), "US", "WA",
+                null, null);
+        Driver driver = new Driver(name, TestDrivers.date(birthDate), license, new ArrayList<>(), null,
+                new DriverHistory(null), new VehicleHistory(null, null));
+        driver.setId(id);
+        return driver;
+    }
+
+    private static List<String> ids(DuplicateDetector.Cluster cluster) {
+        return cluster.getDrivers().stream().map(Driver::getId).toList();
+    }
+}
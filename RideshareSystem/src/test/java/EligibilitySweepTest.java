@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class EligibilitySweepTest {
+
+    @Test
+    void sweepAgreesWithValidatingOnEachDay() throws IOException {
+        List<Driver> drivers = SyntheticDataGenerator.generateDrivers(11, LocalDate.of(2026, 10, 1), 2000);
+        // more crashes and moving violations across the period, so vehicle histories decide many verdicts
+        Random random = new Random(5);
+        int start = (int) LocalDate.of(2021, 1, 1).toEpochDay();
+        List<String> movingTypes = ViolationFactory.MOVING_VIOLATION_TYPES;
+        for (Driver driver : drivers) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                driver.getVehicleHistory().addCrash(start + random.nextInt(2500), random.nextInt(3), null);
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                driver.getVehicleHistory().addViolation(new MovingViolation(
+                        PackedHistory.toDate(start + random.nextInt(2500)), movingTypes.get(random.nextInt(movingTypes.size()))));
+            }
+        }
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2026, 12, 31);
+
+        EligibilitySweep.Result result = new EligibilitySweep(new RegistrationValidator()).sweep(drivers, from, to);
+
+        List<LocalDate> days = new ArrayList<>(List.of(from, to, LocalDate.of(2024, 2, 29), LocalDate.of(2025, 3, 1)));
+        for (int i = 0; i < 8; i++) {
+            days.add(from.plusDays(random.nextInt(result.getDayCount())));
+        }
+        for (LocalDate day : days) {
+            RegistrationValidator validator = new RegistrationValidator(
+                    Clock.fixed(day.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+            int valid = 0;
+            for (Driver driver : drivers) {
+                boolean expected = validator.validate(asOf(driver, (int) day.toEpochDay()));
+                boolean swept = result.getIntervals(driver).stream().anyMatch(interval -> interval.contains(day));
+                assertEquals(expected, swept, driver.getId() + " on " + day);
+                valid += expected ? 1 : 0;
+            }
+            assertEquals(valid, result.getEligibleCount(day), day.toString());
+        }
+    }
+
+    // the driver with only the history recorded by the end of a day
+    private static Driver asOf(Driver driver, int day) {
+        List<Violation> violations = new ArrayList<>();
+        for (Violation violation : driver.getDriverHistory().getViolations()) {
+            if (violation.getDate() == null || PackedHistory.toDay(violation.getDate()) <= day) {
+                violations.add(violation);
+            }
+        }
+        VehicleHistory vehicleHistory = new VehicleHistory(null, null);
+        PackedHistory crashes = driver.getVehicleHistory().getCrashLog();
+        for (int i = 0; i < crashes.size(); i++) {
+            if (crashes.getDay(i) <= day) {
+                vehicleHistory.addCrash(crashes.getDay(i), crashes.getCode(i), crashes.getOffender(i));
+            }
+        }
+        for (Violation violation : driver.getVehicleHistory().getViolations()) {
+            if (PackedHistory.toDay(violation.getDate()) <= day) {
+                vehicleHistory.addViolation(violation);
+            }
+        }
+        return new Driver(driver.getName(), driver.getBirthDate(), driver.getDriverLicense(), driver.getVehicles(),
+                driver.getInsurance(), new DriverHistory(violations), vehicleHistory);
+    }
+}
@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EventSinkTest {
+    private Path file;
+    private FileChannel channel;
+    private EventSink sink;
+
+    @BeforeEach
+    void createSink() throws IOException {
+        file = Files.createTempFile("events", ".log");
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sink = new EventSink(channel, channel);
+    }
+
+    @AfterEach
+    void closeSink() throws IOException {
+        sink.close();
+        channel.close();
+        Files.delete(file);
+    }
+
+    @Test
+    void resultsAreNeitherFilteredLimitedCollapsedNorDropped() throws IOException {
+        sink.setMinimumLevel(EventSink.Level.ERROR);
+        // three times the ring buffer, all identical and under one key
+        for (int i = 0; i < 3 * 8192; i++) {
+            sink.result("Driver %s %s is valid.", "Ann", "Jones");
+        }
+        sink.flush();
+
+        List<String> lines = lines();
+        assertEquals(3 * 8192, lines.size());
+        assertTrue(lines.stream().allMatch("Driver Ann Jones is valid."::equals));
+        assertEquals(0, sink.getDroppedCount());
+        assertEquals(0, sink.getSuppressedCount());
+    }
+
+    @Test
+    void diagnosticsAreRateLimitedPerKeyAndKeptInOrderWithResults() throws IOException {
+        sink.result("first");
+        int queued = 0;
+        for (int i = 0; i < 500; i++) {
+            queued += sink.info("noisy", "Info: message %s", i) ? 1 : 0;
+        }
+        assertTrue(sink.error("other", "Error: another key"));
+        sink.result("last");
+        sink.flush();
+
+        assertEquals(100, queued);
+        assertEquals(400, sink.getSuppressedCount());
+        List<String> lines = lines();
+        assertEquals("first", lines.get(0));
+        assertEquals("Info: message 99", lines.get(100));
+        assertEquals("Error: another key", lines.get(101));
+        assertEquals("last", lines.get(102));
+    }
+
+    @Test
+    void flushReturnsWhileOtherThreadsKeepTheSinkBusy() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            long i = 0;
+            while (running.get()) {
+                // a new key each time, so that nothing is rate limited
+                sink.info("busy" + (i++ % 50_000), "busy %s", i);
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+
+        sink.result("marker");
+        Thread flusher = new Thread(sink::flush);
+        flusher.start();
+        flusher.join(10_000);
+        boolean flushed = !flusher.isAlive();
+        running.set(false);
+        producer.join();
+
+        assertTrue(flushed, "flush returned under load");
+        assertTrue(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("marker" + System.lineSeparator()));
+    }
+
+    private List<String> lines() throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
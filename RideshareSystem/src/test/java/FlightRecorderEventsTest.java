@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+class FlightRecorderEventsTest {
+
+    @Test
+    void validationEventNamesTheCheckThatRejectedTheDriver() throws IOException {
+        Driver tooYoung = TestDrivers.driver("L1", new Name("Ann", "Jones"), LocalDate.now().minusYears(18),
+                LocalDate.now().minusYears(1), LocalDate.now().plusYears(5), LocalDate.now().getYear(), LocalDate.now().plusYears(1));
+
+        List<RecordedEvent> events = record("rideshare.DriverValidation", () -> new RegistrationValidator().validate(tooYoung));
+
+        assertEquals(1, events.size());
+        assertEquals("D-L1", events.get(0).getString("driverId"));
+        assertFalse(events.get(0).getBoolean("valid"));
+        assertEquals(ValidationCheck.AGE.name(), events.get(0).getString("rejectedBy"));
+    }
+
+    @Test
+    void loadEmitsOneEventPerFileReadAndOneJoinPerDriver() throws IOException {
+        List<RecordedEvent> loads = record("rideshare.CsvLoad", RideshareDriverValidator::loadData);
+        List<RecordedEvent> joins = record("rideshare.DriverJoin", RideshareDriverValidator::loadData);
+
+        // driver.csv once, then each other file once per driver; the bundled drivers have one vehicle each
+        int drivers = joins.size();
+        assertEquals(1 + 5 * drivers, loads.size());
+        assertEquals(List.of("driver.csv"), loads.stream().map(event -> event.getString("fileName"))
+                .filter("driver.csv"::equals).collect(Collectors.toList()));
+    }
+
+    // the events of one type committed while an action runs
+    private static List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyHistoryStoreTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("histories");
+        Files.writeString(directory.resolve("violation.csv"), "violationType, date, driverId\n"
+                + "Speeding, 2022-03-10, D-L1\nParking Violation, 2022-04-01, D-L2\n");
+        Files.writeString(directory.resolve("crash.csv"), "date, crashType, offendingDriver, driverId\n"
+                + "2022-01-15, Fender-bender, Ann Jones, D-L1\n");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void changeToACachedHistorySurvivesEviction() throws IOException {
+        try (LazyHistoryStore store = LazyHistoryStore.open(directory, 1)) {
+            Violation added = new MovingViolation(TestDrivers.date(LocalDate.of(2023, 6, 1)), "Reckless Driving");
+            store.driverHistoryOf("D-L1").addViolation(added);
+            store.vehicleHistoryOf("D-L1").addViolation(added);
+            store.driverHistoryOf("D-L2");
+            store.driverHistoryOf("D-L3");
+
+            assertEquals(2, store.driverHistoryOf("D-L1").getViolations().size());
+            assertTrue(store.vehicleHistoryOf("D-L1").getViolations().contains(added));
+            assertEquals(1, store.getChangedCount());
+            assertEquals(3, store.getLoadCount());
+        }
+    }
+
+    @Test
+    void copyHandedOutBeforeEvictionIsTheOneServedAfterIt() throws IOException {
+        try (LazyHistoryStore store = LazyHistoryStore.open(directory, 1)) {
+            DriverHistory early = store.driverHistoryOf("D-L1");
+            store.driverHistoryOf("D-L2");
+
+            assertSame(early, store.driverHistoryOf("D-L1"));
+            early.addViolation(new MovingViolation(TestDrivers.date(LocalDate.of(2023, 6, 1)), "Reckless Driving"));
+            store.driverHistoryOf("D-L2");
+
+            assertEquals(2, store.driverHistoryOf("D-L1").getViolations().size());
+            assertEquals(2, store.getLoadCount());
+        }
+    }
+
+    @Test
+    void lazyDriversAreComparedByStoreAndIdWithoutReading() throws IOException {
+        try (LazyHistoryStore store = LazyHistoryStore.open(directory, 4);
+             LazyHistoryStore other = LazyHistoryStore.open(directory, 4)) {
+            Driver lazy = lazyDriver(store);
+
+            assertEquals(lazyDriver(store), lazy);
+            assertEquals(lazyDriver(store).hashCode(), lazy.hashCode());
+            assertNotEquals(lazyDriver(other), lazy);
+            assertNotEquals(TestDrivers.driver("L1", "Ann", "Jones"), lazy);
+            assertNotEquals(lazy, TestDrivers.driver("L1", "Ann", "Jones"));
+            assertEquals(0, store.getLoadCount());
+        }
+    }
+
+    private static Driver lazyDriver(LazyHistoryStore store) {
+        Driver driver = TestDrivers.driver("L1", "Ann", "Jones");
+        driver.setDriverHistory(null);
+        driver.setVehicleHistory(null);
+        driver.setHistoryStore(store);
+        return driver;
+    }
+}
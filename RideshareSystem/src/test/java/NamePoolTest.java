@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+class NamePoolTest {
+
+    @Test
+    void equalNamesShareOneInstance() {
+        NamePool pool = new NamePool();
+        Name first = pool.intern("Ann", "Jones");
+
+        assertSame(first, pool.intern("Ann", "Jones"));
+        assertSame(first, pool.intern(new Name("Ann", "Jones")));
+        assertFalse(first == pool.intern("Ann", "Smith"));
+        assertNull(pool.intern(null));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void insuredDriversAreLookedUpByValueAndKeptOnce() {
+        Name ann = new Name("Ann", "Jones");
+        VehicleInsurance insurance = new VehicleInsurance(ann, Arrays.asList(ann, new Name("Bob", "Smith"), new Name("Ann", "Jones")),
+                new Date(), null);
+
+        assertEquals(2, insurance.getInsuredDrivers().size());
+        assertTrue(insurance.isInsuredDriver(new Name("Bob", "Smith")));
+        assertFalse(insurance.isInsuredDriver(new Name("Bob", "Jones")));
+        assertFalse(new VehicleInsurance(ann, null, new Date(), null).isInsuredDriver(ann));
+    }
+}
@@ -0,0 +1,151 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapDriverStoreTest {
+    private static final int SEGMENT_SIZE = 4096;
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("offheap");
+        file = directory.resolve("drivers.bin");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (var paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void putReplaceAndRemove() throws IOException {
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file, SEGMENT_SIZE)) {
+            store.put(TestDrivers.driver("L1", "Ann", "Jones"));
+            store.put(TestDrivers.driver("L2", "Ben", "Smith"));
+            store.put(TestDrivers.driver("L1", "Amy", "Jones"));
+
+            assertEquals(2, store.size());
+            assertEquals("Amy", store.get("L1").getName().getFirstName());
+            assertEquals(Set.of("L1", "L2"), store.licenseNumbers());
+            assertTrue(store.getDeadBytes() > 0);
+
+            assertTrue(store.remove("L2"));
+            assertFalse(store.remove("L2"));
+            assertNull(store.get("L2"));
+            assertFalse(store.containsKey("L2"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void reopeningKeepsLiveDriversOnly() throws IOException {
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file, SEGMENT_SIZE)) {
+            for (int i = 0; i < 200; i++) {
+                store.put(TestDrivers.driver("L" + i, "First" + i, "Last" + (i % 7)));
+            }
+            for (int i = 0; i < 200; i += 3) {
+                store.remove("L" + i);
+            }
+            store.put(TestDrivers.driver("L1", "Changed", "Last1"));
+        }
+
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file)) {
+            assertEquals(200 - 67, store.size());
+            assertNull(store.get("L0"));
+            assertEquals("Changed", store.get("L1").getName().getFirstName());
+            assertEquals("Last3", store.get("L199").getName().getLastName());
+            assertTrue(store.getDeadBytes() > 0);
+
+            store.put(TestDrivers.driver("L0", "Back", "Last0"));
+            assertEquals("Back", store.get("L0").getName().getFirstName());
+        }
+    }
+
+    @Test
+    void compactionReclaimsDeadRecords() throws IOException {
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file, SEGMENT_SIZE)) {
+            for (int i = 0; i < 50; i++) {
+                store.put(TestDrivers.driver("L" + i, "First" + i, "Last"));
+            }
+            for (int i = 0; i < 40; i++) {
+                store.remove("L" + i);
+            }
+            long usedBefore = store.getUsedBytes();
+
+            store.compact();
+
+            assertEquals(0, store.getDeadBytes());
+            assertTrue(store.getUsedBytes() < usedBefore / 3);
+            assertEquals(10, store.size());
+            assertEquals("First45", store.get("L45").getName().getFirstName());
+        }
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file)) {
+            assertEquals(10, store.size());
+            assertEquals(0, store.getDeadBytes());
+        }
+    }
+
+    @Test
+    void mirrorsThePoolItIsRegisteredWith() throws IOException {
+        DriverPoolManager pool = new DriverPoolManager();
+        try (OffHeapDriverStore store = new OffHeapDriverStore(file, SEGMENT_SIZE)) {
+            pool.addMutationListener(store);
+            pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+            pool.addDriver(TestDrivers.driver("L2", "Ben", "Smith"));
+            pool.removeDriver("L1");
+
+            pool.addMutationListener(new PoolMutationListener() {
+                @Override
+                public void onDriverAdded(Driver driver) {
+                }
+
+                @Override
+                public void onDriverRemoved(Driver driver) {
+                }
+
+                @Override
+                public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+                }
+
+                @Override
+                public void onVehicleReleased(String vehicleId, String licenseNumber) {
+                }
+
+                @Override
+                public void beforePublish() {
+                    throw new IllegalStateException("refused");
+                }
+            });
+            assertThrows(IllegalStateException.class, () -> pool.addDriver(TestDrivers.driver("L3", "Cal", "Brown")));
+            assertThrows(IllegalStateException.class, () -> pool.removeDriver("L2"));
+
+            assertEquals(Set.of("L2"), store.licenseNumbers());
+            assertEquals(pool.snapshot().getDriver("L2"), store.get("L2"));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotStores() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        assertThrows(IOException.class, () -> new OffHeapDriverStore(file));
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class OnboardingSimulatorTest {
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void sameSeedRunsTheSameSimulation() throws IOException {
+        List<String> first = outcome(simulate(3));
+        List<String> second = outcome(simulate(3));
+
+        assertEquals(first, second);
+        assertTrue(first.stream().anyMatch(line -> line.startsWith("Applications: 400,")));
+    }
+
+    @Test
+    void poolEndsWithTheAcceptedDriversWhoStayed() throws IOException {
+        OnboardingSimulator simulator = simulate(5);
+        String report = report(simulator);
+
+        long accepted = Long.parseLong(find(report, "accepted: (\\d+)"));
+        long removed = 0;
+        Matcher removals = Pattern.compile("=(\\d+)").matcher(find(report, "Removals by cause: \\{(.*)}"));
+        while (removals.find()) {
+            removed += Long.parseLong(removals.group(1));
+        }
+        assertTrue(accepted > 0 && removed > 0);
+        assertEquals(accepted - removed, pool(simulator));
+        assertEquals(String.valueOf(pool(simulator)), find(report, "Pool size: final (\\d+)"));
+    }
+
+    private static OnboardingSimulator simulate(long seed) throws IOException {
+        List<Driver> applicants = SyntheticDataGenerator.generateDrivers(seed, START, 400);
+        OnboardingSimulator simulator = new OnboardingSimulator(applicants, START, 4.0, 2.0, 0.5, seed);
+        simulator.run(6);
+        return simulator;
+    }
+
+    private static long pool(OnboardingSimulator simulator) {
+        return simulator.getPool().snapshot().getDriverCount();
+    }
+
+    private static String report(OnboardingSimulator simulator) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        simulator.printReport(new PrintStream(out, true, StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // the report without the lines that depend on the machine
+    private static List<String> outcome(OnboardingSimulator simulator) {
+        return Arrays.stream(report(simulator).split("\\R"))
+                .filter(line -> !line.startsWith("Latency") && !line.startsWith("Event throughput"))
+                .toList();
+    }
+
+    private static String find(String report, String pattern) {
+        Matcher matcher = Pattern.compile(pattern).matcher(report);
+        assertTrue(matcher.find(), pattern);
+        return matcher.group(1);
+    }
+}
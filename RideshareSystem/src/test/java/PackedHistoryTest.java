@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PackedHistoryTest {
+    private static final Date DAY = TestDrivers.date(LocalDate.of(2020, 3, 14));
+
+    @Test
+    void violationsOfAnyTypeAreStoredAndReadBackUnchanged() {
+        List<Violation> added = List.of(new MovingViolation(DAY, "Speeding"), new MovingViolation(DAY, "speeding"),
+                new MovingViolation(DAY, "Drag racing"), new NonMovingViolation(DAY, "Littering"),
+                new NonMovingViolation(DAY, "Parking Violation"));
+
+        DriverHistory history = new DriverHistory(added);
+
+        assertEquals(added, history.getViolations());
+        PackedHistory log = history.getViolationLog();
+        int speeding = PackedHistory.violationCode("Speeding");
+        assertEquals(speeding, log.getCode(0));
+        assertEquals(speeding, log.getCode(1));
+        assertEquals(PackedHistory.OTHER_MOVING_VIOLATION, log.getCode(2));
+        assertEquals(PackedHistory.OTHER_NON_MOVING_VIOLATION, log.getCode(3));
+        assertEquals(3, log.count(PackedHistory.MOVING_VIOLATIONS));
+        assertEquals(speeding, PackedHistory.violationCode("SPEEDING"));
+        assertThrows(IllegalArgumentException.class, () -> PackedHistory.violationCode("Drag racing"));
+    }
+
+    @Test
+    void crashesOfAnyTypeKeepTheirTypeAndOffender() {
+        VehicleHistory history = new VehicleHistory(null, null);
+        Name offender = new Name("Bob", "Smith");
+        Crash unknown = new Crash(DAY, "Hit a deer", offender);
+        Crash otherCase = new Crash(DAY, "fender-bender", null);
+
+        history.addCrash(unknown);
+        history.addCrash(otherCase);
+
+        assertEquals(List.of(unknown, otherCase), history.getCrashes());
+        assertSame(offender, history.getCrashLog().getOffender(0));
+        assertEquals(PackedHistory.OTHER_CRASH, history.getCrashLog().getCode(0));
+        assertEquals(PackedHistory.crashCode("Fender-bender"), history.getCrashLog().getCode(1));
+        history.removeCrash(new Crash(DAY, "Hit a deer", new Name("Bob", "Smith")));
+        assertEquals(List.of(otherCase), history.getCrashes());
+    }
+
+    @Test
+    void unlistedRecentMovingViolationStillRejectsTheDriver() {
+        Driver driver = TestDrivers.driver("L1", "Ann", "Jones");
+        driver.getVehicleHistory().addViolation(new MovingViolation(TestDrivers.date(LocalDate.now().minusDays(5)), "Drag racing"));
+        Driver lowerCase = TestDrivers.driver("L2", "Ben", "Jones");
+        lowerCase.getDriverHistory().addViolation(new MovingViolation(TestDrivers.date(LocalDate.now().minusYears(3)), "speeding"));
+
+        RegistrationValidator validator = new RegistrationValidator();
+        assertFalse(validator.validate(driver));
+        assertEquals(ValidationCheck.VEHICLE_HISTORY, validator.firstFailedCheck(validator.summarize(driver)));
+        // the validator compares types without case, so the packed aggregates must too
+        assertEquals(ValidationCheck.DRIVER_HISTORY, validator.firstFailedCheck(validator.summarize(lowerCase)));
+    }
+
+    @Test
+    void loaderKeepsCrashRowsOfAnyType() {
+        NamePool names = new NamePool();
+        Crash crash = RideshareDriverValidator.toCrash(new String[] {"2020-03-14", "Fender-bender", "Bob Smith", "D1"}, names);
+        assertEquals("Fender-bender", crash.getCrashType());
+        assertTrue(crash.getOffendingDriver() == names.intern("Bob", "Smith"));
+
+        Crash unknown = RideshareDriverValidator.toCrash(new String[] {"2020-03-14", "Meteor", "Bob Smith", "D1"}, names);
+        assertEquals("Meteor", unknown.getCrashType());
+        assertEquals(PackedHistory.OTHER_CRASH, PackedHistory.crashCode(unknown));
+    }
+}
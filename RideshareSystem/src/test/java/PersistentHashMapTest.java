@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentHashMapTest {
+
+    @Test
+    void matchesAHashMapThroughAddsAndRemovals() {
+        Random random = new Random(3);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            Key key = new Key(random.nextInt(3000));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map.asMap());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(expected.get(new Key(i)), map.get(new Key(i)));
+        }
+    }
+
+    @Test
+    void olderVersionsAreUnchangedByNewerOnes() {
+        PersistentHashMap<Key, String> first = PersistentHashMap.<Key, String>empty().plus(new Key(1), "a");
+        PersistentHashMap<Key, String> second = first.plus(new Key(2), "b").plus(new Key(1), "c");
+        PersistentHashMap<Key, String> third = second.minus(new Key(1));
+
+        assertEquals(Map.of(new Key(1), "a"), first.asMap());
+        assertEquals(Map.of(new Key(1), "c", new Key(2), "b"), second.asMap());
+        assertEquals(Map.of(new Key(2), "b"), third.asMap());
+        assertNull(third.get(new Key(1)));
+        assertFalse(third.containsKey(new Key(1)));
+        assertSame(third, third.minus(new Key(99)));
+    }
+
+    // a key whose hash codes collide in groups of eight, so collision nodes are exercised
+    private static final class Key {
+        private final int value;
+
+        Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value / 8;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PoolStressHarnessTest {
+
+    @Test
+    void poolKeepsItsInvariantsUnderConcurrentOperations() throws InterruptedException {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            drivers.add(TestDrivers.driver("L" + i, "First" + i, "Last" + (i % 5)));
+        }
+
+        PoolStressHarness.Result result = new PoolStressHarness(drivers).run(4, 300);
+
+        assertEquals(0, result.getViolationCount(), String.valueOf(result.getViolations()));
+        assertTrue(result.getOperationsPerSecond() > 0);
+    }
+}
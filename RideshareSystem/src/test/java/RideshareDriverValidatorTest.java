@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RideshareDriverValidatorTest {
+    private static final List<String> FILES = List.of("driver.csv", "license.csv", "vehicle.csv",
+            "vehicleInsurance.csv", "crash.csv", "violation.csv");
+
+    @Test
+    void legacyLoadRecordsEachFileOnce() throws IOException {
+        // the metrics are process-wide, so only look at what this load adds
+        RideshareMetrics metrics = RideshareMetrics.getInstance();
+        long[] counts = new long[FILES.size()];
+        long[] items = new long[FILES.size()];
+        for (int i = 0; i < FILES.size(); i++) {
+            counts[i] = metrics.loader(FILES.get(i)).getCount();
+            items[i] = metrics.loader(FILES.get(i)).getItems();
+        }
+
+        RideshareDriverValidator.loadData();
+
+        for (int i = 0; i < FILES.size(); i++) {
+            OperationMetrics loader = metrics.loader(FILES.get(i));
+            assertEquals(counts[i] + 1, loader.getCount(), FILES.get(i));
+            assertEquals(items[i] + rows(FILES.get(i)), loader.getItems(), FILES.get(i));
+        }
+    }
+
+    @Test
+    void loadedVehicleHistoriesKeepTheirCrashesAndViolations() {
+        for (Driver driver : RideshareDriverValidator.loadData()) {
+            VehicleHistory history = driver.getVehicleHistory();
+            assertEquals(1, history.getCrashes().size(), driver.getId());
+            assertEquals("Fender-bender", history.getCrashes().get(0).getCrashType());
+            assertEquals(driver.getDriverHistory().getViolations(), history.getViolations());
+            assertEquals(1, history.getViolations().size(), driver.getId());
+        }
+    }
+
+    @Test
+    void nullDriverCountsAsARejection() {
+        OperationMetrics validations = RideshareMetrics.getInstance().validations();
+        long count = validations.getCount();
+        long failures = validations.getFailures();
+
+        assertFalse(new RegistrationValidator().validate(null));
+
+        assertEquals(count + 1, validations.getCount());
+        assertEquals(failures + 1, validations.getFailures());
+    }
+
+    // the rows of a bundled CSV file, without its header
+    private static long rows(String fileName) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                RideshareDriverValidatorTest.class.getClassLoader().getResourceAsStream(fileName), StandardCharsets.UTF_8))) {
+            return reader.lines().count() - 1;
+        }
+    }
+}
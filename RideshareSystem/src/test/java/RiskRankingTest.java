@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RiskRankingTest {
+    // events on the reference day weigh exactly their weight, so scores compare exactly
+    private static final LocalDate REFERENCE = LocalDate.of(2024, 1, 1);
+    private static final Date DAY = TestDrivers.date(REFERENCE);
+    private static final int SPEEDING = PackedHistory.violationCode("Speeding");
+
+    private DriverPoolManager pool;
+    private RiskRanking ranking;
+
+    @BeforeEach
+    void createRanking() {
+        pool = new DriverPoolManager();
+        ranking = new RiskRanking(RiskWeights.defaults(), REFERENCE);
+        pool.addMutationListener(ranking);
+    }
+
+    @Test
+    void topListsTheRiskiestFirstWithTiesByLicense() {
+        pool.addDriver(driver("L3", "Speeding"));
+        pool.addDriver(driver("L1", "Speeding"));
+        pool.addDriver(driver("L2", "Driving under influence"));
+        pool.addDriver(driver("L4"));
+
+        assertEquals(List.of("L2", "L1", "L3"), licenses(ranking.top(3)));
+        assertEquals(8.0, ranking.top(1).get(0).getScore());
+        assertEquals(List.of("L2", "L1", "L3", "L4"), licenses(ranking.top(10)));
+        assertEquals(4, ranking.size());
+    }
+
+    @Test
+    void removedDriverLeavesTheRankingAndIsNoLongerFollowed() {
+        Driver removed = driver("L1", "Driving under influence");
+        pool.addDriver(removed);
+        pool.addDriver(driver("L2", "Speeding"));
+
+        pool.removeDriver("L1");
+        removed.getDriverHistory().addViolation(new MovingViolation(DAY, "Reckless Driving"));
+
+        assertEquals(List.of("L2"), licenses(ranking.top(5)));
+        assertEquals(1, ranking.size());
+    }
+
+    @Test
+    void changesToRankedHistoriesAreScoredAsTheyHappen() {
+        Driver driver = driver("L1");
+        pool.addDriver(driver);
+        pool.addDriver(driver("L2", "Speeding"));
+
+        driver.getDriverHistory().addViolation(new MovingViolation(DAY, "Reckless Driving"));
+        assertEquals(List.of("L1", "L2"), licenses(ranking.top(2)));
+        assertEquals(5.0, ranking.top(1).get(0).getScore());
+
+        Crash crash = new Crash(DAY, "Fender-bender", driver.getName());
+        driver.getVehicleHistory().addCrash(crash);
+        driver.getVehicleHistory().addViolation(new MovingViolation(DAY, "Driving under influence"));
+        assertEquals(9.0, ranking.top(1).get(0).getScore());
+
+        driver.getVehicleHistory().removeCrash(crash);
+        assertEquals(5.0, ranking.top(1).get(0).getScore());
+    }
+
+    @Test
+    void recordedEventsAndRefreshedHistoriesChangeTheScore() {
+        Driver driver = driver("L1", "Speeding");
+        pool.addDriver(driver);
+        DriverHistory replaced = driver.getDriverHistory();
+
+        ranking.recordViolation("L1", PackedHistory.toDay(DAY), SPEEDING);
+        ranking.recordCrash("L1", PackedHistory.toDay(DAY), PackedHistory.crashCode("Fender-bender"));
+        ranking.recordViolation("L9", PackedHistory.toDay(DAY), SPEEDING);
+        assertEquals(10.0, ranking.top(1).get(0).getScore());
+
+        driver.setDriverHistory(new DriverHistory(List.of(new MovingViolation(DAY, "Reckless Driving"))));
+        ranking.refresh(driver);
+        assertEquals(5.0, ranking.top(1).get(0).getScore());
+
+        replaced.addViolation(new MovingViolation(DAY, "Driving under influence"));
+        driver.getDriverHistory().addViolation(new MovingViolation(DAY, "Speeding"));
+        assertEquals(8.0, ranking.top(1).get(0).getScore());
+    }
+
+    @Test
+    void topOfAgreesWithTheIncrementalRanking() {
+        Random random = new Random(7);
+        String[] types = {"Speeding", "Reckless Driving", "Driving under influence", "Parking Violation"};
+        for (int i = 0; i < 200; i++) {
+            pool.addDriver(driver("L" + i));
+        }
+        for (int i = 0; i < 600; i++) {
+            Driver driver = pool.snapshot().getDriver("L" + random.nextInt(200));
+            if (random.nextInt(4) == 0) {
+                driver.getVehicleHistory().addCrash(new Crash(DAY, "Fender-bender", driver.getName()));
+            } else {
+                driver.getDriverHistory().addViolation(new MovingViolation(DAY, types[random.nextInt(types.length)]));
+            }
+        }
+        for (int i = 0; i < 200; i += 7) {
+            pool.removeDriver("L" + i);
+        }
+
+        List<RiskRanking.RankedDriver> incremental = ranking.top(20);
+        List<RiskRanking.RankedDriver> oneShot = RiskRanking.topOf(pool.getDrivers(), 20, RiskWeights.defaults(), REFERENCE);
+
+        assertEquals(licenses(oneShot), licenses(incremental));
+        for (int i = 0; i < oneShot.size(); i++) {
+            assertEquals(oneShot.get(i).getScore(), incremental.get(i).getScore());
+        }
+        assertTrue(incremental.get(0).getScore() > incremental.get(19).getScore());
+    }
+
+    private static Driver driver(String licenseNumber, String... violationTypes) {
+        Driver driver = TestDrivers.driver(licenseNumber, "Ann", "Jones");
+        for (String type : violationTypes) {
+            driver.getDriverHistory().addViolation(new MovingViolation(DAY, type));
+        }
+        return driver;
+    }
+
+    private static List<String> licenses(List<RiskRanking.RankedDriver> ranked) {
+        return ranked.stream().map(entry -> entry.getDriver().getDriverLicense().getLicenseNumber()).toList();
+    }
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedDriverPoolTest {
+    private ShardedDriverPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new ShardedDriverPool(4);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void cancelledAddGivesBackTheVehiclesItClaimed() {
+        FailingListener listener = new FailingListener();
+        pool.addMutationListener(listener);
+        listener.failOnClaim = true;
+
+        assertThrows(IllegalStateException.class, () -> pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones")));
+        assertNull(pool.getDriver("L1"));
+        assertNull(pool.getVehicleUser("V-L1"));
+
+        // a driver of any shard can now claim the vehicle
+        listener.failOnClaim = false;
+        pool.addDriver(sharingVehicle("L2", "V-L1"));
+        assertEquals("L2", pool.getVehicleUser("V-L1"));
+    }
+
+    @Test
+    void cancelledRemovalKeepsTheVehiclesClaimed() {
+        FailingListener listener = new FailingListener();
+        pool.addMutationListener(listener);
+        pool.addDriver(TestDrivers.driver("L1", "Ann", "Jones"));
+        listener.failOnRemoval = true;
+
+        assertThrows(IllegalStateException.class, () -> pool.removeDriver("L1"));
+        assertEquals("L1", pool.getVehicleUser("V-L1"));
+
+        listener.failOnRemoval = false;
+        pool.addDriver(sharingVehicle("L2", "V-L1"));
+        assertEquals("L1", pool.getVehicleUser("V-L1"));
+        pool.removeDriver("L1");
+        assertNull(pool.getVehicleUser("V-L1"));
+    }
+
+    @Test
+    void partitionedQueryKeepsSingleCursorOrder() {
+        String[] firstNames = {"Mia", "Ava", "Zoe", "Eli", "Ben", "Kai"};
+        for (int i = 0; i < firstNames.length; i++) {
+            pool.addDriver(TestDrivers.driver("L" + i, firstNames[i], "Smith"));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            DriverInfoPage page = pool.queryByLastName("smith", cursor, 4);
+            page.getResults().forEach(info -> seen.add(info.getFirstName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("Ava", "Ben", "Eli", "Kai", "Mia", "Zoe"), seen);
+    }
+
+    // a driver whose only vehicle has the given ID
+    private static Driver sharingVehicle(String licenseNumber, String vehicleId) {
+        Driver driver = TestDrivers.driver(licenseNumber, "Other", "Driver");
+        Vehicle vehicle = driver.getVehicles().get(0);
+        driver.getVehicles().set(0, new Vehicle(vehicle.getMake(), vehicle.getModel(), vehicle.getColor(),
+                vehicle.getYear(), driver.getName(), vehicleId));
+        return driver;
+    }
+
+    // throws on demand from the callbacks the tests cancel operations with
+    private static final class FailingListener implements PoolMutationListener {
+        boolean failOnClaim;
+        boolean failOnRemoval;
+
+        @Override
+        public void onDriverAdded(Driver driver) {
+        }
+
+        @Override
+        public void onDriverRemoved(Driver driver) {
+            if (failOnRemoval) {
+                throw new IllegalStateException("removal rejected");
+            }
+        }
+
+        @Override
+        public void onVehicleClaimed(String vehicleId, String licenseNumber) {
+            if (failOnClaim) {
+                throw new IllegalStateException("claim rejected");
+            }
+        }
+
+        @Override
+        public void onVehicleReleased(String vehicleId, String licenseNumber) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialGridIndexTest {
+
+    @Test
+    void nearestMatchesABruteForceSearch() {
+        Random random = new Random(5);
+        int capacity = 500;
+        SpatialGridIndex index = new SpatialGridIndex(capacity, 100, 60, 7);
+        for (int id = 0; id < capacity; id++) {
+            index.insert(id, random.nextDouble() * 100, random.nextDouble() * 60);
+        }
+        for (int id = 0; id < capacity; id += 3) {
+            index.remove(id);
+        }
+
+        for (int query = 0; query < 2000; query++) {
+            // some queries fall outside the area and are clamped to its edge
+            double x = random.nextDouble() * 120 - 10;
+            double y = random.nextDouble() * 80 - 10;
+            int nearest = index.nearest(x, y);
+            assertEquals(bruteForceDistance(index, capacity, x, y), distance(index, nearest, x, y), 1e-9);
+        }
+    }
+
+    @Test
+    void emptyIndexHasNoNearestPoint() {
+        SpatialGridIndex index = new SpatialGridIndex(2, 10, 10, 1);
+        index.insert(1, 5, 5);
+        index.remove(1);
+
+        assertEquals(-1, index.nearest(5, 5));
+        assertFalse(index.contains(1));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialGridIndex(1, 0, 10, 1));
+    }
+
+    private static double bruteForceDistance(SpatialGridIndex index, int capacity, double x, double y) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int id = 0; id < capacity; id++) {
+            if (index.contains(id)) {
+                best = Math.min(best, distance(index, id, x, y));
+            }
+        }
+        return best;
+    }
+
+    // the distance from a point to a location clamped to the area, as the index measures it
+    private static double distance(SpatialGridIndex index, int id, double x, double y) {
+        double clampedX = Math.min(Math.max(x, 0), 100);
+        double clampedY = Math.min(Math.max(y, 0), 60);
+        return Math.hypot(index.getX(id) - clampedX, index.getY(id) - clampedY);
+    }
+}
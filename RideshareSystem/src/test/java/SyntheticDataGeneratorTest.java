@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SyntheticDataGeneratorTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("generated");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void jsonAndCsvHoldTheSameViolations() throws IOException {
+        new SyntheticDataGenerator(7, LocalDate.of(2023, 10, 1)).generate(directory, 400);
+
+        long csvViolations;
+        try (Stream<String> lines = Files.lines(directory.resolve("violation.csv"))) {
+            csvViolations = lines.skip(1).filter(line -> !line.isEmpty()).count();
+        }
+        long jsonViolations = 0;
+        int mostViolations = 0;
+        try (Reader reader = Files.newBufferedReader(directory.resolve("drivers.json"), StandardCharsets.UTF_8)) {
+            JsonArray drivers = JsonParser.parseReader(reader).getAsJsonArray();
+            assertEquals(400, drivers.size());
+            for (JsonElement driver : drivers) {
+                int count = driver.getAsJsonObject().getAsJsonObject("driver").getAsJsonArray("violations").size();
+                jsonViolations += count;
+                mostViolations = Math.max(mostViolations, count);
+            }
+        }
+
+        assertEquals(csvViolations, jsonViolations);
+        assertTrue(mostViolations > 16, "the heavy tail reaches past the old JSON cap");
+    }
+
+    @Test
+    void factoriesAcceptExactlyTheListedTypes() throws Exception {
+        Date date = new Date();
+        for (String type : ViolationFactory.MOVING_VIOLATION_TYPES) {
+            assertTrue(ViolationFactory.createViolation(type, date) instanceof MovingViolation);
+        }
+        for (String type : ViolationFactory.NON_MOVING_VIOLATION_TYPES) {
+            assertTrue(ViolationFactory.createViolation(type, date) instanceof NonMovingViolation);
+        }
+        for (String type : CrashFactory.CRASH_TYPES) {
+            assertEquals(type, CrashFactory.getInstance().createCrash(type, date, new Name("Ann", "Jones")).getCrashType());
+        }
+        assertThrows(IllegalArgumentException.class, () -> ViolationFactory.createViolation("Jaywalking", date));
+        assertThrows(IllegalArgumentException.class, () -> CrashFactory.getInstance().createCrash("Meteor", date, new Name("Ann", "Jones")));
+        assertTrue(ViolationFactory.MOVING_VIOLATION_TYPES.stream().noneMatch(ViolationFactory.NON_MOVING_VIOLATION_TYPES::contains));
+    }
+}
@@ -0,0 +1,64 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds drivers for tests. Unless a test changes them, drivers are valid as of today:
+ * 40 years old, licensed in the US for five years, one recent vehicle they own and insure,
+ * and empty histories.
+ */
+final class TestDrivers {
+
+    private TestDrivers() {
+    }
+
+    /**
+     * Builds a valid driver.
+     * @param licenseNumber The license number, also used for the driver and vehicle IDs.
+     * @param firstName The first name.
+     * @param lastName The last name.
+     * @return The driver.
+     */
+    static Driver driver(String licenseNumber, String firstName, String lastName) {
+        LocalDate today = LocalDate.now();
+        return driver(licenseNumber, new Name(firstName, lastName), today.minusYears(40), today.minusYears(5),
+                today.plusYears(5), today.getYear() - 2, today.plusYears(1));
+    }
+
+    /**
+     * Builds a driver from the dates that decide their verdict.
+     * @param licenseNumber The license number, also used for the driver and vehicle IDs.
+     * @param name The name on every document.
+     * @param birthDate The birthdate.
+     * @param licenseIssued The date the license was issued.
+     * @param licenseExpires The date the license expires.
+     * @param vehicleYear The model year of the vehicle.
+     * @param insuranceExpires The date the insurance expires.
+     * @return The driver.
+     */
+    static Driver driver(String licenseNumber, Name name, LocalDate birthDate, LocalDate licenseIssued,
+                         LocalDate licenseExpires, int vehicleYear, LocalDate insuranceExpires) {
+        Date birth = date(birthDate);
+        DriverLicense license = new DriverLicense(licenseNumber, name, "12 Main St", birth, "US", "WA",
+                date(licenseIssued), date(licenseExpires));
+        Vehicle vehicle = new Vehicle("Toyota", "Corolla", "Blue", vehicleYear, name, "V-" + licenseNumber);
+        List<Vehicle> vehicles = new ArrayList<>();
+        vehicles.add(vehicle);
+        VehicleInsurance insurance = new VehicleInsurance(name, List.of(name), date(insuranceExpires), vehicle);
+        Driver driver = new Driver(name, birth, license, vehicles, insurance, new DriverHistory(null),
+                new VehicleHistory(null, null));
+        driver.setId("D-" + licenseNumber);
+        return driver;
+    }
+
+    /**
+     * Converts a local date to a Date at the start of the day in the system zone, as the loaders parse dates.
+     * @param date The date.
+     * @return The Date.
+     */
+    static Date date(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
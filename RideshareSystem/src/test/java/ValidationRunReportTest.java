@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.Test;
+
+class ValidationRunReportTest {
+
+    @Test
+    void filesAreReportedOncePerLoadOfTheRun() throws IOException {
+        RideshareMetrics metrics = RideshareMetrics.getInstance();
+        // an earlier load in the same process must not show up in the report
+        RideshareDriverValidator.loadData();
+        ValidationRunReport report = new ValidationRunReport(metrics.loaders());
+        List<Driver> drivers = RideshareDriverValidator.loadData();
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        report.print(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        Path file = Files.createTempFile("report", ".json");
+        try {
+            report.writeJson(file);
+            JsonObject files;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                files = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonObject("ingest").getAsJsonObject("files");
+            }
+            for (String name : List.of("driver.csv", "license.csv", "violation.csv")) {
+                assertEquals(drivers.size(), files.getAsJsonObject(name).get("rows").getAsLong(), name);
+                assertTrue(printed.toString(StandardCharsets.UTF_8).contains(name + ": " + drivers.size() + " rows in "));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
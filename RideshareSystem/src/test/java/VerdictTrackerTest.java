@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class VerdictTrackerTest {
+
+    @Test
+    void trackedVerdictsMatchFullValidationAfterEveryEvent() throws Exception {
+        RegistrationValidator validator = new RegistrationValidator();
+        VerdictTracker tracker = new VerdictTracker(validator);
+        Random random = new Random(9);
+        LocalDate today = LocalDate.now();
+        for (int d = 0; d < 20; d++) {
+            Driver driver = TestDrivers.driver("L" + d, "First", "Last" + d);
+            assertTrue(tracker.track(driver));
+            for (int e = 0; e < 6; e++) {
+                // mostly old events, so that some drivers stay valid
+                LocalDate date = today.minusDays(random.nextInt(3) == 0 ? random.nextInt(150) : 200 + random.nextInt(2000));
+                boolean valid;
+                switch (random.nextInt(3)) {
+                    case 0:
+                        valid = tracker.addDriverViolation(driver.getDriverLicense().getLicenseNumber(),
+                                ViolationFactory.createViolation(randomViolationType(random), TestDrivers.date(date)));
+                        break;
+                    case 1:
+                        valid = tracker.addVehicleViolation(driver.getDriverLicense().getLicenseNumber(),
+                                ViolationFactory.createViolation(randomViolationType(random), TestDrivers.date(date)));
+                        break;
+                    default:
+                        valid = tracker.addCrash(driver.getDriverLicense().getLicenseNumber(), CrashFactory.getInstance()
+                                .createCrash("Fender-bender", TestDrivers.date(date), new Name("Other", "Driver")));
+                        break;
+                }
+                assertEquals(validator.validate(driver), valid);
+            }
+        }
+        assertEquals(20, tracker.size());
+    }
+
+    @Test
+    void recentMovingViolationFailsTheVehicleHistoryCheck() {
+        VerdictTracker tracker = new VerdictTracker(new RegistrationValidator());
+        tracker.track(TestDrivers.driver("L1", "Ann", "Jones"));
+        assertNull(tracker.getFailedCheck("L1"));
+
+        assertFalse(tracker.addVehicleViolation("L1", ViolationFactory.createViolation("Distracted driving",
+                TestDrivers.date(LocalDate.now().minusDays(10)))));
+        assertEquals(ValidationCheck.VEHICLE_HISTORY, tracker.getFailedCheck("L1"));
+
+        tracker.untrack("L1");
+        assertThrows(IllegalArgumentException.class, () -> tracker.isValid("L1"));
+    }
+
+    private static String randomViolationType(Random random) {
+        int type = random.nextInt(ViolationFactory.MOVING_VIOLATION_TYPES.size() + ViolationFactory.NON_MOVING_VIOLATION_TYPES.size());
+        return type < ViolationFactory.MOVING_VIOLATION_TYPES.size() ? ViolationFactory.MOVING_VIOLATION_TYPES.get(type)
+                : ViolationFactory.NON_MOVING_VIOLATION_TYPES.get(type - ViolationFactory.MOVING_VIOLATION_TYPES.size());
+    }
+}
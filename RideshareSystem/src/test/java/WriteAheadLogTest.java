@@ -0,0 +1,126 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WriteAheadLogTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("wal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void appendedRecordsAreReplayedInOrderAfterTheGivenLsn() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            for (int i = 1; i <= 5; i++) {
+                assertEquals(i, log.append((byte) i, new byte[] {(byte) (10 * i)}));
+            }
+            log.roll();
+            log.append((byte) 6, new byte[] {60});
+        }
+
+        List<Long> lsns = new ArrayList<>();
+        List<Byte> payloads = new ArrayList<>();
+        long last = WriteAheadLog.replay(directory, 2, (lsn, type, payload) -> {
+            lsns.add(lsn);
+            payloads.add(payload[0]);
+        });
+
+        assertEquals(6, last);
+        assertEquals(List.of(3L, 4L, 5L, 6L), lsns);
+        assertEquals(List.of((byte) 30, (byte) 40, (byte) 50, (byte) 60), payloads);
+    }
+
+    @Test
+    void appendIsOnDiskWhenItReturns() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            log.append((byte) 1, new byte[] {1, 2, 3});
+            // read while the log is still open: nothing may be waiting in memory
+            assertEquals(1, WriteAheadLog.replay(directory, 0, (lsn, type, payload) -> assertArrayEquals(new byte[] {1, 2, 3}, payload)));
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedAndTheLogCanContinue() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            log.append((byte) 1, new byte[] {1});
+            log.append((byte) 1, new byte[] {2});
+        }
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 9, 0, 0}));
+        }
+
+        assertEquals(2, WriteAheadLog.replay(directory, 0, (lsn, type, payload) -> { }));
+        assertEquals(intact, Files.size(segment));
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 3)) {
+            log.append((byte) 1, new byte[] {3});
+        }
+        assertEquals(3, WriteAheadLog.replay(directory, 0, (lsn, type, payload) -> { }));
+    }
+
+    @Test
+    void lengthBeyondTheEndOfTheFileEndsTheLogWithoutReadingIt() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            log.append((byte) 1, new byte[] {1});
+        }
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(64).putInt(0, Integer.MAX_VALUE - 8));
+        }
+
+        List<Long> lsns = new ArrayList<>();
+        assertEquals(1, WriteAheadLog.replay(directory, 0, (lsn, type, payload) -> lsns.add(lsn)));
+        assertEquals(List.of(1L), lsns);
+        assertEquals(intact, Files.size(segment));
+    }
+
+    @Test
+    void missingSequenceNumberEndsTheLog() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            log.append((byte) 1, new byte[] {1});
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, 5)) {
+            log.append((byte) 1, new byte[] {5});
+        }
+
+        List<Long> lsns = new ArrayList<>();
+        assertEquals(1, WriteAheadLog.replay(directory, 0, (lsn, type, payload) -> lsns.add(lsn)));
+        assertEquals(List.of(1L), lsns);
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            List<Path> segments = paths.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+}